@@ -0,0 +1,515 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A annotation index file written by {@link AnnotationIndexFileWriter},
+ * memory mapped and queried without loading the indexed classes, e.g.
+ *
+ * <pre>
+ * AnnotationIndexFile index = AnnotationIndexFile.open(Paths.get("META-INF/annotations.idx"));
+ * ClassFileAnnotation resource = index.getAnnotation("a.b.MyBean", "javax.annotation.Resource");
+ * Object name = resource.get("name");
+ * </pre>
+ *
+ * The version and the checksum of the file are checked when it is opened.
+ * Queries do not deserialize the file: the classes and annotation types are
+ * found by binary search over tables sorted by the UTF-8 bytes of their
+ * names, annotations of other types and other methods are skipped by their
+ * length, only the requested annotations are decoded.
+ *
+ * <p>
+ * Format, version 1, big endian. Strings are a {@code int} length followed
+ * by the UTF-8 bytes, they are referenced by their offset in the string
+ * area:
+ * </p>
+ *
+ * <pre>
+ * int magic, u2 version, u2 reserved, int CRC32 of the rest of the file
+ * int class count, int annotation type count, int records offset, int strings offset
+ * class table:           per class (int name, int record offset relative to the records)
+ * annotation type table: per type (int name, int offset of the list of class names)
+ * class lists:           per type (int count, int class name...)
+ * records:               per class (annotations, u2 method count,
+ *                        per method (int name and descriptor, int length, annotations,
+ *                                    u2 parameter count, annotations per parameter))
+ * strings
+ *
+ * annotations: int length, u2 count, per annotation (int type, int length, u2 value count,
+ *              per value (int name, element value))
+ * </pre>
+ *
+ * Element values use the tags of the class file format, with the values
+ * inline and strings as reference.
+ *
+ * Instances are immutable and thread safe. A malformed file is reported with
+ * a {@link IllegalArgumentException}.
+ */
+public final class AnnotationIndexFile {
+
+    /** Magic number, {@code JAIX}. */
+    static final int MAGIC = 0x4A414958;
+    /** Version of the format. */
+    static final int VERSION = 1;
+    /** Size of the header, the tables start after it. */
+    static final int HEADER_SIZE = 28;
+    /** Size of a entry of the class and of the annotation type table. */
+    static final int ENTRY_SIZE = 8;
+
+    private static final int VERSION_OFFSET = 4;
+    private static final int CHECKSUM_OFFSET = 8;
+    private static final int CLASS_COUNT_OFFSET = 12;
+    private static final int TYPE_COUNT_OFFSET = 16;
+    private static final int RECORDS_OFFSET = 20;
+    private static final int STRINGS_OFFSET = 24;
+    private static final int CHUNK_SIZE = 8192;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** Read with absolute positions only, so it can be shared by all threads. */
+    private final ByteBuffer buffer;
+    private final int classCount;
+    private final int typeCount;
+    private final int recordsOffset;
+    private final int stringsOffset;
+
+    private AnnotationIndexFile(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a annotation index file");
+        }
+        int version = buffer.getShort(VERSION_OFFSET) & 0xFFFF;
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported annotation index version " + version + ", expected "
+                            + VERSION);
+        }
+        if (buffer.getInt(CHECKSUM_OFFSET) != checksum(buffer)) {
+            throw new IllegalArgumentException("Checksum mismatch, the annotation index file is corrupt");
+        }
+        this.classCount = buffer.getInt(CLASS_COUNT_OFFSET);
+        this.typeCount = buffer.getInt(TYPE_COUNT_OFFSET);
+        this.recordsOffset = buffer.getInt(RECORDS_OFFSET);
+        this.stringsOffset = buffer.getInt(STRINGS_OFFSET);
+    }
+
+    /**
+     * Memory map and check the index file.
+     *
+     * @param indexFile
+     *            - the index file
+     * @return the index
+     * @throws IOException
+     *             if the file could not be read
+     */
+    public static AnnotationIndexFile open(Path indexFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Annotation index file '" + indexFile + "' is too large");
+            }
+            return of(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Check the index in {@code buffer}.
+     *
+     * @param buffer
+     *            - the content of a index file
+     * @return the index
+     */
+    static AnnotationIndexFile of(ByteBuffer buffer) {
+        try {
+            return new AnnotationIndexFile(buffer);
+        } catch (IndexOutOfBoundsException exception) {
+            throw new IllegalArgumentException("Malformed annotation index file", exception);
+        }
+    }
+
+    /**
+     * Returns the number of indexed classes.
+     *
+     * @return number of classes
+     */
+    public int getClassCount() {
+        return classCount;
+    }
+
+    /**
+     * Check if {@code className} is indexed.
+     *
+     * @param className
+     *            - name of the class in the binary format
+     * @return true if the class is indexed
+     */
+    public boolean contains(String className) {
+        return record(className) >= 0;
+    }
+
+    /**
+     * Returns the annotations of the class {@code className}.
+     *
+     * @param className
+     *            - name of the class in the binary format
+     * @return unmodifiable list of the annotations, empty if the class is not
+     *         indexed
+     */
+    public List<ClassFileAnnotation> getAnnotations(String className) {
+        int record = record(className);
+        return record < 0 ? Collections.<ClassFileAnnotation> emptyList() : annotations(record);
+    }
+
+    /**
+     * Returns the annotation {@code annotationTypeName} of the class
+     * {@code className}.
+     *
+     * @param className
+     *            - name of the class in the binary format
+     * @param annotationTypeName
+     *            - name of the annotation type in the binary format
+     * @return the annotation, or {@code null} if there is none
+     */
+    public ClassFileAnnotation getAnnotation(String className, String annotationTypeName) {
+        int record = record(className);
+        return record < 0 ? null : annotation(record, annotationTypeName);
+    }
+
+    /**
+     * Returns the annotations of a method or constructor.
+     *
+     * @param className
+     *            - name of the class in the binary format
+     * @param methodName
+     *            - name of the method, {@code <init>} for constructors
+     * @param methodDescriptor
+     *            - descriptor of the method, e.g.
+     *            {@code (ILjava/lang/String;)V}
+     * @return unmodifiable list of the annotations, empty if there are none
+     */
+    public List<ClassFileAnnotation> getMethodAnnotations(String className, String methodName,
+                    String methodDescriptor) {
+        int method = method(className, methodName, methodDescriptor);
+        return method < 0 ? Collections.<ClassFileAnnotation> emptyList() : annotations(method);
+    }
+
+    /**
+     * Returns the annotation {@code annotationTypeName} of a method or
+     * constructor.
+     *
+     * @param className
+     *            - name of the class in the binary format
+     * @param methodName
+     *            - name of the method, {@code <init>} for constructors
+     * @param methodDescriptor
+     *            - descriptor of the method
+     * @param annotationTypeName
+     *            - name of the annotation type in the binary format
+     * @return the annotation, or {@code null} if there is none
+     */
+    public ClassFileAnnotation getMethodAnnotation(String className, String methodName, String methodDescriptor,
+                    String annotationTypeName) {
+        int method = method(className, methodName, methodDescriptor);
+        return method < 0 ? null : annotation(method, annotationTypeName);
+    }
+
+    /**
+     * Returns the annotation {@code annotationTypeName} of the parameter
+     * {@code parameterIndex} of a method or constructor.
+     *
+     * @param className
+     *            - name of the class in the binary format
+     * @param methodName
+     *            - name of the method, {@code <init>} for constructors
+     * @param methodDescriptor
+     *            - descriptor of the method
+     * @param parameterIndex
+     *            - index of the parameter
+     * @param annotationTypeName
+     *            - name of the annotation type in the binary format
+     * @return the annotation, or {@code null} if there is none
+     */
+    public ClassFileAnnotation getParameterAnnotation(String className, String methodName, String methodDescriptor,
+                    int parameterIndex, String annotationTypeName) {
+        int method = method(className, methodName, methodDescriptor);
+        if (method < 0) {
+            return null;
+        }
+        int parameters = skipBlock(method);
+        int parameterCount = buffer.getShort(parameters) & 0xFFFF;
+        if (parameterIndex < 0 || parameterIndex >= parameterCount) {
+            return null;
+        }
+        int block = parameters + 2;
+        for (int index = 0; index < parameterIndex; index++) {
+            block = skipBlock(block);
+        }
+        return annotation(block, annotationTypeName);
+    }
+
+    /**
+     * Returns the classes annotated with {@code annotationTypeName}.
+     *
+     * @param annotationTypeName
+     *            - name of the annotation type in the binary format
+     * @return unmodifiable list of the class names, sorted
+     */
+    public List<String> getAnnotatedClassNames(String annotationTypeName) {
+        int entry = find(HEADER_SIZE + classCount * ENTRY_SIZE, typeCount, annotationTypeName.getBytes(UTF8));
+        if (entry < 0) {
+            return Collections.emptyList();
+        }
+        int list = buffer.getInt(entry + 4);
+        String[] classNames = new String[buffer.getInt(list)];
+        for (int index = 0; index < classNames.length; index++) {
+            classNames[index] = string(buffer.getInt(list + 4 + index * 4));
+        }
+        return Collections.unmodifiableList(Arrays.asList(classNames));
+    }
+
+    /**
+     * Compare byte arrays lexicographically, as unsigned bytes.
+     *
+     * @param first
+     *            - a byte array
+     * @param second
+     *            - a byte array
+     * @return negative, zero or positive if {@code first} is less, equal or
+     *         greater than {@code second}
+     */
+    static int compare(byte[] first, byte[] second) {
+        int length = Math.min(first.length, second.length);
+        for (int index = 0; index < length; index++) {
+            int difference = (first[index] & 0xFF) - (second[index] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return first.length - second.length;
+    }
+
+    /**
+     * Returns the position of the record of {@code className}, or
+     * {@code -1}.
+     */
+    private int record(String className) {
+        int entry = find(HEADER_SIZE, classCount, className.getBytes(UTF8));
+        return entry < 0 ? -1 : recordsOffset + buffer.getInt(entry + 4);
+    }
+
+    /**
+     * Returns the position of the content of a method, starting with its
+     * annotations, or {@code -1}.
+     */
+    private int method(String className, String methodName, String methodDescriptor) {
+        int record = record(className);
+        if (record < 0) {
+            return -1;
+        }
+        byte[] key = (methodName + methodDescriptor).getBytes(UTF8);
+        int position = skipBlock(record);
+        int methodCount = buffer.getShort(position) & 0xFFFF;
+        position += 2;
+        for (int index = 0; index < methodCount; index++) {
+            if (compare(key, buffer.getInt(position)) == 0) {
+                return position + 8;
+            }
+            position += 8 + buffer.getInt(position + 4);
+        }
+        return -1;
+    }
+
+    /**
+     * Binary search in a table of {@code (int name, int value)} entries.
+     */
+    private int find(int table, int count, byte[] name) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = table + middle * ENTRY_SIZE;
+            int comparison = compare(name, buffer.getInt(entry));
+            if (comparison == 0) {
+                return entry;
+            } else if (comparison < 0) {
+                high = middle - 1;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compare {@code name} with the string at {@code stringOffset}, without
+     * decoding the string.
+     */
+    private int compare(byte[] name, int stringOffset) {
+        int position = stringsOffset + stringOffset;
+        int length = buffer.getInt(position);
+        int common = Math.min(length, name.length);
+        for (int index = 0; index < common; index++) {
+            int difference = (name[index] & 0xFF) - (buffer.get(position + 4 + index) & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return name.length - length;
+    }
+
+    private String string(int stringOffset) {
+        int position = stringsOffset + stringOffset;
+        byte[] bytes = new byte[buffer.getInt(position)];
+        for (int index = 0; index < bytes.length; index++) {
+            bytes[index] = buffer.get(position + 4 + index);
+        }
+        return new String(bytes, UTF8);
+    }
+
+    private int skipBlock(int block) {
+        return block + 4 + buffer.getInt(block);
+    }
+
+    private List<ClassFileAnnotation> annotations(int block) {
+        Cursor cursor = new Cursor(block + 4);
+        ClassFileAnnotation[] annotations = new ClassFileAnnotation[cursor.u2()];
+        for (int index = 0; index < annotations.length; index++) {
+            annotations[index] = cursor.annotation();
+        }
+        return Collections.unmodifiableList(Arrays.asList(annotations));
+    }
+
+    private ClassFileAnnotation annotation(int block, String annotationTypeName) {
+        byte[] typeName = annotationTypeName.getBytes(UTF8);
+        int count = buffer.getShort(block + 4) & 0xFFFF;
+        int position = block + 6;
+        for (int index = 0; index < count; index++) {
+            if (compare(typeName, buffer.getInt(position)) == 0) {
+                return new Cursor(position).annotation();
+            }
+            position += 8 + buffer.getInt(position + 4);
+        }
+        return null;
+    }
+
+    private int checksum(ByteBuffer content) {
+        ByteBuffer checked = content.duplicate();
+        checked.position(CLASS_COUNT_OFFSET);
+        CRC32 checksum = new CRC32();
+        byte[] chunk = new byte[CHUNK_SIZE];
+        while (checked.hasRemaining()) {
+            int length = Math.min(chunk.length, checked.remaining());
+            checked.get(chunk, 0, length);
+            checksum.update(chunk, 0, length);
+        }
+        return (int)checksum.getValue();
+    }
+
+    /**
+     * Decodes annotations, starting at a position.
+     */
+    private final class Cursor {
+
+        private int position;
+
+        Cursor(int position) {
+            this.position = position;
+        }
+
+        ClassFileAnnotation annotation() {
+            String typeName = string(i4());
+            i4(); // length
+            int valueCount = u2();
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int index = 0; index < valueCount; index++) {
+                String name = string(i4());
+                values.put(name, value());
+            }
+            return new ClassFileAnnotation(typeName, Collections.unmodifiableMap(values));
+        }
+
+        private Object value() {
+            char tag = (char)(buffer.get(position++) & 0xFF);
+            switch (tag) {
+                case 'B':
+                    return Byte.valueOf(buffer.get(position++));
+                case 'C':
+                    return Character.valueOf((char)u2());
+                case 'S':
+                    return Short.valueOf((short)u2());
+                case 'Z':
+                    return Boolean.valueOf(buffer.get(position++) != 0);
+                case 'I':
+                    return Integer.valueOf(i4());
+                case 'J':
+                    return Long.valueOf(i8());
+                case 'F':
+                    return Float.valueOf(Float.intBitsToFloat(i4()));
+                case 'D':
+                    return Double.valueOf(Double.longBitsToDouble(i8()));
+                case 's':
+                    return string(i4());
+                case 'e':
+                    String enumType = string(i4());
+                    return new ClassFileAnnotation.EnumConstant(enumType, string(i4()));
+                case 'c':
+                    return new ClassFileAnnotation.ClassReference(string(i4()));
+                case '@':
+                    return annotation();
+                case '[':
+                    List<Object> elements = new ArrayList<>();
+                    int count = u2();
+                    for (int index = 0; index < count; index++) {
+                        elements.add(value());
+                    }
+                    return Collections.unmodifiableList(elements);
+                default:
+                    throw new IllegalArgumentException("Unknown element value tag '" + tag + "'");
+            }
+        }
+
+        int u2() {
+            int value = buffer.getShort(position) & 0xFFFF;
+            position += 2;
+            return value;
+        }
+
+        private int i4() {
+            int value = buffer.getInt(position);
+            position += 4;
+            return value;
+        }
+
+        private long i8() {
+            long value = buffer.getLong(position);
+            position += 8;
+            return value;
+        }
+    }
+
+}
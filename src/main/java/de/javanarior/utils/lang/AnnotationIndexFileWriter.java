@@ -0,0 +1,425 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Writes the runtime visible annotations of class files to a index file,
+ * which is read with {@link AnnotationIndexFile}. Meant to run during the
+ * build, e.g.
+ *
+ * <pre>
+ * java -cp java-utils.jar de.javanarior.utils.lang.AnnotationIndexFileWriter \
+ *     target/classes/META-INF/annotations.idx target/classes
+ * </pre>
+ *
+ * Only classes with annotations on the class, a method or a method
+ * parameter are written. The values are written as found in the class file,
+ * default values of attributes are not contained.
+ *
+ * Instances are not thread safe.
+ */
+public final class AnnotationIndexFileWriter {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final byte[] RUNTIME_VISIBLE = "RuntimeVisible".getBytes(UTF8);
+
+    /**
+     * The tables are sorted by the UTF-8 bytes of the names, so they can be
+     * searched without decoding the names.
+     */
+    private static final Comparator<String> UTF8_ORDER = new Comparator<String>() {
+        @Override
+        public int compare(String first, String second) {
+            return AnnotationIndexFile.compare(first.getBytes(UTF8), second.getBytes(UTF8));
+        }
+    };
+
+    private final Map<String, ClassFileReader> classes = new HashMap<>();
+
+    /**
+     * Add a class. Classes without annotations are ignored.
+     *
+     * @param container
+     *            - the class file
+     * @return this writer
+     */
+    public AnnotationIndexFileWriter add(ByteCodeContainer container) {
+        byte[] byteCode = container.getByteCode();
+        if (!ClassFiles.contains(byteCode, RUNTIME_VISIBLE)) {
+            return this;
+        }
+        ClassFileReader classFile;
+        try {
+            classFile = ClassFileReader.read(byteCode);
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException("Could not read class '" + container.getClassName() + "'",
+                            exception);
+        }
+        if (isAnnotated(classFile)) {
+            classes.put(classFile.getClassName(), classFile);
+        }
+        return this;
+    }
+
+    /**
+     * Add the classes of a directory, including sub directories, or of a jar
+     * file.
+     *
+     * @param directoryOrJar
+     *            - class path element to add
+     * @return this writer
+     * @throws IOException
+     *             if a file could not be read
+     */
+    public AnnotationIndexFileWriter add(Path directoryOrJar) throws IOException {
+        ClassFiles.read(directoryOrJar, new ClassFiles.Visitor() {
+            @Override
+            public void visit(ByteCodeContainer container) {
+                add(container);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Write the index file.
+     *
+     * @param indexFile
+     *            - the file to write, a existing file is replaced
+     * @throws IOException
+     *             if the file could not be written
+     */
+    public void write(Path indexFile) throws IOException {
+        try (OutputStream output = Files.newOutputStream(indexFile)) {
+            output.write(toByteArray());
+        }
+    }
+
+    /**
+     * Write a index file of directories and jar files.
+     *
+     * @param args
+     *            - the index file, followed by the directories and jar files
+     *            to index
+     * @throws IOException
+     *             if a file could not be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: AnnotationIndexFileWriter <index file> <directory or jar>...");
+        }
+        AnnotationIndexFileWriter writer = new AnnotationIndexFileWriter();
+        for (int index = 1; index < args.length; index++) {
+            writer.add(Paths.get(args[index]));
+        }
+        writer.write(Paths.get(args[0]));
+    }
+
+    /**
+     * Returns the content of the index file.
+     *
+     * @return the index file
+     */
+    byte[] toByteArray() {
+        Output strings = new Output();
+        Map<String, Integer> stringOffsets = new HashMap<>();
+        Output records = new Output();
+        List<String> classNames = sorted(classes.keySet());
+        int[] recordOffsets = new int[classNames.size()];
+        Map<String, List<String>> annotatedClasses = new TreeMap<>(UTF8_ORDER);
+        for (int index = 0; index < recordOffsets.length; index++) {
+            ClassFileReader classFile = classes.get(classNames.get(index));
+            recordOffsets[index] = records.size();
+            records.write(record(classFile, strings, stringOffsets));
+            for (ClassFileAnnotation annotation : classFile.getAnnotations()) {
+                List<String> annotated = annotatedClasses.get(annotation.getTypeName());
+                if (annotated == null) {
+                    annotated = new ArrayList<>();
+                    annotatedClasses.put(annotation.getTypeName(), annotated);
+                }
+                annotated.add(classFile.getClassName());
+            }
+        }
+        Output tables = new Output();
+        int typeTableOffset = AnnotationIndexFile.HEADER_SIZE + classNames.size() * AnnotationIndexFile.ENTRY_SIZE;
+        int listOffset = typeTableOffset + annotatedClasses.size() * AnnotationIndexFile.ENTRY_SIZE;
+        for (int index = 0; index < recordOffsets.length; index++) {
+            tables.writeInt(string(classNames.get(index), strings, stringOffsets));
+            tables.writeInt(recordOffsets[index]);
+        }
+        Output lists = new Output();
+        for (Map.Entry<String, List<String>> entry : annotatedClasses.entrySet()) {
+            tables.writeInt(string(entry.getKey(), strings, stringOffsets));
+            tables.writeInt(listOffset + lists.size());
+            lists.writeInt(entry.getValue().size());
+            for (String className : entry.getValue()) {
+                lists.writeInt(string(className, strings, stringOffsets));
+            }
+        }
+        int recordsOffset = listOffset + lists.size();
+        Output body = new Output();
+        body.writeInt(classNames.size());
+        body.writeInt(annotatedClasses.size());
+        body.writeInt(recordsOffset);
+        body.writeInt(recordsOffset + records.size());
+        body.write(tables.toByteArray());
+        body.write(lists.toByteArray());
+        body.write(records.toByteArray());
+        body.write(strings.toByteArray());
+        byte[] content = body.toByteArray();
+        CRC32 checksum = new CRC32();
+        checksum.update(content);
+        Output file = new Output();
+        file.writeInt(AnnotationIndexFile.MAGIC);
+        file.writeShort(AnnotationIndexFile.VERSION);
+        file.writeShort(0);
+        file.writeInt((int)checksum.getValue());
+        file.write(content);
+        return file.toByteArray();
+    }
+
+    /**
+     * The class annotations and the annotated methods of a class.
+     */
+    private static byte[] record(ClassFileReader classFile, Output strings, Map<String, Integer> stringOffsets) {
+        Output record = new Output();
+        record.write(annotations(classFile.getAnnotations(), strings, stringOffsets));
+        List<byte[]> methods = new ArrayList<>();
+        for (String method : classFile.getMethods()) {
+            int separator = method.indexOf('(');
+            String name = method.substring(0, separator);
+            String descriptor = method.substring(separator);
+            List<ClassFileAnnotation> annotations = classFile.getMethodAnnotations(name, descriptor);
+            List<List<ClassFileAnnotation>> parameters = classFile.getParameterAnnotations(name, descriptor);
+            if (annotations.isEmpty() && parameters.isEmpty()) {
+                continue;
+            }
+            Output content = new Output();
+            content.write(annotations(annotations, strings, stringOffsets));
+            content.writeShort(parameters.size());
+            for (List<ClassFileAnnotation> parameter : parameters) {
+                content.write(annotations(parameter, strings, stringOffsets));
+            }
+            Output entry = new Output();
+            entry.writeInt(string(method, strings, stringOffsets));
+            entry.writeInt(content.size());
+            entry.write(content.toByteArray());
+            methods.add(entry.toByteArray());
+        }
+        record.writeShort(methods.size());
+        for (byte[] method : methods) {
+            record.write(method);
+        }
+        return record.toByteArray();
+    }
+
+    /**
+     * A block of annotations, with its length to skip it.
+     */
+    private static byte[] annotations(List<ClassFileAnnotation> annotations, Output strings,
+                    Map<String, Integer> stringOffsets) {
+        Output content = new Output();
+        content.writeShort(annotations.size());
+        for (ClassFileAnnotation annotation : annotations) {
+            content.write(annotation(annotation, strings, stringOffsets));
+        }
+        Output block = new Output();
+        block.writeInt(content.size());
+        block.write(content.toByteArray());
+        return block.toByteArray();
+    }
+
+    private static byte[] annotation(ClassFileAnnotation annotation, Output strings,
+                    Map<String, Integer> stringOffsets) {
+        Output content = new Output();
+        content.writeShort(annotation.getValues().size());
+        for (Map.Entry<String, Object> value : annotation.getValues().entrySet()) {
+            content.writeInt(string(value.getKey(), strings, stringOffsets));
+            writeValue(content, value.getValue(), strings, stringOffsets);
+        }
+        Output entry = new Output();
+        entry.writeInt(string(annotation.getTypeName(), strings, stringOffsets));
+        entry.writeInt(content.size());
+        entry.write(content.toByteArray());
+        return entry.toByteArray();
+    }
+
+    private static void writeValue(Output output, Object value, Output strings, Map<String, Integer> stringOffsets) {
+        if (value instanceof Byte) {
+            output.writeByte('B');
+            output.writeByte(((Byte)value).byteValue());
+        } else if (value instanceof Character) {
+            output.writeByte('C');
+            output.writeShort(((Character)value).charValue());
+        } else if (value instanceof Short) {
+            output.writeByte('S');
+            output.writeShort(((Short)value).shortValue());
+        } else if (value instanceof Boolean) {
+            output.writeByte('Z');
+            output.writeByte(((Boolean)value).booleanValue() ? 1 : 0);
+        } else if (value instanceof Integer) {
+            output.writeByte('I');
+            output.writeInt(((Integer)value).intValue());
+        } else if (value instanceof Long) {
+            output.writeByte('J');
+            output.writeLong(((Long)value).longValue());
+        } else if (value instanceof Float) {
+            output.writeByte('F');
+            output.writeInt(Float.floatToRawIntBits(((Float)value).floatValue()));
+        } else if (value instanceof Double) {
+            output.writeByte('D');
+            output.writeLong(Double.doubleToRawLongBits(((Double)value).doubleValue()));
+        } else if (value instanceof String) {
+            output.writeByte('s');
+            output.writeInt(string((String)value, strings, stringOffsets));
+        } else if (value instanceof ClassFileAnnotation.EnumConstant) {
+            ClassFileAnnotation.EnumConstant constant = (ClassFileAnnotation.EnumConstant)value;
+            output.writeByte('e');
+            output.writeInt(string(constant.getTypeName(), strings, stringOffsets));
+            output.writeInt(string(constant.getName(), strings, stringOffsets));
+        } else if (value instanceof ClassFileAnnotation.ClassReference) {
+            output.writeByte('c');
+            output.writeInt(string(((ClassFileAnnotation.ClassReference)value).getTypeName(), strings,
+                            stringOffsets));
+        } else if (value instanceof ClassFileAnnotation) {
+            output.writeByte('@');
+            output.write(annotation((ClassFileAnnotation)value, strings, stringOffsets));
+        } else {
+            List<?> elements = (List<?>)value;
+            output.writeByte('[');
+            output.writeShort(elements.size());
+            for (Object element : elements) {
+                writeValue(output, element, strings, stringOffsets);
+            }
+        }
+    }
+
+    /**
+     * Returns the offset of {@code value} in the string area, each string is
+     * written once.
+     */
+    private static int string(String value, Output strings, Map<String, Integer> stringOffsets) {
+        Integer offset = stringOffsets.get(value);
+        if (offset == null) {
+            offset = Integer.valueOf(strings.size());
+            byte[] bytes = value.getBytes(UTF8);
+            strings.writeInt(bytes.length);
+            strings.write(bytes);
+            stringOffsets.put(value, offset);
+        }
+        return offset.intValue();
+    }
+
+    private static boolean isAnnotated(ClassFileReader classFile) {
+        if (!classFile.getAnnotations().isEmpty()) {
+            return true;
+        }
+        for (String method : classFile.getMethods()) {
+            int separator = method.indexOf('(');
+            String name = method.substring(0, separator);
+            String descriptor = method.substring(separator);
+            if (!classFile.getMethodAnnotations(name, descriptor).isEmpty()
+                            || !classFile.getParameterAnnotations(name, descriptor).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> sorted(Iterable<String> names) {
+        List<String> sorted = new ArrayList<>();
+        for (String name : names) {
+            sorted.add(name);
+        }
+        Collections.sort(sorted, UTF8_ORDER);
+        return sorted;
+    }
+
+    /**
+     * A DataOutputStream on a byte array, which can not fail.
+     */
+    private static final class Output {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream data = new DataOutputStream(bytes);
+
+        int size() {
+            return data.size();
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+
+        void write(byte[] value) {
+            try {
+                data.write(value);
+            } catch (IOException exception) {
+                throw new IllegalStateException(exception);
+            }
+        }
+
+        void writeByte(int value) {
+            try {
+                data.writeByte(value);
+            } catch (IOException exception) {
+                throw new IllegalStateException(exception);
+            }
+        }
+
+        void writeShort(int value) {
+            try {
+                data.writeShort(value);
+            } catch (IOException exception) {
+                throw new IllegalStateException(exception);
+            }
+        }
+
+        void writeInt(int value) {
+            try {
+                data.writeInt(value);
+            } catch (IOException exception) {
+                throw new IllegalStateException(exception);
+            }
+        }
+
+        void writeLong(long value) {
+            try {
+                data.writeLong(value);
+            } catch (IOException exception) {
+                throw new IllegalStateException(exception);
+            }
+        }
+    }
+
+}
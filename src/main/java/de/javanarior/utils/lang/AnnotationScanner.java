@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the classes with given annotations by reading their class files,
+ * without loading them, e.g.
+ *
+ * <pre>
+ * AnnotationScanner scanner = new AnnotationScanner("javax.annotation.Resource");
+ * for (ScannedClass resource : scanner.scan(Paths.get("target/classes"))) {
+ *     Object name = resource.getAnnotation("javax.annotation.Resource").get("name");
+ * }
+ * </pre>
+ *
+ * A class file is only parsed, if its constant pool contains the descriptor
+ * of one of the annotations. Only the runtime visible class annotations are
+ * considered. The matching classes can be loaded with
+ * {@link ScannedClass#load()}, the others are never handed to a classloader.
+ *
+ * Instances are immutable and thread safe.
+ */
+public final class AnnotationScanner {
+
+    private final String[] annotationTypeNames;
+    private final byte[][] descriptors;
+
+    /**
+     * Create a new AnnotationScanner instance.
+     *
+     * @param annotationTypeNames
+     *            - names of the annotation types to find, in the binary
+     *            format
+     */
+    public AnnotationScanner(String... annotationTypeNames) {
+        this.annotationTypeNames = annotationTypeNames.clone();
+        this.descriptors = new byte[annotationTypeNames.length][];
+        for (int index = 0; index < annotationTypeNames.length; index++) {
+            descriptors[index] = ClassFiles.modifiedUtf8("L" + annotationTypeNames[index].replace('.', '/') + ";");
+        }
+    }
+
+    /**
+     * Scan a single class.
+     *
+     * @param container
+     *            - the class to scan
+     * @return the scanned class, or {@code null} if it has none of the
+     *         annotations
+     */
+    public ScannedClass scan(ByteCodeContainer container) {
+        byte[] byteCode = container.getByteCode();
+        if (!mayContainAnnotation(byteCode)) {
+            return null;
+        }
+        ClassFileReader classFile;
+        try {
+            classFile = ClassFileReader.read(byteCode);
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException("Could not read class '" + container.getClassName() + "'",
+                            exception);
+        }
+        List<ClassFileAnnotation> matching = new ArrayList<>();
+        for (String annotationTypeName : annotationTypeNames) {
+            ClassFileAnnotation annotation = classFile.getAnnotation(annotationTypeName);
+            if (annotation != null) {
+                matching.add(annotation);
+            }
+        }
+        return matching.isEmpty() ? null : new ScannedClass(container, matching);
+    }
+
+    /**
+     * Scan classes.
+     *
+     * @param containers
+     *            - the classes to scan
+     * @return the classes with at least one of the annotations
+     */
+    public List<ScannedClass> scan(Iterable<ByteCodeContainer> containers) {
+        List<ScannedClass> found = new ArrayList<>();
+        for (ByteCodeContainer container : containers) {
+            add(found, container);
+        }
+        return found;
+    }
+
+    /**
+     * Scan the class files in a directory, including sub directories, or in
+     * a jar file.
+     *
+     * @param directoryOrJar
+     *            - class path element to scan
+     * @return the classes with at least one of the annotations
+     * @throws IOException
+     *             if a file could not be read
+     */
+    public List<ScannedClass> scan(Path directoryOrJar) throws IOException {
+        final List<ScannedClass> found = new ArrayList<>();
+        ClassFiles.read(directoryOrJar, new ClassFiles.Visitor() {
+            @Override
+            public void visit(ByteCodeContainer container) {
+                add(found, container);
+            }
+        });
+        return found;
+    }
+
+    private void add(List<ScannedClass> found, ByteCodeContainer container) {
+        ScannedClass scanned = scan(container);
+        if (scanned != null) {
+            found.add(scanned);
+        }
+    }
+
+    /**
+     * A annotation is referenced by the descriptor of its type in the
+     * constant pool, so a class file without any descriptor is skipped
+     * without parsing.
+     */
+    private boolean mayContainAnnotation(byte[] byteCode) {
+        for (byte[] descriptor : descriptors) {
+            if (ClassFiles.contains(byteCode, descriptor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
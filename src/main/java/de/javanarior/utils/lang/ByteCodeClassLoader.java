@@ -15,24 +15,63 @@
  */
 package de.javanarior.utils.lang;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Classloader to load bytecode directly from byte array. This classloader
  * can be used
  * to load classes from Java Compiler API which are compiled in memory or from
  * other byte generating frameworks like asm.
  * The ClassLoader follows the 'parent-first' delegation model .
+ * The ClassLoader is parallel capable, classes are loaded under a lock per
+ * class name, so classes with different names are loaded concurrently.
+ * Classes known to be generated skip the parent delegation, so defining
+ * them costs no {@link ClassNotFoundException}: the classes of a batch
+ * loaded with {@link #load(Collection)} and the classes of packages
+ * registered with {@link #addGeneratedPackage(String)}. For other classes
+ * the parent is asked, names it does not know are remembered in a negative
+ * cache of at most {@value #MAX_UNKNOWN_NAMES} names, least recently used
+ * names are evicted. {@link #invalidateCaches()} clears the negative cache.
  */
 public final class ByteCodeClassLoader extends ClassLoader {
 
+    static {
+        registerAsParallelCapable();
+    }
+
+    /** Maximal number of remembered names unknown to the parent. */
+    static final int MAX_UNKNOWN_NAMES = 1024;
+
     private static final ByteCodeClassLoader INSTANCE = new ByteCodeClassLoader(getSystemClassLoader());
 
+    private final AtomicLong definedClassCount = new AtomicLong();
+    private final Set<String> generatedPackages = new CopyOnWriteArraySet<>();
+    /** Access ordered, guarded by itself. */
+    private final Map<String, Boolean> unknownToParent = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_UNKNOWN_NAMES;
+        }
+    };
+
     /**
      * Create a new ByteCodeClassLoader instance.
      *
      * @param parent
      *            - parent classloader
      */
-    private ByteCodeClassLoader(ClassLoader parent) {
+    ByteCodeClassLoader(ClassLoader parent) {
         super(parent);
     }
 
@@ -47,6 +86,8 @@ public final class ByteCodeClassLoader extends ClassLoader {
 
     /**
      * Load class with name {@code binaryName} with bytecode {@code byteCode}.
+     * Concurrent calls with the same name define the class only once, all
+     * callers get the same {@code Class} object.
      *
      * @param binaryName
      *            - The Class name in the binary name format, as expected from
@@ -56,16 +97,87 @@ public final class ByteCodeClassLoader extends ClassLoader {
      * @return {@code Class} object
      */
     public Class<?> load(String binaryName, byte[] byteCode) {
+        return load(binaryName, byteCode, isInGeneratedPackage(binaryName));
+    }
+
+    /**
+     * Register {@code packageName} as package of generated classes. Classes
+     * of the package are defined by this classloader without asking the
+     * parent, even if the parent has a class of the same name.
+     *
+     * @param packageName
+     *            - name of the package, e.g. {@code com.example.generated}
+     */
+    public void addGeneratedPackage(String packageName) {
+        generatedPackages.add(packageName);
+    }
+
+    private boolean isInGeneratedPackage(String binaryName) {
+        int end = binaryName.lastIndexOf('.');
+        return end > 0 && generatedPackages.contains(binaryName.substring(0, end));
+    }
+
+    private Class<?> load(String binaryName, byte[] byteCode, boolean generated) {
+        boolean emitEvent = ReflectionEvents.isEnabled();
+        long start = emitEvent ? System.nanoTime() : 0L;
+        Class<?> loadedClass;
+        boolean cacheHit;
+        synchronized (getClassLoadingLock(binaryName)) {
+            loadedClass = generated ? findLoadedClass(binaryName) : findLoaded(binaryName);
+            cacheHit = loadedClass != null;
+            if (!cacheHit) {
+                loadedClass = define(binaryName, byteCode);
+            }
+        }
+        if (emitEvent) {
+            ReflectionEvents.emit(new ReflectionEvent(ReflectionEvent.Kind.CLASS_DEFINITION, binaryName, null,
+                            System.nanoTime() - start, cacheHit));
+        }
+        return loadedClass;
+    }
+
+    /**
+     * Returns the class, if it is already loaded by this classloader or
+     * found by the parent, else {@code null}. The parent is asked directly,
+     * {@link #findClass(String)} of this classloader would only throw a
+     * second {@link ClassNotFoundException}.
+     */
+    private Class<?> findLoaded(String binaryName) {
         Class<?> loadedClass = findLoadedClass(binaryName);
-        if (loadedClass != null) {
+        if (loadedClass != null || isUnknownToParent(binaryName)) {
             return loadedClass;
         }
         try {
-            return loadClass(binaryName);
+            return getParent().loadClass(binaryName);
         } catch (ClassNotFoundException exception) {
-            Class<?> defineClass = defineClass(binaryName, byteCode, 0, byteCode.length);
-            resolveClass(defineClass);
-            return defineClass;
+            synchronized (unknownToParent) {
+                unknownToParent.put(binaryName, Boolean.TRUE);
+            }
+            return null;
+        }
+    }
+
+    private boolean isUnknownToParent(String binaryName) {
+        synchronized (unknownToParent) {
+            return unknownToParent.get(binaryName) != null;
+        }
+    }
+
+    private Class<?> define(String binaryName, byte[] byteCode) {
+        Class<?> defineClass = defineClass(binaryName, byteCode, 0, byteCode.length);
+        definedClassCount.incrementAndGet();
+        resolveClass(defineClass);
+        return defineClass;
+    }
+
+    /**
+     * Forget the names of classes the parent classloader did not know, so
+     * the parent is asked again. Use it if the parent can get new classes,
+     * e.g. before classes are redeployed.
+     */
+    public void invalidateCaches() {
+        synchronized (unknownToParent) {
+            unknownToParent.clear();
         }
     }
 
@@ -80,4 +192,77 @@ public final class ByteCodeClassLoader extends ClassLoader {
         return load(container.getClassName(), container.getByteCode());
     }
 
+    /**
+     * Load the classes of {@code containers}, which may depend on each other.
+     * The super class and the interfaces of every class are read from the
+     * bytecode, and classes of the collection are defined after their super
+     * types. Other references between the classes are resolved lazily by the
+     * JVM, they need no order. The classes of the collection are known to be
+     * generated, they are defined without asking the parent.
+     *
+     * @param containers
+     *            - with classes to load
+     * @return class objects in the order of {@code containers}
+     * @throws IllegalArgumentException
+     *             if a bytecode is malformed, the collection contains a class
+     *             name twice or the inheritance of the classes is cyclic
+     */
+    public List<Class<?>> load(Collection<ByteCodeContainer> containers) {
+        Map<String, ByteCodeContainer> byName = new LinkedHashMap<>();
+        for (ByteCodeContainer container : containers) {
+            if (byName.put(container.getClassName(), container) != null) {
+                throw new IllegalArgumentException("Class " + container.getClassName() + " is contained twice");
+            }
+        }
+        Map<String, Class<?>> loaded = new HashMap<>();
+        for (String className : byName.keySet()) {
+            loadWithSuperTypes(className, byName, loaded, new ArrayList<String>());
+        }
+        List<Class<?>> result = new ArrayList<>(byName.size());
+        for (String className : byName.keySet()) {
+            result.add(loaded.get(className));
+        }
+        return result;
+    }
+
+    /**
+     * Loads the super types of {@code className} contained in
+     * {@code byName} and then the class itself. {@code path} holds the
+     * classes whose super types are being loaded, to detect cycles.
+     */
+    private void loadWithSuperTypes(String className, Map<String, ByteCodeContainer> byName,
+                    Map<String, Class<?>> loaded, List<String> path) {
+        if (loaded.containsKey(className)) {
+            return;
+        }
+        if (path.contains(className)) {
+            throw new IllegalArgumentException("Cyclic inheritance of " + className);
+        }
+        ByteCodeContainer container = byName.get(className);
+        ClassFileReader reader = ClassFileReader.read(container.getByteCode());
+        List<String> superTypeNames = new ArrayList<>(reader.getInterfaceNames());
+        if (reader.getSuperClassName() != null) {
+            superTypeNames.add(0, reader.getSuperClassName());
+        }
+        path.add(className);
+        for (String superTypeName : superTypeNames) {
+            if (byName.containsKey(superTypeName)) {
+                loadWithSuperTypes(superTypeName, byName, loaded, path);
+            }
+        }
+        path.remove(path.size() - 1);
+        // the classes of the batch are generated, the parent is not asked
+        loaded.put(className, load(className, container.getByteCode(), true));
+    }
+
+    /**
+     * Returns the number of classes defined by this classloader. Classes
+     * found by the parent classloader are not counted.
+     *
+     * @return number of defined classes
+     */
+    public long getDefinedClassCount() {
+        return definedClassCount.get();
+    }
+
 }
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang;
+
+import java.util.Map;
+
+/**
+ * A annotation as read from a class file by the {@link ClassFileReader},
+ * without loading the annotation type.
+ *
+ * Only the attributes set explicitly at the annotated element are
+ * contained, default values are stored in the class file of the annotation
+ * type. The values are represented as:
+ * <ul>
+ * <li>{@code String} and the wrapper of primitive values, e.g.
+ * {@code Integer}</li>
+ * <li>{@link EnumConstant} for enum constants</li>
+ * <li>{@link ClassReference} for class literals</li>
+ * <li>{@code ClassFileAnnotation} for nested annotations</li>
+ * <li>a unmodifiable {@code List} for arrays</li>
+ * </ul>
+ * Instances are immutable.
+ */
+public final class ClassFileAnnotation {
+
+    private final String typeName;
+    private final Map<String, Object> values;
+
+    /**
+     * Create a new ClassFileAnnotation instance.
+     *
+     * @param typeName
+     *            - name of the annotation type in the binary format
+     * @param values
+     *            - the attribute values, not copied
+     */
+    ClassFileAnnotation(String typeName, Map<String, Object> values) {
+        this.typeName = typeName;
+        this.values = values;
+    }
+
+    /**
+     * Returns the name of the annotation type in the binary format.
+     *
+     * @return type name
+     */
+    public String getTypeName() {
+        return typeName;
+    }
+
+    /**
+     * Returns the explicitly set attribute values by attribute name.
+     *
+     * @return unmodifiable map of the values
+     */
+    public Map<String, Object> getValues() {
+        return values;
+    }
+
+    /**
+     * Returns the value of the attribute {@code attributeName}.
+     *
+     * @param attributeName
+     *            - name of the attribute
+     * @return the value, or {@code null} if it is not set explicitly
+     */
+    public Object get(String attributeName) {
+        return values.get(attributeName);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * typeName.hashCode() + values.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ClassFileAnnotation)) {
+            return false;
+        }
+        ClassFileAnnotation other = (ClassFileAnnotation)obj;
+        return typeName.equals(other.typeName) && values.equals(other.values);
+    }
+
+    @Override
+    public String toString() {
+        return "@" + typeName + values;
+    }
+
+    /**
+     * A enum constant used as attribute value.
+     */
+    public static final class EnumConstant {
+
+        private final String typeName;
+        private final String name;
+
+        /**
+         * Create a new EnumConstant instance.
+         *
+         * @param typeName
+         *            - name of the enum type in the binary format
+         * @param name
+         *            - name of the constant
+         */
+        public EnumConstant(String typeName, String name) {
+            this.typeName = typeName;
+            this.name = name;
+        }
+
+        /**
+         * Returns the name of the enum type in the binary format.
+         *
+         * @return type name
+         */
+        public String getTypeName() {
+            return typeName;
+        }
+
+        /**
+         * Returns the name of the constant.
+         *
+         * @return constant name
+         */
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * typeName.hashCode() + name.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof EnumConstant)) {
+                return false;
+            }
+            EnumConstant other = (EnumConstant)obj;
+            return typeName.equals(other.typeName) && name.equals(other.name);
+        }
+
+        @Override
+        public String toString() {
+            return typeName + "." + name;
+        }
+
+    }
+
+    /**
+     * A class literal used as attribute value.
+     */
+    public static final class ClassReference {
+
+        private final String typeName;
+
+        /**
+         * Create a new ClassReference instance.
+         *
+         * @param typeName
+         *            - name of the class, as returned by
+         *            {@link Class#getName()}
+         */
+        public ClassReference(String typeName) {
+            this.typeName = typeName;
+        }
+
+        /**
+         * Returns the name of the class, as returned by
+         * {@link Class#getName()}.
+         *
+         * @return type name
+         */
+        public String getTypeName() {
+            return typeName;
+        }
+
+        @Override
+        public int hashCode() {
+            return typeName.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return this == obj || obj instanceof ClassReference && typeName.equals(((ClassReference)obj).typeName);
+        }
+
+        @Override
+        public String toString() {
+            return typeName + ".class";
+        }
+
+    }
+
+}
@@ -0,0 +1,598 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the structure of a class file without loading the class, see
+ * chapter 4 of the Java Virtual Machine Specification.
+ *
+ * Only the parts needed by the utilities are read: the class name, the super
+ * class, the interfaces, the runtime visible annotations of the class, its
+ * methods and their parameters, and the parameter names of the methods. The
+ * parameter names are taken from the {@code MethodParameters} attribute
+ * (compiled with {@code -parameters}), or else from the
+ * {@code LocalVariableTable} (compiled with debug information).
+ *
+ * Instances are immutable. A malformed class file is reported with a
+ * {@link IllegalArgumentException}.
+ */
+public final class ClassFileReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int EXCEPTION_TABLE_ENTRY_SIZE = 8;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private static final Map<String, String> PRIMITIVE_NAMES = new HashMap<>();
+
+    static {
+        PRIMITIVE_NAMES.put("Z", "boolean");
+        PRIMITIVE_NAMES.put("B", "byte");
+        PRIMITIVE_NAMES.put("C", "char");
+        PRIMITIVE_NAMES.put("S", "short");
+        PRIMITIVE_NAMES.put("I", "int");
+        PRIMITIVE_NAMES.put("J", "long");
+        PRIMITIVE_NAMES.put("F", "float");
+        PRIMITIVE_NAMES.put("D", "double");
+        PRIMITIVE_NAMES.put("V", "void");
+    }
+
+    private final String className;
+    private final String superClassName;
+    private final List<String> interfaceNames;
+    private final Map<String, String[]> parameterNames;
+    private final List<ClassFileAnnotation> annotations;
+    private final List<String> methods;
+    private final Map<String, List<ClassFileAnnotation>> methodAnnotations;
+    private final Map<String, List<List<ClassFileAnnotation>>> parameterAnnotations;
+
+    private ClassFileReader(String className, String superClassName, List<String> interfaceNames, Parser parser,
+                    List<ClassFileAnnotation> annotations) {
+        this.className = className;
+        this.superClassName = superClassName;
+        this.interfaceNames = interfaceNames;
+        this.parameterNames = parser.parameterNames;
+        this.annotations = annotations;
+        this.methods = Collections.unmodifiableList(parser.methods);
+        this.methodAnnotations = parser.methodAnnotations;
+        this.parameterAnnotations = parser.parameterAnnotations;
+    }
+
+    /**
+     * Read the class file {@code byteCode}.
+     *
+     * @param byteCode
+     *            - content of a class file
+     * @return the read structure
+     */
+    public static ClassFileReader read(byte[] byteCode) {
+        try {
+            return new Parser(ByteBuffer.wrap(byteCode)).parse();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | ClassCastException exception) {
+            throw new IllegalArgumentException("Malformed class file", exception);
+        }
+    }
+
+    /**
+     * Returns the name of the class in the binary format, e.g.
+     * {@code java.util.Map}.
+     *
+     * @return class name
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Returns the name of the super class in the binary format.
+     *
+     * @return super class name, {@code null} for {@code java.lang.Object}
+     */
+    public String getSuperClassName() {
+        return superClassName;
+    }
+
+    /**
+     * Returns the names of the directly implemented interfaces in the binary
+     * format.
+     *
+     * @return interface names
+     */
+    public List<String> getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    /**
+     * Returns the runtime visible annotations of the class.
+     *
+     * @return unmodifiable list of the annotations
+     */
+    public List<ClassFileAnnotation> getAnnotations() {
+        return annotations;
+    }
+
+    /**
+     * Returns the runtime visible annotation {@code typeName} of the class.
+     *
+     * @param typeName
+     *            - name of the annotation type in the binary format
+     * @return the annotation, or {@code null} if the class is not annotated
+     *         with it
+     */
+    public ClassFileAnnotation getAnnotation(String typeName) {
+        for (ClassFileAnnotation annotation : annotations) {
+            if (annotation.getTypeName().equals(typeName)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the methods and constructors of the class, in the order of the
+     * class file, each as name followed by descriptor, e.g.
+     * {@code add(JI)J}.
+     *
+     * @return unmodifiable list of the methods
+     */
+    public List<String> getMethods() {
+        return methods;
+    }
+
+    /**
+     * Returns the runtime visible annotations of a method or constructor.
+     *
+     * @param methodName
+     *            - name of the method, {@code <init>} for constructors
+     * @param methodDescriptor
+     *            - descriptor of the method
+     * @return unmodifiable list of the annotations, empty if the method does
+     *         not exist or is not annotated
+     */
+    public List<ClassFileAnnotation> getMethodAnnotations(String methodName, String methodDescriptor) {
+        List<ClassFileAnnotation> found = methodAnnotations.get(methodName + methodDescriptor);
+        return found == null ? Collections.<ClassFileAnnotation> emptyList() : found;
+    }
+
+    /**
+     * Returns the runtime visible annotations of the parameters of a method
+     * or constructor, one list per parameter. The compiler may omit
+     * synthetic parameters, e.g. of the constructors of inner classes.
+     *
+     * @param methodName
+     *            - name of the method, {@code <init>} for constructors
+     * @param methodDescriptor
+     *            - descriptor of the method
+     * @return unmodifiable list of the annotations per parameter, empty if
+     *         the method does not exist or no parameter is annotated
+     */
+    public List<List<ClassFileAnnotation>> getParameterAnnotations(String methodName, String methodDescriptor) {
+        List<List<ClassFileAnnotation>> found = parameterAnnotations.get(methodName + methodDescriptor);
+        return found == null ? Collections.<List<ClassFileAnnotation>> emptyList() : found;
+    }
+
+    /**
+     * Returns the parameter names of a method or constructor.
+     *
+     * @param methodName
+     *            - name of the method, {@code <init>} for constructors
+     * @param methodDescriptor
+     *            - descriptor of the method, e.g.
+     *            {@code (ILjava/lang/String;)V}
+     * @return the parameter names, or {@code null} if the method does not
+     *         exist or the class file has no parameter names for it
+     */
+    public String[] getParameterNames(String methodName, String methodDescriptor) {
+        String[] names = parameterNames.get(methodName + methodDescriptor);
+        return names == null ? null : names.clone();
+    }
+
+    /**
+     * Returns the name of a type descriptor, as returned by
+     * {@link Class#getName()}, e.g. {@code java.lang.String} for
+     * {@code Ljava/lang/String;} and {@code int} for {@code I}.
+     */
+    private static String typeName(String descriptor) {
+        switch (descriptor.charAt(0)) {
+            case 'L':
+                return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+            case '[':
+                return descriptor.replace('/', '.');
+            default:
+                return PRIMITIVE_NAMES.get(descriptor);
+        }
+    }
+
+    /**
+     * Returns the local variable slot of each parameter of
+     * {@code methodDescriptor}, ascending.
+     */
+    private static int[] parameterSlots(String methodDescriptor, boolean isStatic) {
+        List<Integer> slots = new ArrayList<>();
+        int slot = isStatic ? 0 : 1;
+        int position = 1;
+        while (methodDescriptor.charAt(position) != ')') {
+            slots.add(Integer.valueOf(slot));
+            char type = methodDescriptor.charAt(position);
+            slot += type == 'J' || type == 'D' ? 2 : 1;
+            while (methodDescriptor.charAt(position) == '[') {
+                position++;
+            }
+            if (methodDescriptor.charAt(position) == 'L') {
+                position = methodDescriptor.indexOf(';', position);
+            }
+            position++;
+        }
+        int[] result = new int[slots.size()];
+        for (int index = 0; index < result.length; index++) {
+            result[index] = slots.get(index).intValue();
+        }
+        return result;
+    }
+
+    /**
+     * Reads a class file from a buffer.
+     */
+    private static final class Parser {
+
+        private final ByteBuffer buffer;
+        /** Strings of the UTF8 entries and values of the numeric entries. */
+        private Object[] constants;
+        /** Index of the name of the class entries. */
+        private int[] classNames;
+        private final Map<String, String[]> parameterNames = new HashMap<>();
+        private final List<String> methods = new ArrayList<>();
+        private final Map<String, List<ClassFileAnnotation>> methodAnnotations = new HashMap<>();
+        private final Map<String, List<List<ClassFileAnnotation>>> parameterAnnotations = new HashMap<>();
+
+        Parser(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        ClassFileReader parse() {
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a class file, magic number is missing");
+            }
+            buffer.getShort(); // minor version
+            buffer.getShort(); // major version
+            readConstantPool();
+            buffer.getShort(); // access flags
+            String className = className(u2());
+            int superClass = u2();
+            String superClassName = superClass == 0 ? null : className(superClass);
+            String[] interfaceNames = new String[u2()];
+            for (int index = 0; index < interfaceNames.length; index++) {
+                interfaceNames[index] = className(u2());
+            }
+            int fieldCount = u2();
+            for (int index = 0; index < fieldCount; index++) {
+                buffer.position(buffer.position() + 6);
+                skipAttributes();
+            }
+            int methodCount = u2();
+            for (int index = 0; index < methodCount; index++) {
+                readMethod();
+            }
+            List<ClassFileAnnotation> annotations = Collections.emptyList();
+            int attributeCount = u2();
+            for (int index = 0; index < attributeCount; index++) {
+                String attributeName = utf8(u2());
+                int length = buffer.getInt();
+                int end = buffer.position() + length;
+                if ("RuntimeVisibleAnnotations".equals(attributeName)) {
+                    annotations = readAnnotations();
+                }
+                buffer.position(end);
+            }
+            return new ClassFileReader(className, superClassName,
+                            Collections.unmodifiableList(Arrays.asList(interfaceNames)), this, annotations);
+        }
+
+        private void readConstantPool() {
+            constants = new Object[u2()];
+            classNames = new int[constants.length];
+            for (int index = 1; index < constants.length; index++) {
+                int tag = buffer.get() & 0xFF;
+                switch (tag) {
+                    case CONSTANT_UTF8:
+                        constants[index] = modifiedUtf8();
+                        break;
+                    case CONSTANT_CLASS:
+                        classNames[index] = u2();
+                        break;
+                    case CONSTANT_INTEGER:
+                        constants[index] = Integer.valueOf(buffer.getInt());
+                        break;
+                    case CONSTANT_FLOAT:
+                        constants[index] = Float.valueOf(buffer.getFloat());
+                        break;
+                    case CONSTANT_LONG:
+                        constants[index] = Long.valueOf(buffer.getLong());
+                        index++;
+                        break;
+                    case CONSTANT_DOUBLE:
+                        constants[index] = Double.valueOf(buffer.getDouble());
+                        index++;
+                        break;
+                    case CONSTANT_FIELDREF:
+                    case CONSTANT_METHODREF:
+                    case CONSTANT_INTERFACE_METHODREF:
+                    case CONSTANT_NAME_AND_TYPE:
+                    case CONSTANT_DYNAMIC:
+                    case CONSTANT_INVOKE_DYNAMIC:
+                        buffer.getInt();
+                        break;
+                    case CONSTANT_METHOD_HANDLE:
+                        buffer.position(buffer.position() + 3);
+                        break;
+                    case CONSTANT_STRING:
+                    case CONSTANT_METHOD_TYPE:
+                    case CONSTANT_MODULE:
+                    case CONSTANT_PACKAGE:
+                        buffer.getShort();
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown constant pool tag " + tag + " at " + index);
+                }
+            }
+        }
+
+        private void readMethod() {
+            boolean isStatic = (u2() & ACC_STATIC) != 0;
+            String name = utf8(u2());
+            String descriptor = utf8(u2());
+            String key = name + descriptor;
+            methods.add(key);
+            int[] slots = parameterSlots(descriptor, isStatic);
+            String[] fromParameters = null;
+            String[] fromLocals = null;
+            int attributeCount = u2();
+            for (int index = 0; index < attributeCount; index++) {
+                String attributeName = utf8(u2());
+                int length = buffer.getInt();
+                int end = buffer.position() + length;
+                if ("MethodParameters".equals(attributeName)) {
+                    fromParameters = readMethodParameters(slots.length);
+                } else if ("Code".equals(attributeName)) {
+                    fromLocals = readCode(slots);
+                } else if ("RuntimeVisibleAnnotations".equals(attributeName)) {
+                    methodAnnotations.put(key, readAnnotations());
+                } else if ("RuntimeVisibleParameterAnnotations".equals(attributeName)) {
+                    parameterAnnotations.put(key, readParameterAnnotations());
+                }
+                buffer.position(end);
+            }
+            String[] names = fromParameters == null ? fromLocals : fromParameters;
+            if (names != null) {
+                parameterNames.put(key, names);
+            }
+        }
+
+        private String[] readMethodParameters(int parameterCount) {
+            int count = buffer.get() & 0xFF;
+            if (count != parameterCount) {
+                return null;
+            }
+            String[] names = new String[count];
+            for (int index = 0; index < count; index++) {
+                int nameIndex = u2();
+                buffer.getShort(); // access flags
+                if (nameIndex == 0) {
+                    return null;
+                }
+                names[index] = utf8(nameIndex);
+            }
+            return names;
+        }
+
+        private String[] readCode(int[] slots) {
+            buffer.getInt(); // max stack, max locals
+            int codeLength = buffer.getInt();
+            buffer.position(buffer.position() + codeLength);
+            int exceptionTableLength = u2();
+            buffer.position(buffer.position() + exceptionTableLength * EXCEPTION_TABLE_ENTRY_SIZE);
+            String[] names = null;
+            int attributeCount = u2();
+            for (int index = 0; index < attributeCount; index++) {
+                String attributeName = utf8(u2());
+                int length = buffer.getInt();
+                int end = buffer.position() + length;
+                if ("LocalVariableTable".equals(attributeName)) {
+                    names = readLocalVariableTable(slots, names);
+                }
+                buffer.position(end);
+            }
+            return names != null && !Arrays.asList(names).contains(null) ? names : null;
+        }
+
+        /**
+         * The parameters are the local variables, which are valid from the
+         * start of the code, in the slots of the parameters. A table may be
+         * split into several attributes.
+         */
+        private String[] readLocalVariableTable(int[] slots, String[] found) {
+            String[] names = found == null ? new String[slots.length] : found;
+            int entryCount = u2();
+            for (int entry = 0; entry < entryCount; entry++) {
+                int startPc = u2();
+                buffer.getShort(); // length
+                int nameIndex = u2();
+                buffer.getShort(); // descriptor
+                int slot = u2();
+                int parameter = Arrays.binarySearch(slots, slot);
+                if (startPc == 0 && parameter >= 0) {
+                    names[parameter] = utf8(nameIndex);
+                }
+            }
+            return names;
+        }
+
+        private void skipAttributes() {
+            int attributeCount = u2();
+            for (int index = 0; index < attributeCount; index++) {
+                buffer.getShort();
+                int length = buffer.getInt();
+                buffer.position(buffer.position() + length);
+            }
+        }
+
+        private List<ClassFileAnnotation> readAnnotations() {
+            ClassFileAnnotation[] annotations = new ClassFileAnnotation[u2()];
+            for (int index = 0; index < annotations.length; index++) {
+                annotations[index] = readAnnotation();
+            }
+            return Collections.unmodifiableList(Arrays.asList(annotations));
+        }
+
+        private List<List<ClassFileAnnotation>> readParameterAnnotations() {
+            int count = buffer.get() & 0xFF;
+            List<List<ClassFileAnnotation>> annotations = new ArrayList<>(count);
+            for (int index = 0; index < count; index++) {
+                annotations.add(readAnnotations());
+            }
+            return Collections.unmodifiableList(annotations);
+        }
+
+        private ClassFileAnnotation readAnnotation() {
+            String typeName = typeName(utf8(u2()));
+            int valueCount = u2();
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int index = 0; index < valueCount; index++) {
+                String name = utf8(u2());
+                values.put(name, readElementValue());
+            }
+            return new ClassFileAnnotation(typeName, Collections.unmodifiableMap(values));
+        }
+
+        private Object readElementValue() {
+            char tag = (char)(buffer.get() & 0xFF);
+            switch (tag) {
+                case 'B':
+                    return Byte.valueOf((byte)intConstant(u2()));
+                case 'C':
+                    return Character.valueOf((char)intConstant(u2()));
+                case 'S':
+                    return Short.valueOf((short)intConstant(u2()));
+                case 'Z':
+                    return Boolean.valueOf(intConstant(u2()) != 0);
+                case 'I':
+                case 'J':
+                case 'F':
+                case 'D':
+                    return constants[u2()];
+                case 's':
+                    return utf8(u2());
+                case 'e':
+                    String enumType = typeName(utf8(u2()));
+                    return new ClassFileAnnotation.EnumConstant(enumType, utf8(u2()));
+                case 'c':
+                    return new ClassFileAnnotation.ClassReference(typeName(utf8(u2())));
+                case '@':
+                    return readAnnotation();
+                case '[':
+                    Object[] elements = new Object[u2()];
+                    for (int index = 0; index < elements.length; index++) {
+                        elements[index] = readElementValue();
+                    }
+                    return Collections.unmodifiableList(Arrays.asList(elements));
+                default:
+                    throw new IllegalArgumentException("Unknown element value tag '" + tag + "'");
+            }
+        }
+
+        private int intConstant(int index) {
+            return ((Integer)constants[index]).intValue();
+        }
+
+        private String className(int classIndex) {
+            return utf8(classNames[classIndex]).replace('/', '.');
+        }
+
+        private String utf8(int index) {
+            return (String)constants[index];
+        }
+
+        /**
+         * Decodes a string in the modified UTF-8 of the class file format,
+         * like {@link java.io.DataInputStream#readUTF()}: {@code \u0000} is
+         * encoded with two bytes and supplementary characters as surrogate
+         * pair with three bytes each.
+         */
+        private String modifiedUtf8() {
+            int length = u2();
+            int end = buffer.position() + length;
+            char[] chars = new char[length];
+            int count = 0;
+            while (buffer.position() < end) {
+                int first = buffer.get() & 0xFF;
+                if (first < 0x80) {
+                    chars[count++] = (char)first;
+                } else if ((first & 0xE0) == 0xC0) {
+                    chars[count++] = (char)((first & 0x1F) << 6 | continuation());
+                } else if ((first & 0xF0) == 0xE0) {
+                    chars[count++] = (char)((first & 0x0F) << 12 | continuation() << 6 | continuation());
+                } else {
+                    throw new IllegalArgumentException("Malformed modified UTF-8 at " + (buffer.position() - 1));
+                }
+            }
+            if (buffer.position() != end) {
+                throw new IllegalArgumentException("Malformed modified UTF-8, truncated character at " + end);
+            }
+            return new String(chars, 0, count);
+        }
+
+        private int continuation() {
+            int next = buffer.get() & 0xFF;
+            if ((next & 0xC0) != 0x80) {
+                throw new IllegalArgumentException("Malformed modified UTF-8 at " + (buffer.position() - 1));
+            }
+            return next & 0x3F;
+        }
+
+        private int u2() {
+            return buffer.getShort() & 0xFFFF;
+        }
+
+    }
+
+}
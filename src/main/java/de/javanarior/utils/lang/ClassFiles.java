@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads the class files of a directory, including sub directories, or of a
+ * jar file. Class files of the versioned directories of multi release jars
+ * and module descriptors are skipped.
+ */
+final class ClassFiles {
+
+    private static final String CLASS_FILE_SUFFIX = ".class";
+    private static final int BUFFER_SIZE = 8192;
+
+    private ClassFiles() {
+    }
+
+    /**
+     * Receives the read class files.
+     */
+    interface Visitor {
+
+        /**
+         * Called for every class file.
+         *
+         * @param container
+         *            - the class file with the class name
+         */
+        void visit(ByteCodeContainer container);
+    }
+
+    /**
+     * Read the class files in {@code directoryOrJar}.
+     *
+     * @param directoryOrJar
+     *            - class path element to read
+     * @param visitor
+     *            - receives the class files
+     * @throws IOException
+     *             if a file could not be read
+     */
+    static void read(Path directoryOrJar, final Visitor visitor) throws IOException {
+        if (Files.isDirectory(directoryOrJar)) {
+            final Path root = directoryOrJar;
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                    String name = root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+                    if (isClassFile(name)) {
+                        visitor.visit(new ByteCodeContainer(className(name), Files.readAllBytes(file)));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } else {
+            try (ZipFile jar = new ZipFile(directoryOrJar.toFile())) {
+                Enumeration<? extends ZipEntry> entries = jar.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (!entry.isDirectory() && isClassFile(entry.getName())) {
+                        try (InputStream input = jar.getInputStream(entry)) {
+                            visitor.visit(new ByteCodeContainer(className(entry.getName()), readAll(input)));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if {@code data} contains the bytes of {@code pattern}.
+     *
+     * @param data
+     *            - the data to search
+     * @param pattern
+     *            - the bytes to find
+     * @return true if the pattern is found
+     */
+    static boolean contains(byte[] data, byte[] pattern) {
+        int last = data.length - pattern.length;
+        outer: for (int start = 0; start <= last; start++) {
+            for (int index = 0; index < pattern.length; index++) {
+                if (data[start + index] != pattern[index]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Encodes {@code value} in the modified UTF-8 of the constant pool, like
+     * {@link java.io.DataOutputStream#writeUTF(String)} without the length.
+     *
+     * @param value
+     *            - string to encode
+     * @return the encoded bytes
+     */
+    static byte[] modifiedUtf8(String value) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(value.length());
+        for (int index = 0; index < value.length(); index++) {
+            char character = value.charAt(index);
+            if (character != 0 && character < 0x80) {
+                output.write(character);
+            } else if (character < 0x800) {
+                output.write(0xC0 | character >> 6);
+                output.write(0x80 | character & 0x3F);
+            } else {
+                output.write(0xE0 | character >> 12);
+                output.write(0x80 | character >> 6 & 0x3F);
+                output.write(0x80 | character & 0x3F);
+            }
+        }
+        return output.toByteArray();
+    }
+
+    private static boolean isClassFile(String name) {
+        return name.endsWith(CLASS_FILE_SUFFIX) && !name.startsWith("META-INF/")
+                        && !name.endsWith("module-info" + CLASS_FILE_SUFFIX);
+    }
+
+    private static String className(String fileName) {
+        return fileName.substring(0, fileName.length() - CLASS_FILE_SUFFIX.length()).replace('/', '.');
+    }
+
+    private static byte[] readAll(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang;
+
+/**
+ * A reflective lookup or a class definition, passed to the registered
+ * {@link ReflectionEventListener}s, see {@link ReflectionEvents}.
+ *
+ * Instances are immutable.
+ */
+public final class ReflectionEvent {
+
+    /**
+     * What was looked up or defined.
+     */
+    public enum Kind {
+        /** Resolution of a constructor by its parameter types. */
+        CONSTRUCTOR_RESOLUTION,
+        /** Resolution of a method by its name and parameter types. */
+        METHOD_RESOLUTION,
+        /** Choice of a constructor or method for runtime arguments. */
+        OVERLOAD_RESOLUTION,
+        /** Lookup of the annotations of a class, method or parameter. */
+        ANNOTATION_LOOKUP,
+        /** Loading of a class by the {@link ByteCodeClassLoader}. */
+        CLASS_DEFINITION
+    }
+
+    private final Kind kind;
+    private final String className;
+    private final String member;
+    private final long durationNanos;
+    private final boolean cacheHit;
+
+    /**
+     * Create a new ReflectionEvent instance.
+     *
+     * @param kind
+     *            - what was looked up or defined
+     * @param className
+     *            - name of the target class in the binary format
+     * @param member
+     *            - the looked up member, {@code null} for classes
+     * @param durationNanos
+     *            - duration of the lookup in nanoseconds
+     * @param cacheHit
+     *            - true if the result was cached, or for class definitions
+     *            if the class was already loaded
+     */
+    public ReflectionEvent(Kind kind, String className, String member, long durationNanos, boolean cacheHit) {
+        this.kind = kind;
+        this.className = className;
+        this.member = member;
+        this.durationNanos = durationNanos;
+        this.cacheHit = cacheHit;
+    }
+
+    /**
+     * Returns what was looked up or defined.
+     *
+     * @return kind
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the name of the target class in the binary format.
+     *
+     * @return class name
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Returns the looked up member, e.g. the name and parameter types of a
+     * method.
+     *
+     * @return member, or {@code null} if the event is about the class
+     */
+    public String getMember() {
+        return member;
+    }
+
+    /**
+     * Returns the duration of the lookup or definition.
+     *
+     * @return duration in nanoseconds
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * Returns true if the result was cached, for class definitions if the
+     * class was already loaded.
+     *
+     * @return true for a cache hit
+     */
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    @Override
+    public String toString() {
+        return "ReflectionEvent [kind=" + kind + ", className=" + className + ", member=" + member
+                        + ", durationNanos=" + durationNanos + ", cacheHit=" + cacheHit + "]";
+    }
+
+}
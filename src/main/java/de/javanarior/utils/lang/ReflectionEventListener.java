@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang;
+
+/**
+ * Receives {@link ReflectionEvent}s, registered with
+ * {@link ReflectionEvents#addListener(ReflectionEventListener)}.
+ */
+public interface ReflectionEventListener {
+
+    /**
+     * Called in the thread which did the lookup, after it is done. Must be
+     * thread safe and should return quickly. A {@link RuntimeException} is
+     * ignored, it is not passed to the caller of the lookup.
+     *
+     * @param event
+     *            - the event
+     */
+    void onEvent(ReflectionEvent event);
+
+}
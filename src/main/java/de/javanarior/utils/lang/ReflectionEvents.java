@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registry of the {@link ReflectionEventListener}s, which are told about the
+ * constructor and method resolutions of
+ * {@link de.javanarior.utils.lang.reflect.Invoke}, the annotation lookups of
+ * {@link de.javanarior.utils.lang.reflect.Retrieve} and the classes loaded by
+ * the {@link ByteCodeClassLoader}.
+ *
+ * A listener can forward the events to a profiler, e.g. as Java Flight
+ * Recorder events on Java 11 and later. Without registered listeners no
+ * event is created, a lookup pays a single branch on a volatile flag.
+ */
+public final class ReflectionEvents {
+
+    private static final List<ReflectionEventListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private static volatile boolean enabled;
+
+    private ReflectionEvents() {
+    }
+
+    /**
+     * Register {@code listener}.
+     *
+     * @param listener
+     *            - the listener
+     */
+    public static synchronized void addListener(ReflectionEventListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener must not be null");
+        }
+        LISTENERS.add(listener);
+        enabled = true;
+    }
+
+    /**
+     * Unregister {@code listener}.
+     *
+     * @param listener
+     *            - the listener
+     */
+    public static synchronized void removeListener(ReflectionEventListener listener) {
+        LISTENERS.remove(listener);
+        enabled = !LISTENERS.isEmpty();
+    }
+
+    /**
+     * Returns true if a listener is registered, only then events have to be
+     * created.
+     *
+     * @return true if events are enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Pass {@code event} to the registered listeners. A
+     * {@link RuntimeException} of a listener is ignored, so it does not
+     * change the result of the reported operation, e.g. a class is still
+     * returned after it is defined, and the other listeners still get the
+     * event. Errors are passed to the caller.
+     *
+     * @param event
+     *            - the event
+     */
+    public static void emit(ReflectionEvent event) {
+        for (ReflectionEventListener listener : LISTENERS) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException exception) {
+                // must not change the result, the listener handles its own failures
+            }
+        }
+    }
+
+}
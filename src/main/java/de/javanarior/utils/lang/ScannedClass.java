@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A class found by the {@link AnnotationScanner}, with the annotations it
+ * was found for.
+ */
+public final class ScannedClass {
+
+    private final ByteCodeContainer container;
+    private final List<ClassFileAnnotation> annotations;
+
+    /**
+     * Create a new ScannedClass instance.
+     *
+     * @param container
+     *            - the class
+     * @param annotations
+     *            - the matching annotations
+     */
+    ScannedClass(ByteCodeContainer container, List<ClassFileAnnotation> annotations) {
+        this.container = container;
+        this.annotations = Collections.unmodifiableList(annotations);
+    }
+
+    /**
+     * Returns the class name in the binary format.
+     *
+     * @return class name
+     */
+    public String getClassName() {
+        return container.getClassName();
+    }
+
+    /**
+     * Returns the bytecode of the class.
+     *
+     * @return the class
+     */
+    public ByteCodeContainer getByteCodeContainer() {
+        return container;
+    }
+
+    /**
+     * Returns the annotations the class was found for.
+     *
+     * @return unmodifiable list of the annotations
+     */
+    public List<ClassFileAnnotation> getAnnotations() {
+        return annotations;
+    }
+
+    /**
+     * Returns the annotation {@code typeName}.
+     *
+     * @param typeName
+     *            - name of the annotation type in the binary format
+     * @return the annotation, or {@code null} if the class was not found for
+     *         it
+     */
+    public ClassFileAnnotation getAnnotation(String typeName) {
+        for (ClassFileAnnotation annotation : annotations) {
+            if (annotation.getTypeName().equals(typeName)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Load the class with the {@link ByteCodeClassLoader}. Classes visible
+     * to its parent are loaded by the parent.
+     *
+     * @return the class object
+     */
+    public Class<?> load() {
+        return ByteCodeClassLoader.getClassLoader().load(container);
+    }
+
+    @Override
+    public String toString() {
+        return getClassName() + annotations;
+    }
+
+}
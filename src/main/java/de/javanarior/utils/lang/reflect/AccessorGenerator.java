@@ -0,0 +1,398 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import static de.javanarior.utils.lang.reflect.Descriptors.descriptor;
+import static de.javanarior.utils.lang.reflect.Descriptors.internalName;
+import static de.javanarior.utils.lang.reflect.Descriptors.methodDescriptor;
+import static de.javanarior.utils.lang.reflect.Opcodes.AALOAD;
+import static de.javanarior.utils.lang.reflect.Opcodes.ACONST_NULL;
+import static de.javanarior.utils.lang.reflect.Opcodes.ALOAD;
+import static de.javanarior.utils.lang.reflect.Opcodes.ALOAD_0;
+import static de.javanarior.utils.lang.reflect.Opcodes.ALOAD_1;
+import static de.javanarior.utils.lang.reflect.Opcodes.ALOAD_2;
+import static de.javanarior.utils.lang.reflect.Opcodes.ALOAD_3;
+import static de.javanarior.utils.lang.reflect.Opcodes.ARETURN;
+import static de.javanarior.utils.lang.reflect.Opcodes.ATHROW;
+import static de.javanarior.utils.lang.reflect.Opcodes.CHECKCAST;
+import static de.javanarior.utils.lang.reflect.Opcodes.DUP;
+import static de.javanarior.utils.lang.reflect.Opcodes.GETFIELD;
+import static de.javanarior.utils.lang.reflect.Opcodes.GETSTATIC;
+import static de.javanarior.utils.lang.reflect.Opcodes.ILOAD_1;
+import static de.javanarior.utils.lang.reflect.Opcodes.ILOAD_2;
+import static de.javanarior.utils.lang.reflect.Opcodes.INVOKESPECIAL;
+import static de.javanarior.utils.lang.reflect.Opcodes.INVOKESTATIC;
+import static de.javanarior.utils.lang.reflect.Opcodes.INVOKEVIRTUAL;
+import static de.javanarior.utils.lang.reflect.Opcodes.NEW;
+import static de.javanarior.utils.lang.reflect.Opcodes.PUTFIELD;
+import static de.javanarior.utils.lang.reflect.Opcodes.PUTSTATIC;
+import static de.javanarior.utils.lang.reflect.Opcodes.RETURN;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import de.javanarior.utils.lang.ByteCodeClassLoader;
+import de.javanarior.utils.lang.ByteCodeContainer;
+
+/**
+ * Creates {@link ClassAccessor}s. For public types, which are visible to the
+ * {@link ByteCodeClassLoader}, a accessor class is generated and loaded with
+ * it, for all other types a {@link ReflectiveClassAccessor} is returned.
+ */
+final class AccessorGenerator {
+
+    private static final String ACCESSOR_PACKAGE = "de.javanarior.utils.lang.reflect.generated";
+    /** Name of a empty method with the accessed type as parameter, which identifies the target. */
+    private static final String TARGET_METHOD = "target";
+    private static final String SUPER_CLASS = internalName(ClassAccessor.class);
+    private static final String CONSTRUCTOR_DESCRIPTOR = "(Ljava/lang/Class;[Ljava/lang/reflect/Constructor;"
+                    + "[Ljava/lang/reflect/Method;[Ljava/lang/reflect/Field;)V";
+
+    private static final Comparator<Method> METHOD_ORDER = new Comparator<Method>() {
+        @Override
+        public int compare(Method first, Method second) {
+            int byName = first.getName().compareTo(second.getName());
+            return byName != 0 ? byName : methodDescriptor(first).compareTo(methodDescriptor(second));
+        }
+    };
+
+    private static final Comparator<Constructor<?>> CONSTRUCTOR_ORDER = new Comparator<Constructor<?>>() {
+        @Override
+        public int compare(Constructor<?> first, Constructor<?> second) {
+            return descriptor(first.getParameterTypes()).compareTo(descriptor(second.getParameterTypes()));
+        }
+    };
+
+    static {
+        // accessors are never found by the parent, their definition skips it
+        ByteCodeClassLoader.getClassLoader().addGeneratedPackage(ACCESSOR_PACKAGE);
+    }
+
+    private AccessorGenerator() {
+    }
+
+    /**
+     * Create a accessor for {@code type}.
+     *
+     * @param <T>
+     *            - the accessed type
+     * @param type
+     *            - the accessed type
+     * @return accessor
+     */
+    static <T> ClassAccessor<T> create(Class<T> type) {
+        Constructor<?>[] constructors = constructors(type);
+        Method[] methods = methods(type);
+        Field[] fields = type.getFields();
+        if (canGenerate(type)) {
+            try {
+                return generate(type, constructors, methods, fields);
+            } catch (IllegalStateException | LinkageError | ReflectiveOperationException exception) {
+                // fall through to reflection, e.g. if the code gets too large
+            }
+        }
+        return new ReflectiveClassAccessor<>(type, constructors, methods, fields);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ClassAccessor<T> generate(Class<T> type, Constructor<?>[] constructors, Method[] methods,
+                    Field[] fields) throws ReflectiveOperationException {
+        String className = accessorName(type.getName());
+        byte[] byteCode = generate(className, type, constructors, methods, fields);
+        Class<?> accessorClass = ByteCodeClassLoader.getClassLoader()
+                        .load(new ByteCodeContainer(className, byteCode));
+        try {
+            accessorClass.getDeclaredMethod(TARGET_METHOD, type);
+        } catch (NoSuchMethodException exception) {
+            throw new IllegalStateException("Class " + className + " is no accessor of " + type.getName());
+        }
+        return (ClassAccessor<T>)accessorClass
+                        .getConstructor(Class.class, Constructor[].class, Method[].class, Field[].class)
+                        .newInstance(type, constructors, methods, fields);
+    }
+
+    /**
+     * Returns the binary name of the accessor class of the class
+     * {@code binaryName}. The name is mangled like JNI method names, a
+     * {@code _} becomes {@code _1} and a {@code .} becomes {@code _}, so
+     * different classes get different accessor names.
+     *
+     * @param binaryName
+     *            - binary name of the accessed class
+     * @return binary name of the accessor class
+     */
+    static String accessorName(String binaryName) {
+        return ACCESSOR_PACKAGE + "." + binaryName.replace("_", "_1").replace('.', '_') + "$$Accessor";
+    }
+
+    /**
+     * Create the byte code of a accessor class.
+     *
+     * @param className
+     *            - binary name of the accessor class
+     * @param type
+     *            - the accessed type
+     * @param constructors
+     *            - the constructors, in index order
+     * @param methods
+     *            - the methods, in index order
+     * @param fields
+     *            - the fields, in index order
+     * @return byte code
+     */
+    static byte[] generate(String className, Class<?> type, Constructor<?>[] constructors, Method[] methods,
+                    Field[] fields) {
+        ByteCodeWriter writer = new ByteCodeWriter(className.replace('.', '/'), SUPER_CLASS);
+        writeConstructor(writer);
+        writeTarget(writer, type);
+        writeNewInstance(writer, type, constructors);
+        writeInvoke(writer, type, methods);
+        writeGet(writer, type, fields);
+        writeSet(writer, type, fields);
+        return writer.toByteArray(ByteCodeWriter.ACC_PUBLIC | ByteCodeWriter.ACC_FINAL | ByteCodeWriter.ACC_SUPER);
+    }
+
+    private static void writeConstructor(ByteCodeWriter writer) {
+        ByteCodeWriter.Code code = writer.method(ByteCodeWriter.ACC_PUBLIC, "<init>", CONSTRUCTOR_DESCRIPTOR, 5);
+        code.op(ALOAD_0).op(ALOAD_1).op(ALOAD_2).op(ALOAD_3).load(ALOAD, 4);
+        code.op(INVOKESPECIAL, writer.methodReference(SUPER_CLASS, "<init>", CONSTRUCTOR_DESCRIPTOR, false));
+        code.op(RETURN);
+        code.stack(5);
+    }
+
+    private static void writeTarget(ByteCodeWriter writer, Class<?> type) {
+        ByteCodeWriter.Code code = writer.method(ByteCodeWriter.ACC_PRIVATE | ByteCodeWriter.ACC_STATIC, TARGET_METHOD,
+                        "(" + descriptor(type) + ")V", 1);
+        code.op(RETURN);
+    }
+
+    private static void writeNewInstance(ByteCodeWriter writer, Class<?> type, Constructor<?>[] constructors) {
+        ByteCodeWriter.Code code = writer.method(ByteCodeWriter.ACC_PROTECTED, "doNewInstance",
+                        "(I[Ljava/lang/Object;)Ljava/lang/Object;", 3);
+        String owner = internalName(type);
+        int switchPosition = startSwitch(code, ILOAD_1, constructors.length);
+        boolean instantiable = !Modifier.isAbstract(type.getModifiers());
+        List<Integer> unsupported = new ArrayList<>();
+        for (int index = 0; index < constructors.length; index++) {
+            if (!instantiable) {
+                unsupported.add(index);
+                continue;
+            }
+            code.target(switchPosition, index);
+            Class<?>[] parameterTypes = constructors[index].getParameterTypes();
+            code.op(NEW, writer.classReference(owner)).op(DUP);
+            int slots = loadArguments(writer, code, ALOAD_2, parameterTypes, 2);
+            code.op(INVOKESPECIAL, writer.methodReference(owner, "<init>", descriptor(parameterTypes) + "V", false));
+            code.op(ARETURN);
+            code.stack(slots + 2);
+        }
+        endSwitch(writer, code, switchPosition, unsupported, ILOAD_1);
+    }
+
+    private static void writeInvoke(ByteCodeWriter writer, Class<?> type, Method[] methods) {
+        ByteCodeWriter.Code code = writer.method(ByteCodeWriter.ACC_PROTECTED, "doInvoke",
+                        "(Ljava/lang/Object;I[Ljava/lang/Object;)Ljava/lang/Object;", 4);
+        String owner = internalName(type);
+        boolean onInterface = type.isInterface();
+        int switchPosition = startSwitch(code, ILOAD_2, methods.length);
+        for (int index = 0; index < methods.length; index++) {
+            code.target(switchPosition, index);
+            Method method = methods[index];
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            boolean isStatic = Modifier.isStatic(method.getModifiers());
+            int receiver = 0;
+            if (!isStatic) {
+                code.op(ALOAD_1).op(CHECKCAST, writer.classReference(owner));
+                receiver = 1;
+            }
+            int slots = loadArguments(writer, code, ALOAD_3, parameterTypes, receiver);
+            int reference = writer.methodReference(owner, method.getName(), methodDescriptor(method),
+                            onInterface);
+            if (isStatic) {
+                code.op(INVOKESTATIC, reference);
+            } else if (onInterface) {
+                code.invokeInterface(reference, slots - receiver + 1);
+            } else {
+                code.op(INVOKEVIRTUAL, reference);
+            }
+            Class<?> returnType = method.getReturnType();
+            if (returnType == Void.TYPE) {
+                code.op(ACONST_NULL);
+            } else {
+                box(writer, code, returnType);
+            }
+            code.op(ARETURN);
+            code.stack(Math.max(slots + 2, 2));
+        }
+        endSwitch(writer, code, switchPosition, new ArrayList<Integer>(), ILOAD_2);
+    }
+
+    private static void writeGet(ByteCodeWriter writer, Class<?> type, Field[] fields) {
+        ByteCodeWriter.Code code = writer.method(ByteCodeWriter.ACC_PROTECTED, "doGet",
+                        "(Ljava/lang/Object;I)Ljava/lang/Object;", 3);
+        int switchPosition = startSwitch(code, ILOAD_2, fields.length);
+        for (int index = 0; index < fields.length; index++) {
+            code.target(switchPosition, index);
+            Field field = fields[index];
+            int reference = fieldReference(writer, type, field);
+            if (Modifier.isStatic(field.getModifiers())) {
+                code.op(GETSTATIC, reference);
+            } else {
+                code.op(ALOAD_1).op(CHECKCAST, writer.classReference(internalName(type)));
+                code.op(GETFIELD, reference);
+            }
+            box(writer, code, field.getType());
+            code.op(ARETURN);
+            code.stack(2);
+        }
+        endSwitch(writer, code, switchPosition, new ArrayList<Integer>(), ILOAD_2);
+    }
+
+    private static void writeSet(ByteCodeWriter writer, Class<?> type, Field[] fields) {
+        ByteCodeWriter.Code code = writer.method(ByteCodeWriter.ACC_PROTECTED, "doSet",
+                        "(Ljava/lang/Object;ILjava/lang/Object;)V", 4);
+        int switchPosition = startSwitch(code, ILOAD_2, fields.length);
+        List<Integer> unsupported = new ArrayList<>();
+        for (int index = 0; index < fields.length; index++) {
+            Field field = fields[index];
+            if (Modifier.isFinal(field.getModifiers())) {
+                unsupported.add(index);
+                continue;
+            }
+            code.target(switchPosition, index);
+            int reference = fieldReference(writer, type, field);
+            boolean isStatic = Modifier.isStatic(field.getModifiers());
+            if (!isStatic) {
+                code.op(ALOAD_1).op(CHECKCAST, writer.classReference(internalName(type)));
+            }
+            code.op(ALOAD_3);
+            unbox(writer, code, field.getType());
+            code.op(isStatic ? PUTSTATIC : PUTFIELD, reference);
+            code.op(RETURN);
+            code.stack(3);
+        }
+        endSwitch(writer, code, switchPosition, unsupported, ILOAD_2);
+    }
+
+    private static int startSwitch(ByteCodeWriter.Code code, int loadIndex, int cases) {
+        if (cases == 0) {
+            return -1;
+        }
+        code.op(loadIndex);
+        code.stack(1);
+        return code.tableSwitch(cases);
+    }
+
+    private static void endSwitch(ByteCodeWriter writer, ByteCodeWriter.Code code, int switchPosition,
+                    List<Integer> unsupported, int loadIndex) {
+        if (switchPosition >= 0) {
+            code.target(switchPosition, -1);
+            for (Integer index : unsupported) {
+                code.target(switchPosition, index.intValue());
+            }
+        }
+        code.op(ALOAD_0).op(loadIndex);
+        code.op(INVOKEVIRTUAL, writer.methodReference(SUPER_CLASS, "unknownIndex",
+                        "(I)Ljava/lang/RuntimeException;", false));
+        code.op(ATHROW);
+        code.stack(2);
+    }
+
+    /**
+     * Push the elements of the argument array, converted to the parameter
+     * types, on the stack.
+     *
+     * @return stack slots used, including {@code alreadyOnStack}
+     */
+    private static int loadArguments(ByteCodeWriter writer, ByteCodeWriter.Code code, int loadArray,
+                    Class<?>[] parameterTypes, int alreadyOnStack) {
+        int slots = alreadyOnStack;
+        for (int index = 0; index < parameterTypes.length; index++) {
+            code.op(loadArray).push(index).op(AALOAD);
+            code.stack(slots + 2);
+            unbox(writer, code, parameterTypes[index]);
+            slots += slots(parameterTypes[index]);
+        }
+        code.stack(slots);
+        return slots;
+    }
+
+    private static void box(ByteCodeWriter writer, ByteCodeWriter.Code code, Class<?> type) {
+        if (type.isPrimitive()) {
+            String wrapper = internalName(Primitives.wrapper(type));
+            code.op(INVOKESTATIC, writer.methodReference(wrapper, "valueOf",
+                            "(" + descriptor(type) + ")L" + wrapper + ";", false));
+        }
+    }
+
+    private static void unbox(ByteCodeWriter writer, ByteCodeWriter.Code code, Class<?> type) {
+        if (type.isPrimitive()) {
+            String wrapper = internalName(Primitives.wrapper(type));
+            code.op(CHECKCAST, writer.classReference(wrapper));
+            code.op(INVOKEVIRTUAL, writer.methodReference(wrapper, type.getName() + "Value",
+                            "()" + descriptor(type), false));
+        } else if (type != Object.class) {
+            code.op(CHECKCAST, writer.classReference(internalName(type)));
+        }
+    }
+
+    private static int fieldReference(ByteCodeWriter writer, Class<?> type, Field field) {
+        return writer.fieldReference(internalName(type), field.getName(), descriptor(field.getType()));
+    }
+
+    private static boolean canGenerate(Class<?> type) {
+        return Modifier.isPublic(type.getModifiers()) && !type.isArray() && !type.isPrimitive()
+                        && isVisible(type) && isVisible(ClassAccessor.class);
+    }
+
+    private static boolean isVisible(Class<?> type) {
+        try {
+            return Class.forName(type.getName(), false, ByteCodeClassLoader.getClassLoader()) == type;
+        } catch (ClassNotFoundException exception) {
+            return false;
+        }
+    }
+
+    private static Constructor<?>[] constructors(Class<?> type) {
+        Constructor<?>[] constructors = type.getConstructors();
+        Arrays.sort(constructors, CONSTRUCTOR_ORDER);
+        return constructors;
+    }
+
+    private static Method[] methods(Class<?> type) {
+        List<Method> methods = new ArrayList<>();
+        for (Method method : type.getMethods()) {
+            // static interface methods can not be called from Java 5 byte code
+            if (!(Modifier.isStatic(method.getModifiers()) && method.getDeclaringClass().isInterface())) {
+                methods.add(method);
+            }
+        }
+        Method[] sorted = methods.toArray(new Method[methods.size()]);
+        Arrays.sort(sorted, METHOD_ORDER);
+        return sorted;
+    }
+
+    private static int slots(Class<?> type) {
+        return type == Long.TYPE || type == Double.TYPE ? 2 : 1;
+    }
+
+}
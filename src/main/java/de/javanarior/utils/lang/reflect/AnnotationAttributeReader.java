@@ -0,0 +1,422 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reads the attributes of a annotation type through method handles, which
+ * are created once per annotation type, e.g.
+ *
+ * <pre>
+ * AnnotationAttributeReader&lt;Resource&gt; reader = AnnotationAttributeReader.of(Resource.class);
+ * Object name = reader.value(resource, "name");
+ * </pre>
+ *
+ * The annotation proxy returns a new copy of array valued attributes on every
+ * call. {@link #arrayView(Annotation, String)} copies the array only once
+ * per annotation instance and returns a shared, unmodifiable list view of it.
+ *
+ * Instances are thread safe and created with {@link #of(Class)}.
+ * In case of error a {@linkplain ReflectionException} is thrown.
+ *
+ * @param <A>
+ *            - the annotation type
+ */
+public final class AnnotationAttributeReader<A extends Annotation> {
+
+    private static final ClassValue<AnnotationAttributeReader<?>> READERS =
+                    new ClassValue<AnnotationAttributeReader<?>>() {
+                        @Override
+                        protected AnnotationAttributeReader<?> computeValue(Class<?> type) {
+                            return new AnnotationAttributeReader<>(type.asSubclass(Annotation.class));
+                        }
+                    };
+
+    private static final MethodType READER_TYPE = MethodType.methodType(Object.class, Annotation.class);
+
+    private final Class<A> annotationType;
+    private final Method[] attributes;
+    /** Handles {@code (Annotation)Object}, in the order of {@link #attributes}. */
+    private final MethodHandle[] readers;
+    /** Typed accessors, in the order of {@link #attributes}. */
+    private final MethodHandleAttribute<A, ?>[] accessors;
+    private final Map<String, Integer> indices = new HashMap<>();
+    /** Shared array views per annotation instance, the annotations are referenced weakly. */
+    private final ConcurrentMap<IdentityKey, Object[]> arrayViews = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+    private AnnotationAttributeReader(Class<A> annotationType) {
+        this.annotationType = annotationType;
+        this.attributes = annotationType.getDeclaredMethods();
+        Arrays.sort(attributes, new Comparator<Method>() {
+            @Override
+            public int compare(Method first, Method second) {
+                return first.getName().compareTo(second.getName());
+            }
+        });
+        this.readers = new MethodHandle[attributes.length];
+        this.accessors = newAccessors(attributes.length);
+        for (int index = 0; index < attributes.length; index++) {
+            MethodHandle handle = handle(attributes[index]);
+            readers[index] = handle.asType(READER_TYPE);
+            accessors[index] = new MethodHandleAttribute<>(attributes[index], handle);
+            indices.put(attributes[index].getName(), Integer.valueOf(index));
+        }
+    }
+
+    /**
+     * Returns the reader for {@code annotationType}. The reader is created
+     * once per annotation type.
+     *
+     * @param <A>
+     *            - the annotation type
+     * @param annotationType
+     *            - class of the annotation
+     * @return reader for {@code annotationType}
+     */
+    @SuppressWarnings("unchecked")
+    public static <A extends Annotation> AnnotationAttributeReader<A> of(Class<A> annotationType) {
+        if (!annotationType.isAnnotation()) {
+            throw new ReflectionException("'" + annotationType.getName() + "' is not a annotation type");
+        }
+        return (AnnotationAttributeReader<A>)READERS.get(annotationType);
+    }
+
+    /**
+     * Returns the annotation type.
+     *
+     * @return annotation type
+     */
+    public Class<A> getAnnotationType() {
+        return annotationType;
+    }
+
+    /**
+     * Returns the names of the attributes.
+     *
+     * @return attribute names
+     */
+    public Set<String> getAttributeNames() {
+        return Collections.unmodifiableSet(indices.keySet());
+    }
+
+    /**
+     * Returns the index of the attribute {@code attributeName}.
+     *
+     * @param attributeName
+     *            - name of the attribute
+     * @return index of the attribute, or {@code -1} if there is none
+     */
+    public int attributeIndex(String attributeName) {
+        Integer index = indices.get(attributeName);
+        return index == null ? -1 : index.intValue();
+    }
+
+    /**
+     * Returns the value of the attribute {@code attributeName} of
+     * {@code annotation}. The methods {@code annotationType},
+     * {@code toString} and {@code hashCode} of {@link Annotation} can be
+     * called by name as well, no attribute can have their names.
+     *
+     * @param annotation
+     *            - the annotation
+     * @param attributeName
+     *            - name of the attribute
+     * @return value of the attribute
+     */
+    public Object value(A annotation, String attributeName) {
+        int index = attributeIndex(attributeName);
+        return index < 0 ? annotationMethod(annotation, attributeName) : value(annotation, index);
+    }
+
+    /**
+     * Returns the value of the attribute {@code attributeIndex} of
+     * {@code annotation}.
+     *
+     * @param annotation
+     *            - the annotation
+     * @param attributeIndex
+     *            - index of the attribute
+     * @return value of the attribute
+     */
+    public Object value(A annotation, int attributeIndex) {
+        MethodHandle reader = readers[checkIndex(attributeIndex)];
+        try {
+            return reader.invokeExact((Annotation)annotation);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw new ReflectionException("Could not read attribute '" + attributes[attributeIndex].getName() + "' of '"
+                            + annotationType.getCanonicalName() + "'", exception);
+        }
+    }
+
+    /**
+     * Returns a reader for the {@code int} attribute {@code attributeName},
+     * which does not box the value.
+     *
+     * @param attributeName
+     *            - name of a {@code int} attribute
+     * @return reader for the attribute
+     */
+    public IntAttribute<A> intAttribute(String attributeName) {
+        return accessor(attributeName, Integer.TYPE);
+    }
+
+    /**
+     * Returns a reader for the {@code long} attribute {@code attributeName},
+     * which does not box the value.
+     *
+     * @param attributeName
+     *            - name of a {@code long} attribute
+     * @return reader for the attribute
+     */
+    public LongAttribute<A> longAttribute(String attributeName) {
+        return accessor(attributeName, Long.TYPE);
+    }
+
+    /**
+     * Returns a reader for the {@code boolean} attribute
+     * {@code attributeName}, which does not box the value.
+     *
+     * @param attributeName
+     *            - name of a {@code boolean} attribute
+     * @return reader for the attribute
+     */
+    public BooleanAttribute<A> booleanAttribute(String attributeName) {
+        return accessor(attributeName, Boolean.TYPE);
+    }
+
+    /**
+     * Returns a reader for the attribute {@code attributeName}, which returns
+     * the value as {@code valueType}, e.g. {@code String.class}, a enum or a
+     * array type. Primitive attributes can be read as their wrapper type.
+     *
+     * @param <R>
+     *            - type of the attribute value
+     * @param attributeName
+     *            - name of the attribute
+     * @param valueType
+     *            - type of the attribute value
+     * @return reader for the attribute
+     */
+    public <R> TypedAttribute<A, R> typedAttribute(String attributeName, Class<R> valueType) {
+        return accessor(attributeName, valueType);
+    }
+
+    /**
+     * Returns a unmodifiable list view of the array valued attribute
+     * {@code attributeName} of {@code annotation}. The view is created once
+     * per annotation instance and shared by all callers.
+     *
+     * @param annotation
+     *            - the annotation
+     * @param attributeName
+     *            - name of a array valued attribute
+     * @return unmodifiable view of the attribute value
+     */
+    public List<?> arrayView(A annotation, String attributeName) {
+        return arrayView(annotation, existingIndex(attributeName));
+    }
+
+    /**
+     * Returns a unmodifiable list view of the array valued attribute
+     * {@code attributeIndex} of {@code annotation}. The view is created once
+     * per annotation instance and shared by all callers.
+     *
+     * @param annotation
+     *            - the annotation
+     * @param attributeIndex
+     *            - index of a array valued attribute
+     * @return unmodifiable view of the attribute value
+     */
+    public List<?> arrayView(A annotation, int attributeIndex) {
+        Method attribute = attributes[checkIndex(attributeIndex)];
+        if (!attribute.getReturnType().isArray()) {
+            throw new ReflectionException("Attribute '" + attribute.getName() + "' of '"
+                            + annotationType.getCanonicalName() + "' is not a array");
+        }
+        Object[] views = arrayViews(annotation);
+        List<?> view = (List<?>)views[attributeIndex];
+        if (view == null) {
+            view = new ArrayView(value(annotation, attributeIndex));
+            views[attributeIndex] = view;
+        }
+        return view;
+    }
+
+    private Object[] arrayViews(A annotation) {
+        expungeCollected();
+        Object[] views = arrayViews.get(new IdentityKey(annotation, null));
+        if (views == null) {
+            views = new Object[attributes.length];
+            Object[] existing = arrayViews.putIfAbsent(new IdentityKey(annotation, collected), views);
+            views = existing == null ? views : existing;
+        }
+        return views;
+    }
+
+    private void expungeCollected() {
+        for (Object key = collected.poll(); key != null; key = collected.poll()) {
+            arrayViews.remove(key);
+        }
+    }
+
+    /**
+     * Returns the accessor of {@code attributeName}, after checking that the
+     * attribute has the type {@code valueType}, or its wrapper.
+     */
+    @SuppressWarnings("unchecked")
+    private <R> MethodHandleAttribute<A, R> accessor(String attributeName, Class<R> valueType) {
+        MethodHandleAttribute<A, ?> accessor = accessors[existingIndex(attributeName)];
+        Class<?> returnType = accessor.getAttribute().getReturnType();
+        if (returnType != valueType && Primitives.wrapper(returnType) != valueType) {
+            throw new ReflectionException("Attribute '" + attributeName + "' of '" + annotationType.getCanonicalName()
+                            + "' has type '" + returnType.getName() + "', not '" + valueType.getName() + "'");
+        }
+        return (MethodHandleAttribute<A, R>)accessor;
+    }
+
+    @SuppressWarnings("unchecked") // the array only holds accessors of A, it is never exposed
+    private static <A extends Annotation> MethodHandleAttribute<A, ?>[] newAccessors(int length) {
+        return (MethodHandleAttribute<A, ?>[])new MethodHandleAttribute<?, ?>[length];
+    }
+
+    private Object annotationMethod(A annotation, String methodName) {
+        switch (methodName) {
+            case "annotationType":
+                return annotation.annotationType();
+            case "toString":
+                return annotation.toString();
+            case "hashCode":
+                return Integer.valueOf(annotation.hashCode());
+            default:
+                return value(annotation, existingIndex(methodName));
+        }
+    }
+
+    private int existingIndex(String attributeName) {
+        int index = attributeIndex(attributeName);
+        if (index < 0) {
+            throw new ReflectionException("Attribute '" + attributeName + "' not found on '"
+                            + annotationType.getCanonicalName() + "'");
+        }
+        return index;
+    }
+
+    private int checkIndex(int attributeIndex) {
+        if (attributeIndex < 0 || attributeIndex >= attributes.length) {
+            throw new ReflectionException("No attribute with index " + attributeIndex + " on '"
+                            + annotationType.getCanonicalName() + "'");
+        }
+        return attributeIndex;
+    }
+
+    private static MethodHandle handle(Method attribute) {
+        try {
+            return unreflect(attribute);
+        } catch (IllegalAccessException | RuntimeException exception) {
+            throw new ReflectionException("Could not access attribute '" + attribute.getName() + "' of '"
+                            + attribute.getDeclaringClass().getCanonicalName() + "'", exception);
+        }
+    }
+
+    private static MethodHandle unreflect(Method attribute) throws IllegalAccessException {
+        try {
+            return MethodHandles.publicLookup().unreflect(attribute);
+        } catch (IllegalAccessException exception) {
+            // annotation type not public, the attribute methods are
+            attribute.setAccessible(true);
+            return MethodHandles.lookup().unreflect(attribute);
+        }
+    }
+
+    /**
+     * Unmodifiable list view of a array, primitive or not.
+     */
+    private static final class ArrayView extends AbstractList<Object> implements RandomAccess {
+
+        private final Object array;
+        private final int size;
+
+        ArrayView(Object array) {
+            this.array = array;
+            this.size = Array.getLength(array);
+        }
+
+        @Override
+        public Object get(int index) {
+            return Array.get(array, index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+    }
+
+    /**
+     * Weak key, which compares the referenced objects by identity.
+     */
+    private static final class IdentityKey extends WeakReference<Object> {
+
+        private final int hashCode;
+
+        IdentityKey(Object referent, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hashCode = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof IdentityKey)) {
+                return false;
+            }
+            Object referent = get();
+            return referent != null && referent == ((IdentityKey)obj).get();
+        }
+
+    }
+
+}
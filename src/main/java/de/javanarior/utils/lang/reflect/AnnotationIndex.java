@@ -0,0 +1,389 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.javanarior.utils.lang.ClassFileReader;
+import de.javanarior.utils.lang.ReflectionEvent;
+import de.javanarior.utils.lang.ReflectionEvents;
+
+/**
+ * The annotations of a class, its declared methods and their parameters,
+ * scanned once with the attribute values already extracted, e.g.
+ *
+ * <pre>
+ * AnnotationValues resource = AnnotationIndex.of(MyBean.class).classAnnotation(Resource.class);
+ * Object name = resource.get("name");
+ * </pre>
+ *
+ * The index is created once per class and held in a {@link ClassValue}, so
+ * queries are map lookups and do not go through the synchronized annotation
+ * parsing of the JDK. Class annotations include inherited ones, like
+ * {@link Class#getAnnotation(Class)}. Parameters can be looked up by name,
+ * if the class file contains the parameter names.
+ *
+ * If the class was compiled with the
+ * {@link de.javanarior.utils.lang.reflect.processor.AnnotationIndexProcessor},
+ * the index is built from the {@link GeneratedAnnotationIndex} without
+ * parsing annotations or reading the class file.
+ *
+ * Instances are immutable and thread safe.
+ */
+public final class AnnotationIndex {
+
+    private static final ClassValue<AnnotationIndex> INDICES = new ClassValue<AnnotationIndex>() {
+        @Override
+        protected AnnotationIndex computeValue(Class<?> type) {
+            GeneratedAnnotationIndex generated = GeneratedAnnotationIndex.find(type);
+            return generated == null ? new AnnotationIndex(type) : new AnnotationIndex(type, generated);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 4096;
+    private static final Map<Class<? extends Annotation>, AnnotationValues> NONE = Collections.emptyMap();
+
+    /** {@link System#nanoTime()} at creation; a lookup which started earlier waited for the build, no hit. */
+    private final long created = System.nanoTime();
+    private final Class<?> type;
+    private final Map<Class<? extends Annotation>, AnnotationValues> classAnnotations;
+    private final Map<Method, Map<Class<? extends Annotation>, AnnotationValues>> methodAnnotations;
+    private final Map<Method, List<Map<Class<? extends Annotation>, AnnotationValues>>> parameterAnnotations;
+    /** Parameter names per method, read from the class file on first use. */
+    private volatile Map<Method, String[]> parameterNames;
+
+    private AnnotationIndex(Class<?> type) {
+        this.type = type;
+        this.classAnnotations = index(type.getAnnotations());
+        Map<Method, Map<Class<? extends Annotation>, AnnotationValues>> methods = new HashMap<>();
+        Map<Method, List<Map<Class<? extends Annotation>, AnnotationValues>>> parameters = new HashMap<>();
+        for (Method method : type.getDeclaredMethods()) {
+            Map<Class<? extends Annotation>, AnnotationValues> annotations = index(method.getAnnotations());
+            if (!annotations.isEmpty()) {
+                methods.put(method, annotations);
+            }
+            Annotation[][] annotationsPerParameter = method.getParameterAnnotations();
+            List<Map<Class<? extends Annotation>, AnnotationValues>> parameterIndex =
+                            new ArrayList<>(annotationsPerParameter.length);
+            boolean annotated = false;
+            for (Annotation[] parameterAnnotations : annotationsPerParameter) {
+                Map<Class<? extends Annotation>, AnnotationValues> found = index(parameterAnnotations);
+                parameterIndex.add(found);
+                annotated |= !found.isEmpty();
+            }
+            if (annotated) {
+                parameters.put(method, Collections.unmodifiableList(parameterIndex));
+            }
+        }
+        this.methodAnnotations = methods;
+        this.parameterAnnotations = parameters;
+    }
+
+    private AnnotationIndex(Class<?> type, GeneratedAnnotationIndex generated) {
+        this.type = type;
+        Map<String, Class<? extends Annotation>> annotationTypes = new HashMap<>();
+        this.classAnnotations = index(generated.classAnnotations(), annotationTypes, type, -1);
+        Map<Method, Map<Class<? extends Annotation>, AnnotationValues>> methods = new HashMap<>();
+        Map<Method, List<Map<Class<? extends Annotation>, AnnotationValues>>> parameters = new HashMap<>();
+        Map<Method, String[]> names = new HashMap<>();
+        for (Method method : type.getDeclaredMethods()) {
+            GeneratedAnnotationIndex.GeneratedMethod generatedMethod = generated.method(method.getName(),
+                            Descriptors.methodDescriptor(method));
+            if (generatedMethod == null) {
+                continue;
+            }
+            names.put(method, generatedMethod.parameterNames());
+            Map<Class<? extends Annotation>, AnnotationValues> annotations = index(generatedMethod.annotations(),
+                            annotationTypes, method, -1);
+            if (!annotations.isEmpty()) {
+                methods.put(method, annotations);
+            }
+            int parameterCount = generatedMethod.parameterNames().length;
+            List<Map<Class<? extends Annotation>, AnnotationValues>> parameterIndex = new ArrayList<>(parameterCount);
+            boolean annotated = false;
+            for (int parameter = 0; parameter < parameterCount; parameter++) {
+                Map<Class<? extends Annotation>, AnnotationValues> found = index(
+                                generatedMethod.parameterAnnotations(parameter), annotationTypes, method, parameter);
+                parameterIndex.add(found);
+                annotated |= !found.isEmpty();
+            }
+            if (annotated) {
+                parameters.put(method, Collections.unmodifiableList(parameterIndex));
+            }
+        }
+        this.methodAnnotations = methods;
+        this.parameterAnnotations = parameters;
+        this.parameterNames = names;
+    }
+
+    /**
+     * Returns the index of {@code type}. The index is created once per
+     * class.
+     *
+     * @param type
+     *            - the class to index
+     * @return index of {@code type}
+     */
+    public static AnnotationIndex of(Class<?> type) {
+        return INDICES.get(type);
+    }
+
+    /**
+     * Returns the index of {@code type} for a lookup of its class
+     * annotations, and emits a {@link ReflectionEvent.Kind#ANNOTATION_LOOKUP}
+     * event if {@link ReflectionEvents} are enabled.
+     *
+     * @param type
+     *            - the class to index
+     * @return annotation index
+     */
+    static AnnotationIndex forLookup(Class<?> type) {
+        return ReflectionEvents.isEnabled() ? lookupWithEvent(type, null) : INDICES.get(type);
+    }
+
+    /**
+     * Returns the index of the declaring class of {@code method} for a
+     * lookup of the annotations of the method or its parameters, and emits a
+     * {@link ReflectionEvent.Kind#ANNOTATION_LOOKUP} event if
+     * {@link ReflectionEvents} are enabled.
+     *
+     * @param method
+     *            - the method
+     * @return annotation index
+     */
+    static AnnotationIndex forLookup(Method method) {
+        Class<?> type = method.getDeclaringClass();
+        return ReflectionEvents.isEnabled() ? lookupWithEvent(type, method) : INDICES.get(type);
+    }
+
+    private static AnnotationIndex lookupWithEvent(Class<?> type, Method method) {
+        long start = System.nanoTime();
+        AnnotationIndex index = INDICES.get(type);
+        String member = method == null ? null : method.getName() + ArgumentTypes.of(method.getParameterTypes());
+        ReflectionEvents.emit(new ReflectionEvent(ReflectionEvent.Kind.ANNOTATION_LOOKUP, type.getName(), member,
+                        System.nanoTime() - start, index.created - start < 0));
+        return index;
+    }
+
+    /**
+     * Returns the indexed class.
+     *
+     * @return type
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Returns the annotation {@code annotationType} on the class.
+     *
+     * @param annotationType
+     *            - class of the annotation
+     * @return the annotation values, or {@code null} if the class is not
+     *         annotated with {@code annotationType}
+     */
+    public AnnotationValues classAnnotation(Class<? extends Annotation> annotationType) {
+        return classAnnotations.get(annotationType);
+    }
+
+    /**
+     * Returns the annotation {@code annotationType} on {@code method}, which
+     * must be declared by the indexed class.
+     *
+     * @param method
+     *            - a method declared by the indexed class
+     * @param annotationType
+     *            - class of the annotation
+     * @return the annotation values, or {@code null} if the method is not
+     *         annotated with {@code annotationType}
+     */
+    public AnnotationValues methodAnnotation(Method method, Class<? extends Annotation> annotationType) {
+        Map<Class<? extends Annotation>, AnnotationValues> annotations = methodAnnotations.get(method);
+        return annotations == null ? null : annotations.get(annotationType);
+    }
+
+    /**
+     * Returns the annotation {@code annotationType} on the parameter
+     * {@code parameterIndex} of {@code method}, which must be declared by the
+     * indexed class.
+     *
+     * @param method
+     *            - a method declared by the indexed class
+     * @param parameterIndex
+     *            - index of the parameter
+     * @param annotationType
+     *            - class of the annotation
+     * @return the annotation values, or {@code null} if the parameter is not
+     *         annotated with {@code annotationType}
+     */
+    public AnnotationValues parameterAnnotation(Method method, int parameterIndex,
+                    Class<? extends Annotation> annotationType) {
+        List<Map<Class<? extends Annotation>, AnnotationValues>> annotations = parameterAnnotations.get(method);
+        if (annotations == null || parameterIndex < 0 || parameterIndex >= annotations.size()) {
+            return null;
+        }
+        return annotations.get(parameterIndex).get(annotationType);
+    }
+
+    /**
+     * Returns the annotation {@code annotationType} on the parameter
+     * {@code parameterName} of {@code method}, which must be declared by the
+     * indexed class. The names are taken from the class file, see
+     * {@link #parameterNames(Method)}.
+     *
+     * @param method
+     *            - a method declared by the indexed class
+     * @param parameterName
+     *            - name of the parameter
+     * @param annotationType
+     *            - class of the annotation
+     * @return the annotation values, or {@code null} if the parameter is not
+     *         annotated with {@code annotationType}, or there is no parameter
+     *         {@code parameterName}
+     */
+    public AnnotationValues parameterAnnotation(Method method, String parameterName,
+                    Class<? extends Annotation> annotationType) {
+        String[] names = names().get(method);
+        if (names == null) {
+            return null;
+        }
+        return parameterAnnotation(method, Arrays.asList(names).indexOf(parameterName), annotationType);
+    }
+
+    /**
+     * Returns the parameter names of {@code method}, which must be declared
+     * by the indexed class. The names are read once from the class file,
+     * which must be compiled with {@code -parameters} or with debug
+     * information.
+     *
+     * @param method
+     *            - a method declared by the indexed class
+     * @return the parameter names, or {@code null} if they are not available
+     */
+    public String[] parameterNames(Method method) {
+        String[] names = names().get(method);
+        return names == null ? null : names.clone();
+    }
+
+    private Map<Method, String[]> names() {
+        Map<Method, String[]> names = parameterNames;
+        if (names == null) {
+            names = readParameterNames(type);
+            parameterNames = names;
+        }
+        return names;
+    }
+
+    private static Map<Method, String[]> readParameterNames(Class<?> type) {
+        byte[] byteCode = readClassFile(type);
+        if (byteCode == null) {
+            return Collections.emptyMap();
+        }
+        ClassFileReader classFile;
+        try {
+            classFile = ClassFileReader.read(byteCode);
+        } catch (IllegalArgumentException exception) {
+            return Collections.emptyMap();
+        }
+        Map<Method, String[]> names = new HashMap<>();
+        for (Method method : type.getDeclaredMethods()) {
+            String[] parameterNames = classFile.getParameterNames(method.getName(),
+                            Descriptors.methodDescriptor(method));
+            if (parameterNames != null) {
+                names.put(method, parameterNames);
+            }
+        }
+        return names;
+    }
+
+    private static byte[] readClassFile(Class<?> type) {
+        String resource = type.getName().replace('.', '/') + ".class";
+        ClassLoader classLoader = type.getClassLoader();
+        try (InputStream input = classLoader == null ? ClassLoader.getSystemResourceAsStream(resource)
+                        : classLoader.getResourceAsStream(resource)) {
+            if (input == null) {
+                return null;
+            }
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+                output.write(buffer, 0, read);
+            }
+            return output.toByteArray();
+        } catch (IOException exception) {
+            return null;
+        }
+    }
+
+    private Map<Class<? extends Annotation>, AnnotationValues> index(Map<String, Map<String, Object>> generated,
+                    Map<String, Class<? extends Annotation>> annotationTypes, AnnotatedElement element,
+                    int parameterIndex) {
+        if (generated.isEmpty()) {
+            return NONE;
+        }
+        Map<Class<? extends Annotation>, AnnotationValues> index = new HashMap<>();
+        for (Map.Entry<String, Map<String, Object>> annotation : generated.entrySet()) {
+            Class<? extends Annotation> annotationType = annotationType(annotation.getKey(), annotationTypes);
+            if (annotationType != null) {
+                index.put(annotationType, AnnotationValues.generated(annotationType, annotation.getValue(), element,
+                                parameterIndex));
+            }
+        }
+        return Collections.unmodifiableMap(index);
+    }
+
+    /**
+     * Resolve a annotation type of a generated index. Types missing at
+     * runtime are ignored, like by reflection.
+     */
+    private Class<? extends Annotation> annotationType(String name,
+                    Map<String, Class<? extends Annotation>> annotationTypes) {
+        if (annotationTypes.containsKey(name)) {
+            return annotationTypes.get(name);
+        }
+        Class<? extends Annotation> annotationType;
+        try {
+            annotationType = Class.forName(name, false, type.getClassLoader()).asSubclass(Annotation.class);
+        } catch (ClassNotFoundException | ClassCastException exception) {
+            annotationType = null;
+        }
+        annotationTypes.put(name, annotationType);
+        return annotationType;
+    }
+
+    private static Map<Class<? extends Annotation>, AnnotationValues> index(Annotation[] annotations) {
+        if (annotations.length == 0) {
+            return NONE;
+        }
+        Map<Class<? extends Annotation>, AnnotationValues> index = new HashMap<>();
+        for (Annotation annotation : annotations) {
+            index.put(annotation.annotationType(), AnnotationValues.of(annotation));
+        }
+        return Collections.unmodifiableMap(index);
+    }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The attribute values of one annotation, extracted once. Part of a
+ * {@link AnnotationIndex}.
+ *
+ * Instances are immutable, array values are copied when they are returned.
+ * In case of error a {@linkplain ReflectionException} is thrown.
+ */
+public final class AnnotationValues {
+
+    private final Class<? extends Annotation> annotationType;
+    private final Map<String, Object> values;
+    /** The annotated class or method, to look up the annotation of a generated index. */
+    private final AnnotatedElement element;
+    private final int parameterIndex;
+    private volatile Annotation annotation;
+
+    private AnnotationValues(Annotation annotation, Map<String, Object> values) {
+        this.annotationType = annotation.annotationType();
+        this.values = values;
+        this.element = null;
+        this.parameterIndex = -1;
+        this.annotation = annotation;
+    }
+
+    private AnnotationValues(Class<? extends Annotation> annotationType, Map<String, Object> values,
+                    AnnotatedElement element, int parameterIndex) {
+        this.annotationType = annotationType;
+        this.values = values;
+        this.element = element;
+        this.parameterIndex = parameterIndex;
+    }
+
+    /**
+     * Extract the attribute values of {@code annotation}.
+     *
+     * @param annotation
+     *            - the annotation
+     * @return extracted values
+     */
+    static AnnotationValues of(Annotation annotation) {
+        return of(annotation, annotation.annotationType());
+    }
+
+    /**
+     * Wrap the attribute values of a {@link GeneratedAnnotationIndex}. The
+     * annotation itself is looked up on request.
+     *
+     * @param annotationType
+     *            - class of the annotation
+     * @param values
+     *            - all attribute values, defaults included
+     * @param element
+     *            - the annotated class or method
+     * @param parameterIndex
+     *            - index of the annotated parameter of the method, or
+     *            {@code -1} if {@code element} itself is annotated
+     * @return the values
+     */
+    static AnnotationValues generated(Class<? extends Annotation> annotationType, Map<String, Object> values,
+                    AnnotatedElement element, int parameterIndex) {
+        return new AnnotationValues(annotationType, values, element, parameterIndex);
+    }
+
+    private static <A extends Annotation> AnnotationValues of(Annotation annotation, Class<A> annotationType) {
+        Map<String, Object> values = new HashMap<>();
+        try {
+            AnnotationAttributeReader<A> reader = AnnotationAttributeReader.of(annotationType);
+            A typed = annotationType.cast(annotation);
+            for (String attributeName : reader.getAttributeNames()) {
+                values.put(attributeName, reader.value(typed, attributeName));
+            }
+        } catch (ReflectionException exception) {
+            // attributes are not accessible, read them on request
+            values = null;
+        }
+        return new AnnotationValues(annotation, values == null ? null : Collections.unmodifiableMap(values));
+    }
+
+    /**
+     * Returns the annotation.
+     *
+     * @return annotation
+     */
+    public Annotation getAnnotation() {
+        Annotation found = annotation;
+        if (found == null) {
+            found = parameterIndex < 0 ? element.getAnnotation(annotationType) : parameterAnnotation();
+            annotation = found;
+        }
+        return found;
+    }
+
+    private Annotation parameterAnnotation() {
+        for (Annotation candidate : ((Method)element).getParameterAnnotations()[parameterIndex]) {
+            if (candidate.annotationType() == annotationType) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the names of all attributes.
+     *
+     * @return attribute names
+     */
+    public Set<String> getAttributeNames() {
+        if (values == null) {
+            return AnnotationAttributeReader.of(annotationType).getAttributeNames();
+        }
+        return values.keySet();
+    }
+
+    /**
+     * Check if the annotation has a attribute {@code attributeName}.
+     *
+     * @param attributeName
+     *            - name of the attribute
+     * @return true if the attribute exists
+     */
+    public boolean hasAttribute(String attributeName) {
+        return getAttributeNames().contains(attributeName);
+    }
+
+    /**
+     * Returns the value of the attribute {@code attributeName}. Array values
+     * are copied. Like {@link AnnotationAttributeReader#value(Annotation, String)}
+     * the methods {@code annotationType}, {@code toString} and
+     * {@code hashCode} of the annotation can be called by name.
+     *
+     * @param attributeName
+     *            - name of the attribute
+     * @return value of the attribute
+     */
+    public Object get(String attributeName) {
+        if (values == null) {
+            return read(annotationType, attributeName);
+        }
+        Object value = values.get(attributeName);
+        if (value == null) {
+            // a method of Annotation or an unknown attribute
+            return read(annotationType, attributeName);
+        }
+        return value.getClass().isArray() ? copy(value) : value;
+    }
+
+    private <A extends Annotation> Object read(Class<A> type, String attributeName) {
+        return AnnotationAttributeReader.of(type).value(type.cast(getAnnotation()), attributeName);
+    }
+
+    static Object copy(Object array) {
+        int length = Array.getLength(array);
+        Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+        System.arraycopy(array, 0, copy, 0, length);
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        Annotation found = annotation;
+        return found == null ? "@" + annotationType.getName() + values : found.toString();
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.util.Arrays;
+
+/**
+ * Immutable list of parameter types, used as key for cached lookups.
+ */
+final class ArgumentTypes {
+
+    private static final Class<?>[] NONE = new Class<?>[0];
+
+    static final ArgumentTypes INT = of(Integer.TYPE);
+    static final ArgumentTypes LONG = of(Long.TYPE);
+    static final ArgumentTypes DOUBLE = of(Double.TYPE);
+    static final ArgumentTypes BOOLEAN = of(Boolean.TYPE);
+    static final ArgumentTypes BYTE = of(Byte.TYPE);
+    static final ArgumentTypes CHAR = of(Character.TYPE);
+    static final ArgumentTypes SHORT = of(Short.TYPE);
+
+    private final Class<?>[] types;
+    private final int hashCode;
+
+    private ArgumentTypes(Class<?>[] types) {
+        this.types = types;
+        this.hashCode = Arrays.hashCode(types);
+    }
+
+    /**
+     * Create a key for {@code types}. The array is copied, so later changes
+     * of the caller do not affect the key.
+     *
+     * @param types
+     *            - parameter types, {@code null} is treated as no parameters
+     * @return key for the parameter types
+     */
+    static ArgumentTypes of(Class<?>... types) {
+        if (types == null || types.length == 0) {
+            return new ArgumentTypes(NONE);
+        }
+        return new ArgumentTypes(types.clone());
+    }
+
+    /**
+     * Returns a copy of the parameter types.
+     *
+     * @return parameter types
+     */
+    Class<?>[] toArray() {
+        return types.clone();
+    }
+
+    /**
+     * Returns whether all types are visible from the classloader of
+     * {@code type}, i.e. loaded by it, one of its parents or the bootstrap
+     * classloader. Only then the types may be part of a key cached for
+     * {@code type}, other types would keep their classloader reachable.
+     *
+     * @param type
+     *            - the class the key is cached for
+     * @return {@code true} if the key may be cached for {@code type}
+     */
+    boolean visibleFrom(Class<?> type) {
+        ClassLoader target = type.getClassLoader();
+        for (Class<?> argumentType : types) {
+            ClassLoader loader = argumentType == null ? null : argumentType.getClassLoader();
+            if (loader != null && loader != target && !isAncestor(loader, target)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAncestor(ClassLoader loader, ClassLoader child) {
+        for (ClassLoader parent = child; parent != null; parent = parent.getParent()) {
+            if (parent == loader) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ArgumentTypes)) {
+            return false;
+        }
+        ArgumentTypes other = (ArgumentTypes)obj;
+        return hashCode == other.hashCode && Arrays.equals(types, other.types);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(types);
+    }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Looks up annotations on many classes at once, split in chunks on a
+ * fork/join pool. The classes are indexed in parallel, the results are
+ * combined in the order of the classes.
+ *
+ * @param <K>
+ *            - the annotated element, a class or a method
+ */
+abstract class BulkAnnotationQuery<K> {
+
+    private static final int SEQUENTIAL_THRESHOLD = 32;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final Class<? extends Annotation>[] annotationTypes;
+
+    private BulkAnnotationQuery(Class<? extends Annotation>[] annotationTypes) {
+        this.annotationTypes = annotationTypes.clone();
+    }
+
+    /**
+     * Query the class annotations.
+     *
+     * @param annotationTypes
+     *            - the annotations to look up
+     * @return query
+     */
+    static BulkAnnotationQuery<Class<?>> onClasses(Class<? extends Annotation>[] annotationTypes) {
+        return new BulkAnnotationQuery<Class<?>>(annotationTypes) {
+            @Override
+            void collect(AnnotationIndex index,
+                            Map<Class<?>, Map<Class<? extends Annotation>, AnnotationValues>> target) {
+                Map<Class<? extends Annotation>, AnnotationValues> found = new LinkedHashMap<>();
+                for (Class<? extends Annotation> annotationType : annotationTypes()) {
+                    add(found, annotationType, index.classAnnotation(annotationType));
+                }
+                put(target, index.getType(), found);
+            }
+        };
+    }
+
+    /**
+     * Query the annotations of the selected declared methods.
+     *
+     * @param selector
+     *            - selects the methods
+     * @param annotationTypes
+     *            - the annotations to look up
+     * @return query
+     */
+    static BulkAnnotationQuery<Method> onMethods(final MethodSelector selector,
+                    Class<? extends Annotation>[] annotationTypes) {
+        return new BulkAnnotationQuery<Method>(annotationTypes) {
+            @Override
+            void collect(AnnotationIndex index,
+                            Map<Method, Map<Class<? extends Annotation>, AnnotationValues>> target) {
+                for (Method method : index.getType().getDeclaredMethods()) {
+                    if (!selector.select(method)) {
+                        continue;
+                    }
+                    Map<Class<? extends Annotation>, AnnotationValues> found = new LinkedHashMap<>();
+                    for (Class<? extends Annotation> annotationType : annotationTypes()) {
+                        add(found, annotationType, index.methodAnnotation(method, annotationType));
+                    }
+                    put(target, method, found);
+                }
+            }
+        };
+    }
+
+    /**
+     * Add the matching annotations of one class to {@code target}.
+     */
+    abstract void collect(AnnotationIndex index, Map<K, Map<Class<? extends Annotation>, AnnotationValues>> target);
+
+    /**
+     * Run the query on {@code pool}. Small batches are run in the calling
+     * thread.
+     *
+     * @param pool
+     *            - the fork/join pool to use
+     * @param classes
+     *            - the classes to query
+     * @return the annotations per element, only elements with at least one
+     *         of the annotations are contained
+     */
+    Map<K, Map<Class<? extends Annotation>, AnnotationValues>> run(ForkJoinPool pool,
+                    Collection<? extends Class<?>> classes) {
+        Class<?>[] types = classes.toArray(new Class<?>[classes.size()]);
+        // one slot per class, the chunks write disjoint ranges
+        List<Map<K, Map<Class<? extends Annotation>, AnnotationValues>>> perClass = slots(types.length);
+        int chunkSize = Math.max(1, types.length / (pool.getParallelism() * CHUNKS_PER_THREAD));
+        if (types.length <= SEQUENTIAL_THRESHOLD) {
+            collect(types, perClass, 0, types.length);
+        } else {
+            pool.invoke(new Chunk(types, perClass, 0, types.length, chunkSize));
+        }
+        Map<K, Map<Class<? extends Annotation>, AnnotationValues>> result = new LinkedHashMap<>();
+        for (Map<K, Map<Class<? extends Annotation>, AnnotationValues>> found : perClass) {
+            result.putAll(found);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private void collect(Class<?>[] types, List<Map<K, Map<Class<? extends Annotation>, AnnotationValues>>> perClass,
+                    int from, int to) {
+        for (int index = from; index < to; index++) {
+            Map<K, Map<Class<? extends Annotation>, AnnotationValues>> found = new LinkedHashMap<>();
+            collect(AnnotationIndex.of(types[index]), found);
+            perClass.set(index, found);
+        }
+    }
+
+    Class<? extends Annotation>[] annotationTypes() {
+        return annotationTypes;
+    }
+
+    private static <T> List<T> slots(int size) {
+        return new ArrayList<>(Collections.<T>nCopies(size, null));
+    }
+
+    private static void add(Map<Class<? extends Annotation>, AnnotationValues> found,
+                    Class<? extends Annotation> annotationType, AnnotationValues annotation) {
+        if (annotation != null) {
+            found.put(annotationType, annotation);
+        }
+    }
+
+    private static <K> void put(Map<K, Map<Class<? extends Annotation>, AnnotationValues>> target, K element,
+                    Map<Class<? extends Annotation>, AnnotationValues> found) {
+        if (!found.isEmpty()) {
+            target.put(element, Collections.unmodifiableMap(found));
+        }
+    }
+
+    /**
+     * Queries a range of the classes, split in chunks.
+     */
+    private final class Chunk extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Class<?>[] types;
+        private final List<Map<K, Map<Class<? extends Annotation>, AnnotationValues>>> perClass;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        Chunk(Class<?>[] types, List<Map<K, Map<Class<? extends Annotation>, AnnotationValues>>> perClass, int from,
+                        int to, int chunkSize) {
+            this.types = types;
+            this.perClass = perClass;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                collect(types, perClass, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Chunk(types, perClass, from, middle, chunkSize),
+                            new Chunk(types, perClass, middle, to, chunkSize));
+        }
+
+    }
+
+}
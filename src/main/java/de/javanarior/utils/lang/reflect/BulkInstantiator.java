@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Creates many instances of a class from columnar data, e.g.
+ *
+ * <pre>
+ * BulkInstantiator&lt;Point&gt; points = Invoke.bulkInstantiator(Point.class, int.class, int.class);
+ * Point[] result = points.newInstances(new int[] { 1, 2, 3 }, new int[] { 4, 5, 6 });
+ * </pre>
+ *
+ * Each column is a array, primitive or not, with the values of one
+ * constructor parameter. The n-th instance is created with the n-th element
+ * of every column. The elements are read through method handles, so primitive
+ * columns are not boxed and no argument array is built per instance. For a
+ * constructor without parameters the number of instances is given as count.
+ *
+ * Instances are thread safe and meant to be kept and reused.
+ * In case of error a {@linkplain ReflectionException} is thrown.
+ *
+ * @param <T>
+ *            - type of the instances
+ */
+public final class BulkInstantiator<T> {
+
+    private static final int MINIMAL_CHUNK_SIZE = 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final Class<T> type;
+    private final MethodHandle constructor;
+
+    /**
+     * Create a new BulkInstantiator instance.
+     *
+     * @param type
+     *            - type of the instances
+     * @param constructor
+     *            - constructor handle with the exact parameter types
+     */
+    BulkInstantiator(Class<T> type, MethodHandle constructor) {
+        this.type = type;
+        this.constructor = constructor;
+    }
+
+    /**
+     * Create a instance for every element of the columns.
+     *
+     * @param columns
+     *            - one array per constructor parameter, all with the same
+     *            length
+     * @return the new instances
+     */
+    public T[] newInstances(Object... columns) {
+        MethodHandle byIndex = byIndex(columns);
+        T[] instances = newArray(length(columns));
+        fill(byIndex, instances, 0, instances.length);
+        return instances;
+    }
+
+    /**
+     * Create {@code count} instances with the constructor without
+     * parameters. Without columns the number of instances can not be taken
+     * from the columns.
+     *
+     * @param count
+     *            - number of instances to create
+     * @return the new instances
+     */
+    public T[] newInstances(int count) {
+        MethodHandle byIndex = byIndex(count);
+        T[] instances = newArray(count);
+        fill(byIndex, instances, 0, instances.length);
+        return instances;
+    }
+
+    /**
+     * Create a instance for every element of the columns in parallel on
+     * {@code pool}. Worth it only for large batches, small batches are
+     * created in the calling thread.
+     *
+     * @param pool
+     *            - the fork/join pool to use
+     * @param columns
+     *            - one array per constructor parameter, all with the same
+     *            length
+     * @return the new instances
+     */
+    public T[] newInstancesInParallel(ForkJoinPool pool, Object... columns) {
+        return fillInParallel(pool, byIndex(columns), newArray(length(columns)));
+    }
+
+    /**
+     * Create {@code count} instances with the constructor without parameters
+     * in parallel on {@code pool}. Worth it only for large batches, small
+     * batches are created in the calling thread.
+     *
+     * @param pool
+     *            - the fork/join pool to use
+     * @param count
+     *            - number of instances to create
+     * @return the new instances
+     */
+    public T[] newInstancesInParallel(ForkJoinPool pool, int count) {
+        return fillInParallel(pool, byIndex(count), newArray(count));
+    }
+
+    private T[] fillInParallel(ForkJoinPool pool, MethodHandle byIndex, T[] instances) {
+        int chunkSize = Math.max(MINIMAL_CHUNK_SIZE, instances.length / (pool.getParallelism() * CHUNKS_PER_THREAD));
+        if (instances.length <= chunkSize) {
+            fill(byIndex, instances, 0, instances.length);
+        } else {
+            pool.invoke(new Fill<>(byIndex, instances, 0, instances.length, chunkSize));
+        }
+        return instances;
+    }
+
+    /**
+     * Create a instance for every element of the columns and add them in
+     * row order to {@code target}.
+     *
+     * @param target
+     *            - collection to add the instances to
+     * @param columns
+     *            - one array per constructor parameter, all with the same
+     *            length
+     */
+    public void addInstances(Collection<? super T> target, Object... columns) {
+        target.addAll(Arrays.asList(newInstances(columns)));
+    }
+
+    private static int length(Object[] columns) {
+        return columns.length == 0 ? 0 : Array.getLength(columns[0]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T[] newArray(int length) {
+        return (T[])Array.newInstance(type, length);
+    }
+
+    /**
+     * Returns a handle {@code (int)Object}, which calls the constructor
+     * without parameters for every index.
+     */
+    private MethodHandle byIndex(int count) {
+        if (count < 0) {
+            throw new ReflectionException("Negative count " + count);
+        }
+        if (constructor.type().parameterCount() != 0) {
+            throw new ReflectionException("Expected " + constructor.type().parameterCount()
+                            + " columns, a count is only supported for constructors without parameters");
+        }
+        return MethodHandles.dropArguments(constructor, 0, Integer.TYPE);
+    }
+
+    /**
+     * Returns a handle {@code (int)Object}, which creates the instance for a
+     * index of the columns.
+     */
+    private MethodHandle byIndex(Object[] columns) {
+        MethodType constructorType = constructor.type();
+        if (columns.length != constructorType.parameterCount()) {
+            throw new ReflectionException("Expected " + constructorType.parameterCount() + " columns, but got "
+                            + columns.length);
+        }
+        if (columns.length == 0) {
+            return MethodHandles.dropArguments(constructor, 0, Integer.TYPE);
+        }
+        MethodHandle[] elementGetters = new MethodHandle[columns.length];
+        int length = -1;
+        for (int index = 0; index < columns.length; index++) {
+            Object column = columns[index];
+            if (column == null || !column.getClass().isArray()) {
+                throw new ReflectionException("Column " + index + " is not a array");
+            }
+            if (length >= 0 && Array.getLength(column) != length) {
+                throw new ReflectionException("Column " + index + " has " + Array.getLength(column)
+                                + " elements, expected " + length);
+            }
+            length = Array.getLength(column);
+            try {
+                MethodHandle getter = MethodHandles.arrayElementGetter(column.getClass());
+                elementGetters[index] = MethodHandles.insertArguments(getter, 0, column)
+                                .asType(MethodType.methodType(constructorType.parameterType(index), Integer.TYPE));
+            } catch (WrongMethodTypeException exception) {
+                throw new ReflectionException("Column " + index + " of type '"
+                                + column.getClass().getComponentType().getName() + "' does not fit parameter type '"
+                                + constructorType.parameterType(index).getName() + "'", exception);
+            }
+        }
+        MethodHandle filtered = MethodHandles.filterArguments(constructor, 0, elementGetters);
+        MethodType byIndexType = MethodType.methodType(Object.class, Integer.TYPE);
+        return MethodHandles.permuteArguments(filtered, byIndexType, new int[columns.length]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void fill(MethodHandle byIndex, T[] instances, int from, int to) {
+        try {
+            for (int index = from; index < to; index++) {
+                instances[index] = (T)(Object)byIndex.invokeExact(index);
+            }
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - the constructor may throw anything
+            throw new ReflectionException(
+                            "Could not invoke constructor, please check if constructor exists and the parameters fit",
+                            exception);
+        }
+    }
+
+    /**
+     * Fills a range of the result array, split in chunks.
+     */
+    private static final class Fill<T> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient MethodHandle byIndex;
+        private final T[] instances;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        Fill(MethodHandle byIndex, T[] instances, int from, int to, int chunkSize) {
+            this.byIndex = byIndex;
+            this.instances = instances;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                fill(byIndex, instances, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Fill<>(byIndex, instances, from, middle, chunkSize),
+                            new Fill<>(byIndex, instances, middle, to, chunkSize));
+        }
+
+    }
+
+}
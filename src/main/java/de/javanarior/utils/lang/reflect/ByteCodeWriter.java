@@ -0,0 +1,462 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal writer for class files, just enough to emit the accessor classes
+ * of the {@link AccessorGenerator}.
+ *
+ * The class files are written in version 49 (Java 5), so the methods need no
+ * stack map frames and are checked by the type inferencing verifier.
+ */
+final class ByteCodeWriter {
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_PRIVATE = 0x0002;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+    static final int ACC_PROTECTED = 0x0004;
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int VERSION_JAVA_5 = 49;
+    private static final int MAX_CODE_LENGTH = 65535;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private final Map<String, Integer> constants = new HashMap<>();
+    private final ByteArrayOutputStream constantPoolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream constantPool = new DataOutputStream(constantPoolBytes);
+    private int constantCount = 1;
+
+    private final int thisClass;
+    private final int superClass;
+    private final List<Code> methods = new ArrayList<>();
+
+    /**
+     * Create a new ByteCodeWriter instance.
+     *
+     * @param internalName
+     *            - name of the class to write, with slashes
+     * @param superInternalName
+     *            - name of the super class, with slashes
+     */
+    ByteCodeWriter(String internalName, String superInternalName) {
+        thisClass = classReference(internalName);
+        superClass = classReference(superInternalName);
+    }
+
+    /**
+     * Returns the constant pool index of a class reference.
+     *
+     * @param internalName
+     *            - class name with slashes, or descriptor for arrays
+     * @return constant pool index
+     */
+    int classReference(String internalName) {
+        String key = "C" + internalName;
+        Integer index = constants.get(key);
+        if (index == null) {
+            int name = utf8(internalName);
+            index = add(key, CONSTANT_CLASS, name, -1);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the constant pool index of a field reference.
+     *
+     * @param owner
+     *            - internal name of the class with the field
+     * @param name
+     *            - field name
+     * @param descriptor
+     *            - field descriptor
+     * @return constant pool index
+     */
+    int fieldReference(String owner, String name, String descriptor) {
+        return memberReference(CONSTANT_FIELDREF, owner, name, descriptor);
+    }
+
+    /**
+     * Returns the constant pool index of a method reference.
+     *
+     * @param owner
+     *            - internal name of the class with the method
+     * @param name
+     *            - method name
+     * @param descriptor
+     *            - method descriptor
+     * @param onInterface
+     *            - {@code true} if {@code owner} is a interface
+     * @return constant pool index
+     */
+    int methodReference(String owner, String name, String descriptor, boolean onInterface) {
+        return memberReference(onInterface ? CONSTANT_INTERFACE_METHODREF : CONSTANT_METHODREF, owner, name,
+                        descriptor);
+    }
+
+    /**
+     * Returns the constant pool index of a integer constant.
+     *
+     * @param value
+     *            - the constant
+     * @return constant pool index
+     */
+    int integer(int value) {
+        String key = "I" + value;
+        Integer index = constants.get(key);
+        if (index == null) {
+            index = add(key, CONSTANT_INTEGER, value, -1);
+        }
+        return index;
+    }
+
+    /**
+     * Add a method. The byte code is appended to the returned {@link Code}.
+     *
+     * @param access
+     *            - access flags
+     * @param name
+     *            - method name
+     * @param descriptor
+     *            - method descriptor
+     * @param maxLocals
+     *            - number of local variable slots, including the parameters
+     * @return code of the method
+     */
+    Code method(int access, String name, String descriptor, int maxLocals) {
+        Code code = new Code(access, utf8(name), utf8(descriptor), maxLocals);
+        methods.add(code);
+        return code;
+    }
+
+    /**
+     * Returns the class file.
+     *
+     * @param access
+     *            - access flags of the class
+     * @return class file bytes
+     */
+    byte[] toByteArray(int access) {
+        int codeAttribute = utf8("Code");
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeShort(0);
+            out.writeShort(VERSION_JAVA_5);
+            constantPool.flush();
+            out.writeShort(constantCount);
+            constantPoolBytes.writeTo(out);
+            out.writeShort(access);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0); // interfaces
+            out.writeShort(0); // fields
+            out.writeShort(methods.size());
+            for (Code method : methods) {
+                method.writeTo(out, codeAttribute);
+            }
+            out.writeShort(0); // attributes
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private int memberReference(int tag, String owner, String name, String descriptor) {
+        String key = tag + owner + '.' + name + descriptor;
+        Integer index = constants.get(key);
+        if (index == null) {
+            int ownerIndex = classReference(owner);
+            int nameAndType = nameAndType(name, descriptor);
+            index = add(key, tag, ownerIndex, nameAndType);
+        }
+        return index;
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        String key = "N" + name + ' ' + descriptor;
+        Integer index = constants.get(key);
+        if (index == null) {
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            index = add(key, CONSTANT_NAME_AND_TYPE, nameIndex, descriptorIndex);
+        }
+        return index;
+    }
+
+    private int utf8(String value) {
+        String key = "U" + value;
+        Integer index = constants.get(key);
+        if (index == null) {
+            try {
+                constantPool.writeByte(CONSTANT_UTF8);
+                constantPool.writeUTF(value);
+            } catch (IOException exception) {
+                throw new IllegalStateException(exception);
+            }
+            index = constantCount++;
+            constants.put(key, index);
+        }
+        return index;
+    }
+
+    private int add(String key, int tag, int first, int second) {
+        try {
+            constantPool.writeByte(tag);
+            if (tag == CONSTANT_INTEGER) {
+                constantPool.writeInt(first);
+            } else {
+                constantPool.writeShort(first);
+                if (second >= 0) {
+                    constantPool.writeShort(second);
+                }
+            }
+        } catch (IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+        int index = constantCount++;
+        constants.put(key, index);
+        return index;
+    }
+
+    /**
+     * Byte code of a single method.
+     */
+    final class Code {
+
+        private final int access;
+        private final int name;
+        private final int descriptor;
+        private final int maxLocals;
+        private int maxStack;
+        private byte[] code = new byte[64];
+        private int length;
+
+        private Code(int access, int name, int descriptor, int maxLocals) {
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.maxLocals = maxLocals;
+        }
+
+        /**
+         * Append a instruction without operands.
+         *
+         * @param opcode
+         *            - instruction
+         * @return this
+         */
+        Code op(int opcode) {
+            return u1(opcode);
+        }
+
+        /**
+         * Append a instruction with a two byte operand, e.g. a constant
+         * pool index.
+         *
+         * @param opcode
+         *            - instruction
+         * @param operand
+         *            - operand
+         * @return this
+         */
+        Code op(int opcode, int operand) {
+            return u1(opcode).u2(operand);
+        }
+
+        /**
+         * Append a instruction with a local variable index as operand.
+         *
+         * @param opcode
+         *            - instruction
+         * @param local
+         *            - index of the local variable
+         * @return this
+         */
+        Code load(int opcode, int local) {
+            return u1(opcode).u1(local);
+        }
+
+        /**
+         * Append a {@code invokeinterface} instruction.
+         *
+         * @param method
+         *            - constant pool index of the interface method
+         * @param argumentSlots
+         *            - slots of the arguments, including the receiver
+         * @return this
+         */
+        Code invokeInterface(int method, int argumentSlots) {
+            return u1(Opcodes.INVOKEINTERFACE).u2(method).u1(argumentSlots).u1(0);
+        }
+
+        /**
+         * Append a instruction which pushes {@code value} on the stack.
+         *
+         * @param value
+         *            - int constant
+         * @return this
+         */
+        Code push(int value) {
+            if (value >= -1 && value <= 5) {
+                return u1(Opcodes.ICONST_0 + value);
+            }
+            if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                return u1(Opcodes.BIPUSH).u1(value);
+            }
+            if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                return u1(Opcodes.SIPUSH).u2(value);
+            }
+            return u1(Opcodes.LDC_W).u2(integer(value));
+        }
+
+        /**
+         * Append a {@code tableswitch} for the keys {@code 0} to
+         * {@code cases - 1}. The jump targets are set later with
+         * {@link #target(int, int)}.
+         *
+         * @param cases
+         *            - number of cases
+         * @return position of the default target, followed by the case
+         *         targets
+         */
+        int tableSwitch(int cases) {
+            int opcodePosition = length;
+            u1(Opcodes.TABLESWITCH);
+            while (length % 4 != 0) {
+                u1(0);
+            }
+            int defaultPosition = length;
+            u4(opcodePosition).u4(0).u4(cases - 1);
+            for (int index = 0; index < cases; index++) {
+                u4(opcodePosition);
+            }
+            return defaultPosition;
+        }
+
+        /**
+         * Set a jump target of a {@code tableswitch} to the current
+         * position.
+         *
+         * @param switchPosition
+         *            - position returned by {@link #tableSwitch(int)}
+         * @param entry
+         *            - {@code -1} for the default target, otherwise the case
+         */
+        void target(int switchPosition, int entry) {
+            int position = entry < 0 ? switchPosition : switchPosition + 12 + entry * 4;
+            int opcodePosition = readInt(position);
+            writeInt(position, length - opcodePosition);
+        }
+
+        /**
+         * Update the maximum operand stack depth.
+         *
+         * @param depth
+         *            - stack depth needed at some point of the method
+         */
+        void stack(int depth) {
+            maxStack = Math.max(maxStack, depth);
+        }
+
+        /**
+         * Returns the current length of the code.
+         *
+         * @return code length
+         */
+        int length() {
+            return length;
+        }
+
+        private Code u1(int value) {
+            ensureCapacity(1);
+            code[length++] = (byte)value;
+            return this;
+        }
+
+        private Code u2(int value) {
+            ensureCapacity(2);
+            code[length++] = (byte)(value >>> 8);
+            code[length++] = (byte)value;
+            return this;
+        }
+
+        private Code u4(int value) {
+            ensureCapacity(4);
+            writeInt(length, value);
+            length += 4;
+            return this;
+        }
+
+        private int readInt(int position) {
+            return (code[position] & 0xFF) << 24 | (code[position + 1] & 0xFF) << 16
+                            | (code[position + 2] & 0xFF) << 8 | code[position + 3] & 0xFF;
+        }
+
+        private void writeInt(int position, int value) {
+            code[position] = (byte)(value >>> 24);
+            code[position + 1] = (byte)(value >>> 16);
+            code[position + 2] = (byte)(value >>> 8);
+            code[position + 3] = (byte)value;
+        }
+
+        private void ensureCapacity(int additional) {
+            if (length + additional > code.length) {
+                byte[] larger = new byte[Math.max(code.length * 2, length + additional)];
+                System.arraycopy(code, 0, larger, 0, length);
+                code = larger;
+            }
+        }
+
+        private void writeTo(DataOutputStream out, int codeAttribute) throws IOException {
+            if (length > MAX_CODE_LENGTH) {
+                throw new IllegalStateException("Method code too large: " + length + " bytes");
+            }
+            out.writeShort(access);
+            out.writeShort(name);
+            out.writeShort(descriptor);
+            out.writeShort(1);
+            out.writeShort(codeAttribute);
+            out.writeInt(12 + length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(length);
+            out.write(code, 0, length);
+            out.writeShort(0); // exception table
+            out.writeShort(0); // attributes
+        }
+
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+/**
+ * Snapshot of the counters of a reflection cache.
+ */
+public final class CacheStatistics {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+
+    /**
+     * Create a new CacheStatistics instance.
+     *
+     * @param hitCount
+     *            - number of lookups answered from the cache
+     * @param missCount
+     *            - number of lookups which had to be resolved
+     */
+    public CacheStatistics(long hitCount, long missCount) {
+        this(hitCount, missCount, 0L);
+    }
+
+    /**
+     * Create a new CacheStatistics instance.
+     *
+     * @param hitCount
+     *            - number of lookups answered from the cache
+     * @param missCount
+     *            - number of lookups which had to be resolved
+     * @param evictionCount
+     *            - number of entries evicted because of the size bound
+     */
+    public CacheStatistics(long hitCount, long missCount, long evictionCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return hit count
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups which had to be resolved.
+     *
+     * @return miss count
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of entries evicted because of the size bound.
+     * Invalidated entries are not counted.
+     *
+     * @return eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of all lookups.
+     *
+     * @return hit count plus miss count
+     */
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * Returns the ratio of lookups answered from the cache. If no lookup was
+     * done, {@code 1.0} is returned.
+     *
+     * @return hit rate between {@code 0.0} and {@code 1.0}
+     */
+    public double getHitRate() {
+        long requestCount = getRequestCount();
+        return requestCount == 0 ? 1.0 : (double)hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics [hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount="
+                        + evictionCount + "]";
+    }
+
+}
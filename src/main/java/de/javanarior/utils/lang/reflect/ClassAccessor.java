@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Access to the public constructors, methods and fields of a class by index.
+ *
+ * The index of a member is looked up once with
+ * {@link #constructorIndex(Class...)}, {@link #methodIndex(String, Class...)}
+ * or {@link #fieldIndex(String)}, and then passed to
+ * {@link #newInstance(int, Object...)}, {@link #invoke(Object, int, Object...)},
+ * {@link #get(Object, int)} or {@link #set(Object, int, Object)}.
+ *
+ * Instances are created with {@link Invoke#accessor(Class)}. Where possible
+ * the implementation is a class generated for the type, which calls the
+ * members with plain {@code new}, {@code invoke*} and field instructions and
+ * is loaded with the {@link de.javanarior.utils.lang.ByteCodeClassLoader}.
+ * In case of error a {@linkplain ReflectionException} is thrown.
+ *
+ * @param <T>
+ *            - the accessed type
+ */
+public abstract class ClassAccessor<T> {
+
+    private static final int[] NOT_FOUND = new int[0];
+    private static final Class<?>[] NO_PARAMETERS = new Class<?>[0];
+
+    private final Class<T> type;
+    private final Constructor<?>[] constructors;
+    private final Method[] methods;
+    private final Class<?>[][] methodParameterTypes;
+    private final Field[] fields;
+    private final Map<String, int[]> methodsByName = new HashMap<>();
+    private final Map<String, Integer> fieldsByName = new HashMap<>();
+
+    /**
+     * Create a new ClassAccessor instance.
+     *
+     * @param type
+     *            - the accessed type
+     * @param constructors
+     *            - the constructors, in index order
+     * @param methods
+     *            - the methods, in index order
+     * @param fields
+     *            - the fields, in index order
+     */
+    protected ClassAccessor(Class<T> type, Constructor<?>[] constructors, Method[] methods, Field[] fields) {
+        this.type = type;
+        this.constructors = constructors.clone();
+        this.methods = methods.clone();
+        this.fields = fields.clone();
+        this.methodParameterTypes = new Class<?>[methods.length][];
+        for (int index = 0; index < methods.length; index++) {
+            methodParameterTypes[index] = methods[index].getParameterTypes();
+            int[] indices = methodsByName.get(methods[index].getName());
+            indices = indices == null ? new int[1] : Arrays.copyOf(indices, indices.length + 1);
+            indices[indices.length - 1] = index;
+            methodsByName.put(methods[index].getName(), indices);
+        }
+        for (int index = fields.length - 1; index >= 0; index--) {
+            fieldsByName.put(fields[index].getName(), Integer.valueOf(index));
+        }
+    }
+
+    /**
+     * Returns the accessed type.
+     *
+     * @return type
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Returns the index of the public constructor with the parameter types
+     * {@code parameterTypes}.
+     *
+     * @param parameterTypes
+     *            - parameter types of the constructor
+     * @return index of the constructor, or {@code -1} if there is none
+     */
+    public int constructorIndex(Class<?>... parameterTypes) {
+        for (int index = 0; index < constructors.length; index++) {
+            if (Arrays.equals(constructors[index].getParameterTypes(), nonNull(parameterTypes))) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the public method {@code name} with the parameter
+     * types {@code parameterTypes}.
+     *
+     * @param name
+     *            - name of the method
+     * @param parameterTypes
+     *            - parameter types of the method
+     * @return index of the method, or {@code -1} if there is none
+     */
+    public int methodIndex(String name, Class<?>... parameterTypes) {
+        int[] indices = methodsByName.get(name);
+        for (int index : indices == null ? NOT_FOUND : indices) {
+            if (Arrays.equals(methodParameterTypes[index], nonNull(parameterTypes))) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the public field {@code name}. If a field is
+     * hidden, the one of the most specific class is returned.
+     *
+     * @param name
+     *            - name of the field
+     * @return index of the field, or {@code -1} if there is none
+     */
+    public int fieldIndex(String name) {
+        Integer index = fieldsByName.get(name);
+        return index == null ? -1 : index.intValue();
+    }
+
+    /**
+     * Create a new instance with the public no-arg constructor.
+     *
+     * @return new instance
+     */
+    public T newInstance() {
+        return newInstance(constructorIndex());
+    }
+
+    /**
+     * Create a new instance with the constructor {@code constructorIndex}.
+     *
+     * @param constructorIndex
+     *            - index of the constructor
+     * @param arguments
+     *            - the values to pass to the constructor
+     * @return new instance
+     */
+    public T newInstance(int constructorIndex, Object... arguments) {
+        try {
+            return type.cast(doNewInstance(constructorIndex, arguments));
+        } catch (Exception | LinkageError exception) { // NOPMD - the constructor may throw anything
+            throw new ReflectionException("Could not invoke constructor " + constructorIndex + " of '"
+                            + type.getName() + "', please check if the parameters fit", exception);
+        }
+    }
+
+    /**
+     * Invoke the method {@code methodIndex} on {@code instance}.
+     *
+     * @param instance
+     *            - the instance to call the method on, ignored for static
+     *            methods
+     * @param methodIndex
+     *            - index of the method
+     * @param arguments
+     *            - the values to pass to the method
+     * @return the return value, {@code null} for void methods
+     */
+    public Object invoke(Object instance, int methodIndex, Object... arguments) {
+        try {
+            return doInvoke(instance, methodIndex, arguments);
+        } catch (Exception | LinkageError exception) { // NOPMD - the method may throw anything
+            throw new ReflectionException("Could not invoke method " + methodIndex + " of '" + type.getName()
+                            + "', please check if the parameters fit", exception);
+        }
+    }
+
+    /**
+     * Returns the value of the field {@code fieldIndex} of {@code instance}.
+     *
+     * @param instance
+     *            - the instance with the field, ignored for static fields
+     * @param fieldIndex
+     *            - index of the field
+     * @return value of the field
+     */
+    public Object get(Object instance, int fieldIndex) {
+        try {
+            return doGet(instance, fieldIndex);
+        } catch (RuntimeException | LinkageError exception) {
+            throw new ReflectionException("Could not read field " + fieldIndex + " of '" + type.getName() + "'",
+                            exception);
+        }
+    }
+
+    /**
+     * Set the field {@code fieldIndex} of {@code instance} to {@code value}.
+     * Final fields can not be set.
+     *
+     * @param instance
+     *            - the instance with the field, ignored for static fields
+     * @param fieldIndex
+     *            - index of the field
+     * @param value
+     *            - new value of the field
+     */
+    public void set(Object instance, int fieldIndex, Object value) {
+        if (fieldIndex >= 0 && fieldIndex < fields.length && Modifier.isFinal(fields[fieldIndex].getModifiers())) {
+            throw new ReflectionException("Field '" + fields[fieldIndex].getName() + "' of '" + type.getName()
+                            + "' is final");
+        }
+        try {
+            doSet(instance, fieldIndex, value);
+        } catch (RuntimeException | LinkageError exception) {
+            throw new ReflectionException("Could not write field " + fieldIndex + " of '" + type.getName() + "'",
+                            exception);
+        }
+    }
+
+    /**
+     * Create a new instance with the constructor {@code index}.
+     *
+     * @param index
+     *            - index of the constructor
+     * @param arguments
+     *            - the constructor arguments
+     * @return new instance
+     * @throws Exception
+     *             anything the constructor throws
+     */
+    protected abstract Object doNewInstance(int index, Object[] arguments) throws Exception;
+
+    /**
+     * Invoke the method {@code index}.
+     *
+     * @param instance
+     *            - the instance to call the method on
+     * @param index
+     *            - index of the method
+     * @param arguments
+     *            - the method arguments
+     * @return the (boxed) return value, {@code null} for void methods
+     * @throws Exception
+     *             anything the method throws
+     */
+    protected abstract Object doInvoke(Object instance, int index, Object[] arguments) throws Exception;
+
+    /**
+     * Read the field {@code index}.
+     *
+     * @param instance
+     *            - the instance with the field
+     * @param index
+     *            - index of the field
+     * @return the (boxed) value
+     */
+    protected abstract Object doGet(Object instance, int index);
+
+    /**
+     * Write the field {@code index}.
+     *
+     * @param instance
+     *            - the instance with the field
+     * @param index
+     *            - index of the field
+     * @param value
+     *            - the (boxed) value
+     */
+    protected abstract void doSet(Object instance, int index, Object value);
+
+    /**
+     * Returns the exception for a member index which is out of range.
+     *
+     * @param index
+     *            - the invalid index
+     * @return exception to throw
+     */
+    protected RuntimeException unknownIndex(int index) {
+        return new IllegalArgumentException("No member with index " + index);
+    }
+
+    Constructor<?> constructor(int index) {
+        return constructors[index];
+    }
+
+    Method method(int index) {
+        return methods[index];
+    }
+
+    Field field(int index) {
+        return fields[index];
+    }
+
+    private static Class<?>[] nonNull(Class<?>[] parameterTypes) {
+        return parameterTypes == null ? NO_PARAMETERS : parameterTypes;
+    }
+
+}
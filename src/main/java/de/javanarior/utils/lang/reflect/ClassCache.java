@@ -0,0 +1,405 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.javanarior.utils.lang.ReflectionEvent;
+import de.javanarior.utils.lang.ReflectionEvents;
+
+/**
+ * Cache of values per class and key, e.g. of resolved methods per class and
+ * method signature.
+ *
+ * The entries of a class are held in a {@link ClassValue} of the class, so
+ * the cache does not prevent the class and its classloader from being
+ * unloaded, e.g. when a plugin is redeployed. Keys and values should only
+ * reference the class they are cached for, or classes of the same or of
+ * parent classloaders.
+ *
+ * A cache created with {@link #bounded(int, EvictionPolicy, Loader)} keeps at
+ * most the given number of entries per class and evicts entries in the order
+ * of the {@link EvictionPolicy}. Entries are invalidated explicitly per key,
+ * per class or for all classes. Hits, misses and evictions are counted, see
+ * {@link #statistics()}.
+ *
+ * Instances are thread safe. Two threads missing the same key at the same
+ * time may both load the value, the first one stored is returned to both.
+ *
+ * @param <K>
+ *            - type of the keys
+ * @param <V>
+ *            - type of the values
+ */
+public final class ClassCache<K, V> {
+
+    /**
+     * Loads the value of a missing entry.
+     *
+     * @param <K>
+     *            - type of the keys
+     * @param <V>
+     *            - type of the values
+     */
+    public interface Loader<K, V> {
+
+        /**
+         * Load the value for {@code key} of {@code type}.
+         *
+         * @param type
+         *            - the class
+         * @param key
+         *            - the key
+         * @return the value, not {@code null}
+         */
+        V load(Class<?> type, K key);
+    }
+
+    /**
+     * Order in which the entries of a bounded cache are evicted.
+     */
+    public enum EvictionPolicy {
+        /** Evict the entry which was not requested for the longest time. */
+        LEAST_RECENTLY_USED,
+        /** Evict the entry which was loaded first. */
+        FIRST_IN_FIRST_OUT
+    }
+
+    private static final int UNBOUNDED = 0;
+
+    private final ClassValue<Segment<K, V>> segments = new ClassValue<Segment<K, V>>() {
+        @Override
+        protected Segment<K, V> computeValue(Class<?> type) {
+            int current = generation.get();
+            return maximumSize == UNBOUNDED ? new UnboundedSegment<K, V>(current)
+                            : new BoundedSegment<K, V>(current, maximumSize, policy);
+        }
+    };
+
+    private final Loader<K, V> loader;
+    private final int maximumSize;
+    private final EvictionPolicy policy;
+    /** Incremented by {@link #invalidateAll()}, older segments are dropped on access. */
+    private final AtomicInteger generation = new AtomicInteger();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private ClassCache(Loader<K, V> loader, int maximumSize, EvictionPolicy policy) {
+        this.loader = loader;
+        this.maximumSize = maximumSize;
+        this.policy = policy;
+    }
+
+    /**
+     * Create a cache without size bound.
+     *
+     * @param <K>
+     *            - type of the keys
+     * @param <V>
+     *            - type of the values
+     * @param loader
+     *            - loads missing values
+     * @return new cache
+     */
+    public static <K, V> ClassCache<K, V> unbounded(Loader<K, V> loader) {
+        if (loader == null) {
+            throw new IllegalArgumentException("Loader must not be null");
+        }
+        return new ClassCache<>(loader, UNBOUNDED, EvictionPolicy.LEAST_RECENTLY_USED);
+    }
+
+    /**
+     * Create a cache which keeps at most {@code maximumSizePerClass} entries
+     * per class.
+     *
+     * @param <K>
+     *            - type of the keys
+     * @param <V>
+     *            - type of the values
+     * @param maximumSizePerClass
+     *            - maximal number of entries per class, greater than zero
+     * @param policy
+     *            - order in which entries are evicted
+     * @param loader
+     *            - loads missing values
+     * @return new cache
+     */
+    public static <K, V> ClassCache<K, V> bounded(int maximumSizePerClass, EvictionPolicy policy,
+                    Loader<K, V> loader) {
+        if (maximumSizePerClass <= 0) {
+            throw new IllegalArgumentException("Maximum size must be greater than zero, but is "
+                            + maximumSizePerClass);
+        }
+        if (policy == null || loader == null) {
+            throw new IllegalArgumentException("Eviction policy and loader must not be null");
+        }
+        return new ClassCache<>(loader, maximumSizePerClass, policy);
+    }
+
+    /**
+     * Returns the value for {@code key} of {@code type}, loads it if it is not
+     * cached.
+     *
+     * @param type
+     *            - the class
+     * @param key
+     *            - the key
+     * @return the value
+     */
+    public V get(Class<?> type, K key) {
+        Segment<K, V> segment = segment(type);
+        V value = segment.get(key);
+        if (value != null) {
+            hitCount.incrementAndGet();
+            return value;
+        }
+        return load(type, key, segment);
+    }
+
+    /**
+     * Like {@link #get(Class, Object)}, and emits a {@link ReflectionEvent}
+     * of {@code kind} if {@link ReflectionEvents} are enabled.
+     *
+     * @param type
+     *            - the class
+     * @param key
+     *            - the key
+     * @param kind
+     *            - kind of the event
+     * @param memberPrefix
+     *            - prefix of the key in the member of the event, may be
+     *            {@code null}
+     * @return the value
+     */
+    V get(Class<?> type, K key, ReflectionEvent.Kind kind, String memberPrefix) {
+        if (!ReflectionEvents.isEnabled()) {
+            return get(type, key);
+        }
+        long start = System.nanoTime();
+        Segment<K, V> segment = segment(type);
+        V value = segment.get(key);
+        boolean cacheHit = value != null;
+        if (cacheHit) {
+            hitCount.incrementAndGet();
+        } else {
+            value = load(type, key, segment);
+        }
+        String member = memberPrefix == null ? String.valueOf(key) : memberPrefix + key;
+        ReflectionEvents.emit(new ReflectionEvent(kind, type.getName(), member, System.nanoTime() - start,
+                        cacheHit));
+        return value;
+    }
+
+    private V load(Class<?> type, K key, Segment<K, V> segment) {
+        missCount.incrementAndGet();
+        V value = loader.load(type, key);
+        if (value == null) {
+            throw new IllegalStateException("Loader returned null for '" + key + "' of Class '" + type.getName()
+                            + "'");
+        }
+        V existing = segment.putIfAbsent(key, value, evictionCount);
+        return existing == null ? value : existing;
+    }
+
+    /**
+     * Returns the cached value for {@code key} of {@code type}, without
+     * loading it. Does not count as hit or miss.
+     *
+     * @param type
+     *            - the class
+     * @param key
+     *            - the key
+     * @return the value, or {@code null} if it is not cached
+     */
+    public V getIfPresent(Class<?> type, K key) {
+        return segment(type).peek(key);
+    }
+
+    /**
+     * Remove the entry for {@code key} of {@code type}.
+     *
+     * @param type
+     *            - the class
+     * @param key
+     *            - the key
+     */
+    public void invalidate(Class<?> type, K key) {
+        segment(type).remove(key);
+    }
+
+    /**
+     * Remove all entries of {@code type}.
+     *
+     * @param type
+     *            - the class
+     */
+    public void invalidate(Class<?> type) {
+        segments.remove(type);
+    }
+
+    /**
+     * Remove the entries of all classes. The entries are dropped when their
+     * class is accessed next, or with the class.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of entries cached for {@code type}.
+     *
+     * @param type
+     *            - the class
+     * @return number of entries
+     */
+    public int size(Class<?> type) {
+        return segment(type).size();
+    }
+
+    /**
+     * Returns the current hit, miss and eviction counts.
+     *
+     * @return statistics snapshot
+     */
+    public CacheStatistics statistics() {
+        return new CacheStatistics(hitCount.get(), missCount.get(), evictionCount.get());
+    }
+
+    private Segment<K, V> segment(Class<?> type) {
+        Segment<K, V> segment = segments.get(type);
+        if (segment.generation != generation.get()) {
+            segments.remove(type);
+            segment = segments.get(type);
+        }
+        return segment;
+    }
+
+    /**
+     * Entries of one class.
+     */
+    private abstract static class Segment<K, V> {
+
+        final int generation;
+
+        Segment(int generation) {
+            this.generation = generation;
+        }
+
+        abstract V get(K key);
+
+        abstract V peek(K key);
+
+        abstract V putIfAbsent(K key, V value, AtomicLong evictionCount);
+
+        abstract void remove(K key);
+
+        abstract int size();
+    }
+
+    private static final class UnboundedSegment<K, V> extends Segment<K, V> {
+
+        private final ConcurrentMap<K, V> entries = new ConcurrentHashMap<>();
+
+        UnboundedSegment(int generation) {
+            super(generation);
+        }
+
+        @Override
+        V get(K key) {
+            return entries.get(key);
+        }
+
+        @Override
+        V peek(K key) {
+            return entries.get(key);
+        }
+
+        @Override
+        V putIfAbsent(K key, V value, AtomicLong evictionCount) {
+            return entries.putIfAbsent(key, value);
+        }
+
+        @Override
+        void remove(K key) {
+            entries.remove(key);
+        }
+
+        @Override
+        int size() {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Guarded by itself, a access ordered map moves requested entries to the
+     * end even on reads.
+     */
+    private static final class BoundedSegment<K, V> extends Segment<K, V> {
+
+        private final int maximumSize;
+        private final Map<K, V> entries;
+
+        BoundedSegment(int generation, int maximumSize, EvictionPolicy policy) {
+            super(generation);
+            this.maximumSize = maximumSize;
+            this.entries = new LinkedHashMap<>(16, 0.75f, policy == EvictionPolicy.LEAST_RECENTLY_USED);
+        }
+
+        @Override
+        synchronized V get(K key) {
+            return entries.get(key);
+        }
+
+        @Override
+        synchronized V peek(K key) {
+            return entries.get(key);
+        }
+
+        @Override
+        synchronized V putIfAbsent(K key, V value, AtomicLong evictionCount) {
+            V existing = entries.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            entries.put(key, value);
+            Iterator<V> eldest = entries.values().iterator();
+            while (entries.size() > maximumSize) {
+                eldest.next();
+                eldest.remove();
+                evictionCount.incrementAndGet();
+            }
+            return null;
+        }
+
+        @Override
+        synchronized void remove(K key) {
+            entries.remove(key);
+        }
+
+        @Override
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+
+import de.javanarior.utils.lang.ReflectionEvent;
+
+/**
+ * Cache of {@link Instantiator}s for resolved public constructors.
+ *
+ * The instantiators are held in a {@link ClassCache} keyed by the declaring
+ * class, so the cache does not prevent the class and its classloader from being
+ * unloaded. Failed lookups are cached as {@link LookupFailure}, so repeated
+ * probes for a missing constructor do not search the class again. Lookups
+ * with parameter types of other classloaders are not cached.
+ */
+final class ConstructorCache {
+
+    private final ClassCache<ArgumentTypes, Object> instantiators = ClassCache.unbounded(
+                    new ClassCache.Loader<ArgumentTypes, Object>() {
+                        @Override
+                        public Object load(Class<?> type, ArgumentTypes argumentTypes) {
+                            return resolve(type, argumentTypes);
+                        }
+                    });
+
+    /**
+     * Returns a instantiator for the public constructor of {@code type} with
+     * the parameter types {@code argumentTypes}.
+     *
+     * @param <T>
+     *            - type of the class
+     * @param type
+     *            - class with the constructor
+     * @param argumentTypes
+     *            - parameter types of the constructor
+     * @return instantiator for the constructor
+     * @throws ReflectionException
+     *             if no matching public constructor exists, the constructor
+     *             is not accessible, or the class is abstract
+     */
+    <T> MethodHandleInstantiator<T> get(Class<T> type, Class<?>... argumentTypes) {
+        return get(type, ArgumentTypes.of(argumentTypes));
+    }
+
+    /**
+     * Returns a instantiator for the public constructor of {@code type} with
+     * the parameter types {@code argumentTypes}. Does not allocate if the
+     * instantiator is already cached. A failed lookup is cached as well, every
+     * later call throws a new exception.
+     *
+     * @param <T>
+     *            - type of the class
+     * @param type
+     *            - class with the constructor
+     * @param argumentTypes
+     *            - parameter types of the constructor
+     * @return instantiator for the constructor
+     * @throws ReflectionException
+     *             if no matching public constructor exists, the constructor
+     *             is not accessible, or the class is abstract
+     */
+    <T> MethodHandleInstantiator<T> get(Class<T> type, ArgumentTypes argumentTypes) {
+        Object cached = lookup(type, argumentTypes);
+        if (cached instanceof LookupFailure) {
+            throw ((LookupFailure)cached).exception(
+                            "Could not invoke constructor, please check if constructor exists and the parameters fit");
+        }
+        return cast(cached);
+    }
+
+    /**
+     * Returns a instantiator for the public constructor of {@code type} with
+     * the parameter types {@code argumentTypes}, or {@code null} if there is
+     * no accessible one. Does not throw or allocate if the result is already
+     * cached.
+     *
+     * @param <T>
+     *            - type of the class
+     * @param type
+     *            - class with the constructor
+     * @param argumentTypes
+     *            - parameter types of the constructor
+     * @return instantiator for the constructor, or {@code null}
+     */
+    <T> MethodHandleInstantiator<T> find(Class<T> type, ArgumentTypes argumentTypes) {
+        Object cached = lookup(type, argumentTypes);
+        return cached instanceof LookupFailure ? null : ConstructorCache.<T> cast(cached);
+    }
+
+    /**
+     * Returns the cached instantiator, or the {@link LookupFailure} of a
+     * failed lookup. Lookups with parameter types of classloaders which are
+     * not visible from {@code type} are not cached, the key would keep
+     * these classloaders reachable.
+     */
+    private Object lookup(Class<?> type, ArgumentTypes argumentTypes) {
+        if (!argumentTypes.visibleFrom(type)) {
+            return resolve(type, argumentTypes);
+        }
+        return instantiators.get(type, argumentTypes, ReflectionEvent.Kind.CONSTRUCTOR_RESOLUTION, "<init>");
+    }
+
+    /**
+     * Returns a instantiator for the matching public constructor, or a
+     * {@link LookupFailure}. The constructors are compared, so a missing
+     * constructor does not cost a exception.
+     */
+    private static Object resolve(Class<?> type, ArgumentTypes argumentTypes) {
+        Class<?>[] parameterTypes = argumentTypes.toArray();
+        for (Constructor<?> constructor : type.getConstructors()) {
+            if (Arrays.equals(constructor.getParameterTypes(), parameterTypes)) {
+                try {
+                    return MethodHandleInstantiator.of(constructor);
+                } catch (IllegalAccessException exception) {
+                    return LookupFailure.of(exception);
+                }
+            }
+        }
+        return new LookupFailure("No public constructor " + type.getName() + ".<init>" + argumentTypes);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> MethodHandleInstantiator<T> cast(Object cached) {
+        return (MethodHandleInstantiator<T>)cached;
+    }
+
+    /**
+     * Returns the current hit and miss counts.
+     *
+     * @return statistics snapshot
+     */
+    CacheStatistics statistics() {
+        return instantiators.statistics();
+    }
+
+    /**
+     * Remove the cached instantiators of {@code type}.
+     *
+     * @param type
+     *            - class with the constructors
+     */
+    void invalidate(Class<?> type) {
+        instantiators.invalidate(type);
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.reflect.Method;
+
+/**
+ * Builds the descriptors and internal names of the class file format from
+ * classes and methods, e.g. {@code (ILjava/lang/String;)V} for
+ * {@code void m(int, String)}.
+ */
+final class Descriptors {
+
+    private Descriptors() {
+        // static utility
+    }
+
+    /**
+     * Returns the descriptor of {@code method}, e.g.
+     * {@code (ILjava/lang/String;)V}.
+     *
+     * @param method
+     *            - a method
+     * @return method descriptor
+     */
+    static String methodDescriptor(Method method) {
+        return descriptor(method.getParameterTypes()) + descriptor(method.getReturnType());
+    }
+
+    /**
+     * Returns the parameter part of a method descriptor, including the
+     * parentheses, e.g. {@code (ILjava/lang/String;)}.
+     *
+     * @param parameterTypes
+     *            - the parameter types
+     * @return parameter descriptor
+     */
+    static String descriptor(Class<?>[] parameterTypes) {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (Class<?> parameterType : parameterTypes) {
+            descriptor.append(descriptor(parameterType));
+        }
+        return descriptor.append(')').toString();
+    }
+
+    /**
+     * Returns the field descriptor of {@code type}, e.g. {@code I} or
+     * {@code Ljava/lang/String;}.
+     *
+     * @param type
+     *            - a class, primitive type or array class
+     * @return type descriptor
+     */
+    static String descriptor(Class<?> type) {
+        if (type.isPrimitive()) {
+            return String.valueOf(Primitives.descriptor(type));
+        }
+        if (type.isArray()) {
+            return internalName(type);
+        }
+        return "L" + internalName(type) + ";";
+    }
+
+    /**
+     * Returns the internal name of {@code type}, e.g.
+     * {@code java/lang/String}.
+     *
+     * @param type
+     *            - a class
+     * @return internal name
+     */
+    static String internalName(Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+}
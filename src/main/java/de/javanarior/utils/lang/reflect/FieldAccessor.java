@@ -0,0 +1,491 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Reads and writes a field through {@link MethodHandle}s.
+ *
+ * A FieldAccessor is looked up once per class and field name with
+ * {@link #forField(Class, String)} and cached. Besides the generic
+ * {@link #get(Object)} and {@link #set(Object, Object)} there are getters and
+ * setters for every primitive type, e.g. {@link #getInt(Object)} and
+ * {@link #setInt(Object, int)}, which do not box the value. They must match
+ * the type of the field exactly.
+ *
+ * Instances are thread safe and meant to be kept and reused.
+ * In case of error a {@linkplain ReflectionException} is thrown.
+ */
+public final class FieldAccessor {
+
+    private static final ClassCache<String, FieldAccessor> ACCESSORS = ClassCache.unbounded(
+                    new ClassCache.Loader<String, FieldAccessor>() {
+                        @Override
+                        public FieldAccessor load(Class<?> type, String fieldName) {
+                            try {
+                                return new FieldAccessor(findField(type, fieldName));
+                            } catch (IllegalAccessException | SecurityException exception) {
+                                throw new ReflectionException("Field '" + fieldName + "' of Class '"
+                                                + type.getCanonicalName() + "' is not accessible", exception);
+                            }
+                        }
+                    });
+
+    private final Field field;
+    /** Getter {@code (Object)fieldType}, first argument is the instance. */
+    private final MethodHandle getter;
+    /** Getter {@code (Object)Object}. */
+    private final MethodHandle genericGetter;
+    /** Setter {@code (Object, fieldType)void}, {@code null} for final fields. */
+    private final MethodHandle setter;
+    /** Setter {@code (Object, Object)void}, {@code null} for final fields. */
+    private final MethodHandle genericSetter;
+
+    private FieldAccessor(Field field) throws IllegalAccessException {
+        this.field = field;
+        boolean isStatic = Modifier.isStatic(field.getModifiers());
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle fieldGetter = lookup.unreflectGetter(field);
+        if (isStatic) {
+            fieldGetter = MethodHandles.dropArguments(fieldGetter, 0, Object.class);
+        }
+        getter = fieldGetter.asType(MethodType.methodType(field.getType(), Object.class));
+        genericGetter = fieldGetter.asType(MethodType.methodType(Object.class, Object.class));
+        if (Modifier.isFinal(field.getModifiers())) {
+            setter = null;
+            genericSetter = null;
+        } else {
+            MethodHandle fieldSetter = lookup.unreflectSetter(field);
+            if (isStatic) {
+                fieldSetter = MethodHandles.dropArguments(fieldSetter, 0, Object.class);
+            }
+            setter = fieldSetter.asType(MethodType.methodType(Void.TYPE, Object.class, field.getType()));
+            genericSetter = fieldSetter.asType(MethodType.methodType(Void.TYPE, Object.class, Object.class));
+        }
+    }
+
+    /**
+     * Returns the accessor for the field {@code fieldName} of {@code type}.
+     * Public fields, including inherited ones, are preferred. Otherwise the
+     * field is searched in the declared fields of {@code type} and its super
+     * classes and made accessible.
+     * The accessor is created once per class and field name.
+     *
+     * @param type
+     *            - class with the field
+     * @param fieldName
+     *            - name of the field
+     * @return field accessor
+     */
+    public static FieldAccessor forField(Class<?> type, String fieldName) {
+        return ACCESSORS.get(type, fieldName);
+    }
+
+    /**
+     * Returns the hit and miss counts of the cache used by
+     * {@link #forField(Class, String)}.
+     *
+     * @return statistics snapshot
+     */
+    public static CacheStatistics cacheStatistics() {
+        return ACCESSORS.statistics();
+    }
+
+    /**
+     * Remove the cached accessors of the fields of {@code type}, e.g. before
+     * the class is redeployed.
+     *
+     * @param type
+     *            - class with the fields
+     */
+    public static void invalidateCache(Class<?> type) {
+        ACCESSORS.invalidate(type);
+    }
+
+    /**
+     * Returns the accessed field.
+     *
+     * @return field
+     */
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * Returns the value of the field, primitive values are boxed.
+     *
+     * @param instance
+     *            - instance with the field, ignored for static fields
+     * @return value of the field
+     */
+    public Object get(Object instance) {
+        try {
+            return genericGetter.invokeExact(instance);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw accessFailed("read", exception);
+        }
+    }
+
+    /**
+     * Set the field to {@code value}, primitive values are unboxed.
+     *
+     * @param instance
+     *            - instance with the field, ignored for static fields
+     * @param value
+     *            - new value of the field
+     */
+    public void set(Object instance, Object value) {
+        writableSetter();
+        try {
+            genericSetter.invokeExact(instance, value);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw accessFailed("write", exception);
+        }
+    }
+
+    /**
+     * Returns the value of the {@code int} field without boxing.
+     *
+     * @param instance
+     *            - instance with the field, ignored for static fields
+     * @return value of the field
+     */
+    public int getInt(Object instance) {
+        try {
+            return (int)getter.invokeExact(instance);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw accessFailed("read", exception);
+        }
+    }
+
+    /**
+     * Set the {@code int} field to {@code value} without boxing.
+     *
+     * @param instance
+     *            - instance with the field, ignored for static fields
+     * @param value
+     *            - new value of the field
+     */
+    public void setInt(Object instance, int value) {
+        try {
+            writableSetter().invokeExact(instance, value);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw accessFailed("write", exception);
+        }
+    }
+
+    /**
+     * Returns the value of the {@code long} field without boxing.
+     *
+     * @param instance
+     *            - instance with the field, ignored for static fields
+     * @return value of the field
+     */
+    public long getLong(Object instance) {
+        try {
+            return (long)getter.invokeExact(instance);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw accessFailed("read", exception);
+        }
+    }
+
+    /**
+     * Set the {@code long} field to {@code value} without boxing.
+     *
+     * @param instance
+     *            - instance with the field, ignored for static fields
+     * @param value
+     *            - new value of the field
+     */
+    public void setLong(Object instance, long value) {
+        try {
+            writableSetter().invokeExact(instance, value);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw accessFailed("write", exception);
+        }
+    }
+
+    /**
+     * Returns the value of the {@code double} field without boxing.
+     *
+     * @param instance
+     *            - instance with the field, ignored for static fields
+     * @return value of the field
+     */
+    public double getDouble(Object instance) {
+        try {
+            return (double)getter.invokeExact(instance);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw accessFailed("read", exception);
+        }
+    }
+
+    /**
+     * Set the {@code double} field to {@code value} without boxing.
+     *
+     * @param instance
+     *            - instance with the field, ignored for static fields
+     * @param value
+     *            - new value of the field
+     */
+    public void setDouble(Object instance, double value) {
+        try {
+            writableSetter().invokeExact(instance, value);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw accessFailed("write", exception);
+        }
+    }
+
+    /**
+     * Returns the value of the {@code float} field without boxing.
+     *
+     * @param instance
+     *            - instance with the field, ignored for static fields
+     * @return value of the field
+     */
+    public float getFloat(Object instance) {
+        try {
+            return (float)getter.invokeExact(instance);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw accessFailed("read", exception);
+        }
+    }
+
+    /**
+     * Set the {@code float} field to {@code value} without boxing.
+     *
+     * @param instance
+     *            - instance with the field, ignored for static fields
+     * @param value
+     *            - new value of the field
+     */
+    public void setFloat(Object instance, float value) {
+        try {
+            writableSetter().invokeExact(instance, value);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw accessFailed("write", exception);
+        }
+    }
+
+    /**
+     * Returns the value of the {@code boolean} field without boxing.
+     *
+     * @param instance
+     *            - instance with the field, ignored for static fields
+     * @return value of the field
+     */
+    public boolean getBoolean(Object instance) {
+        try {
+            return (boolean)getter.invokeExact(instance);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw accessFailed("read", exception);
+        }
+    }
+
+    /**
+     * Set the {@code boolean} field to {@code value} without boxing.
+     *
+     * @param instance
+     *            - instance with the field, ignored for static fields
+     * @param value
+     *            - new value of the field
+     */
+    public void setBoolean(Object instance, boolean value) {
+        try {
+            writableSetter().invokeExact(instance, value);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw accessFailed("write", exception);
+        }
+    }
+
+    /**
+     * Returns the value of the {@code byte} field without boxing.
+     *
+     * @param instance
+     *            - instance with the field, ignored for static fields
+     * @return value of the field
+     */
+    public byte getByte(Object instance) {
+        try {
+            return (byte)getter.invokeExact(instance);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw accessFailed("read", exception);
+        }
+    }
+
+    /**
+     * Set the {@code byte} field to {@code value} without boxing.
+     *
+     * @param instance
+     *            - instance with the field, ignored for static fields
+     * @param value
+     *            - new value of the field
+     */
+    public void setByte(Object instance, byte value) {
+        try {
+            writableSetter().invokeExact(instance, value);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw accessFailed("write", exception);
+        }
+    }
+
+    /**
+     * Returns the value of the {@code char} field without boxing.
+     *
+     * @param instance
+     *            - instance with the field, ignored for static fields
+     * @return value of the field
+     */
+    public char getChar(Object instance) {
+        try {
+            return (char)getter.invokeExact(instance);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw accessFailed("read", exception);
+        }
+    }
+
+    /**
+     * Set the {@code char} field to {@code value} without boxing.
+     *
+     * @param instance
+     *            - instance with the field, ignored for static fields
+     * @param value
+     *            - new value of the field
+     */
+    public void setChar(Object instance, char value) {
+        try {
+            writableSetter().invokeExact(instance, value);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw accessFailed("write", exception);
+        }
+    }
+
+    /**
+     * Returns the value of the {@code short} field without boxing.
+     *
+     * @param instance
+     *            - instance with the field, ignored for static fields
+     * @return value of the field
+     */
+    public short getShort(Object instance) {
+        try {
+            return (short)getter.invokeExact(instance);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw accessFailed("read", exception);
+        }
+    }
+
+    /**
+     * Set the {@code short} field to {@code value} without boxing.
+     *
+     * @param instance
+     *            - instance with the field, ignored for static fields
+     * @param value
+     *            - new value of the field
+     */
+    public void setShort(Object instance, short value) {
+        try {
+            writableSetter().invokeExact(instance, value);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw accessFailed("write", exception);
+        }
+    }
+
+    private MethodHandle writableSetter() {
+        if (setter == null) {
+            throw new ReflectionException("Field '" + field.getName() + "' of Class '"
+                            + field.getDeclaringClass().getCanonicalName() + "' is final");
+        }
+        return setter;
+    }
+
+    private ReflectionException accessFailed(String operation, Throwable cause) {
+        return new ReflectionException("Could not " + operation + " field '" + field.getName() + "' of Class '"
+                        + field.getDeclaringClass().getCanonicalName() + "', please check the instance and the type",
+                        cause);
+    }
+
+    private static Field findField(Class<?> type, String fieldName) {
+        Field field = FieldTable.of(type).publicField(fieldName);
+        if (field != null) {
+            return field;
+        }
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            field = FieldTable.of(current).declaredField(fieldName);
+            if (field != null) {
+                return accessible(field, type);
+            }
+        }
+        throw new ReflectionException("Field '" + fieldName + "' not found in Class '" + type.getCanonicalName()
+                        + "'");
+    }
+
+    /**
+     * Make {@code field} accessible. Depending on the Java version a denied
+     * access is a SecurityException or another unchecked exception.
+     */
+    private static Field accessible(Field field, Class<?> type) {
+        try {
+            field.setAccessible(true);
+            return field;
+        } catch (RuntimeException exception) {
+            throw new ReflectionException("Field '" + field.getName() + "' of Class '" + type.getCanonicalName()
+                            + "' is not accessible", exception);
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The public and declared fields of a class, indexed by name.
+ *
+ * The table is created once per class and held in a {@link ClassValue}, like
+ * the {@link MethodTable}, so a lookup is a hash lookup and a miss does not
+ * throw a exception.
+ */
+final class FieldTable {
+
+    private static final ClassValue<FieldTable> TABLES = new ClassValue<FieldTable>() {
+        @Override
+        protected FieldTable computeValue(Class<?> type) {
+            return new FieldTable(type);
+        }
+    };
+
+    private final Map<String, Field> publicFields;
+    private final Map<String, Field> declaredFields;
+
+    private FieldTable(Class<?> type) {
+        this.publicFields = byName(type.getFields());
+        this.declaredFields = byName(type.getDeclaredFields());
+    }
+
+    /**
+     * Returns the field table of {@code type}.
+     *
+     * @param type
+     *            - a class
+     * @return field table
+     */
+    static FieldTable of(Class<?> type) {
+        return TABLES.get(type);
+    }
+
+    /**
+     * Returns the public field {@code name}, including inherited ones, like
+     * {@link Class#getField(String)}.
+     *
+     * @param name
+     *            - field name
+     * @return the field, or {@code null} if there is none
+     */
+    Field publicField(String name) {
+        return publicFields.get(name);
+    }
+
+    /**
+     * Returns the field {@code name} declared by the class.
+     *
+     * @param name
+     *            - field name
+     * @return the field, or {@code null} if there is none
+     */
+    Field declaredField(String name) {
+        return declaredFields.get(name);
+    }
+
+    /**
+     * Index the fields by name. Of fields with the same name the first one
+     * is kept, {@link Class#getFields()} lists the fields of the class before
+     * the hidden ones of its super types.
+     */
+    private static Map<String, Field> byName(Field[] fields) {
+        Map<String, Field> byName = new HashMap<>();
+        for (Field field : fields) {
+            if (!byName.containsKey(field.getName())) {
+                byName.put(field.getName(), field);
+            }
+        }
+        return byName;
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base class of the annotation indices generated at compile time by
+ * {@link de.javanarior.utils.lang.reflect.processor.AnnotationIndexProcessor}.
+ * The generated class for {@code a.b.Foo} is {@code a.b.Foo$$AnnotationIndex}
+ * and registers the runtime visible annotations of {@code Foo}, its methods
+ * and their parameters in its constructor, with the attribute values as
+ * constants.
+ *
+ * {@link AnnotationIndex} uses the generated index if there is one, instead
+ * of parsing the annotations by reflection. Annotations and methods are
+ * identified by their binary name and by name and descriptor.
+ */
+public abstract class GeneratedAnnotationIndex {
+
+    /** Appended to the binary class name to get the name of the index class. */
+    public static final String SUFFIX = "$$AnnotationIndex";
+
+    private final Map<String, Map<String, Object>> classAnnotations = new LinkedHashMap<>();
+    private final Map<String, GeneratedMethod> methods = new HashMap<>();
+
+    /**
+     * Create a new GeneratedAnnotationIndex instance.
+     */
+    protected GeneratedAnnotationIndex() {
+    }
+
+    /**
+     * Returns the generated index of {@code type}, if there is one. The
+     * class file of the index is looked up as resource first, so a missing
+     * index does not cost a exception.
+     *
+     * @param type
+     *            - the indexed class
+     * @return the index, or {@code null} if there is no usable index
+     */
+    static GeneratedAnnotationIndex find(Class<?> type) {
+        ClassLoader classLoader = type.getClassLoader();
+        String indexName = type.getName() + SUFFIX;
+        if (classLoader == null || classLoader.getResource(indexName.replace('.', '/') + ".class") == null) {
+            return null;
+        }
+        try {
+            Class<? extends GeneratedAnnotationIndex> indexClass = Class.forName(indexName, true, classLoader)
+                            .asSubclass(GeneratedAnnotationIndex.class);
+            return indexClass.getConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException exception) {
+            // not a usable index, fall back to reflection
+            return null;
+        }
+    }
+
+    /**
+     * Register a annotation of the class.
+     *
+     * @param annotationType
+     *            - binary name of the annotation type
+     * @param attributes
+     *            - alternating attribute names and values
+     */
+    protected final void classAnnotation(String annotationType, Object... attributes) {
+        classAnnotations.put(annotationType, attributes(attributes));
+    }
+
+    /**
+     * Register a method declared by the class.
+     *
+     * @param name
+     *            - name of the method
+     * @param descriptor
+     *            - descriptor of the method
+     * @param parameterNames
+     *            - names of the parameters
+     */
+    protected final void method(String name, String descriptor, String... parameterNames) {
+        methods.put(name + descriptor, new GeneratedMethod(parameterNames));
+    }
+
+    /**
+     * Register a annotation of a method, which is registered by
+     * {@link #method(String, String, String...)} before.
+     *
+     * @param name
+     *            - name of the method
+     * @param descriptor
+     *            - descriptor of the method
+     * @param annotationType
+     *            - binary name of the annotation type
+     * @param attributes
+     *            - alternating attribute names and values
+     */
+    protected final void methodAnnotation(String name, String descriptor, String annotationType,
+                    Object... attributes) {
+        registered(name, descriptor).annotations.put(annotationType, attributes(attributes));
+    }
+
+    /**
+     * Register a annotation of a method parameter. The method is registered
+     * by {@link #method(String, String, String...)} before.
+     *
+     * @param name
+     *            - name of the method
+     * @param descriptor
+     *            - descriptor of the method
+     * @param parameterIndex
+     *            - index of the parameter
+     * @param annotationType
+     *            - binary name of the annotation type
+     * @param attributes
+     *            - alternating attribute names and values
+     */
+    protected final void parameterAnnotation(String name, String descriptor, int parameterIndex,
+                    String annotationType, Object... attributes) {
+        registered(name, descriptor).parameterAnnotations(parameterIndex).put(annotationType,
+                        attributes(attributes));
+    }
+
+    /**
+     * Returns the class annotations, by annotation type name.
+     *
+     * @return attribute values per annotation type
+     */
+    Map<String, Map<String, Object>> classAnnotations() {
+        return classAnnotations;
+    }
+
+    /**
+     * Returns a method registered with {@code name} and
+     * {@code descriptor}.
+     *
+     * @param name
+     *            - name of the method
+     * @param descriptor
+     *            - descriptor of the method
+     * @return the method, or {@code null} if it is not registered
+     */
+    GeneratedMethod method(String name, String descriptor) {
+        return methods.get(name + descriptor);
+    }
+
+    private GeneratedMethod registered(String name, String descriptor) {
+        GeneratedMethod method = method(name, descriptor);
+        if (method == null) {
+            throw new IllegalStateException("Method '" + name + descriptor + "' is not registered");
+        }
+        return method;
+    }
+
+    private static Map<String, Object> attributes(Object[] attributes) {
+        Map<String, Object> values = new HashMap<>();
+        for (int index = 0; index < attributes.length; index += 2) {
+            values.put((String)attributes[index], attributes[index + 1]);
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * The parameter names and annotations of a generated method.
+     */
+    static final class GeneratedMethod {
+
+        private final String[] parameterNames;
+        private final Map<String, Map<String, Object>> annotations = new LinkedHashMap<>();
+        private final List<Map<String, Map<String, Object>>> parameterAnnotations;
+
+        GeneratedMethod(String[] parameterNames) {
+            this.parameterNames = parameterNames;
+            this.parameterAnnotations = new ArrayList<>(parameterNames.length);
+            for (int index = 0; index < parameterNames.length; index++) {
+                parameterAnnotations.add(new LinkedHashMap<String, Map<String, Object>>());
+            }
+        }
+
+        String[] parameterNames() {
+            return parameterNames;
+        }
+
+        Map<String, Map<String, Object>> annotations() {
+            return annotations;
+        }
+
+        Map<String, Map<String, Object>> parameterAnnotations(int parameterIndex) {
+            return parameterAnnotations.get(parameterIndex);
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+/**
+ * Creates new instances of a class with a constructor which was resolved
+ * once. Instances are thread safe and meant to be kept and reused.
+ *
+ * @param <T>
+ *            - type of the instances
+ */
+public interface Instantiator<T> {
+
+    /**
+     * Create a new instance with the given constructor arguments.
+     * In case of error a {@linkplain ReflectionException} is thrown.
+     *
+     * @param arguments
+     *            - the values to pass to the constructor
+     * @return a new instance
+     */
+    T newInstance(Object... arguments);
+
+}
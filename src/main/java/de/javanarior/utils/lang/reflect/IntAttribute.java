@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * Reads a {@code int} annotation attribute, without boxing the value.
+ * Instances are thread safe, validated once and meant to be kept and reused.
+ *
+ * @param <A>
+ *            - the annotation type
+ */
+public interface IntAttribute<A extends Annotation> {
+
+    /**
+     * Returns the value of the attribute of {@code annotation}.
+     * In case of error a {@linkplain ReflectionException} is thrown.
+     *
+     * @param annotation
+     *            - the annotation
+     * @return value of the attribute
+     */
+    int getInt(A annotation);
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+/**
+ * Creates new instances with a constructor taking a single {@code int}, without
+ * boxing the argument. Instances are thread safe and meant to be kept and
+ * reused.
+ *
+ * @param <T>
+ *            - type of the instances
+ */
+public interface IntInstantiator<T> {
+
+    /**
+     * Create a new instance with {@code argument} as constructor argument.
+     * In case of error a {@linkplain ReflectionException} is thrown.
+     *
+     * @param argument
+     *            - the value to pass to the constructor
+     * @return a new instance
+     */
+    T newInstance(int argument);
+
+}
@@ -16,22 +16,267 @@
 package de.javanarior.utils.lang.reflect;
 
 import java.lang.annotation.Annotation;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import de.javanarior.utils.lang.reflect.ReflectionMetrics.Operation;
 
 /**
  * Reflection Invocation helper.
  */
 public final class Invoke {
 
+    private static final ConstructorCache CONSTRUCTORS = new ConstructorCache();
+    private static final MethodCache METHODS = new MethodCache();
+    private static final OverloadResolver OVERLOADS = new OverloadResolver();
+
+    /**
+     * Marker returned by the {@code try*} methods, if no matching method
+     * exists. Used where {@code null} is a valid result.
+     */
+    public static final Object ABSENT = new Object() {
+        @Override
+        public String toString() {
+            return "ABSENT";
+        }
+    };
+
+    private static final ClassValue<ClassAccessor<?>> ACCESSORS = new ClassValue<ClassAccessor<?>>() {
+        @Override
+        protected ClassAccessor<?> computeValue(Class<?> type) {
+            return AccessorGenerator.create(type);
+        }
+    };
+
     private Invoke() {
     }
 
+    /**
+     * Resolve the public constructor of {@code toInstantiate} with the
+     * parameter types {@code argumentTypes} and returns a reusable
+     * {@link Instantiator} for it. The constructor is called through a
+     * {@link java.lang.invoke.MethodHandle}, so keeping the instantiator
+     * avoids the reflective dispatch of
+     * {@link java.lang.reflect.Constructor#newInstance(Object...)}.
+     * In case of error a {@linkplain ReflectionException} is thrown.
+     *
+     * @param <T>
+     *            - type of class to instantiate
+     * @param toInstantiate
+     *            - class object from which new instances are to be created
+     * @param argumentTypes
+     *            - the parameter types of the constructor to use
+     * @return instantiator for the constructor
+     */
+    public static <T> Instantiator<T> instantiator(Class<T> toInstantiate, Class<?>... argumentTypes) {
+        Probe probe = ReflectionMetrics.probe(Operation.INSTANTIATOR);
+        try {
+            return probe.done(resolve(toInstantiate, ArgumentTypes.of(argumentTypes)));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Like {@link #instantiator(Class, Class...)}, but returns {@code null}
+     * instead of throwing a exception if there is no matching public
+     * constructor. Missing constructors are cached, so repeated probes are
+     * cheap.
+     *
+     * @param <T>
+     *            - type of class to instantiate
+     * @param toInstantiate
+     *            - class object from which new instances are to be created
+     * @param argumentTypes
+     *            - the parameter types of the constructor to use
+     * @return instantiator for the constructor, or {@code null}
+     */
+    public static <T> Instantiator<T> tryInstantiator(Class<T> toInstantiate, Class<?>... argumentTypes) {
+        Probe probe = ReflectionMetrics.probe(Operation.INSTANTIATOR);
+        try {
+            return probe.found(CONSTRUCTORS.find(toInstantiate, ArgumentTypes.of(argumentTypes)));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Resolve the public constructor of {@code toInstantiate} with the
+     * parameter types {@code argumentTypes} and returns a reusable
+     * {@link BulkInstantiator}, which creates many instances from columnar
+     * data.
+     * In case of error a {@linkplain ReflectionException} is thrown.
+     *
+     * @param <T>
+     *            - type of class to instantiate
+     * @param toInstantiate
+     *            - class object from which new instances are to be created
+     * @param argumentTypes
+     *            - the parameter types of the constructor to use
+     * @return bulk instantiator for the constructor
+     */
+    public static <T> BulkInstantiator<T> bulkInstantiator(Class<T> toInstantiate, Class<?>... argumentTypes) {
+        Probe probe = ReflectionMetrics.probe(Operation.INSTANTIATOR);
+        try {
+            MethodHandleInstantiator<T> instantiator = resolve(toInstantiate, ArgumentTypes.of(argumentTypes));
+            return probe.done(new BulkInstantiator<>(toInstantiate, instantiator.handle()));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Resolve the public int constructor of {@code toInstantiate} and returns
+     * a reusable {@link IntInstantiator} for it, which passes the argument
+     * without boxing.
+     * In case of error a {@linkplain ReflectionException} is thrown.
+     *
+     * @param <T>
+     *            - type of class to instantiate
+     * @param toInstantiate
+     *            - class object from which new instances are to be created
+     * @return instantiator for the int constructor
+     */
+    public static <T> IntInstantiator<T> intInstantiator(Class<T> toInstantiate) {
+        Probe probe = ReflectionMetrics.probe(Operation.INSTANTIATOR);
+        try {
+            return probe.done(resolve(toInstantiate, ArgumentTypes.INT));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Resolve the public long constructor of {@code toInstantiate} and returns
+     * a reusable {@link LongInstantiator} for it, which passes the argument
+     * without boxing.
+     * In case of error a {@linkplain ReflectionException} is thrown.
+     *
+     * @param <T>
+     *            - type of class to instantiate
+     * @param toInstantiate
+     *            - class object from which new instances are to be created
+     * @return instantiator for the long constructor
+     */
+    public static <T> LongInstantiator<T> longInstantiator(Class<T> toInstantiate) {
+        Probe probe = ReflectionMetrics.probe(Operation.INSTANTIATOR);
+        try {
+            return probe.done(resolve(toInstantiate, ArgumentTypes.LONG));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Resolve the public double constructor of {@code toInstantiate} and returns
+     * a reusable {@link DoubleInstantiator} for it, which passes the argument
+     * without boxing.
+     * In case of error a {@linkplain ReflectionException} is thrown.
+     *
+     * @param <T>
+     *            - type of class to instantiate
+     * @param toInstantiate
+     *            - class object from which new instances are to be created
+     * @return instantiator for the double constructor
+     */
+    public static <T> DoubleInstantiator<T> doubleInstantiator(Class<T> toInstantiate) {
+        Probe probe = ReflectionMetrics.probe(Operation.INSTANTIATOR);
+        try {
+            return probe.done(resolve(toInstantiate, ArgumentTypes.DOUBLE));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Resolve the public boolean constructor of {@code toInstantiate} and returns
+     * a reusable {@link BooleanInstantiator} for it, which passes the argument
+     * without boxing.
+     * In case of error a {@linkplain ReflectionException} is thrown.
+     *
+     * @param <T>
+     *            - type of class to instantiate
+     * @param toInstantiate
+     *            - class object from which new instances are to be created
+     * @return instantiator for the boolean constructor
+     */
+    public static <T> BooleanInstantiator<T> booleanInstantiator(Class<T> toInstantiate) {
+        Probe probe = ReflectionMetrics.probe(Operation.INSTANTIATOR);
+        try {
+            return probe.done(resolve(toInstantiate, ArgumentTypes.BOOLEAN));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Resolve the public byte constructor of {@code toInstantiate} and returns
+     * a reusable {@link ByteInstantiator} for it, which passes the argument
+     * without boxing.
+     * In case of error a {@linkplain ReflectionException} is thrown.
+     *
+     * @param <T>
+     *            - type of class to instantiate
+     * @param toInstantiate
+     *            - class object from which new instances are to be created
+     * @return instantiator for the byte constructor
+     */
+    public static <T> ByteInstantiator<T> byteInstantiator(Class<T> toInstantiate) {
+        Probe probe = ReflectionMetrics.probe(Operation.INSTANTIATOR);
+        try {
+            return probe.done(resolve(toInstantiate, ArgumentTypes.BYTE));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Resolve the public char constructor of {@code toInstantiate} and returns
+     * a reusable {@link CharInstantiator} for it, which passes the argument
+     * without boxing.
+     * In case of error a {@linkplain ReflectionException} is thrown.
+     *
+     * @param <T>
+     *            - type of class to instantiate
+     * @param toInstantiate
+     *            - class object from which new instances are to be created
+     * @return instantiator for the char constructor
+     */
+    public static <T> CharInstantiator<T> charInstantiator(Class<T> toInstantiate) {
+        Probe probe = ReflectionMetrics.probe(Operation.INSTANTIATOR);
+        try {
+            return probe.done(resolve(toInstantiate, ArgumentTypes.CHAR));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Resolve the public short constructor of {@code toInstantiate} and returns
+     * a reusable {@link ShortInstantiator} for it, which passes the argument
+     * without boxing.
+     * In case of error a {@linkplain ReflectionException} is thrown.
+     *
+     * @param <T>
+     *            - type of class to instantiate
+     * @param toInstantiate
+     *            - class object from which new instances are to be created
+     * @return instantiator for the short constructor
+     */
+    public static <T> ShortInstantiator<T> shortInstantiator(Class<T> toInstantiate) {
+        Probe probe = ReflectionMetrics.probe(Operation.INSTANTIATOR);
+        try {
+            return probe.done(resolve(toInstantiate, ArgumentTypes.SHORT));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
     /**
      * Invoke the constructor from {@code toInstantiate} with the parameter
      * specified by {@code parameterTypes} and provides {@code parameterValues}
      * as parameters.
+     * The constructor is resolved once per class and parameter types and
+     * taken from a cache on subsequent calls.
      *
      * @param <T>
      *            - type of class to instantiate
@@ -43,17 +288,12 @@ public final class Invoke {
      *            - the values to pass to the constructor
      * @return a new instance of toInstantiate
      */
-    @SuppressWarnings("unchecked")
     public static <T> T invokeConstructor(Class<T> toInstantiate, Class<?>[] argumentTypes, Object[] argument) {
-        Constructor<?> constructor;
+        Probe probe = ReflectionMetrics.probe(Operation.INVOKE_CONSTRUCTOR);
         try {
-            constructor = toInstantiate.getConstructor(argumentTypes);
-            return (T)constructor.newInstance(argument);
-        } catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException
-                        | IllegalArgumentException | InvocationTargetException exception) {
-            throw new ReflectionException(
-                            "Could not invoke constructor, please check if constructor exists and the parameters fit",
-                            exception);
+            return probe.done(resolve(toInstantiate, ArgumentTypes.of(argumentTypes)).newInstance(argument));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
         }
     }
 
@@ -67,10 +307,11 @@ public final class Invoke {
      * @return a new instance of toInstantiate
      */
     public static <T> T invokeConstructor(Class<T> toInstantiate) {
+        Probe probe = ReflectionMetrics.probe(Operation.INVOKE_CONSTRUCTOR);
         try {
-            return toInstantiate.newInstance();
-        } catch (InstantiationException | IllegalAccessException exception) {
-            throw new ReflectionException("Could not invoke default constructor, please check if accessable", exception);
+            return probe.done(resolve(toInstantiate, ArgumentTypes.of()).newInstance());
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
         }
     }
 
@@ -106,7 +347,12 @@ public final class Invoke {
      * @return a new instance of toInstantiate
      */
     public static <T> T invokeConstructor(Class<T> toInstantiate, int argument) {
-        return invokeConstructor(toInstantiate, Integer.valueOf(argument));
+        Probe probe = ReflectionMetrics.probe(Operation.INVOKE_CONSTRUCTOR);
+        try {
+            return probe.done(resolve(toInstantiate, ArgumentTypes.INT).newInstance(argument));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
     }
 
     /**
@@ -139,7 +385,12 @@ public final class Invoke {
      * @return a new instance of toInstantiate
      */
     public static <T> T invokeConstructor(Class<T> toInstantiate, boolean argument) {
-        return invokeConstructor(toInstantiate, Boolean.valueOf(argument));
+        Probe probe = ReflectionMetrics.probe(Operation.INVOKE_CONSTRUCTOR);
+        try {
+            return probe.done(resolve(toInstantiate, ArgumentTypes.BOOLEAN).newInstance(argument));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
     }
 
     /**
@@ -172,7 +423,12 @@ public final class Invoke {
      * @return a new instance of toInstantiate
      */
     public static <T> T invokeConstructor(Class<T> toInstantiate, byte argument) {
-        return invokeConstructor(toInstantiate, Byte.valueOf(argument));
+        Probe probe = ReflectionMetrics.probe(Operation.INVOKE_CONSTRUCTOR);
+        try {
+            return probe.done(resolve(toInstantiate, ArgumentTypes.BYTE).newInstance(argument));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
     }
 
     /**
@@ -205,7 +461,12 @@ public final class Invoke {
      * @return a new instance of toInstantiate
      */
     public static <T> T invokeConstructor(Class<T> toInstantiate, char argument) {
-        return invokeConstructor(toInstantiate, Character.valueOf(argument));
+        Probe probe = ReflectionMetrics.probe(Operation.INVOKE_CONSTRUCTOR);
+        try {
+            return probe.done(resolve(toInstantiate, ArgumentTypes.CHAR).newInstance(argument));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
     }
 
     /**
@@ -238,7 +499,12 @@ public final class Invoke {
      * @return a new instance of toInstantiate
      */
     public static <T> T invokeConstructor(Class<T> toInstantiate, double argument) {
-        return invokeConstructor(toInstantiate, Double.valueOf(argument));
+        Probe probe = ReflectionMetrics.probe(Operation.INVOKE_CONSTRUCTOR);
+        try {
+            return probe.done(resolve(toInstantiate, ArgumentTypes.DOUBLE).newInstance(argument));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
     }
 
     /**
@@ -271,7 +537,12 @@ public final class Invoke {
      * @return a new instance of toInstantiate
      */
     public static <T> T invokeConstructor(Class<T> toInstantiate, long argument) {
-        return invokeConstructor(toInstantiate, Long.valueOf(argument));
+        Probe probe = ReflectionMetrics.probe(Operation.INVOKE_CONSTRUCTOR);
+        try {
+            return probe.done(resolve(toInstantiate, ArgumentTypes.LONG).newInstance(argument));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
     }
 
     /**
@@ -304,7 +575,12 @@ public final class Invoke {
      * @return a new instance of toInstantiate
      */
     public static <T> T invokeConstructor(Class<T> toInstantiate, short argument) {
-        return invokeConstructor(toInstantiate, Short.valueOf(argument));
+        Probe probe = ReflectionMetrics.probe(Operation.INVOKE_CONSTRUCTOR);
+        try {
+            return probe.done(resolve(toInstantiate, ArgumentTypes.SHORT).newInstance(argument));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
     }
 
     /**
@@ -324,10 +600,296 @@ public final class Invoke {
                         new Short[] { argument });
     }
 
+    /**
+     * Create a new instance of {@code toInstantiate} with the public
+     * constructor, which fits {@code arguments} best. The constructor is
+     * chosen like the Java compiler would do, if the runtime classes of the
+     * arguments were their declared types, including unboxing, widening and
+     * varargs. The choice is made once per class and tuple of argument
+     * classes and taken from a cache on subsequent calls.
+     * In case of error a {@linkplain ReflectionException} is thrown.
+     *
+     * @param <T>
+     *            - type of the new instance
+     * @param toInstantiate
+     *            - class to instantiate
+     * @param arguments
+     *            - the values to pass to the constructor
+     * @return new instance
+     */
+    public static <T> T newInstance(Class<T> toInstantiate, Object... arguments) {
+        Probe probe = ReflectionMetrics.probe(Operation.NEW_INSTANCE);
+        try {
+            Overload overload;
+            try {
+                overload = OVERLOADS.constructor(toInstantiate, OverloadResolver.argumentClasses(arguments));
+            } catch (SecurityException exception) {
+                throw new ReflectionException("Could not find constructor of Class '"
+                                + toInstantiate.getCanonicalName() + "' for the arguments", exception);
+            }
+            return probe.done(toInstantiate.cast(overload.invoke(null, arguments)));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Like {@link #newInstance(Class, Object...)}, but returns {@code null}
+     * instead of throwing a exception if no public constructor fits
+     * {@code arguments}. Exceptions of the constructor itself are still
+     * thrown.
+     *
+     * @param <T>
+     *            - type of the new instance
+     * @param toInstantiate
+     *            - class to instantiate
+     * @param arguments
+     *            - the values to pass to the constructor
+     * @return new instance, or {@code null}
+     */
+    public static <T> T tryNewInstance(Class<T> toInstantiate, Object... arguments) {
+        Probe probe = ReflectionMetrics.probe(Operation.NEW_INSTANCE);
+        try {
+            Overload overload = OVERLOADS.findConstructor(toInstantiate, OverloadResolver.argumentClasses(arguments));
+            if (overload == null) {
+                return probe.missed(null);
+            }
+            return probe.done(toInstantiate.cast(overload.invoke(null, arguments)));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Invoke the public method {@code methodName} on {@code instance}, which
+     * fits {@code arguments} best. The method is chosen like for
+     * {@link #newInstance(Class, Object...)}, static methods are included.
+     *
+     * @param instance
+     *            - the object to call the method on
+     * @param methodName
+     *            - name of the method
+     * @param arguments
+     *            - the values to pass to the method
+     * @return the return value, {@code null} for void methods
+     */
+    public static Object invoke(Object instance, String methodName, Object... arguments) {
+        Probe probe = ReflectionMetrics.probe(Operation.INVOKE);
+        try {
+            return probe.done(overload(instance.getClass(), methodName, arguments).invoke(instance, arguments));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Invoke the public static method {@code methodName} of {@code type},
+     * which fits {@code arguments} best. The method is chosen like for
+     * {@link #newInstance(Class, Object...)}.
+     *
+     * @param type
+     *            - the class with the static method
+     * @param methodName
+     *            - name of the method
+     * @param arguments
+     *            - the values to pass to the method
+     * @return the return value, {@code null} for void methods
+     */
+    public static Object invokeStatic(Class<?> type, String methodName, Object... arguments) {
+        Probe probe = ReflectionMetrics.probe(Operation.INVOKE);
+        try {
+            Overload overload = overload(type, methodName, arguments);
+            if (!Modifier.isStatic(overload.getMember().getModifiers())) {
+                throw new ReflectionException("Method '" + overload.getMember() + "' is not static");
+            }
+            return probe.done(overload.invoke(null, arguments));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Like {@link #invoke(Object, String, Object...)}, but returns
+     * {@link #ABSENT} instead of throwing a exception if no public method
+     * fits {@code arguments}. Exceptions of the method itself are still
+     * thrown.
+     *
+     * @param instance
+     *            - the object to call the method on
+     * @param methodName
+     *            - name of the method
+     * @param arguments
+     *            - the values to pass to the method
+     * @return the return value, or {@link #ABSENT}
+     */
+    public static Object tryInvoke(Object instance, String methodName, Object... arguments) {
+        Probe probe = ReflectionMetrics.probe(Operation.INVOKE);
+        try {
+            Overload overload = OVERLOADS.findMethod(instance.getClass(), methodName,
+                            OverloadResolver.argumentClasses(arguments));
+            return overload == null ? probe.missed(ABSENT) : probe.done(overload.invoke(instance, arguments));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Like {@link #invokeStatic(Class, String, Object...)}, but returns
+     * {@link #ABSENT} instead of throwing a exception if no public static
+     * method fits {@code arguments}.
+     *
+     * @param type
+     *            - the class with the static method
+     * @param methodName
+     *            - name of the method
+     * @param arguments
+     *            - the values to pass to the method
+     * @return the return value, or {@link #ABSENT}
+     */
+    public static Object tryInvokeStatic(Class<?> type, String methodName, Object... arguments) {
+        Probe probe = ReflectionMetrics.probe(Operation.INVOKE);
+        try {
+            Overload overload = OVERLOADS.findMethod(type, methodName, OverloadResolver.argumentClasses(arguments));
+            if (overload == null || !Modifier.isStatic(overload.getMember().getModifiers())) {
+                return probe.missed(ABSENT);
+            }
+            return probe.done(overload.invoke(null, arguments));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Resolve the public method {@code methodName} of {@code type} with the
+     * parameter types {@code argumentTypes} and returns a reusable
+     * {@link MethodInvoker} for it. Static and instance methods are
+     * supported. The method is resolved once per class, name and parameter
+     * types and taken from a cache on subsequent calls.
+     * In case of error a {@linkplain ReflectionException} is thrown.
+     *
+     * @param type
+     *            - class with the method
+     * @param methodName
+     *            - name of the method
+     * @param argumentTypes
+     *            - the parameter types of the method
+     * @return invoker for the method
+     */
+    public static MethodInvoker methodInvoker(Class<?> type, String methodName, Class<?>... argumentTypes) {
+        Probe probe = ReflectionMetrics.probe(Operation.METHOD_INVOKER);
+        try {
+            return probe.done(invoker(type, methodName, argumentTypes));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Like {@link #methodInvoker(Class, String, Class...)}, but returns
+     * {@code null} instead of throwing a exception if there is no matching
+     * public method. Missing methods are cached, so repeated probes are
+     * cheap.
+     *
+     * @param type
+     *            - class with the method
+     * @param methodName
+     *            - name of the method
+     * @param argumentTypes
+     *            - the parameter types of the method
+     * @return invoker for the method, or {@code null}
+     */
+    public static MethodInvoker tryMethodInvoker(Class<?> type, String methodName, Class<?>... argumentTypes) {
+        Probe probe = ReflectionMetrics.probe(Operation.METHOD_INVOKER);
+        try {
+            return probe.found(METHODS.find(type, methodName, argumentTypes));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Invoke the public method {@code methodName} with the parameter types
+     * {@code argumentTypes} on {@code instance} and provides
+     * {@code argument} as parameters.
+     *
+     * @param instance
+     *            - the object to call the method on
+     * @param methodName
+     *            - name of the method
+     * @param argumentTypes
+     *            - the parameter types of the method
+     * @param argument
+     *            - the values to pass to the method
+     * @return the return value, {@code null} for void methods
+     */
+    public static Object invokeMethod(Object instance, String methodName, Class<?>[] argumentTypes,
+                    Object[] argument) {
+        Probe probe = ReflectionMetrics.probe(Operation.INVOKE_METHOD);
+        try {
+            return probe.done(invoker(instance.getClass(), methodName, argumentTypes).invokeWithArguments(instance,
+                            argument));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Invoke the public static method {@code methodName} with the parameter
+     * types {@code argumentTypes} of {@code type} and provides
+     * {@code argument} as parameters.
+     *
+     * @param type
+     *            - the class with the static method
+     * @param methodName
+     *            - name of the method
+     * @param argumentTypes
+     *            - the parameter types of the method
+     * @param argument
+     *            - the values to pass to the method
+     * @return the return value, {@code null} for void methods
+     */
+    public static Object invokeStaticMethod(Class<?> type, String methodName, Class<?>[] argumentTypes,
+                    Object[] argument) {
+        Probe probe = ReflectionMetrics.probe(Operation.INVOKE_METHOD);
+        try {
+            return probe.done(invoker(type, methodName, argumentTypes).invokeWithArguments(null, argument));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Returns a {@link ClassAccessor} for the public members of {@code type}.
+     * For public classes visible to the
+     * {@link de.javanarior.utils.lang.ByteCodeClassLoader} a accessor class
+     * is generated, which calls the members without reflection. The accessor
+     * is created once per class. The other methods of this class do not use
+     * the accessor, they call through cached method handles; call sites
+     * accessing many members of the same class should hold the accessor.
+     *
+     * @param <T>
+     *            - the accessed type
+     * @param type
+     *            - the class to access
+     * @return accessor for {@code type}
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ClassAccessor<T> accessor(Class<T> type) {
+        Probe probe = ReflectionMetrics.probe(Operation.ACCESSOR);
+        try {
+            return probe.done((ClassAccessor<T>)ACCESSORS.get(type));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
     /**
      * Invoke the method with the name {@code attributeName} on the
      * {@code annotation}.
-     * As result the value of {@code attributeName} is returned.
+     * As result the value of {@code attributeName} is returned. Attributes
+     * are read through the method handles of
+     * {@link AnnotationAttributeReader}, the methods {@code annotationType},
+     * {@code toString} and {@code hashCode} can be invoked as well.
      *
      * @param <T>
      *            - the annotation class
@@ -337,15 +899,91 @@ public final class Invoke {
      *            - attribute name
      * @return the value of attributeName
      */
+    @SuppressWarnings("unchecked")
     public static <T extends Annotation> Object invokeAnnotation(T annotation, String attributeName) {
+        Probe probe = ReflectionMetrics.probe(Operation.INVOKE_ANNOTATION);
         try {
-            Method method = annotation.annotationType().getMethod(attributeName);
-            return method.invoke(annotation);
-        } catch (NoSuchMethodException exception) {
-            throw new ReflectionException("Attribute '" + attributeName + "' not found on '"
-                            + annotation.annotationType().getCanonicalName() + "'", exception);
-        } catch (SecurityException | IllegalAccessException | InvocationTargetException exception) {
-            throw new ReflectionException(exception);
+            AnnotationAttributeReader<T> reader = AnnotationAttributeReader.of((Class<T>)annotation.annotationType());
+            return probe.done(reader.value(annotation, attributeName));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
         }
     }
+
+    private static MethodInvoker invoker(Class<?> type, String methodName, Class<?>... argumentTypes) {
+        try {
+            return METHODS.get(type, methodName, argumentTypes);
+        } catch (SecurityException exception) {
+            throw new ReflectionException("Could not find method '" + methodName + "' in Class '"
+                            + type.getCanonicalName() + "', please check if method exists and the parameters fit",
+                            exception);
+        }
+    }
+
+    private static Overload overload(Class<?> type, String methodName, Object[] arguments) {
+        try {
+            return OVERLOADS.method(type, methodName, OverloadResolver.argumentClasses(arguments));
+        } catch (SecurityException exception) {
+            throw new ReflectionException("Could not find method '" + methodName + "' in Class '"
+                            + type.getCanonicalName() + "' for the arguments", exception);
+        }
+    }
+
+    private static <T> MethodHandleInstantiator<T> resolve(Class<T> toInstantiate, ArgumentTypes argumentTypes) {
+        try {
+            return CONSTRUCTORS.get(toInstantiate, argumentTypes);
+        } catch (SecurityException exception) {
+            throw new ReflectionException(
+                            "Could not invoke constructor, please check if constructor exists and the parameters fit",
+                            exception);
+        }
+    }
+
+    /**
+     * Returns the hit and miss counts of the constructor cache used by
+     * {@link #invokeConstructor(Class, Class[], Object[])}.
+     *
+     * @return statistics snapshot
+     */
+    public static CacheStatistics constructorCacheStatistics() {
+        return CONSTRUCTORS.statistics();
+    }
+
+    /**
+     * Returns the hit and miss counts of the method cache used by
+     * {@link #methodInvoker(Class, String, Class...)}.
+     *
+     * @return statistics snapshot
+     */
+    public static CacheStatistics methodCacheStatistics() {
+        return METHODS.statistics();
+    }
+
+    /**
+     * Returns the hit and miss counts of the overload decisions used by
+     * {@link #newInstance(Class, Object...)},
+     * {@link #invoke(Object, String, Object...)} and
+     * {@link #invokeStatic(Class, String, Object...)}.
+     *
+     * @return statistics snapshot
+     */
+    public static CacheStatistics overloadCacheStatistics() {
+        return OVERLOADS.statistics();
+    }
+
+    /**
+     * Remove everything cached for {@code type}: the constructors, methods,
+     * overload decisions and the class accessor. Use it before a class is
+     * redeployed, or when its entries are not needed any more. The caches do
+     * not prevent unloading of classes anyway.
+     *
+     * @param type
+     *            - the class
+     */
+    public static void invalidateCaches(Class<?> type) {
+        CONSTRUCTORS.invalidate(type);
+        METHODS.invalidate(type);
+        OVERLOADS.invalidate(type);
+        ACCESSORS.remove(type);
+    }
 }
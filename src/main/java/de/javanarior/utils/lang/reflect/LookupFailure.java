@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+/**
+ * Marker for a failed constructor or method lookup, cached in place of the
+ * result.
+ *
+ * No exception instance with a stack trace of a caller is shared between
+ * callers. Every caller gets a new {@link ReflectionException} from
+ * {@link #exception(Object...)}, with the stack trace of the caller. Its cause
+ * is the exception of the lookup, or a new {@link NoSuchMethodException} if
+ * no member matched. Callers which only probe for the member check for the
+ * marker and do not create a exception at all.
+ */
+final class LookupFailure {
+
+    private final String reason;
+    private final ReflectiveOperationException cause;
+
+    /**
+     * Create a failure marker for a lookup in which no member matched.
+     *
+     * @param reason
+     *            - why the lookup failed
+     */
+    LookupFailure(String reason) {
+        this(reason, null);
+    }
+
+    private LookupFailure(String reason, ReflectiveOperationException cause) {
+        this.reason = reason;
+        this.cause = cause;
+    }
+
+    /**
+     * Create a failure marker for the exception of a lookup.
+     *
+     * @param exception
+     *            - the exception of the lookup
+     * @return failure marker
+     */
+    static LookupFailure of(ReflectiveOperationException exception) {
+        return new LookupFailure(exception.toString(), exception);
+    }
+
+    /**
+     * Returns a new exception. The message consists of {@code messageParts}
+     * followed by the reason of the failure.
+     *
+     * @param messageParts
+     *            - parts of the message
+     * @return new exception
+     */
+    ReflectionException exception(Object... messageParts) {
+        StringBuilder message = new StringBuilder();
+        for (Object part : messageParts) {
+            message.append(part);
+        }
+        message.append(": ").append(reason);
+        return new ReflectionException(message.toString(), cause == null ? new NoSuchMethodException(reason) : cause);
+    }
+
+    @Override
+    public String toString() {
+        return reason;
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A annotation with the attribute values merged from all levels it was
+ * found on. Part of {@link MergedAnnotations}, which describes the merge.
+ *
+ * Instances are immutable, array values are copied when they are returned.
+ * In case of error a {@linkplain ReflectionException} is thrown.
+ */
+public final class MergedAnnotation {
+
+    private final Annotation annotation;
+    private final AnnotatedElement source;
+    private final Map<String, Object> values;
+
+    MergedAnnotation(Annotation annotation, AnnotatedElement source, Map<String, Object> values) {
+        this.annotation = annotation;
+        this.source = source;
+        this.values = values;
+    }
+
+    /**
+     * Returns the type of the annotation.
+     *
+     * @return annotation type
+     */
+    public Class<? extends Annotation> getAnnotationType() {
+        return annotation.annotationType();
+    }
+
+    /**
+     * Returns the nearest annotation instance, as declared, without merged
+     * values.
+     *
+     * @return annotation
+     */
+    public Annotation getAnnotation() {
+        return annotation;
+    }
+
+    /**
+     * Returns the element the nearest annotation is declared on, a class, a
+     * method or for meta-annotations a annotation type.
+     *
+     * @return annotated element
+     */
+    public AnnotatedElement getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the names of all attributes.
+     *
+     * @return attribute names
+     */
+    public Set<String> getAttributeNames() {
+        return values.keySet();
+    }
+
+    /**
+     * Check if the annotation has a attribute {@code attributeName}.
+     *
+     * @param attributeName
+     *            - name of the attribute
+     * @return true if the attribute exists
+     */
+    public boolean hasAttribute(String attributeName) {
+        return values.containsKey(attributeName);
+    }
+
+    /**
+     * Returns the merged value of the attribute {@code attributeName}. Array
+     * values are copied.
+     *
+     * @param attributeName
+     *            - name of the attribute
+     * @return value of the attribute
+     */
+    public Object get(String attributeName) {
+        Object value = values.get(attributeName);
+        if (value == null) {
+            throw new ReflectionException("Attribute '" + attributeName + "' not found on '"
+                            + annotation.annotationType().getCanonicalName() + "'");
+        }
+        return value.getClass().isArray() ? AnnotationValues.copy(value) : value;
+    }
+
+    @Override
+    public String toString() {
+        return "@" + annotation.annotationType().getName() + values;
+    }
+
+}
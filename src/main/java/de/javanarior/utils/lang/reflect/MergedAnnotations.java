@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Inherited;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * The annotations of a class or method merged with its meta-annotations,
+ * inherited annotations and the annotations of overridden methods, e.g.
+ *
+ * <pre>
+ * MergedAnnotation role = MergedAnnotations.of(AdminService.class).get(Role.class);
+ * Object name = role.get("name");
+ * </pre>
+ *
+ * The annotations are collected level by level, nearest first:
+ * <ol>
+ * <li>the annotations declared on the element, in declaration order,
+ * followed by their meta-annotations, breadth first. Meta-annotations from
+ * {@code java.lang.annotation} are skipped, every annotation type is
+ * followed only once per level.</li>
+ * <li>for a class, the annotations of its superclasses, nearest first,
+ * whose type is annotated with {@link Inherited}, each followed by their
+ * meta-annotations.</li>
+ * <li>for a method, the methods it overrides in its superclasses, nearest
+ * first, then in its interfaces, breadth first in declaration order, each
+ * followed by their meta-annotations. A method overrides a non private, non
+ * static method with the same name and parameter types.</li>
+ * </ol>
+ * Every attribute of a merged annotation has the first value in this order,
+ * which differs from the default value of the attribute, or the default
+ * value if there is none.
+ *
+ * The merged view is computed once per class and once per method and held
+ * in a {@link ClassValue} respectively a {@link ClassCache}. Instances are immutable and thread safe.
+ */
+public final class MergedAnnotations {
+
+    private static final String META_ANNOTATION_PACKAGE = "java.lang.annotation.";
+
+    private static final ClassValue<MergedAnnotations> CLASSES = new ClassValue<MergedAnnotations>() {
+        @Override
+        protected MergedAnnotations computeValue(Class<?> type) {
+            return new MergedAnnotations(classLevels(type));
+        }
+    };
+
+    private static final ClassCache<Method, MergedAnnotations> METHODS = ClassCache.unbounded(
+                    new ClassCache.Loader<Method, MergedAnnotations>() {
+                        @Override
+                        public MergedAnnotations load(Class<?> type, Method method) {
+                            return new MergedAnnotations(methodLevels(method));
+                        }
+                    });
+
+    private final Map<Class<? extends Annotation>, MergedAnnotation> annotations;
+
+    private MergedAnnotations(List<Level> levels) {
+        Map<Class<? extends Annotation>, List<Occurrence>> occurrences = new LinkedHashMap<>();
+        for (Level level : levels) {
+            level.collect(occurrences);
+        }
+        Map<Class<? extends Annotation>, MergedAnnotation> merged = new LinkedHashMap<>();
+        for (Map.Entry<Class<? extends Annotation>, List<Occurrence>> entry : occurrences.entrySet()) {
+            merged.put(entry.getKey(), merge(entry.getKey(), entry.getValue()));
+        }
+        this.annotations = Collections.unmodifiableMap(merged);
+    }
+
+    /**
+     * Returns the merged annotations of {@code type}.
+     *
+     * @param type
+     *            - the annotated class
+     * @return merged annotations
+     */
+    public static MergedAnnotations of(Class<?> type) {
+        return CLASSES.get(type);
+    }
+
+    /**
+     * Returns the merged annotations of {@code method}.
+     *
+     * @param method
+     *            - the annotated method
+     * @return merged annotations
+     */
+    public static MergedAnnotations of(Method method) {
+        return METHODS.get(method.getDeclaringClass(), method);
+    }
+
+    /**
+     * Returns the merged annotation {@code annotationType}.
+     *
+     * @param annotationType
+     *            - class of the annotation
+     * @return the merged annotation, or {@code null} if it is not present on
+     *         any level
+     */
+    public MergedAnnotation get(Class<? extends Annotation> annotationType) {
+        return annotations.get(annotationType);
+    }
+
+    /**
+     * Check if the annotation {@code annotationType} is present on any
+     * level.
+     *
+     * @param annotationType
+     *            - class of the annotation
+     * @return true if the annotation is present
+     */
+    public boolean isPresent(Class<? extends Annotation> annotationType) {
+        return annotations.containsKey(annotationType);
+    }
+
+    /**
+     * Returns the types of all merged annotations, in traversal order.
+     *
+     * @return annotation types
+     */
+    public Set<Class<? extends Annotation>> getAnnotationTypes() {
+        return annotations.keySet();
+    }
+
+    @Override
+    public String toString() {
+        return annotations.values().toString();
+    }
+
+    private static List<Level> classLevels(Class<?> type) {
+        List<Level> levels = new ArrayList<>();
+        levels.add(new Level(type, type.getDeclaredAnnotations()));
+        for (Class<?> superClass = type.getSuperclass(); superClass != null; superClass = superClass
+                        .getSuperclass()) {
+            List<Annotation> inherited = new ArrayList<>();
+            for (Annotation annotation : superClass.getDeclaredAnnotations()) {
+                if (annotation.annotationType().isAnnotationPresent(Inherited.class)) {
+                    inherited.add(annotation);
+                }
+            }
+            levels.add(new Level(superClass, inherited.toArray(new Annotation[inherited.size()])));
+        }
+        return levels;
+    }
+
+    private static List<Level> methodLevels(Method method) {
+        List<Level> levels = new ArrayList<>();
+        levels.add(new Level(method, method.getDeclaredAnnotations()));
+        if (Modifier.isPrivate(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) {
+            return levels;
+        }
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        Class<?> type = method.getDeclaringClass();
+        for (Class<?> superClass = type.getSuperclass(); superClass != null; superClass = superClass
+                        .getSuperclass()) {
+            addOverridden(levels, superClass, method);
+        }
+        Queue<Class<?>> pending = new ArrayDeque<>();
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            pending.addAll(Arrays.asList(current.getInterfaces()));
+        }
+        while (!pending.isEmpty()) {
+            Class<?> candidate = pending.remove();
+            if (interfaces.add(candidate)) {
+                addOverridden(levels, candidate, method);
+                pending.addAll(Arrays.asList(candidate.getInterfaces()));
+            }
+        }
+        return levels;
+    }
+
+    private static void addOverridden(List<Level> levels, Class<?> type, Method method) {
+        for (Method candidate : type.getDeclaredMethods()) {
+            int modifiers = candidate.getModifiers();
+            if (candidate.getName().equals(method.getName()) && !Modifier.isPrivate(modifiers)
+                            && !Modifier.isStatic(modifiers)
+                            && Arrays.equals(candidate.getParameterTypes(), method.getParameterTypes())) {
+                levels.add(new Level(candidate, candidate.getDeclaredAnnotations()));
+                return;
+            }
+        }
+    }
+
+    private static <A extends Annotation> MergedAnnotation merge(Class<A> annotationType,
+                    List<Occurrence> occurrences) {
+        AnnotationAttributeReader<A> reader = AnnotationAttributeReader.of(annotationType);
+        Map<String, Object> values = new HashMap<>();
+        for (Method attribute : annotationType.getDeclaredMethods()) {
+            if (attribute.getParameterTypes().length != 0 || attribute.isSynthetic()) {
+                continue;
+            }
+            String attributeName = attribute.getName();
+            Object defaultValue = attribute.getDefaultValue();
+            Object value = null;
+            for (Occurrence occurrence : occurrences) {
+                Object candidate = reader.value(annotationType.cast(occurrence.annotation), attributeName);
+                if (value == null) {
+                    value = candidate;
+                }
+                if (!Objects.deepEquals(candidate, defaultValue)) {
+                    value = candidate;
+                    break;
+                }
+            }
+            values.put(attributeName, value);
+        }
+        Occurrence nearest = occurrences.get(0);
+        return new MergedAnnotation(nearest.annotation, nearest.source, Collections.unmodifiableMap(values));
+    }
+
+    /**
+     * The annotations declared directly on one element.
+     */
+    private static final class Level {
+
+        private final AnnotatedElement element;
+        private final Annotation[] annotations;
+
+        Level(AnnotatedElement element, Annotation[] annotations) {
+            this.element = element;
+            this.annotations = annotations;
+        }
+
+        /**
+         * Add the annotations of this level and their meta-annotations,
+         * breadth first.
+         */
+        void collect(Map<Class<? extends Annotation>, List<Occurrence>> occurrences) {
+            Set<Class<? extends Annotation>> visited = new HashSet<>();
+            Queue<Occurrence> pending = new ArrayDeque<>();
+            for (Annotation annotation : annotations) {
+                pending.add(new Occurrence(annotation, element));
+            }
+            while (!pending.isEmpty()) {
+                Occurrence occurrence = pending.remove();
+                Class<? extends Annotation> annotationType = occurrence.annotation.annotationType();
+                if (!visited.add(annotationType)) {
+                    continue;
+                }
+                List<Occurrence> found = occurrences.get(annotationType);
+                if (found == null) {
+                    found = new ArrayList<>();
+                    occurrences.put(annotationType, found);
+                }
+                found.add(occurrence);
+                for (Annotation meta : annotationType.getDeclaredAnnotations()) {
+                    if (!meta.annotationType().getName().startsWith(META_ANNOTATION_PACKAGE)) {
+                        pending.add(new Occurrence(meta, annotationType));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A annotation and the element it is declared on.
+     */
+    private static final class Occurrence {
+
+        private final Annotation annotation;
+        private final AnnotatedElement source;
+
+        Occurrence(Annotation annotation, AnnotatedElement source) {
+            this.annotation = annotation;
+            this.source = source;
+        }
+    }
+
+}
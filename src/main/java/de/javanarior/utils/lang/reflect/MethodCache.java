@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.reflect.Method;
+
+import de.javanarior.utils.lang.ReflectionEvent;
+
+/**
+ * Cache of {@link MethodInvoker}s for resolved public methods.
+ *
+ * The invokers are held in a {@link ClassCache} keyed by the class the method
+ * was looked up on, so the cache does not prevent the class and its
+ * classloader from being unloaded. Failed lookups are cached as
+ * {@link LookupFailure}, so repeated probes for a missing method do not
+ * search the class again. Lookups with parameter types of other
+ * classloaders are not cached. A method of a class which is not public is
+ * invoked through its declaration in a public superclass or interface.
+ */
+final class MethodCache {
+
+    private final ClassCache<MethodSignature, Object> invokers = ClassCache.unbounded(
+                    new ClassCache.Loader<MethodSignature, Object>() {
+                        @Override
+                        public Object load(Class<?> type, MethodSignature key) {
+                            return resolve(type, key);
+                        }
+                    });
+
+    /**
+     * Returns a invoker for the public method {@code name} of {@code type}
+     * with the parameter types {@code parameterTypes}.
+     *
+     * @param type
+     *            - class with the method
+     * @param name
+     *            - method name
+     * @param parameterTypes
+     *            - parameter types of the method
+     * @return invoker for the method
+     * @throws ReflectionException
+     *             if no matching public method exists or the method is not
+     *             accessible, a failed lookup is cached and every later call
+     *             throws a new exception with the failure of the lookup as
+     *             cause
+     */
+    MethodInvoker get(Class<?> type, String name, Class<?>... parameterTypes) {
+        Object cached = lookup(type, name, parameterTypes);
+        if (cached instanceof LookupFailure) {
+            throw ((LookupFailure)cached).exception("Could not find method '", name, "' in Class '",
+                            type.getCanonicalName(), "', please check if method exists and the parameters fit");
+        }
+        return (MethodInvoker)cached;
+    }
+
+    /**
+     * Returns a invoker for the public method {@code name} of {@code type}
+     * with the parameter types {@code parameterTypes}, or {@code null} if
+     * there is no accessible one.
+     *
+     * @param type
+     *            - class with the method
+     * @param name
+     *            - method name
+     * @param parameterTypes
+     *            - parameter types of the method
+     * @return invoker for the method, or {@code null}
+     */
+    MethodInvoker find(Class<?> type, String name, Class<?>... parameterTypes) {
+        Object cached = lookup(type, name, parameterTypes);
+        return cached instanceof MethodInvoker ? (MethodInvoker)cached : null;
+    }
+
+    /**
+     * Returns the cached invoker, or the {@link LookupFailure} of a failed
+     * lookup. Lookups with parameter types of classloaders which are not
+     * visible from {@code type} are not cached, the key would keep these
+     * classloaders reachable.
+     */
+    private Object lookup(Class<?> type, String name, Class<?>[] parameterTypes) {
+        ArgumentTypes argumentTypes = ArgumentTypes.of(parameterTypes);
+        MethodSignature key = new MethodSignature(name, argumentTypes);
+        if (!argumentTypes.visibleFrom(type)) {
+            return resolve(type, key);
+        }
+        return invokers.get(type, key, ReflectionEvent.Kind.METHOD_RESOLUTION, null);
+    }
+
+    private static Object resolve(Class<?> type, MethodSignature key) {
+        Method method = MethodTable.of(type).publicMethod(key.getName(), key.getParameterTypes().toArray());
+        if (method == null) {
+            return new LookupFailure("No public method " + type.getName() + "." + key);
+        }
+        try {
+            return MethodInvoker.of(MethodTable.publicDeclaration(method));
+        } catch (IllegalAccessException exception) {
+            return LookupFailure.of(exception);
+        }
+    }
+
+    /**
+     * Remove the cached invokers of {@code type}.
+     *
+     * @param type
+     *            - class the methods were looked up on
+     */
+    void invalidate(Class<?> type) {
+        invokers.invalidate(type);
+    }
+
+    /**
+     * Returns the current hit and miss counts.
+     *
+     * @return statistics snapshot
+     */
+    CacheStatistics statistics() {
+        return invokers.statistics();
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * Reads one annotation attribute through a handle with the exact return type
+ * of the attribute. Only the interface matching the return type is handed
+ * out by {@link AnnotationAttributeReader}, so the other methods are never
+ * called.
+ *
+ * @param <A>
+ *            - the annotation type
+ * @param <R>
+ *            - type of the attribute value
+ */
+final class MethodHandleAttribute<A extends Annotation, R> implements TypedAttribute<A, R>, IntAttribute<A>,
+                LongAttribute<A>, BooleanAttribute<A> {
+
+    private final Method attribute;
+    /** Attribute handle {@code (Annotation)Object}. */
+    private final MethodHandle generic;
+    /** Attribute handle with the exact return type, primitives are not boxed. */
+    private final MethodHandle exact;
+
+    /**
+     * Create a new MethodHandleAttribute instance.
+     *
+     * @param attribute
+     *            - the attribute method
+     * @param handle
+     *            - handle of the attribute method
+     */
+    MethodHandleAttribute(Method attribute, MethodHandle handle) {
+        this.attribute = attribute;
+        this.generic = handle.asType(MethodType.methodType(Object.class, Annotation.class));
+        this.exact = handle.asType(MethodType.methodType(attribute.getReturnType(), Annotation.class));
+    }
+
+    /**
+     * Returns the attribute method.
+     *
+     * @return attribute
+     */
+    Method getAttribute() {
+        return attribute;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public R get(A annotation) {
+        try {
+            return (R)generic.invokeExact((Annotation)annotation);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw readFailed(exception);
+        }
+    }
+
+    @Override
+    public int getInt(A annotation) {
+        try {
+            return (int)exact.invokeExact((Annotation)annotation);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw readFailed(exception);
+        }
+    }
+
+    @Override
+    public long getLong(A annotation) {
+        try {
+            return (long)exact.invokeExact((Annotation)annotation);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw readFailed(exception);
+        }
+    }
+
+    @Override
+    public boolean getBoolean(A annotation) {
+        try {
+            return (boolean)exact.invokeExact((Annotation)annotation);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - invokeExact declares Throwable
+            throw readFailed(exception);
+        }
+    }
+
+    private ReflectionException readFailed(Throwable exception) {
+        return new ReflectionException("Could not read attribute '" + attribute.getName() + "' of '"
+                        + attribute.getDeclaringClass().getCanonicalName() + "'", exception);
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+
+/**
+ * {@link Instantiator} which calls the constructor through a
+ * {@link MethodHandle} instead of {@link Constructor#newInstance(Object...)}.
+ *
+ * For constructors with a single primitive parameter the matching primitive
+ * instantiator interface calls the constructor without boxing the argument.
+ * Only the interface matching the parameter type of the constructor may be
+ * used, the others fail with a {@linkplain ReflectionException}.
+ *
+ * @param <T>
+ *            - type of the instances
+ */
+final class MethodHandleInstantiator<T> implements Instantiator<T>, IntInstantiator<T>, LongInstantiator<T>,
+                DoubleInstantiator<T>, BooleanInstantiator<T>, ByteInstantiator<T>, CharInstantiator<T>,
+                ShortInstantiator<T> {
+
+    /** Constructor handle with the exact parameter types and Object as return type. */
+    private final MethodHandle exact;
+    /** Constructor handle which takes the arguments as Object[]. */
+    private final MethodHandle spreader;
+
+    private MethodHandleInstantiator(MethodHandle exact, MethodHandle spreader) {
+        this.exact = exact;
+        this.spreader = spreader;
+    }
+
+    /**
+     * Create a Instantiator for {@code constructor}.
+     *
+     * @param <T>
+     *            - type of the instances
+     * @param constructor
+     *            - constructor to call
+     * @return instantiator
+     * @throws IllegalAccessException
+     *             if the constructor is not accessible, or the class is
+     *             abstract
+     */
+    static <T> MethodHandleInstantiator<T> of(Constructor<T> constructor) throws IllegalAccessException {
+        MethodHandle handle = MethodHandles.lookup().unreflectConstructor(constructor);
+        MethodType type = handle.type();
+        int parameterCount = type.parameterCount();
+        MethodHandle spreader = handle.asType(MethodType.genericMethodType(parameterCount))
+                        .asSpreader(Object[].class, parameterCount);
+        return new MethodHandleInstantiator<>(handle.asType(type.changeReturnType(Object.class)), spreader);
+    }
+
+    /**
+     * Returns the constructor handle with the exact parameter types and
+     * {@code Object} as return type.
+     *
+     * @return constructor handle
+     */
+    MethodHandle handle() {
+        return exact;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T newInstance(Object... arguments) {
+        try {
+            return (T)(Object)spreader.invokeExact(arguments);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - the constructor may throw anything
+            throw invocationFailed(exception);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T newInstance(int argument) {
+        try {
+            return (T)(Object)exact.invokeExact(argument);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - the constructor may throw anything
+            throw invocationFailed(exception);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T newInstance(long argument) {
+        try {
+            return (T)(Object)exact.invokeExact(argument);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - the constructor may throw anything
+            throw invocationFailed(exception);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T newInstance(double argument) {
+        try {
+            return (T)(Object)exact.invokeExact(argument);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - the constructor may throw anything
+            throw invocationFailed(exception);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T newInstance(boolean argument) {
+        try {
+            return (T)(Object)exact.invokeExact(argument);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - the constructor may throw anything
+            throw invocationFailed(exception);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T newInstance(byte argument) {
+        try {
+            return (T)(Object)exact.invokeExact(argument);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - the constructor may throw anything
+            throw invocationFailed(exception);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T newInstance(char argument) {
+        try {
+            return (T)(Object)exact.invokeExact(argument);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - the constructor may throw anything
+            throw invocationFailed(exception);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T newInstance(short argument) {
+        try {
+            return (T)(Object)exact.invokeExact(argument);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - the constructor may throw anything
+            throw invocationFailed(exception);
+        }
+    }
+
+    private static ReflectionException invocationFailed(Throwable cause) {
+        return new ReflectionException(
+                        "Could not invoke constructor, please check if constructor exists and the parameters fit",
+                        cause);
+    }
+
+}
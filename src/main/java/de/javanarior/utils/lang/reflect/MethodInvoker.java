@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Invokes a method which was resolved once, through a {@link MethodHandle}.
+ *
+ * For methods with up to four parameters the {@code invoke} overload with
+ * the matching number of arguments calls the method without building a
+ * argument array. Static and instance methods are called the same way, for
+ * static methods the instance is ignored and may be {@code null}.
+ *
+ * Instances are thread safe and meant to be kept and reused.
+ * In case of error a {@linkplain ReflectionException} is thrown.
+ */
+public final class MethodInvoker {
+
+    private final Method method;
+    private final int parameterCount;
+    /** Method handle {@code (Object, Object...)Object}, first argument is the instance. */
+    private final MethodHandle generic;
+    /** Method handle {@code (Object, Object[])Object}. */
+    private final MethodHandle spreader;
+
+    private MethodInvoker(Method method, MethodHandle generic) {
+        this.method = method;
+        this.parameterCount = method.getParameterTypes().length;
+        this.generic = generic;
+        this.spreader = generic.asSpreader(Object[].class, parameterCount);
+    }
+
+    /**
+     * Create a MethodInvoker for {@code method}.
+     *
+     * @param method
+     *            - method to invoke
+     * @return invoker
+     * @throws IllegalAccessException
+     *             if the method is not accessible
+     */
+    static MethodInvoker of(Method method) throws IllegalAccessException {
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        MethodType genericType = MethodType.genericMethodType(handle.type().parameterCount());
+        return new MethodInvoker(method, handle.asType(genericType));
+    }
+
+    /**
+     * Returns the invoked method.
+     *
+     * @return method
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Invoke the method without arguments.
+     *
+     * @param instance
+     *            - instance to call the method on, ignored for static methods
+     * @return the return value, {@code null} for void methods
+     */
+    public Object invoke(Object instance) {
+        checkArity(0);
+        try {
+            return generic.invokeExact(instance);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - the method may throw anything
+            throw invocationFailed(exception);
+        }
+    }
+
+    /**
+     * Invoke the method with one argument.
+     *
+     * @param instance
+     *            - instance to call the method on, ignored for static methods
+     * @param first
+     *            - first argument
+     * @return the return value, {@code null} for void methods
+     */
+    public Object invoke(Object instance, Object first) {
+        checkArity(1);
+        try {
+            return generic.invokeExact(instance, first);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - the method may throw anything
+            throw invocationFailed(exception);
+        }
+    }
+
+    /**
+     * Invoke the method with 2 arguments.
+     *
+     * @param instance
+     *            - instance to call the method on, ignored for static methods
+     * @param first
+     *            - first argument
+     * @param second
+     *            - second argument
+     * @return the return value, {@code null} for void methods
+     */
+    public Object invoke(Object instance, Object first, Object second) {
+        checkArity(2);
+        try {
+            return generic.invokeExact(instance, first, second);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - the method may throw anything
+            throw invocationFailed(exception);
+        }
+    }
+
+    /**
+     * Invoke the method with 3 arguments.
+     *
+     * @param instance
+     *            - instance to call the method on, ignored for static methods
+     * @param first
+     *            - first argument
+     * @param second
+     *            - second argument
+     * @param third
+     *            - third argument
+     * @return the return value, {@code null} for void methods
+     */
+    public Object invoke(Object instance, Object first, Object second, Object third) {
+        checkArity(3);
+        try {
+            return generic.invokeExact(instance, first, second, third);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - the method may throw anything
+            throw invocationFailed(exception);
+        }
+    }
+
+    /**
+     * Invoke the method with 4 arguments.
+     *
+     * @param instance
+     *            - instance to call the method on, ignored for static methods
+     * @param first
+     *            - first argument
+     * @param second
+     *            - second argument
+     * @param third
+     *            - third argument
+     * @param fourth
+     *            - fourth argument
+     * @return the return value, {@code null} for void methods
+     */
+    public Object invoke(Object instance, Object first, Object second, Object third, Object fourth) {
+        checkArity(4);
+        try {
+            return generic.invokeExact(instance, first, second, third, fourth);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - the method may throw anything
+            throw invocationFailed(exception);
+        }
+    }
+
+    /**
+     * Invoke the method with any number of arguments.
+     *
+     * @param instance
+     *            - instance to call the method on, ignored for static methods
+     * @param arguments
+     *            - the values to pass to the method
+     * @return the return value, {@code null} for void methods
+     */
+    public Object invokeWithArguments(Object instance, Object... arguments) {
+        checkArity(arguments == null ? 0 : arguments.length);
+        try {
+            return spreader.invokeExact(instance, arguments);
+        } catch (Error error) {
+            throw error;
+        } catch (Throwable exception) { // NOPMD - the method may throw anything
+            throw invocationFailed(exception);
+        }
+    }
+
+    private void checkArity(int argumentCount) {
+        if (argumentCount != parameterCount) {
+            throw new ReflectionException("Method '" + method + "' expects " + parameterCount
+                            + " arguments, but got " + argumentCount);
+        }
+    }
+
+    private ReflectionException invocationFailed(Throwable cause) {
+        return new ReflectionException("Could not invoke method '" + method
+                        + "', please check the instance and if the parameters fit", cause);
+    }
+
+}
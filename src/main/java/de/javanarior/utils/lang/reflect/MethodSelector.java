@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.reflect.Method;
+
+/**
+ * Selects the methods a bulk annotation query in {@link Retrieve} looks at.
+ * Implementations must be thread safe, they are called in parallel.
+ */
+public interface MethodSelector {
+
+    /**
+     * Selects all declared methods.
+     */
+    MethodSelector ALL = new MethodSelector() {
+        @Override
+        public boolean select(Method method) {
+            return true;
+        }
+    };
+
+    /**
+     * Check if the annotations of {@code method} are queried.
+     *
+     * @param method
+     *            - a declared method of one of the queried classes
+     * @return true if the method is selected
+     */
+    boolean select(Method method);
+
+}
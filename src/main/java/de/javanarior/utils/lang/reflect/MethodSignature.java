@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+/**
+ * Method name and parameter types, used as key for cached lookups.
+ */
+final class MethodSignature {
+
+    private final String name;
+    private final ArgumentTypes parameterTypes;
+
+    /**
+     * Create a new MethodSignature instance.
+     *
+     * @param name
+     *            - method name
+     * @param parameterTypes
+     *            - parameter types
+     */
+    MethodSignature(String name, ArgumentTypes parameterTypes) {
+        this.name = name;
+        this.parameterTypes = parameterTypes;
+    }
+
+    /**
+     * Returns the method name.
+     *
+     * @return name
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the parameter types.
+     *
+     * @return parameter types
+     */
+    ArgumentTypes getParameterTypes() {
+        return parameterTypes;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * name.hashCode() + parameterTypes.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MethodSignature)) {
+            return false;
+        }
+        MethodSignature other = (MethodSignature)obj;
+        return name.equals(other.name) && parameterTypes.equals(other.parameterTypes);
+    }
+
+    @Override
+    public String toString() {
+        return name + parameterTypes;
+    }
+
+}
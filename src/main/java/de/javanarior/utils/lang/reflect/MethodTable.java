@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The public and declared methods of a class, indexed by name.
+ *
+ * The table is created once per class and held in a {@link ClassValue}, so a
+ * lookup is a hash lookup plus a compare of the parameter types of the
+ * overloads, and a miss does not throw a exception.
+ */
+final class MethodTable {
+
+    private static final Method[] NONE = new Method[0];
+    private static final Class<?>[] NO_PARAMETERS = new Class<?>[0];
+
+    private static final ClassValue<MethodTable> TABLES = new ClassValue<MethodTable>() {
+        @Override
+        protected MethodTable computeValue(Class<?> type) {
+            return new MethodTable(type);
+        }
+    };
+
+    private final Map<String, Method[]> publicMethods;
+    private final Map<String, Method[]> declaredMethods;
+
+    private MethodTable(Class<?> type) {
+        this.publicMethods = byName(type.getMethods());
+        this.declaredMethods = byName(type.getDeclaredMethods());
+    }
+
+    /**
+     * Returns the method table of {@code type}.
+     *
+     * @param type
+     *            - a class
+     * @return method table
+     */
+    static MethodTable of(Class<?> type) {
+        return TABLES.get(type);
+    }
+
+    /**
+     * Returns the public method {@code name} with the parameter types
+     * {@code parameterTypes}, like {@link Class#getMethod(String, Class...)}.
+     * If several methods match, which differ in the return type, the one
+     * with the most specific return type is returned.
+     *
+     * @param name
+     *            - method name
+     * @param parameterTypes
+     *            - parameter types, {@code null} is treated as no parameters
+     * @return the method, or {@code null} if there is none
+     */
+    Method publicMethod(String name, Class<?>... parameterTypes) {
+        Method found = null;
+        for (Method method : nonNull(publicMethods.get(name))) {
+            if (Arrays.equals(method.getParameterTypes(), nonNull(parameterTypes))
+                            && (found == null || found.getReturnType().isAssignableFrom(method.getReturnType()))) {
+                found = method;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the method declared by the class named {@code name}, if there
+     * is exactly one.
+     *
+     * @param name
+     *            - method name
+     * @return the method, or {@code null} if there is none or the name is
+     *         overloaded
+     */
+    Method uniqueDeclaredMethod(String name) {
+        Method[] methods = declaredMethods.get(name);
+        return methods != null && methods.length == 1 ? methods[0] : null;
+    }
+
+    /**
+     * Returns the declaration of the instance method {@code method} in a
+     * public class or interface, if {@code method} is declared by a class
+     * which is not public, e.g. {@code size()} of the list returned by
+     * {@link Arrays#asList(Object...)} is returned as {@link List#size()}.
+     * Only such a declaration can be unreflected outside of the package of
+     * the class, invoking it still calls the overriding method.
+     *
+     * @param method
+     *            - a method
+     * @return the public declaration, or {@code method} if it is declared by
+     *         a public class, is static or there is no public declaration
+     */
+    static Method publicDeclaration(Method method) {
+        if (isPublic(method.getDeclaringClass()) || Modifier.isStatic(method.getModifiers())) {
+            return method;
+        }
+        Method declaration = publicDeclaration(method.getDeclaringClass(), method.getName(),
+                        method.getParameterTypes());
+        return declaration == null ? method : declaration;
+    }
+
+    private static Method publicDeclaration(Class<?> type, String name, Class<?>[] parameterTypes) {
+        List<Class<?>> superTypes = new ArrayList<>();
+        if (type.getSuperclass() != null) {
+            superTypes.add(type.getSuperclass());
+        }
+        superTypes.addAll(Arrays.asList(type.getInterfaces()));
+        for (Class<?> superType : superTypes) {
+            Method method = of(superType).publicMethod(name, parameterTypes);
+            if (method == null) {
+                continue;
+            }
+            Method declaration = isPublic(method.getDeclaringClass()) ? method
+                            : publicDeclaration(superType, name, parameterTypes);
+            if (declaration != null) {
+                return declaration;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isPublic(Class<?> type) {
+        return Modifier.isPublic(type.getModifiers());
+    }
+
+    private static Map<String, Method[]> byName(Method[] methods) {
+        Map<String, Method[]> byName = new HashMap<>();
+        for (Method method : methods) {
+            Method[] overloads = byName.get(method.getName());
+            overloads = overloads == null ? new Method[1] : Arrays.copyOf(overloads, overloads.length + 1);
+            overloads[overloads.length - 1] = method;
+            byName.put(method.getName(), overloads);
+        }
+        return byName;
+    }
+
+    private static Method[] nonNull(Method[] methods) {
+        return methods == null ? NONE : methods;
+    }
+
+    private static Class<?>[] nonNull(Class<?>[] parameterTypes) {
+        return parameterTypes == null ? NO_PARAMETERS : parameterTypes;
+    }
+
+}
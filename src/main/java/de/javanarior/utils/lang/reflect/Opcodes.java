@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+/**
+ * JVM instructions used by the {@link AccessorGenerator}.
+ */
+final class Opcodes {
+
+    static final int ACONST_NULL = 0x01;
+    static final int ICONST_0 = 0x03;
+    static final int BIPUSH = 0x10;
+    static final int SIPUSH = 0x11;
+    static final int LDC_W = 0x13;
+    static final int ALOAD = 0x19;
+    static final int ILOAD_1 = 0x1B;
+    static final int ILOAD_2 = 0x1C;
+    static final int ALOAD_0 = 0x2A;
+    static final int ALOAD_1 = 0x2B;
+    static final int ALOAD_2 = 0x2C;
+    static final int ALOAD_3 = 0x2D;
+    static final int AALOAD = 0x32;
+    static final int DUP = 0x59;
+    static final int TABLESWITCH = 0xAA;
+    static final int ARETURN = 0xB0;
+    static final int RETURN = 0xB1;
+    static final int GETSTATIC = 0xB2;
+    static final int PUTSTATIC = 0xB3;
+    static final int GETFIELD = 0xB4;
+    static final int PUTFIELD = 0xB5;
+    static final int INVOKEVIRTUAL = 0xB6;
+    static final int INVOKESPECIAL = 0xB7;
+    static final int INVOKESTATIC = 0xB8;
+    static final int INVOKEINTERFACE = 0xB9;
+    static final int NEW = 0xBB;
+    static final int ATHROW = 0xBF;
+    static final int CHECKCAST = 0xC0;
+
+    private Opcodes() {
+    }
+
+}
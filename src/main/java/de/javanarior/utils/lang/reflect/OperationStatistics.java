@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+/**
+ * Snapshot of the counters of a entry point of {@link Invoke} or
+ * {@link Retrieve}, see {@link ReflectionMetrics}.
+ */
+public final class OperationStatistics {
+
+    private final ReflectionMetrics.Operation operation;
+    private final long callCount;
+    private final long missCount;
+    private final long failureCount;
+    private final long totalNanos;
+
+    /**
+     * Create a new OperationStatistics instance.
+     *
+     * @param operation
+     *            - the measured entry point
+     * @param callCount
+     *            - number of calls
+     * @param missCount
+     *            - number of calls of {@code try} methods which found
+     *            nothing
+     * @param failureCount
+     *            - number of calls which threw a exception
+     * @param totalNanos
+     *            - cumulative latency of all calls in nanoseconds
+     */
+    public OperationStatistics(ReflectionMetrics.Operation operation, long callCount, long missCount,
+                    long failureCount, long totalNanos) {
+        this.operation = operation;
+        this.callCount = callCount;
+        this.missCount = missCount;
+        this.failureCount = failureCount;
+        this.totalNanos = totalNanos;
+    }
+
+    /**
+     * Returns the measured entry point.
+     *
+     * @return operation
+     */
+    public ReflectionMetrics.Operation getOperation() {
+        return operation;
+    }
+
+    /**
+     * Returns the number of calls, including misses and failures.
+     *
+     * @return call count
+     */
+    public long getCallCount() {
+        return callCount;
+    }
+
+    /**
+     * Returns the number of calls of {@code try} methods which found
+     * nothing.
+     *
+     * @return miss count
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of calls which threw a exception.
+     *
+     * @return failure count
+     */
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Returns the cumulative latency of all calls.
+     *
+     * @return latency in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Returns the average latency of a call. If no call was measured,
+     * {@code 0} is returned.
+     *
+     * @return latency in nanoseconds
+     */
+    public long getAverageNanos() {
+        return callCount == 0 ? 0 : totalNanos / callCount;
+    }
+
+    @Override
+    public String toString() {
+        return "OperationStatistics [operation=" + operation + ", callCount=" + callCount + ", missCount="
+                        + missCount + ", failureCount=" + failureCount + ", totalNanos=" + totalNanos + "]";
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+
+/**
+ * A resolved overload: the chosen constructor or method together with the
+ * information how the runtime arguments are passed to it.
+ *
+ * If the member was only applicable as variable arity call, the trailing
+ * arguments are collected into a array of the varargs component type before
+ * the call.
+ */
+final class Overload {
+
+    private final Member member;
+    private final MethodHandleInstantiator<?> instantiator;
+    private final MethodInvoker invoker;
+    private final int fixedParameterCount;
+    private final Class<?> varargsComponentType;
+
+    private Overload(Member member, MethodHandleInstantiator<?> instantiator, MethodInvoker invoker,
+                    int parameterCount, boolean collectVarargs, Class<?> lastParameterType) {
+        this.member = member;
+        this.instantiator = instantiator;
+        this.invoker = invoker;
+        this.fixedParameterCount = collectVarargs ? parameterCount - 1 : parameterCount;
+        this.varargsComponentType = collectVarargs ? lastParameterType.getComponentType() : null;
+    }
+
+    /**
+     * Create a Overload for a constructor.
+     *
+     * @param constructor
+     *            - the constructor
+     * @param instantiator
+     *            - instantiator of the constructor
+     * @param collectVarargs
+     *            - true if the trailing arguments must be collected into a
+     *            array
+     * @return overload
+     */
+    static Overload constructor(Constructor<?> constructor, MethodHandleInstantiator<?> instantiator,
+                    boolean collectVarargs) {
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        return new Overload(constructor, instantiator, null, parameterTypes.length, collectVarargs,
+                        last(parameterTypes));
+    }
+
+    /**
+     * Create a Overload for a method.
+     *
+     * @param invoker
+     *            - invoker of the method
+     * @param collectVarargs
+     *            - true if the trailing arguments must be collected into a
+     *            array
+     * @return overload
+     */
+    static Overload method(MethodInvoker invoker, boolean collectVarargs) {
+        Class<?>[] parameterTypes = invoker.getMethod().getParameterTypes();
+        return new Overload(invoker.getMethod(), null, invoker, parameterTypes.length, collectVarargs,
+                        last(parameterTypes));
+    }
+
+    /**
+     * Returns the chosen constructor or method.
+     *
+     * @return member
+     */
+    Member getMember() {
+        return member;
+    }
+
+    /**
+     * Call the constructor or method with {@code arguments}.
+     *
+     * @param instance
+     *            - instance to call the method on, ignored for constructors
+     *            and static methods
+     * @param arguments
+     *            - the runtime arguments
+     * @return the new instance, or the return value of the method
+     */
+    Object invoke(Object instance, Object[] arguments) {
+        Object[] actual = varargsComponentType == null ? arguments : collectVarargs(arguments);
+        if (instantiator != null) {
+            return instantiator.newInstance(actual);
+        }
+        return invoker.invokeWithArguments(instance, actual);
+    }
+
+    private Object[] collectVarargs(Object[] arguments) {
+        Object[] actual = new Object[fixedParameterCount + 1];
+        System.arraycopy(arguments, 0, actual, 0, fixedParameterCount);
+        Object varargs = Array.newInstance(varargsComponentType, arguments.length - fixedParameterCount);
+        for (int index = fixedParameterCount; index < arguments.length; index++) {
+            Array.set(varargs, index - fixedParameterCount, arguments[index]);
+        }
+        actual[fixedParameterCount] = varargs;
+        return actual;
+    }
+
+    private static Class<?> last(Class<?>[] parameterTypes) {
+        return parameterTypes.length == 0 ? null : parameterTypes[parameterTypes.length - 1];
+    }
+
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.javanarior.utils.lang.ReflectionEvent;
+
+/**
+ * Chooses the public constructor or method to call for runtime arguments.
+ *
+ * The choice follows the phases of the Java language (JLS 15.12.2), as if
+ * the runtime classes of the arguments were their static types: first
+ * members applicable by subtyping and primitive widening, then with
+ * unboxing, and last as variable arity call. Of the applicable members the
+ * most specific one is chosen. {@code null} arguments fit every reference
+ * parameter. A method of a class which is not public is called through its
+ * declaration in a public superclass or interface.
+ *
+ * Each decision is memoized per class, member name and tuple of argument
+ * classes in a {@link ClassCache}, so the search runs once per call shape.
+ * Argument classes of classloaders not visible from the class, e.g. of a
+ * plugin, are resolved on every call and not memoized.
+ * Failed resolutions are memoized as {@link LookupFailure}, every later call
+ * throws a new exception with stack trace, whose cause describes the failure.
+ */
+final class OverloadResolver {
+
+    private static final String CONSTRUCTOR_NAME = "<init>";
+    private static final int STRICT = 0;
+    private static final int LOOSE = 1;
+    private static final int VARIABLE_ARITY = 2;
+
+    private final ClassCache<MethodSignature, Object> decisions = ClassCache.unbounded(
+                    new ClassCache.Loader<MethodSignature, Object>() {
+                        @Override
+                        public Object load(Class<?> type, MethodSignature key) {
+                            return decide(type, key);
+                        }
+                    });
+
+    /**
+     * Returns the classes of {@code arguments}, {@code null} for
+     * {@code null} arguments.
+     *
+     * @param arguments
+     *            - runtime arguments, may be {@code null}
+     * @return argument classes
+     */
+    static ArgumentTypes argumentClasses(Object[] arguments) {
+        if (arguments == null) {
+            return ArgumentTypes.of();
+        }
+        Class<?>[] classes = new Class<?>[arguments.length];
+        for (int index = 0; index < arguments.length; index++) {
+            classes[index] = arguments[index] == null ? null : arguments[index].getClass();
+        }
+        return ArgumentTypes.of(classes);
+    }
+
+    /**
+     * Returns the public constructor of {@code type} to call with arguments
+     * of the classes {@code argumentClasses}.
+     *
+     * @param type
+     *            - class to instantiate
+     * @param argumentClasses
+     *            - classes of the arguments
+     * @return the chosen constructor
+     * @throws ReflectionException
+     *             if no constructor is applicable, the call is ambiguous or
+     *             the constructor is not accessible
+     */
+    Overload constructor(Class<?> type, ArgumentTypes argumentClasses) {
+        Object decision = lookup(type, new MethodSignature(CONSTRUCTOR_NAME, argumentClasses));
+        if (decision instanceof LookupFailure) {
+            throw ((LookupFailure)decision).exception("Could not find constructor of Class '",
+                            type.getCanonicalName(), "' for the arguments");
+        }
+        return (Overload)decision;
+    }
+
+    /**
+     * Returns the public method {@code name} of {@code type} to call with
+     * arguments of the classes {@code argumentClasses}.
+     *
+     * @param type
+     *            - class with the method
+     * @param name
+     *            - method name
+     * @param argumentClasses
+     *            - classes of the arguments
+     * @return the chosen method
+     * @throws ReflectionException
+     *             if no method is applicable, the call is ambiguous or the
+     *             method is not accessible
+     */
+    Overload method(Class<?> type, String name, ArgumentTypes argumentClasses) {
+        Object decision = lookup(type, new MethodSignature(name, argumentClasses));
+        if (decision instanceof LookupFailure) {
+            throw ((LookupFailure)decision).exception("Could not find method '", name, "' in Class '",
+                            type.getCanonicalName(), "' for the arguments");
+        }
+        return (Overload)decision;
+    }
+
+    /**
+     * Like {@link #constructor(Class, ArgumentTypes)}, but returns
+     * {@code null} instead of throwing a exception.
+     *
+     * @param type
+     *            - class to instantiate
+     * @param argumentClasses
+     *            - classes of the arguments
+     * @return the chosen constructor, or {@code null}
+     */
+    Overload findConstructor(Class<?> type, ArgumentTypes argumentClasses) {
+        Object decision = lookup(type, new MethodSignature(CONSTRUCTOR_NAME, argumentClasses));
+        return decision instanceof Overload ? (Overload)decision : null;
+    }
+
+    /**
+     * Like {@link #method(Class, String, ArgumentTypes)}, but returns
+     * {@code null} instead of throwing a exception.
+     *
+     * @param type
+     *            - class with the method
+     * @param name
+     *            - method name
+     * @param argumentClasses
+     *            - classes of the arguments
+     * @return the chosen method, or {@code null}
+     */
+    Overload findMethod(Class<?> type, String name, ArgumentTypes argumentClasses) {
+        Object decision = lookup(type, new MethodSignature(name, argumentClasses));
+        return decision instanceof Overload ? (Overload)decision : null;
+    }
+
+    /**
+     * Returns the current hit and miss counts.
+     *
+     * @return statistics snapshot
+     */
+    CacheStatistics statistics() {
+        return decisions.statistics();
+    }
+
+    /**
+     * Remove the memoized decisions of {@code type}.
+     *
+     * @param type
+     *            - class with the constructors and methods
+     */
+    void invalidate(Class<?> type) {
+        decisions.invalidate(type);
+    }
+
+    /**
+     * Returns the cached decision, a Overload or the {@link LookupFailure} of
+     * a failed resolution. Decisions for argument classes of classloaders
+     * which are not visible from {@code type}, e.g. of a plugin, are not
+     * cached, the key would keep these classloaders reachable.
+     */
+    private Object lookup(Class<?> type, MethodSignature key) {
+        if (!key.getParameterTypes().visibleFrom(type)) {
+            return decide(type, key);
+        }
+        return decisions.get(type, key, ReflectionEvent.Kind.OVERLOAD_RESOLUTION, null);
+    }
+
+    private static Object decide(Class<?> type, MethodSignature key) {
+        try {
+            return decide(type, key.getName(), key.getParameterTypes().toArray());
+        } catch (IllegalAccessException exception) {
+            return LookupFailure.of(exception);
+        }
+    }
+
+    /**
+     * Returns the chosen Overload, or a {@link LookupFailure} if no member is
+     * applicable or the call is ambiguous.
+     */
+    private static Object decide(Class<?> type, String name, Class<?>[] argumentClasses)
+                    throws IllegalAccessException {
+        List<Candidate> candidates = new ArrayList<>();
+        if (CONSTRUCTOR_NAME.equals(name)) {
+            for (Constructor<?> constructor : type.getConstructors()) {
+                candidates.add(new Candidate(constructor, constructor.getParameterTypes(),
+                                constructor.isVarArgs()));
+            }
+            Resolution resolution = resolve(type, name, candidates, argumentClasses);
+            if (resolution.failure != null) {
+                return resolution.failure;
+            }
+            Constructor<?> constructor = (Constructor<?>)resolution.candidate.member;
+            return Overload.constructor(constructor, MethodHandleInstantiator.of(constructor),
+                            resolution.collectVarargs);
+        }
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(name) && !method.isBridge()) {
+                candidates.add(new Candidate(method, method.getParameterTypes(), method.isVarArgs()));
+            }
+        }
+        Resolution resolution = resolve(type, name, candidates, argumentClasses);
+        if (resolution.failure != null) {
+            return resolution.failure;
+        }
+        Method method = MethodTable.publicDeclaration((Method)resolution.candidate.member);
+        return Overload.method(MethodInvoker.of(method), resolution.collectVarargs);
+    }
+
+    private static Resolution resolve(Class<?> type, String name, List<Candidate> candidates,
+                    Class<?>[] argumentClasses) {
+        for (int phase = STRICT; phase <= VARIABLE_ARITY; phase++) {
+            List<Candidate> applicable = new ArrayList<>();
+            for (Candidate candidate : candidates) {
+                if (isApplicable(candidate, argumentClasses, phase)) {
+                    applicable.add(candidate);
+                }
+            }
+            if (!applicable.isEmpty()) {
+                Candidate chosen = mostSpecific(applicable, argumentClasses.length, phase);
+                if (chosen == null) {
+                    return new Resolution(new LookupFailure("Call of '" + name + "' of '" + type.getName()
+                                    + "' is ambiguous, candidates are " + applicable));
+                }
+                return new Resolution(chosen, phase == VARIABLE_ARITY);
+            }
+        }
+        return new Resolution(new LookupFailure("No public '" + name + "' of '" + type.getName()
+                        + "' is applicable for arguments " + Arrays.toString(argumentClasses)));
+    }
+
+    private static boolean isApplicable(Candidate candidate, Class<?>[] argumentClasses, int phase) {
+        Class<?>[] parameterTypes = candidate.parameterTypes;
+        if (phase != VARIABLE_ARITY) {
+            if (parameterTypes.length != argumentClasses.length) {
+                return false;
+            }
+            for (int index = 0; index < argumentClasses.length; index++) {
+                if (!isConvertible(argumentClasses[index], parameterTypes[index], phase == LOOSE)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (!candidate.varArgs || argumentClasses.length < parameterTypes.length - 1) {
+            return false;
+        }
+        for (int index = 0; index < argumentClasses.length; index++) {
+            if (!isConvertible(argumentClasses[index], candidate.expandedType(index), true)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isConvertible(Class<?> argumentClass, Class<?> parameterType, boolean unboxing) {
+        if (argumentClass == null) {
+            return !parameterType.isPrimitive();
+        }
+        if (!parameterType.isPrimitive()) {
+            return parameterType.isAssignableFrom(argumentClass);
+        }
+        Class<?> primitive = Primitives.primitive(argumentClass);
+        return unboxing && primitive != null
+                        && (primitive == parameterType || Primitives.isWidening(primitive, parameterType));
+    }
+
+    /**
+     * Returns the most specific candidate, or {@code null} if the call is
+     * ambiguous.
+     */
+    private static Candidate mostSpecific(List<Candidate> applicable, int argumentCount, int phase) {
+        List<Candidate> maximal = new ArrayList<>();
+        for (Candidate candidate : applicable) {
+            boolean isMaximal = true;
+            for (Candidate other : applicable) {
+                if (other != candidate && !isMoreSpecific(candidate, other, argumentCount, phase)) {
+                    isMaximal = false;
+                    break;
+                }
+            }
+            if (isMaximal) {
+                maximal.add(candidate);
+            }
+        }
+        if (maximal.size() == 1) {
+            return maximal.get(0);
+        }
+        return overrideEquivalent(maximal);
+    }
+
+    /**
+     * If all candidates have the same parameter types, e.g. a method
+     * inherited from a class and a interface, a non abstract one is chosen.
+     */
+    private static Candidate overrideEquivalent(List<Candidate> candidates) {
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        Candidate chosen = candidates.get(0);
+        for (Candidate candidate : candidates) {
+            if (!Arrays.equals(candidate.parameterTypes, chosen.parameterTypes)) {
+                return null;
+            }
+            if (Modifier.isAbstract(chosen.member.getModifiers())) {
+                chosen = candidate;
+            }
+        }
+        return chosen;
+    }
+
+    private static boolean isMoreSpecific(Candidate candidate, Candidate other, int argumentCount, int phase) {
+        if (phase != VARIABLE_ARITY) {
+            for (int index = 0; index < argumentCount; index++) {
+                if (!isSubtype(candidate.parameterTypes[index], other.parameterTypes[index])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        int count = Math.max(argumentCount, Math.max(candidate.parameterTypes.length, other.parameterTypes.length));
+        for (int index = 0; index < count; index++) {
+            if (!isSubtype(candidate.expandedType(index), other.expandedType(index))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSubtype(Class<?> type, Class<?> other) {
+        if (type == other) {
+            return true;
+        }
+        if (type.isPrimitive() || other.isPrimitive()) {
+            return type.isPrimitive() && other.isPrimitive() && Primitives.isWidening(type, other);
+        }
+        return other.isAssignableFrom(type);
+    }
+
+    /**
+     * A constructor or method, with its parameter types.
+     */
+    private static final class Candidate {
+
+        private final Member member;
+        private final Class<?>[] parameterTypes;
+        private final boolean varArgs;
+
+        Candidate(Member member, Class<?>[] parameterTypes, boolean varArgs) {
+            this.member = member;
+            this.parameterTypes = parameterTypes;
+            this.varArgs = varArgs;
+        }
+
+        /**
+         * Returns the type of the parameter at {@code index} for a variable
+         * arity call, the component type for the varargs positions.
+         */
+        Class<?> expandedType(int index) {
+            int last = parameterTypes.length - 1;
+            return index < last ? parameterTypes[index] : parameterTypes[last].getComponentType();
+        }
+
+        @Override
+        public String toString() {
+            return member.toString();
+        }
+
+    }
+
+    /**
+     * The chosen candidate, and if it is called with variable arity, or the
+     * failure if no candidate could be chosen.
+     */
+    private static final class Resolution {
+
+        private final Candidate candidate;
+        private final boolean collectVarargs;
+        private final LookupFailure failure;
+
+        Resolution(Candidate candidate, boolean collectVarargs) {
+            this.candidate = candidate;
+            this.collectVarargs = collectVarargs;
+            this.failure = null;
+        }
+
+        Resolution(LookupFailure failure) {
+            this.candidate = null;
+            this.collectVarargs = false;
+            this.failure = failure;
+        }
+
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lookup tables for primitive types.
+ */
+final class Primitives {
+
+    private static final Map<Class<?>, Class<?>> WRAPPERS = new HashMap<>();
+    private static final Map<Class<?>, Character> DESCRIPTORS = new HashMap<>();
+    private static final Map<Class<?>, Class<?>> PRIMITIVES = new HashMap<>();
+    /** Primitive types in widening order, see JLS 5.1.2. */
+    private static final List<Class<?>> WIDENING = Arrays.<Class<?>> asList(Byte.TYPE, Short.TYPE, Integer.TYPE,
+                    Long.TYPE, Float.TYPE, Double.TYPE);
+
+    static {
+        add(Boolean.TYPE, Boolean.class, 'Z');
+        add(Byte.TYPE, Byte.class, 'B');
+        add(Character.TYPE, Character.class, 'C');
+        add(Short.TYPE, Short.class, 'S');
+        add(Integer.TYPE, Integer.class, 'I');
+        add(Long.TYPE, Long.class, 'J');
+        add(Float.TYPE, Float.class, 'F');
+        add(Double.TYPE, Double.class, 'D');
+        add(Void.TYPE, Void.class, 'V');
+    }
+
+    private Primitives() {
+    }
+
+    /**
+     * Returns the wrapper class of a primitive type, e.g. {@code Integer}
+     * for {@code int}. Other types are returned unchanged.
+     *
+     * @param type
+     *            - a type
+     * @return wrapper class, or {@code type}
+     */
+    static Class<?> wrapper(Class<?> type) {
+        Class<?> wrapper = WRAPPERS.get(type);
+        return wrapper == null ? type : wrapper;
+    }
+
+    /**
+     * Returns the primitive type of a wrapper class, e.g. {@code int} for
+     * {@code Integer}.
+     *
+     * @param type
+     *            - a type
+     * @return primitive type, or {@code null} if {@code type} is no wrapper
+     */
+    static Class<?> primitive(Class<?> type) {
+        return PRIMITIVES.get(type);
+    }
+
+    /**
+     * Check if {@code from} can be converted to {@code to} by a widening
+     * primitive conversion, e.g. {@code int} to {@code long}.
+     *
+     * @param from
+     *            - a primitive type
+     * @param to
+     *            - a primitive type
+     * @return true if it is a widening conversion
+     */
+    static boolean isWidening(Class<?> from, Class<?> to) {
+        if (from == Character.TYPE) {
+            return WIDENING.indexOf(to) >= WIDENING.indexOf(Integer.TYPE);
+        }
+        int fromIndex = WIDENING.indexOf(from);
+        return fromIndex >= 0 && WIDENING.indexOf(to) > fromIndex;
+    }
+
+    /**
+     * Returns the descriptor character of a primitive type, e.g. {@code I}
+     * for {@code int}.
+     *
+     * @param type
+     *            - a primitive type
+     * @return descriptor
+     */
+    static char descriptor(Class<?> type) {
+        return DESCRIPTORS.get(type).charValue();
+    }
+
+    private static void add(Class<?> primitive, Class<?> wrapper, char descriptor) {
+        WRAPPERS.put(primitive, wrapper);
+        PRIMITIVES.put(wrapper, primitive);
+        DESCRIPTORS.put(primitive, Character.valueOf(descriptor));
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+/**
+ * Measures one call of a entry point of {@link Invoke} or {@link Retrieve}.
+ *
+ * A probe is taken with {@link ReflectionMetrics#probe(ReflectionMetrics.Operation)}
+ * at the start of the call and is told the outcome of the call. The result
+ * is passed through, so a call is measured with
+ *
+ * <pre>
+ * Probe probe = ReflectionMetrics.probe(Operation.INVOKE);
+ * try {
+ *     return probe.done(call());
+ * } catch (RuntimeException exception) {
+ *     throw probe.failed(exception);
+ * }
+ * </pre>
+ *
+ * While the metrics are disabled the shared {@link #DISABLED} probe is
+ * returned, its methods do nothing.
+ */
+abstract class Probe {
+
+    /** Outcome of a call which returned a result. */
+    static final int DONE = 0;
+    /** Outcome of a call of a {@code try} method which found nothing. */
+    static final int MISSED = 1;
+    /** Outcome of a call which threw a exception. */
+    static final int FAILED = 2;
+
+    /** Probe which records nothing. */
+    static final Probe DISABLED = new Probe() {
+        @Override
+        void record(int outcome) {
+            // metrics are disabled
+        }
+    };
+
+    /**
+     * Record the outcome of the call.
+     *
+     * @param outcome
+     *            - {@link #DONE}, {@link #MISSED} or {@link #FAILED}
+     */
+    abstract void record(int outcome);
+
+    <R> R done(R result) {
+        record(DONE);
+        return result;
+    }
+
+    int done(int result) {
+        record(DONE);
+        return result;
+    }
+
+    long done(long result) {
+        record(DONE);
+        return result;
+    }
+
+    boolean done(boolean result) {
+        record(DONE);
+        return result;
+    }
+
+    <R> R missed(R result) {
+        record(MISSED);
+        return result;
+    }
+
+    /**
+     * Record a call of a {@code try} method, which missed if {@code result}
+     * is {@code null}.
+     */
+    <R> R found(R result) {
+        record(result == null ? MISSED : DONE);
+        return result;
+    }
+
+    RuntimeException failed(RuntimeException exception) {
+        record(FAILED);
+        return exception;
+    }
+
+}
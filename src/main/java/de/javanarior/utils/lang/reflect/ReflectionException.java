@@ -15,6 +15,9 @@
  */
 package de.javanarior.utils.lang.reflect;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
 /**
  * Indicates a error when working with Reflections.
  */
@@ -22,6 +25,11 @@ public class ReflectionException extends RuntimeException {
 
     private static final long serialVersionUID = 7561200076222225501L;
 
+    /** Parts of a lazily built message, {@code null} if the message was given. */
+    private transient Object[] messageParts;
+    /** The message built from {@link #messageParts}, serialized instead of the parts. */
+    private String builtMessage;
+
     /**
      * Indicates a error when working with Reflections.
      */
@@ -77,4 +85,47 @@ public class ReflectionException extends RuntimeException {
         super(message, cause, enableSuppression, writableStackTrace);
     }
 
+    /**
+     * Create a lightweight ReflectionException, which does not capture the
+     * stack trace. The message is concatenated from {@code messageParts}
+     * when it is requested first and kept, so the exception is cheap to
+     * create if the message is never read, e.g. when probing in a loop.
+     *
+     * @param cause
+     *            - the root cause of this error, may be {@code null}
+     * @param messageParts
+     *            - parts of the message, converted with
+     *            {@link String#valueOf(Object)}
+     * @return exception without stack trace
+     */
+    public static ReflectionException withoutStackTrace(Throwable cause, Object... messageParts) {
+        ReflectionException exception = new ReflectionException(null, cause, false, false);
+        exception.messageParts = messageParts;
+        return exception;
+    }
+
+    @Override
+    public String getMessage() {
+        String message = builtMessage;
+        if (message != null) {
+            return message;
+        }
+        Object[] parts = messageParts;
+        if (parts == null) {
+            return super.getMessage();
+        }
+        StringBuilder builder = new StringBuilder();
+        for (Object part : parts) {
+            builder.append(part);
+        }
+        message = builder.toString();
+        builtMessage = message;
+        return message;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getMessage();
+        out.defaultWriteObject();
+    }
+
 }
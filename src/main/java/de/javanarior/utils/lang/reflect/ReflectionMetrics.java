@@ -0,0 +1,378 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import de.javanarior.utils.lang.ByteCodeClassLoader;
+
+/**
+ * Optional metrics of the entry points of {@link Invoke} and
+ * {@link Retrieve}: calls, misses of the {@code try} methods, exceptions and
+ * cumulative latency per {@link Operation}, together with the hit rates of
+ * the reflection caches and the number of classes defined by the
+ * {@link ByteCodeClassLoader}.
+ *
+ * The metrics are disabled by default. While disabled, a entry point pays a
+ * single branch on a volatile flag, the shared probe it gets records
+ * nothing. Enable them with {@link #setEnabled(boolean)}, read them with
+ * {@link #snapshot()} or over JMX after {@link #registerMBean()}, e.g.
+ *
+ * <pre>
+ * ReflectionMetrics.setEnabled(true);
+ * ReflectionMetrics.registerMBean();
+ * ...
+ * OperationStatistics invoke = ReflectionMetrics.snapshot().getOperation(Operation.INVOKE);
+ * </pre>
+ *
+ * A instance is a immutable snapshot of the counters.
+ */
+public final class ReflectionMetrics {
+
+    /**
+     * The measured entry points, each a group of methods.
+     */
+    public enum Operation {
+        /** {@code Invoke.instantiator}, {@code tryInstantiator} and the other instantiator methods. */
+        INSTANTIATOR,
+        /** {@code Invoke.invokeConstructor}. */
+        INVOKE_CONSTRUCTOR,
+        /** {@code Invoke.newInstance} and {@code tryNewInstance}. */
+        NEW_INSTANCE,
+        /** {@code Invoke.invoke}, {@code invokeStatic} and their {@code try} variants. */
+        INVOKE,
+        /** {@code Invoke.methodInvoker} and {@code tryMethodInvoker}. */
+        METHOD_INVOKER,
+        /** {@code Invoke.invokeMethod} and {@code invokeStaticMethod}. */
+        INVOKE_METHOD,
+        /** {@code Invoke.accessor}. */
+        ACCESSOR,
+        /** {@code Invoke.invokeAnnotation}. */
+        INVOKE_ANNOTATION,
+        /** {@code Retrieve.annotationValueOnClass}, including the {@code try} and typed variants. */
+        ANNOTATION_VALUE_ON_CLASS,
+        /** {@code Retrieve.annotationValueOnMethod}, including the {@code try} and typed variants. */
+        ANNOTATION_VALUE_ON_METHOD,
+        /** {@code Retrieve.annotationValueOnParameter}. */
+        ANNOTATION_VALUE_ON_PARAMETER,
+        /** {@code Retrieve.mergedAnnotationValueOnClass} and {@code mergedAnnotationValueOnMethod}. */
+        MERGED_ANNOTATION_VALUE,
+        /** {@code Retrieve.annotationValuesOnClasses} and {@code annotationValuesOnMethods}. */
+        BULK_ANNOTATION_VALUES
+    }
+
+    /** Name of the MBean registered by {@link #registerMBean()}. */
+    public static final String OBJECT_NAME = "de.javanarior.utils:type=ReflectionMetrics";
+
+    private static final Counters[] COUNTERS = new Counters[Operation.values().length];
+
+    private static volatile boolean enabled;
+
+    static {
+        for (Operation operation : Operation.values()) {
+            COUNTERS[operation.ordinal()] = new Counters(operation);
+        }
+    }
+
+    private final List<OperationStatistics> operations;
+    private final CacheStatistics constructorCache;
+    private final CacheStatistics methodCache;
+    private final CacheStatistics overloadCache;
+    private final CacheStatistics fieldAccessorCache;
+    private final long definedClassCount;
+
+    private ReflectionMetrics() {
+        OperationStatistics[] statistics = new OperationStatistics[COUNTERS.length];
+        for (int index = 0; index < COUNTERS.length; index++) {
+            statistics[index] = COUNTERS[index].statistics();
+        }
+        this.operations = Collections.unmodifiableList(Arrays.asList(statistics));
+        this.constructorCache = Invoke.constructorCacheStatistics();
+        this.methodCache = Invoke.methodCacheStatistics();
+        this.overloadCache = Invoke.overloadCacheStatistics();
+        this.fieldAccessorCache = FieldAccessor.cacheStatistics();
+        this.definedClassCount = ByteCodeClassLoader.getClassLoader().getDefinedClassCount();
+    }
+
+    /**
+     * Returns true if the entry points are measured.
+     *
+     * @return true if enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable or disable the measuring of the entry points. The counters are
+     * kept while disabled.
+     *
+     * @param enable
+     *            - true to enable
+     */
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    /**
+     * Reset the counters of the entry points. The cache counters are not
+     * reset.
+     */
+    public static void reset() {
+        for (Counters counters : COUNTERS) {
+            counters.reset();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the current counters.
+     *
+     * @return snapshot
+     */
+    public static ReflectionMetrics snapshot() {
+        return new ReflectionMetrics();
+    }
+
+    /**
+     * Register the metrics as MXBean with the name {@link #OBJECT_NAME} at
+     * the platform MBean server, if not done yet.
+     * In case of error a {@linkplain ReflectionException} is thrown.
+     */
+    public static void registerMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            synchronized (ReflectionMetrics.class) {
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(new Bean(), name);
+                }
+            }
+        } catch (JMException exception) {
+            throw new ReflectionException("Could not register MBean '" + OBJECT_NAME + "'", exception);
+        }
+    }
+
+    /**
+     * Unregister the MXBean registered by {@link #registerMBean()}, if any.
+     * In case of error a {@linkplain ReflectionException} is thrown.
+     */
+    public static void unregisterMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            synchronized (ReflectionMetrics.class) {
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            }
+        } catch (JMException exception) {
+            throw new ReflectionException("Could not unregister MBean '" + OBJECT_NAME + "'", exception);
+        }
+    }
+
+    /**
+     * Returns a probe for a call of {@code operation}, which records nothing
+     * if the metrics are disabled.
+     *
+     * @param operation
+     *            - the called entry point
+     * @return probe
+     */
+    static Probe probe(Operation operation) {
+        return enabled ? new TimingProbe(COUNTERS[operation.ordinal()]) : Probe.DISABLED;
+    }
+
+    /**
+     * Returns the counters of all entry points, in the order of
+     * {@link Operation}.
+     *
+     * @return unmodifiable list of the counters
+     */
+    public List<OperationStatistics> getOperations() {
+        return operations;
+    }
+
+    /**
+     * Returns the counters of {@code operation}.
+     *
+     * @param operation
+     *            - the entry point
+     * @return counters
+     */
+    public OperationStatistics getOperation(Operation operation) {
+        return operations.get(operation.ordinal());
+    }
+
+    /**
+     * Returns the counters of the constructor cache.
+     *
+     * @return cache counters
+     */
+    public CacheStatistics getConstructorCache() {
+        return constructorCache;
+    }
+
+    /**
+     * Returns the counters of the method cache.
+     *
+     * @return cache counters
+     */
+    public CacheStatistics getMethodCache() {
+        return methodCache;
+    }
+
+    /**
+     * Returns the counters of the overload decisions.
+     *
+     * @return cache counters
+     */
+    public CacheStatistics getOverloadCache() {
+        return overloadCache;
+    }
+
+    /**
+     * Returns the counters of the field accessor cache.
+     *
+     * @return cache counters
+     */
+    public CacheStatistics getFieldAccessorCache() {
+        return fieldAccessorCache;
+    }
+
+    /**
+     * Returns the number of classes defined by the
+     * {@link ByteCodeClassLoader}.
+     *
+     * @return number of classes
+     */
+    public long getDefinedClassCount() {
+        return definedClassCount;
+    }
+
+    /**
+     * Counters of one entry point.
+     */
+    private static final class Counters {
+
+        private final Operation operation;
+        private final AtomicLong callCount = new AtomicLong();
+        private final AtomicLong missCount = new AtomicLong();
+        private final AtomicLong failureCount = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+
+        Counters(Operation operation) {
+            this.operation = operation;
+        }
+
+        void record(int outcome, long nanos) {
+            callCount.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            if (outcome == Probe.MISSED) {
+                missCount.incrementAndGet();
+            } else if (outcome == Probe.FAILED) {
+                failureCount.incrementAndGet();
+            }
+        }
+
+        OperationStatistics statistics() {
+            return new OperationStatistics(operation, callCount.get(), missCount.get(), failureCount.get(),
+                            totalNanos.get());
+        }
+
+        void reset() {
+            callCount.set(0);
+            missCount.set(0);
+            failureCount.set(0);
+            totalNanos.set(0);
+        }
+    }
+
+    private static final class TimingProbe extends Probe {
+
+        private final Counters counters;
+        private final long start = System.nanoTime();
+
+        TimingProbe(Counters counters) {
+            this.counters = counters;
+        }
+
+        @Override
+        void record(int outcome) {
+            counters.record(outcome, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * The MXBean, reading the current counters.
+     */
+    private static final class Bean implements ReflectionMetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return ReflectionMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enable) {
+            ReflectionMetrics.setEnabled(enable);
+        }
+
+        @Override
+        public OperationStatistics[] getOperations() {
+            List<OperationStatistics> operations = snapshot().getOperations();
+            return operations.toArray(new OperationStatistics[operations.size()]);
+        }
+
+        @Override
+        public CacheStatistics getConstructorCache() {
+            return Invoke.constructorCacheStatistics();
+        }
+
+        @Override
+        public CacheStatistics getMethodCache() {
+            return Invoke.methodCacheStatistics();
+        }
+
+        @Override
+        public CacheStatistics getOverloadCache() {
+            return Invoke.overloadCacheStatistics();
+        }
+
+        @Override
+        public CacheStatistics getFieldAccessorCache() {
+            return FieldAccessor.cacheStatistics();
+        }
+
+        @Override
+        public long getDefinedClassCount() {
+            return ByteCodeClassLoader.getClassLoader().getDefinedClassCount();
+        }
+
+        @Override
+        public void reset() {
+            ReflectionMetrics.reset();
+        }
+    }
+
+}
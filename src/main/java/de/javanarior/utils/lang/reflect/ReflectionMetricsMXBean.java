@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+/**
+ * Management interface of {@link ReflectionMetrics}, registered with
+ * {@link ReflectionMetrics#registerMBean()}.
+ */
+public interface ReflectionMetricsMXBean {
+
+    /**
+     * Returns true if the entry points are measured.
+     *
+     * @return true if enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * Enable or disable the measuring of the entry points.
+     *
+     * @param enabled
+     *            - true to enable
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Returns the counters of the entry points.
+     *
+     * @return counters per entry point
+     */
+    OperationStatistics[] getOperations();
+
+    /**
+     * Returns the counters of the constructor cache.
+     *
+     * @return cache counters
+     */
+    CacheStatistics getConstructorCache();
+
+    /**
+     * Returns the counters of the method cache.
+     *
+     * @return cache counters
+     */
+    CacheStatistics getMethodCache();
+
+    /**
+     * Returns the counters of the overload decisions.
+     *
+     * @return cache counters
+     */
+    CacheStatistics getOverloadCache();
+
+    /**
+     * Returns the counters of the field accessor cache.
+     *
+     * @return cache counters
+     */
+    CacheStatistics getFieldAccessorCache();
+
+    /**
+     * Returns the number of classes defined by the
+     * {@link de.javanarior.utils.lang.ByteCodeClassLoader}.
+     *
+     * @return number of classes
+     */
+    long getDefinedClassCount();
+
+    /**
+     * Reset the counters of the entry points.
+     */
+    void reset();
+
+}
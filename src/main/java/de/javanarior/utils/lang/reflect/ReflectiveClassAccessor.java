@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * {@link ClassAccessor} which uses the reflection API. Used for types for
+ * which no accessor class can be generated.
+ *
+ * @param <T>
+ *            - the accessed type
+ */
+final class ReflectiveClassAccessor<T> extends ClassAccessor<T> {
+
+    /**
+     * Create a new ReflectiveClassAccessor instance.
+     *
+     * @param type
+     *            - the accessed type
+     * @param constructors
+     *            - the constructors, in index order
+     * @param methods
+     *            - the methods, in index order
+     * @param fields
+     *            - the fields, in index order
+     */
+    ReflectiveClassAccessor(Class<T> type, Constructor<?>[] constructors, Method[] methods, Field[] fields) {
+        super(type, constructors, methods, fields);
+    }
+
+    @Override
+    protected Object doNewInstance(int index, Object[] arguments) throws Exception {
+        return constructor(checked(index)).newInstance(arguments);
+    }
+
+    @Override
+    protected Object doInvoke(Object instance, int index, Object[] arguments) throws Exception {
+        return method(checked(index)).invoke(instance, arguments);
+    }
+
+    @Override
+    protected Object doGet(Object instance, int index) {
+        try {
+            return field(checked(index)).get(instance);
+        } catch (IllegalAccessException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    @Override
+    protected void doSet(Object instance, int index, Object value) {
+        try {
+            field(checked(index)).set(instance, value);
+        } catch (IllegalAccessException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private int checked(int index) {
+        if (index < 0) {
+            throw unknownIndex(index);
+        }
+        return index;
+    }
+
+}
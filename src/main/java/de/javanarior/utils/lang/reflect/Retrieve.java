@@ -15,12 +15,14 @@
  */
 package de.javanarior.utils.lang.reflect;
 
-import static de.javanarior.utils.lang.reflect.Invoke.invokeAnnotation;
-
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import de.javanarior.utils.lang.reflect.ReflectionMetrics.Operation;
 
 /**
  * Retrieve values from Java Elements e.g. {@link Annotation}s.
@@ -49,15 +51,18 @@ public final class Retrieve {
      */
     public static <T extends Annotation> Object annotationValueOnClass(Class<T> annotationClass, String attributeName,
                     Class<?> annotatedClass) {
+        Probe probe = ReflectionMetrics.probe(Operation.ANNOTATION_VALUE_ON_CLASS);
         try {
-            T annotation = annotatedClass.getAnnotation(annotationClass);
+            AnnotationValues annotation = AnnotationIndex.forLookup(annotatedClass).classAnnotation(annotationClass);
             if (annotation == null) {
                 throw new ReflectionException("Annotation '" + annotationClass + "' not found in Class '"
                                 + annotatedClass.getCanonicalName() + "'");
             }
-            return invokeAnnotation(annotation, attributeName);
+            return probe.done(annotation.get(attributeName));
         } catch (SecurityException exception) {
-            throw new ReflectionException(exception);
+            throw probe.failed(new ReflectionException(exception));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
         }
     }
 
@@ -81,6 +86,32 @@ public final class Retrieve {
         return annotationValueOnClass(annotationClass, "value", annotatedClass);
     }
 
+    /**
+     * Like {@link #annotationValueOnClass(Class, String, Class)}, but returns
+     * {@code null} instead of throwing a exception if the annotation or the
+     * attribute is missing. Annotation attributes are never {@code null}.
+     *
+     * @param annotationClass
+     *            - the class of the Annotation
+     * @param <T>
+     *            - a annotation class
+     * @param attributeName
+     *            - name of the attribute
+     * @param annotatedClass
+     *            - the class with the Annotation
+     * @return value of the annotation attribute, or {@code null}
+     */
+    public static <T extends Annotation> Object tryAnnotationValueOnClass(Class<T> annotationClass,
+                    String attributeName, Class<?> annotatedClass) {
+        Probe probe = ReflectionMetrics.probe(Operation.ANNOTATION_VALUE_ON_CLASS);
+        try {
+            AnnotationValues annotation = AnnotationIndex.forLookup(annotatedClass).classAnnotation(annotationClass);
+            return probe.found(tryValue(annotation, attributeName));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
     /**
      * Retrieve the value of an {@linkplain Annotation} on a Method.
      * To be more precise returns the value of {@code attributeName} from
@@ -99,15 +130,47 @@ public final class Retrieve {
      */
     public static <T extends Annotation> Object annotationValueOnMethod(Class<T> annotationClass,
                     Method methodWithAnnotation, String attributeName) {
+        Probe probe = ReflectionMetrics.probe(Operation.ANNOTATION_VALUE_ON_METHOD);
         try {
-            T annotation = methodWithAnnotation.getAnnotation(annotationClass);
+            AnnotationValues annotation = AnnotationIndex.forLookup(methodWithAnnotation)
+                            .methodAnnotation(methodWithAnnotation, annotationClass);
             if (annotation == null) {
                 throw new ReflectionException("Annotation '" + annotationClass + "' not found on Method '"
                                 + methodWithAnnotation + "'");
             }
-            return invokeAnnotation(annotation, attributeName);
+            return probe.done(annotation.get(attributeName));
         } catch (SecurityException exception) {
-            throw new ReflectionException(exception);
+            throw probe.failed(new ReflectionException(exception));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Like {@link #annotationValueOnMethod(Class, Method, String)}, but
+     * returns {@code null} instead of throwing a exception if the annotation
+     * or the attribute is missing. Annotation attributes are never
+     * {@code null}.
+     *
+     * @param annotationClass
+     *            - the class of the Annotation
+     * @param <T>
+     *            - a annotation class
+     * @param methodWithAnnotation
+     *            - method with annotation
+     * @param attributeName
+     *            - name of the attribute
+     * @return value of the annotation attribute, or {@code null}
+     */
+    public static <T extends Annotation> Object tryAnnotationValueOnMethod(Class<T> annotationClass,
+                    Method methodWithAnnotation, String attributeName) {
+        Probe probe = ReflectionMetrics.probe(Operation.ANNOTATION_VALUE_ON_METHOD);
+        try {
+            AnnotationValues annotation = AnnotationIndex.forLookup(methodWithAnnotation)
+                            .methodAnnotation(methodWithAnnotation, annotationClass);
+            return probe.found(tryValue(annotation, attributeName));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
         }
     }
 
@@ -192,6 +255,10 @@ public final class Retrieve {
      * in the class {@code classWithMethod}. If the Method is polymorphic
      * overriden,
      * the Signature can be provided with {@code parameterTypes}.
+     * The parameter is looked up by {@code parameterName}, if the class file
+     * contains the parameter names (compiled with {@code -parameters} or with
+     * debug information), else the first parameter with the Annotation is
+     * used.
      *
      * @param <T>
      *            - the annotation class
@@ -214,16 +281,62 @@ public final class Retrieve {
                     String attributeName, Class<?> classWithMethod, String methodNameWithParameter,
                     String parameterName, Class<?>... parameterTypes) {
         // CHECKSTYLE:ON
-        Method method = findMethod(classWithMethod, methodNameWithParameter, parameterTypes);
-        for (Annotation[] annotations : method.getParameterAnnotations()) {
-            for (Annotation annotation : annotations) {
-                if (annotation.annotationType().isAssignableFrom(annotationClass)) {
-                    return invokeAnnotation(annotation, attributeName);
-                }
+        Probe probe = ReflectionMetrics.probe(Operation.ANNOTATION_VALUE_ON_PARAMETER);
+        try {
+            Method method = findMethod(classWithMethod, methodNameWithParameter, parameterTypes);
+            AnnotationValues annotation = parameterAnnotation(annotationClass, method, parameterName);
+            if (annotation != null) {
+                return probe.done(annotation.get(attributeName));
+            }
+            String[] parameterNames = AnnotationIndex.forLookup(method).parameterNames(method);
+            if (parameterNames != null && !Arrays.asList(parameterNames).contains(parameterName)) {
+                throw new ReflectionException("Parameter '" + parameterName + "' not found on Method '" + method
+                                + "'");
             }
+            throw new ReflectionException("Annotation '" + annotationClass.getCanonicalName()
+                            + "' not found in Parameter list of Method '" + method + "'");
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Like
+     * {@link #annotationValueOnParameter(Class, String, Class, String, String, Class...)},
+     * but returns {@code null} instead of throwing a exception if the method,
+     * the parameter, the annotation or the attribute is missing. Annotation
+     * attributes are never {@code null}.
+     *
+     * @param <T>
+     *            - the annotation class
+     * @param annotationClass
+     *            - class of the annotation
+     * @param attributeName
+     *            - name of the attribute
+     * @param classWithMethod
+     *            - class of the method
+     * @param methodNameWithParameter
+     *            - the method name
+     * @param parameterName
+     *            - name of the parameter
+     * @param parameterTypes
+     *            - Types of the method
+     * @return value of the annotation attribute, or {@code null}
+     */
+    // CHECKSTYLE:OFF
+    public static <T extends Annotation> Object tryAnnotationValueOnParameter(Class<T> annotationClass,
+                    String attributeName, Class<?> classWithMethod, String methodNameWithParameter,
+                    String parameterName, Class<?>... parameterTypes) {
+        // CHECKSTYLE:ON
+        Probe probe = ReflectionMetrics.probe(Operation.ANNOTATION_VALUE_ON_PARAMETER);
+        try {
+            Method method = lookUpMethod(classWithMethod, methodNameWithParameter, parameterTypes);
+            AnnotationValues annotation = method == null ? null
+                            : parameterAnnotation(annotationClass, method, parameterName);
+            return probe.found(tryValue(annotation, attributeName));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
         }
-        throw new ReflectionException("Annotation '" + annotationClass.getCanonicalName()
-                        + "' not found in Parameter list of Method '" + method + "'");
     }
 
     /**
@@ -256,31 +369,473 @@ public final class Retrieve {
                         parameterName, parameterTypes);
     }
 
+    /**
+     * Like {@link #annotationValueOnClass(Class, String, Class)}, for a {@code int}
+     * attribute, without boxing the value. The attribute type is checked once,
+     * the reader is cached.
+     *
+     * @param annotationClass
+     *            - the class of the Annotation
+     * @param <T>
+     *            - a annotation class
+     * @param attributeName
+     *            - name of a {@code int} attribute
+     * @param annotatedClass
+     *            - the class with the Annotation
+     * @return value of the annotation attribute
+     */
+    public static <T extends Annotation> int intAnnotationValueOnClass(Class<T> annotationClass,
+                    String attributeName, Class<?> annotatedClass) {
+        Probe probe = ReflectionMetrics.probe(Operation.ANNOTATION_VALUE_ON_CLASS);
+        try {
+            return probe.done(AnnotationAttributeReader.of(annotationClass).intAttribute(attributeName)
+                            .getInt(annotationOnClass(annotationClass, annotatedClass)));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
 
+    /**
+     * Like {@link #annotationValueOnClass(Class, String, Class)}, for a {@code long}
+     * attribute, without boxing the value. The attribute type is checked once,
+     * the reader is cached.
+     *
+     * @param annotationClass
+     *            - the class of the Annotation
+     * @param <T>
+     *            - a annotation class
+     * @param attributeName
+     *            - name of a {@code long} attribute
+     * @param annotatedClass
+     *            - the class with the Annotation
+     * @return value of the annotation attribute
+     */
+    public static <T extends Annotation> long longAnnotationValueOnClass(Class<T> annotationClass,
+                    String attributeName, Class<?> annotatedClass) {
+        Probe probe = ReflectionMetrics.probe(Operation.ANNOTATION_VALUE_ON_CLASS);
+        try {
+            return probe.done(AnnotationAttributeReader.of(annotationClass).longAttribute(attributeName)
+                            .getLong(annotationOnClass(annotationClass, annotatedClass)));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
 
-    private static Method findMethod(Class<?> annotatedClass, String methodName, Class<?>... parameterTypes) {
+    /**
+     * Like {@link #annotationValueOnClass(Class, String, Class)}, for a {@code boolean}
+     * attribute, without boxing the value. The attribute type is checked once,
+     * the reader is cached.
+     *
+     * @param annotationClass
+     *            - the class of the Annotation
+     * @param <T>
+     *            - a annotation class
+     * @param attributeName
+     *            - name of a {@code boolean} attribute
+     * @param annotatedClass
+     *            - the class with the Annotation
+     * @return value of the annotation attribute
+     */
+    public static <T extends Annotation> boolean booleanAnnotationValueOnClass(Class<T> annotationClass,
+                    String attributeName, Class<?> annotatedClass) {
+        Probe probe = ReflectionMetrics.probe(Operation.ANNOTATION_VALUE_ON_CLASS);
         try {
-            return annotatedClass.getMethod(methodName, parameterTypes);
-        } catch (NoSuchMethodException exception) {
-            if (parameterTypes == null || parameterTypes.length == 0) {
-                List<Method> possibleMatches = findMethods(annotatedClass.getDeclaredMethods(), methodName);
-                if (possibleMatches.size() == 1) {
-                    return possibleMatches.get(0);
-                }
+            return probe.done(AnnotationAttributeReader.of(annotationClass).booleanAttribute(attributeName)
+                            .getBoolean(annotationOnClass(annotationClass, annotatedClass)));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Like {@link #annotationValueOnClass(Class, String, Class)}, but returns
+     * the value as {@code valueType}, e.g. {@code String.class}, a enum or a
+     * array type. The attribute type is checked once, the reader is cached.
+     *
+     * @param annotationClass
+     *            - the class of the Annotation
+     * @param <T>
+     *            - a annotation class
+     * @param <R>
+     *            - type of the attribute value
+     * @param attributeName
+     *            - name of the attribute
+     * @param annotatedClass
+     *            - the class with the Annotation
+     * @param valueType
+     *            - type of the attribute value
+     * @return value of the annotation attribute
+     */
+    public static <T extends Annotation, R> R typedAnnotationValueOnClass(Class<T> annotationClass,
+                    String attributeName, Class<?> annotatedClass, Class<R> valueType) {
+        Probe probe = ReflectionMetrics.probe(Operation.ANNOTATION_VALUE_ON_CLASS);
+        try {
+            return probe.done(AnnotationAttributeReader.of(annotationClass).typedAttribute(attributeName, valueType)
+                            .get(annotationOnClass(annotationClass, annotatedClass)));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Like {@link #annotationValueOnMethod(Class, Method, String)}, for a
+     * {@code int} attribute, without boxing the value. The attribute type
+     * is checked once, the reader is cached.
+     *
+     * @param annotationClass
+     *            - the class of the Annotation
+     * @param <T>
+     *            - a annotation class
+     * @param methodWithAnnotation
+     *            - method with annotation
+     * @param attributeName
+     *            - name of a {@code int} attribute
+     * @return value of the annotation attribute
+     */
+    public static <T extends Annotation> int intAnnotationValueOnMethod(Class<T> annotationClass,
+                    Method methodWithAnnotation, String attributeName) {
+        Probe probe = ReflectionMetrics.probe(Operation.ANNOTATION_VALUE_ON_METHOD);
+        try {
+            return probe.done(AnnotationAttributeReader.of(annotationClass).intAttribute(attributeName)
+                            .getInt(annotationOnMethod(annotationClass, methodWithAnnotation)));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Like {@link #annotationValueOnMethod(Class, Method, String)}, for a
+     * {@code long} attribute, without boxing the value. The attribute type
+     * is checked once, the reader is cached.
+     *
+     * @param annotationClass
+     *            - the class of the Annotation
+     * @param <T>
+     *            - a annotation class
+     * @param methodWithAnnotation
+     *            - method with annotation
+     * @param attributeName
+     *            - name of a {@code long} attribute
+     * @return value of the annotation attribute
+     */
+    public static <T extends Annotation> long longAnnotationValueOnMethod(Class<T> annotationClass,
+                    Method methodWithAnnotation, String attributeName) {
+        Probe probe = ReflectionMetrics.probe(Operation.ANNOTATION_VALUE_ON_METHOD);
+        try {
+            return probe.done(AnnotationAttributeReader.of(annotationClass).longAttribute(attributeName)
+                            .getLong(annotationOnMethod(annotationClass, methodWithAnnotation)));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Like {@link #annotationValueOnMethod(Class, Method, String)}, for a
+     * {@code boolean} attribute, without boxing the value. The attribute type
+     * is checked once, the reader is cached.
+     *
+     * @param annotationClass
+     *            - the class of the Annotation
+     * @param <T>
+     *            - a annotation class
+     * @param methodWithAnnotation
+     *            - method with annotation
+     * @param attributeName
+     *            - name of a {@code boolean} attribute
+     * @return value of the annotation attribute
+     */
+    public static <T extends Annotation> boolean booleanAnnotationValueOnMethod(Class<T> annotationClass,
+                    Method methodWithAnnotation, String attributeName) {
+        Probe probe = ReflectionMetrics.probe(Operation.ANNOTATION_VALUE_ON_METHOD);
+        try {
+            return probe.done(AnnotationAttributeReader.of(annotationClass).booleanAttribute(attributeName)
+                            .getBoolean(annotationOnMethod(annotationClass, methodWithAnnotation)));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Like {@link #annotationValueOnMethod(Class, Method, String)}, but
+     * returns the value as {@code valueType}, e.g. {@code String.class}, a
+     * enum or a array type. The attribute type is checked once, the reader is
+     * cached.
+     *
+     * @param annotationClass
+     *            - the class of the Annotation
+     * @param <T>
+     *            - a annotation class
+     * @param <R>
+     *            - type of the attribute value
+     * @param methodWithAnnotation
+     *            - method with annotation
+     * @param attributeName
+     *            - name of the attribute
+     * @param valueType
+     *            - type of the attribute value
+     * @return value of the annotation attribute
+     */
+    public static <T extends Annotation, R> R typedAnnotationValueOnMethod(Class<T> annotationClass,
+                    Method methodWithAnnotation, String attributeName, Class<R> valueType) {
+        Probe probe = ReflectionMetrics.probe(Operation.ANNOTATION_VALUE_ON_METHOD);
+        try {
+            return probe.done(AnnotationAttributeReader.of(annotationClass).typedAttribute(attributeName, valueType)
+                            .get(annotationOnMethod(annotationClass, methodWithAnnotation)));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Retrieve the merged value of an {@linkplain Annotation} attribute on a
+     * Class. Meta-annotations and annotations inherited from super classes
+     * are considered, see {@link MergedAnnotations}.
+     * In case of error a {@linkplain ReflectionException} is thrown.
+     *
+     * @param annotationClass
+     *            - the class of the Annotation
+     * @param <T>
+     *            - a annotation class
+     * @param attributeName
+     *            - name of the attribute
+     * @param annotatedClass
+     *            - the class with the Annotation
+     * @return merged value of the annotation attribute
+     */
+    public static <T extends Annotation> Object mergedAnnotationValueOnClass(Class<T> annotationClass,
+                    String attributeName, Class<?> annotatedClass) {
+        Probe probe = ReflectionMetrics.probe(Operation.MERGED_ANNOTATION_VALUE);
+        try {
+            MergedAnnotation annotation = MergedAnnotations.of(annotatedClass).get(annotationClass);
+            if (annotation == null) {
+                throw new ReflectionException("Annotation '" + annotationClass + "' not found in Class '"
+                                + annotatedClass.getCanonicalName() + "'");
             }
-            throw new ReflectionException("Method name '" + methodName + "' not found in Class '"
-                            + annotatedClass.getCanonicalName() + "'", exception);
+            return probe.done(annotation.get(attributeName));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Retrieve the merged value of an {@linkplain Annotation} attribute on a
+     * Method. Meta-annotations and annotations of overridden methods are
+     * considered, see {@link MergedAnnotations}.
+     * In case of error a {@linkplain ReflectionException} is thrown.
+     *
+     * @param annotationClass
+     *            - the class of the Annotation
+     * @param <T>
+     *            - a annotation class
+     * @param methodWithAnnotation
+     *            - method with annotation
+     * @param attributeName
+     *            - name of the attribute
+     * @return merged value of the annotation attribute
+     */
+    public static <T extends Annotation> Object mergedAnnotationValueOnMethod(Class<T> annotationClass,
+                    Method methodWithAnnotation, String attributeName) {
+        Probe probe = ReflectionMetrics.probe(Operation.MERGED_ANNOTATION_VALUE);
+        try {
+            MergedAnnotation annotation = MergedAnnotations.of(methodWithAnnotation).get(annotationClass);
+            if (annotation == null) {
+                throw new ReflectionException("Annotation '" + annotationClass + "' not found on Method '"
+                                + methodWithAnnotation + "'");
+            }
+            return probe.done(annotation.get(attributeName));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
         }
     }
 
-    private static List<Method> findMethods(Method[] methods, String methodName) {
-        List<Method> matchingMethods = new ArrayList<>();
-        for (Method method : methods) {
-            if (method.getName().equals(methodName)) {
-                matchingMethods.add(method);
+
+    /**
+     * Retrieve the values of the {@linkplain Annotation}s
+     * {@code annotationClasses} on many classes in parallel on {@code pool}.
+     * Small batches are processed in the calling thread.
+     * In case of error a {@linkplain ReflectionException} is thrown.
+     *
+     * @param pool
+     *            - the fork/join pool to use
+     * @param annotatedClasses
+     *            - the classes to query
+     * @param annotationClasses
+     *            - the classes of the Annotations
+     * @return the annotation values per class, in the order of
+     *         {@code annotatedClasses}, only classes with at least one of the
+     *         annotations are contained
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs") // the query copies the array and only reads it
+    public static Map<Class<?>, Map<Class<? extends Annotation>, AnnotationValues>> annotationValuesOnClasses(
+                    ForkJoinPool pool, Collection<? extends Class<?>> annotatedClasses,
+                    Class<? extends Annotation>... annotationClasses) {
+        Probe probe = ReflectionMetrics.probe(Operation.BULK_ANNOTATION_VALUES);
+        try {
+            return probe.done(BulkAnnotationQuery.onClasses(annotationClasses).run(pool, annotatedClasses));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Like {@link #annotationValuesOnClasses(ForkJoinPool, Collection, Class...)}
+     * on a pool with at most {@code maxParallelism} threads, which is shut
+     * down afterwards.
+     *
+     * @param maxParallelism
+     *            - maximal number of threads, capped by the number of
+     *            processors
+     * @param annotatedClasses
+     *            - the classes to query
+     * @param annotationClasses
+     *            - the classes of the Annotations
+     * @return the annotation values per class, in the order of
+     *         {@code annotatedClasses}, only classes with at least one of the
+     *         annotations are contained
+     */
+    @SafeVarargs
+    public static Map<Class<?>, Map<Class<? extends Annotation>, AnnotationValues>> annotationValuesOnClasses(
+                    int maxParallelism, Collection<? extends Class<?>> annotatedClasses,
+                    Class<? extends Annotation>... annotationClasses) {
+        ForkJoinPool pool = newPool(maxParallelism);
+        try {
+            return annotationValuesOnClasses(pool, annotatedClasses, annotationClasses);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Retrieve the values of the {@linkplain Annotation}s
+     * {@code annotationClasses} on the declared methods of many classes,
+     * which are selected by {@code selector}, in parallel on {@code pool}.
+     * Small batches are processed in the calling thread.
+     * In case of error a {@linkplain ReflectionException} is thrown.
+     *
+     * @param pool
+     *            - the fork/join pool to use
+     * @param annotatedClasses
+     *            - the classes to query
+     * @param selector
+     *            - selects the methods of the classes
+     * @param annotationClasses
+     *            - the classes of the Annotations
+     * @return the annotation values per method, in the order of
+     *         {@code annotatedClasses}, only methods with at least one of the
+     *         annotations are contained
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs") // the query copies the array and only reads it
+    public static Map<Method, Map<Class<? extends Annotation>, AnnotationValues>> annotationValuesOnMethods(
+                    ForkJoinPool pool, Collection<? extends Class<?>> annotatedClasses, MethodSelector selector,
+                    Class<? extends Annotation>... annotationClasses) {
+        Probe probe = ReflectionMetrics.probe(Operation.BULK_ANNOTATION_VALUES);
+        try {
+            return probe.done(BulkAnnotationQuery.onMethods(selector, annotationClasses).run(pool, annotatedClasses));
+        } catch (RuntimeException exception) {
+            throw probe.failed(exception);
+        }
+    }
+
+    /**
+     * Like
+     * {@link #annotationValuesOnMethods(ForkJoinPool, Collection, MethodSelector, Class...)}
+     * on a pool with at most {@code maxParallelism} threads, which is shut
+     * down afterwards.
+     *
+     * @param maxParallelism
+     *            - maximal number of threads, capped by the number of
+     *            processors
+     * @param annotatedClasses
+     *            - the classes to query
+     * @param selector
+     *            - selects the methods of the classes
+     * @param annotationClasses
+     *            - the classes of the Annotations
+     * @return the annotation values per method, in the order of
+     *         {@code annotatedClasses}, only methods with at least one of the
+     *         annotations are contained
+     */
+    @SafeVarargs
+    public static Map<Method, Map<Class<? extends Annotation>, AnnotationValues>> annotationValuesOnMethods(
+                    int maxParallelism, Collection<? extends Class<?>> annotatedClasses, MethodSelector selector,
+                    Class<? extends Annotation>... annotationClasses) {
+        ForkJoinPool pool = newPool(maxParallelism);
+        try {
+            return annotationValuesOnMethods(pool, annotatedClasses, selector, annotationClasses);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static ForkJoinPool newPool(int maxParallelism) {
+        return new ForkJoinPool(Math.max(1, Math.min(maxParallelism, Runtime.getRuntime().availableProcessors())));
+    }
+
+
+    private static <T extends Annotation> T annotationOnClass(Class<T> annotationClass, Class<?> annotatedClass) {
+        AnnotationValues annotation = AnnotationIndex.forLookup(annotatedClass).classAnnotation(annotationClass);
+        if (annotation == null) {
+            throw new ReflectionException("Annotation '" + annotationClass + "' not found in Class '"
+                            + annotatedClass.getCanonicalName() + "'");
+        }
+        return annotationClass.cast(annotation.getAnnotation());
+    }
+
+    private static <T extends Annotation> T annotationOnMethod(Class<T> annotationClass, Method methodWithAnnotation) {
+        AnnotationValues annotation = AnnotationIndex.forLookup(methodWithAnnotation)
+                        .methodAnnotation(methodWithAnnotation, annotationClass);
+        if (annotation == null) {
+            throw new ReflectionException("Annotation '" + annotationClass + "' not found on Method '"
+                            + methodWithAnnotation + "'");
+        }
+        return annotationClass.cast(annotation.getAnnotation());
+    }
+
+    private static Object tryValue(AnnotationValues annotation, String attributeName) {
+        if (annotation == null || !annotation.hasAttribute(attributeName)) {
+            return null;
+        }
+        return annotation.get(attributeName);
+    }
+
+    /**
+     * Returns the annotation on the parameter {@code parameterName}, or if
+     * the parameter names are not available on the first parameter with the
+     * annotation, or {@code null}.
+     */
+    private static <T extends Annotation> AnnotationValues parameterAnnotation(Class<T> annotationClass,
+                    Method method, String parameterName) {
+        AnnotationIndex index = AnnotationIndex.forLookup(method);
+        if (index.parameterNames(method) != null) {
+            return index.parameterAnnotation(method, parameterName, annotationClass);
+        }
+        for (int parameter = 0; parameter < method.getParameterTypes().length; parameter++) {
+            AnnotationValues annotation = index.parameterAnnotation(method, parameter, annotationClass);
+            if (annotation != null) {
+                return annotation;
             }
         }
-        return matchingMethods;
+        return null;
+    }
+
+    private static Method findMethod(Class<?> annotatedClass, String methodName, Class<?>... parameterTypes) {
+        Method method = lookUpMethod(annotatedClass, methodName, parameterTypes);
+        if (method == null) {
+            throw new ReflectionException("Method name '" + methodName + "' not found in Class '"
+                            + annotatedClass.getCanonicalName() + "'");
+        }
+        return method;
+    }
+
+    private static Method lookUpMethod(Class<?> annotatedClass, String methodName, Class<?>... parameterTypes) {
+        MethodTable methods = MethodTable.of(annotatedClass);
+        Method method = methods.publicMethod(methodName, parameterTypes);
+        if (method == null && (parameterTypes == null || parameterTypes.length == 0)) {
+            method = methods.uniqueDeclaredMethod(methodName);
+        }
+        return method;
     }
 
 }
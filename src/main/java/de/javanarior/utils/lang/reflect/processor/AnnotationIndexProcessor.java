@@ -0,0 +1,331 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+import de.javanarior.utils.lang.reflect.GeneratedAnnotationIndex;
+
+/**
+ * Records the runtime visible annotations of the compiled classes, their
+ * methods and method parameters, and generates a
+ * {@link GeneratedAnnotationIndex} for every class with annotations. At
+ * runtime {@link de.javanarior.utils.lang.reflect.AnnotationIndex}, and so
+ * {@link de.javanarior.utils.lang.reflect.Retrieve}, read the generated
+ * index instead of parsing the annotations by reflection.
+ *
+ * The processor is not registered as service, it has to be enabled
+ * explicitly, e.g. with
+ * {@code javac -processor de.javanarior.utils.lang.reflect.processor.AnnotationIndexProcessor}.
+ * Classes with nested annotation values, or class literals of classes the
+ * index can not access, i.e. private classes or package private classes of
+ * other packages, are not indexed and fall back to reflection.
+ */
+@SupportedAnnotationTypes("*")
+public final class AnnotationIndexProcessor extends AbstractProcessor {
+
+    private static final String INDENT = "        ";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+        for (TypeElement type : ElementFilter.typesIn(roundEnvironment.getRootElements())) {
+            process(type);
+        }
+        // do not claim any annotation
+        return false;
+    }
+
+    private void process(TypeElement type) {
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            process(nested);
+        }
+        List<String> statements;
+        try {
+            statements = statements(type);
+        } catch (UnsupportedValueException exception) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                            "Not indexed, " + exception.getMessage(), type);
+            return;
+        }
+        if (!statements.isEmpty()) {
+            write(type, statements);
+        }
+    }
+
+    /**
+     * Returns the registration statements for the constructor of the index,
+     * or a empty list if nothing is annotated.
+     */
+    private List<String> statements(TypeElement type) throws UnsupportedValueException {
+        PackageElement target = processingEnv.getElementUtils().getPackageOf(type);
+        List<String> statements = new ArrayList<>();
+        boolean annotated = false;
+        for (AnnotationMirror annotation : processingEnv.getElementUtils().getAllAnnotationMirrors(type)) {
+            annotated |= add(statements, "classAnnotation(", annotation, target);
+        }
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            String key = literal(method.getSimpleName().toString()) + ", " + literal(descriptor(method));
+            StringBuilder names = new StringBuilder("method(").append(key);
+            for (VariableElement parameter : method.getParameters()) {
+                names.append(", ").append(literal(parameter.getSimpleName().toString()));
+            }
+            statements.add(names.append(");").toString());
+            for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+                annotated |= add(statements, "methodAnnotation(" + key + ", ", annotation, target);
+            }
+            List<? extends VariableElement> parameters = method.getParameters();
+            for (int index = 0; index < parameters.size(); index++) {
+                for (AnnotationMirror annotation : parameters.get(index).getAnnotationMirrors()) {
+                    annotated |= add(statements, "parameterAnnotation(" + key + ", " + index + ", ", annotation,
+                                    target);
+                }
+            }
+        }
+        return annotated ? statements : new ArrayList<String>();
+    }
+
+    /**
+     * Add the registration of {@code annotation}, if it is visible at
+     * runtime. The registration is compiled in the package {@code target}.
+     */
+    private boolean add(List<String> statements, String call, AnnotationMirror annotation, PackageElement target)
+                    throws UnsupportedValueException {
+        TypeElement annotationType = (TypeElement)annotation.getAnnotationType().asElement();
+        Retention retention = annotationType.getAnnotation(Retention.class);
+        if (retention == null || retention.value() != RetentionPolicy.RUNTIME) {
+            return false;
+        }
+        StringBuilder statement = new StringBuilder(call).append(literal(binaryName(annotationType)));
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values = processingEnv.getElementUtils()
+                        .getElementValuesWithDefaults(annotation);
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : values.entrySet()) {
+            statement.append(", ").append(literal(value.getKey().getSimpleName().toString())).append(", ")
+                            .append(value(value.getValue(), value.getKey().getReturnType(), target));
+        }
+        statements.add(statement.append(");").toString());
+        return true;
+    }
+
+    private void write(TypeElement type, List<String> statements) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        String binaryName = binaryName(type);
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                        + GeneratedAnnotationIndex.SUFFIX;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(binaryName + GeneratedAnnotationIndex.SUFFIX,
+                        type).openWriter()) {
+            if (!packageName.isEmpty()) {
+                writer.write("package " + packageName + ";\n\n");
+            }
+            writer.write("/**\n * Annotation index of {@code " + binaryName + "}, generated by "
+                            + getClass().getSimpleName() + ".\n */\n");
+            writer.write("public final class " + simpleName + " extends " + GeneratedAnnotationIndex.class.getName()
+                            + " {\n\n    public " + simpleName + "() {\n");
+            for (String statement : statements) {
+                writer.write(INDENT + statement + "\n");
+            }
+            writer.write("    }\n\n}\n");
+        } catch (IOException exception) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                            "Could not write annotation index: " + exception.getMessage(), type);
+        }
+    }
+
+    /**
+     * Returns the source of a annotation value of type {@code type}, for a
+     * class in the package {@code target}.
+     */
+    private String value(AnnotationValue annotationValue, TypeMirror type, PackageElement target)
+                    throws UnsupportedValueException {
+        Object value = annotationValue.getValue();
+        if (value instanceof String) {
+            return literal((String)value);
+        } else if (value instanceof Character) {
+            return "'" + escape(value.toString(), '\'') + "'";
+        } else if (value instanceof Byte) {
+            return "(byte) " + value;
+        } else if (value instanceof Short) {
+            return "(short) " + value;
+        } else if (value instanceof Long) {
+            return value + "L";
+        } else if (value instanceof Float) {
+            return "Float.intBitsToFloat(" + Float.floatToRawIntBits((Float)value) + ")";
+        } else if (value instanceof Double) {
+            return "Double.longBitsToDouble(" + Double.doubleToRawLongBits((Double)value) + "L)";
+        } else if (value instanceof Boolean || value instanceof Integer) {
+            return value.toString();
+        } else if (value instanceof TypeMirror) {
+            return typeName((TypeMirror)value, target) + ".class";
+        } else if (value instanceof VariableElement) {
+            Element enumType = ((VariableElement)value).getEnclosingElement();
+            return typeName(enumType.asType(), target) + "." + ((VariableElement)value).getSimpleName();
+        } else if (value instanceof List) {
+            TypeMirror componentType = ((ArrayType)type).getComponentType();
+            StringBuilder array = new StringBuilder("new ").append(typeName(type, target)).append(" {");
+            String separator = " ";
+            for (Object element : (List<?>)value) {
+                array.append(separator).append(value((AnnotationValue)element, componentType, target));
+                separator = ", ";
+            }
+            return array.append(" }").toString();
+        }
+        throw new UnsupportedValueException("annotation value '" + annotationValue + "' is not supported");
+    }
+
+    /**
+     * Returns the erased name of {@code type} for the source of the index in
+     * the package {@code target}.
+     */
+    private String typeName(TypeMirror type, PackageElement target) throws UnsupportedValueException {
+        TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+        switch (erased.getKind()) {
+            case ARRAY:
+                return typeName(((ArrayType)erased).getComponentType(), target) + "[]";
+            case DECLARED:
+                TypeElement element = (TypeElement)((DeclaredType)erased).asElement();
+                boolean samePackage = processingEnv.getElementUtils().getPackageOf(element).equals(target);
+                for (Element enclosing = element; enclosing.getKind() != ElementKind.PACKAGE; enclosing = enclosing
+                                .getEnclosingElement()) {
+                    Set<Modifier> modifiers = enclosing.getModifiers();
+                    if (modifiers.contains(Modifier.PRIVATE)) {
+                        throw new UnsupportedValueException("private class '" + element + "' is not accessible");
+                    }
+                    if (!samePackage && !modifiers.contains(Modifier.PUBLIC)) {
+                        throw new UnsupportedValueException("class '" + element + "' is not accessible from package '"
+                                        + target.getQualifiedName() + "'");
+                    }
+                }
+                return element.getQualifiedName().toString();
+            default:
+                if (erased.getKind().isPrimitive() || erased.getKind() == TypeKind.VOID) {
+                    return erased.getKind().name().toLowerCase(Locale.ENGLISH);
+                }
+                throw new UnsupportedValueException("type '" + type + "' is not supported");
+        }
+    }
+
+    /**
+     * Returns the method descriptor of {@code method}, as it is found in the
+     * class file.
+     */
+    private String descriptor(ExecutableElement method) throws UnsupportedValueException {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (VariableElement parameter : method.getParameters()) {
+            descriptor.append(descriptor(parameter.asType()));
+        }
+        return descriptor.append(')').append(descriptor(method.getReturnType())).toString();
+    }
+
+    private String descriptor(TypeMirror type) throws UnsupportedValueException {
+        TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+        switch (erased.getKind()) {
+            case BOOLEAN:
+                return "Z";
+            case BYTE:
+                return "B";
+            case CHAR:
+                return "C";
+            case SHORT:
+                return "S";
+            case INT:
+                return "I";
+            case LONG:
+                return "J";
+            case FLOAT:
+                return "F";
+            case DOUBLE:
+                return "D";
+            case VOID:
+                return "V";
+            case ARRAY:
+                return "[" + descriptor(((ArrayType)erased).getComponentType());
+            case DECLARED:
+                return "L" + binaryName((TypeElement)((DeclaredType)erased).asElement()).replace('.', '/') + ";";
+            default:
+                throw new UnsupportedValueException("type '" + type + "' is not supported");
+        }
+    }
+
+    private String binaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+
+    private static String literal(String value) {
+        return "\"" + escape(value, '"') + "\"";
+    }
+
+    private static String escape(String value, char quote) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char character : value.toCharArray()) {
+            if (character == quote || character == '\\') {
+                escaped.append('\\').append(character);
+            } else if (character < ' ') {
+                escaped.append(String.format("\\%03o", Integer.valueOf(character)));
+            } else if (character > '~') {
+                escaped.append(String.format("\\u%04x", Integer.valueOf(character)));
+            } else {
+                escaped.append(character);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * A annotation value, which can not be written as constant.
+     */
+    private static final class UnsupportedValueException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedValueException(String message) {
+            super(message);
+        }
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang;
+
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@Test
+public class AnnotationIndexFileTest {
+
+    private static final String ANNOTATED = "de.javanarior.utils.lang.ClassFileReaderTest$Annotated";
+    private static final String DESCRIBED = "de.javanarior.utils.lang.ClassFileReaderTest$Described";
+    private static final String DESCRIBE = "(ILjava/lang/String;)Ljava/lang/String;";
+
+    private byte[] content;
+
+    @BeforeClass
+    public void writeIndex() throws IOException {
+        content = new AnnotationIndexFileWriter()
+                        .add(new ByteCodeContainer(ANNOTATED, ClassFileReaderTest.readOwnByteCode(
+                                        "ClassFileReaderTest$Annotated")))
+                        .add(new ByteCodeContainer("de.javanarior.utils.lang.ClassFileReaderTest",
+                                        ClassFileReaderTest.readOwnByteCode("ClassFileReaderTest")))
+                        .add(new ByteCodeContainer("de.javanarior.utils.lang.AnnotationIndexFileTest",
+                                        ClassFileReaderTest.readOwnByteCode("AnnotationIndexFileTest")))
+                        .toByteArray();
+    }
+
+    public void testOpen() throws IOException {
+        Path indexFile = Files.createTempFile("annotations", ".idx");
+        try {
+            Files.write(indexFile, content);
+            AnnotationIndexFile index = AnnotationIndexFile.open(indexFile);
+            Assert.assertTrue(index.contains(ANNOTATED));
+            Assert.assertEquals(index.getAnnotation(ANNOTATED, DESCRIBED).get("value"), "annotated");
+        } finally {
+            Files.delete(indexFile);
+        }
+    }
+
+    public void testModifiedUtf8Value() throws IOException {
+        String tagged = "de.javanarior.utils.lang.AnnotationScannerTest$Tagged";
+        byte[] tagIndex = new AnnotationIndexFileWriter().add(new ByteCodeContainer(tagged,
+                        ClassFileReaderTest.readOwnByteCode("AnnotationScannerTest$Tagged"))).toByteArray();
+        ClassFileAnnotation annotation = AnnotationIndexFile.of(ByteBuffer.wrap(tagIndex)).getAnnotation(tagged,
+                        "de.javanarior.utils.lang.AnnotationScannerTest$Tag");
+        Assert.assertEquals(annotation.get("value"), "a\u0000b\uD83D\uDE00");
+    }
+
+    public void testClassAnnotations() {
+        AnnotationIndexFile index = AnnotationIndexFile.of(ByteBuffer.wrap(content));
+        Assert.assertEquals(index.getClassCount(), 3);
+        ClassFileAnnotation annotation = index.getAnnotation(ANNOTATED, DESCRIBED);
+        Assert.assertEquals(annotation.getTypeName(), DESCRIBED);
+        Assert.assertEquals(annotation.get("number"), Long.valueOf(42L));
+        Assert.assertEquals(annotation.get("flag"), Boolean.TRUE);
+        Assert.assertEquals(annotation.get("kind"),
+                        new ClassFileAnnotation.EnumConstant("java.lang.annotation.ElementType", "METHOD"));
+        Assert.assertEquals(annotation.get("type"), new ClassFileAnnotation.ClassReference("[Ljava.lang.String;"));
+        Assert.assertEquals(annotation.get("names"), Arrays.asList("first", "second"));
+        Assert.assertEquals(index.getAnnotations(ANNOTATED), Collections.singletonList(annotation));
+    }
+
+    public void testMethodAnnotations() {
+        AnnotationIndexFile index = AnnotationIndexFile.of(ByteBuffer.wrap(content));
+        ClassFileAnnotation annotation = index.getMethodAnnotation(ANNOTATED, "describe", DESCRIBE, DESCRIBED);
+        Assert.assertEquals(annotation.get("value"), "method");
+        Assert.assertEquals(annotation.get("kind"),
+                        new ClassFileAnnotation.EnumConstant("java.lang.annotation.ElementType",
+                                        ElementType.PARAMETER.name()));
+        Assert.assertEquals(index.getMethodAnnotations(ANNOTATED, "describe", DESCRIBE).size(), 1);
+        Assert.assertNull(index.getMethodAnnotation(ANNOTATED, "<init>", "()V", DESCRIBED));
+        Assert.assertEquals(index.getMethodAnnotations(ANNOTATED, "unknown", "()V"), Collections.emptyList());
+    }
+
+    public void testParameterAnnotations() {
+        AnnotationIndexFile index = AnnotationIndexFile.of(ByteBuffer.wrap(content));
+        ClassFileAnnotation annotation = index.getParameterAnnotation(ANNOTATED, "describe", DESCRIBE, 1, DESCRIBED);
+        Assert.assertEquals(annotation.get("value"), "parameter");
+        Assert.assertEquals(annotation.get("names"), Arrays.asList("only"));
+        Assert.assertNull(index.getParameterAnnotation(ANNOTATED, "describe", DESCRIBE, 0, DESCRIBED));
+        Assert.assertNull(index.getParameterAnnotation(ANNOTATED, "describe", DESCRIBE, 2, DESCRIBED));
+    }
+
+    public void testAnnotatedClassNames() {
+        AnnotationIndexFile index = AnnotationIndexFile.of(ByteBuffer.wrap(content));
+        Assert.assertEquals(index.getAnnotatedClassNames(DESCRIBED), Collections.singletonList(ANNOTATED));
+        Assert.assertEquals(index.getAnnotatedClassNames("org.testng.annotations.Test"), Arrays.asList(
+                        "de.javanarior.utils.lang.AnnotationIndexFileTest",
+                        "de.javanarior.utils.lang.ClassFileReaderTest"));
+        Assert.assertEquals(index.getAnnotatedClassNames("java.lang.Deprecated"), Collections.emptyList());
+    }
+
+    public void testUnknownClass() {
+        AnnotationIndexFile index = AnnotationIndexFile.of(ByteBuffer.wrap(content));
+        Assert.assertFalse(index.contains("de.javanarior.utils.lang.TestMe"));
+        Assert.assertNull(index.getAnnotation("de.javanarior.utils.lang.TestMe", DESCRIBED));
+        Assert.assertEquals(index.getAnnotations("de.javanarior.utils.lang.TestMe"), Collections.emptyList());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*version.*")
+    public void testUnsupportedVersion() {
+        byte[] modified = content.clone();
+        modified[5] = 2;
+        AnnotationIndexFile.of(ByteBuffer.wrap(modified));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Checksum.*")
+    public void testCorruptFile() {
+        byte[] modified = content.clone();
+        modified[modified.length - 1]++;
+        AnnotationIndexFile.of(ByteBuffer.wrap(modified));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNoIndexFile() {
+        AnnotationIndexFile.of(ByteBuffer.wrap(new byte[] { 1, 2, 3, 4 }));
+    }
+
+}
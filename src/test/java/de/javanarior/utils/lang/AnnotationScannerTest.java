@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test
+public class AnnotationScannerTest {
+
+    private static final String DESCRIBED = "de.javanarior.utils.lang.ClassFileReaderTest$Described";
+    private static final String ANNOTATED = "de.javanarior.utils.lang.ClassFileReaderTest$Annotated";
+    private static final String TAG = "de.javanarior.utils.lang.AnnotationScannerTest$Tag";
+
+    public void testScanContainers() throws IOException {
+        List<ScannedClass> found = new AnnotationScanner(DESCRIBED).scan(containers());
+        Assert.assertEquals(found.size(), 1);
+        ScannedClass scanned = found.get(0);
+        Assert.assertEquals(scanned.getClassName(), ANNOTATED);
+        Assert.assertEquals(scanned.getAnnotations().size(), 1);
+        Assert.assertEquals(scanned.getAnnotation(DESCRIBED).get("value"), "annotated");
+        Assert.assertNull(scanned.getAnnotation("java.lang.Deprecated"));
+    }
+
+    public void testScanWithoutMatch() throws IOException {
+        Assert.assertTrue(new AnnotationScanner("java.lang.Deprecated").scan(containers()).isEmpty());
+    }
+
+    public void testScanDirectory() throws IOException {
+        Path directory = Files.createTempDirectory("scan");
+        for (ByteCodeContainer container : containers()) {
+            Path file = directory.resolve(container.getClassName().replace('.', '/') + ".class");
+            Files.createDirectories(file.getParent());
+            Files.write(file, container.getByteCode());
+        }
+        List<ScannedClass> found = new AnnotationScanner(DESCRIBED).scan(directory);
+        Assert.assertEquals(found.size(), 1);
+        Assert.assertEquals(found.get(0).getClassName(), ANNOTATED);
+    }
+
+    public void testScanJar() throws IOException {
+        Path jar = Files.createTempFile("scan", ".jar");
+        try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+            for (ByteCodeContainer container : containers()) {
+                writeEntry(output, container.getClassName().replace('.', '/') + ".class", container);
+            }
+            writeEntry(output, "META-INF/versions/9/" + ANNOTATED.replace('.', '/') + ".class", containers().get(1));
+        }
+        List<ScannedClass> found = new AnnotationScanner(DESCRIBED).scan(jar);
+        Assert.assertEquals(found.size(), 1);
+        Assert.assertEquals(found.get(0).getClassName(), ANNOTATED);
+    }
+
+    public void testLoad() throws IOException {
+        ScannedClass scanned = new AnnotationScanner(DESCRIBED).scan(containers()).get(0);
+        Assert.assertEquals(scanned.load(), ClassFileReaderTest.Annotated.class);
+    }
+
+    public void testModifiedUtf8() throws IOException {
+        ScannedClass scanned = new AnnotationScanner(TAG).scan(new ByteCodeContainer(
+                        "de.javanarior.utils.lang.AnnotationScannerTest$Tagged",
+                        ClassFileReaderTest.readOwnByteCode("AnnotationScannerTest$Tagged")));
+        Assert.assertNotNull(scanned);
+        Assert.assertEquals(scanned.getAnnotation(TAG).get("value"), "a\u0000b\uD83D\uDE00");
+    }
+
+    public void testModifiedUtf8Descriptor() throws IOException {
+        String descriptor = "Lde/\u00E9t\u00E9/\uD801\uDC00;";
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeUTF(descriptor);
+        }
+        byte[] expected = bytes.toByteArray();
+        Assert.assertEquals(ClassFiles.modifiedUtf8(descriptor), Arrays.copyOfRange(expected, 2, expected.length));
+    }
+
+    private static void writeEntry(ZipOutputStream output, String name, ByteCodeContainer container)
+                    throws IOException {
+        output.putNextEntry(new ZipEntry(name));
+        output.write(container.getByteCode());
+        output.closeEntry();
+    }
+
+    private static List<ByteCodeContainer> containers() throws IOException {
+        return Arrays.asList(
+                        new ByteCodeContainer("de.javanarior.utils.lang.ClassFileReaderTest",
+                                        ClassFileReaderTest.readOwnByteCode("ClassFileReaderTest")),
+                        new ByteCodeContainer(ANNOTATED,
+                                        ClassFileReaderTest.readOwnByteCode("ClassFileReaderTest$Annotated")));
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Tag {
+        String value();
+    }
+
+    @Tag("a\u0000b\uD83D\uDE00")
+    static class Tagged {
+        // only used for the annotation
+    }
+
+}
@@ -16,11 +16,31 @@
 package de.javanarior.utils.lang;
 
 import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
 
 import org.testng.Assert;
+import org.testng.SkipException;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -29,6 +49,20 @@ import org.testng.annotations.Test;
 public class ByteCodeClassLoaderTest {
 
     private static final String CLASS_NAME = "de.javanarior.utils.lang.TestMe";
+    private static final int THREADS = 8;
+    private static final AtomicInteger CLASS_NUMBER = new AtomicInteger();
+
+    private static final String[][] RELATED = {
+        { "batch/Named.java", "package batch;", "public interface Named {", "    String name();", "}" },
+        { "batch/Base.java", "package batch;", "public abstract class Base implements Named {",
+            "    public String name() {", "        return new Helper().describe(this);", "    }", "}" },
+        { "batch/Child.java", "package batch;", "public class Child extends Base {", "}" },
+        { "batch/Helper.java", "package batch;", "public class Helper {", "    String describe(Named named) {",
+            "        return named instanceof Child ? \"child\" : \"other\";", "    }", "}" },
+        { "cycle/A.java", "package cycle;", "public class A extends Y {", "}" },
+        { "cycle/B.java", "package cycle;", "public class B extends Z {", "}" },
+        { "cycle/Y.java", "package cycle;", "public class Y {", "}" },
+        { "cycle/Z.java", "package cycle;", "public class Z {", "}" } };
     private ByteCodeClassLoader classLoader;
 
     @BeforeMethod
@@ -80,6 +114,364 @@ public class ByteCodeClassLoaderTest {
         Assert.assertSame(first, second);
     }
 
+    public void testConcurrentLoadOfSameClass() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < 20; round++) {
+                final ByteCodeContainer container = renamedTestMe();
+                final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+                List<Future<Class<?>>> results = new ArrayList<>();
+                long definedBefore = classLoader.getDefinedClassCount();
+                for (int thread = 0; thread < THREADS; thread++) {
+                    results.add(executor.submit(new Callable<Class<?>>() {
+
+                        @Override
+                        public Class<?> call() throws Exception {
+                            barrier.await();
+                            return classLoader.load(container);
+                        }
+                    }));
+                }
+                Class<?> first = results.get(0).get();
+                Assert.assertEquals(first.getName(), container.getClassName());
+                for (Future<Class<?>> result : results) {
+                    Assert.assertSame(result.get(), first);
+                }
+                Assert.assertEquals(classLoader.getDefinedClassCount() - definedBefore, 1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public void testConcurrentLoadOfDifferentClasses() throws Exception {
+        final int classesPerThread = 50;
+        final List<List<ByteCodeContainer>> containers = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            List<ByteCodeContainer> containersOfThread = new ArrayList<>();
+            for (int index = 0; index < classesPerThread; index++) {
+                containersOfThread.add(renamedTestMe());
+            }
+            containers.add(containersOfThread);
+        }
+        final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            long definedBefore = classLoader.getDefinedClassCount();
+            List<Future<List<Class<?>>>> results = new ArrayList<>();
+            for (final List<ByteCodeContainer> containersOfThread : containers) {
+                results.add(executor.submit(new Callable<List<Class<?>>>() {
+
+                    @Override
+                    public List<Class<?>> call() throws Exception {
+                        barrier.await();
+                        List<Class<?>> loaded = new ArrayList<>();
+                        for (ByteCodeContainer container : containersOfThread) {
+                            loaded.add(classLoader.load(container));
+                        }
+                        return loaded;
+                    }
+                }));
+            }
+            Set<Class<?>> loaded = new HashSet<>();
+            for (Future<List<Class<?>>> result : results) {
+                loaded.addAll(result.get());
+            }
+            Assert.assertEquals(loaded.size(), THREADS * classesPerThread);
+            Assert.assertEquals(classLoader.getDefinedClassCount() - definedBefore, THREADS * classesPerThread);
+            for (Class<?> clazz : loaded) {
+                Assert.assertSame(clazz.getClassLoader(), classLoader);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public void testBlockedLoadDoesNotBlockOtherClasses() throws Exception {
+        ByteCodeContainer blockedContainer = renamedTestMe();
+        final BlockingClassLoader parent = new BlockingClassLoader(blockedContainer.getClassName());
+        final ByteCodeClassLoader ownClassLoader = new ByteCodeClassLoader(parent);
+        final ByteCodeContainer other = renamedTestMe();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Class<?>> blocked = executor.submit(loading(ownClassLoader, blockedContainer));
+            // the first load holds the lock of its class name while the parent blocks
+            Assert.assertTrue(parent.entered.await(10, TimeUnit.SECONDS));
+            Class<?> loaded = executor.submit(loading(ownClassLoader, other)).get(10, TimeUnit.SECONDS);
+            Assert.assertEquals(loaded.getName(), other.getClassName());
+            Assert.assertFalse(blocked.isDone());
+            parent.release.countDown();
+            Assert.assertEquals(blocked.get(10, TimeUnit.SECONDS).getName(), blockedContainer.getClassName());
+        } finally {
+            parent.release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static Callable<Class<?>> loading(final ByteCodeClassLoader loader, final ByteCodeContainer container) {
+        return new Callable<Class<?>>() {
+
+            @Override
+            public Class<?> call() {
+                return loader.load(container);
+            }
+        };
+    }
+
+    public void testLoadRelatedClassesInDependencyOrder() throws Exception {
+        Path classes = compileRelated();
+        List<ByteCodeContainer> containers = Arrays.asList(container(classes, "batch.Child"),
+                        container(classes, "batch.Helper"), container(classes, "batch.Base"),
+                        container(classes, "batch.Named"));
+        long definedBefore = classLoader.getDefinedClassCount();
+        List<Class<?>> loaded = classLoader.load(containers);
+        Assert.assertEquals(classLoader.getDefinedClassCount() - definedBefore, 4);
+        Assert.assertEquals(loaded.size(), 4);
+        for (int index = 0; index < loaded.size(); index++) {
+            Assert.assertEquals(loaded.get(index).getName(), containers.get(index).getClassName());
+            Assert.assertSame(classLoader.loadClass(containers.get(index).getClassName()), loaded.get(index));
+        }
+        Class<?> child = loaded.get(0);
+        Assert.assertSame(child.getSuperclass(), loaded.get(2));
+        Object name = child.getMethod("name").invoke(child.newInstance());
+        Assert.assertEquals(name, "child");
+        Assert.assertEquals(classLoader.load(containers), loaded);
+        Assert.assertEquals(classLoader.getDefinedClassCount() - definedBefore, 4);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Cyclic.*")
+    public void testLoadClassesWithCyclicInheritance() throws Exception {
+        Path classes = compileRelated();
+        byte[] first = replace(Files.readAllBytes(classes.resolve("cycle/A.class")), "cycle/Y", "cycle/B");
+        byte[] second = replace(Files.readAllBytes(classes.resolve("cycle/B.class")), "cycle/Z", "cycle/A");
+        classLoader.load(Arrays.asList(new ByteCodeContainer("cycle.A", first),
+                        new ByteCodeContainer("cycle.B", second)));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testLoadClassesWithDuplicateName() throws Exception {
+        ByteCodeContainer container = new ByteCodeContainer(CLASS_NAME, readByteCode());
+        classLoader.load(Arrays.asList(container, container));
+    }
+
+    public void testParentIsAskedOnceForOtherClasses() throws Exception {
+        CountingClassLoader parent = new CountingClassLoader();
+        ByteCodeClassLoader ownClassLoader = new ByteCodeClassLoader(parent);
+        ByteCodeContainer container = renamedTestMe();
+        Class<?> loaded = ownClassLoader.load(container);
+        Assert.assertSame(loaded.getClassLoader(), ownClassLoader);
+        Assert.assertSame(ownClassLoader.load(container), loaded);
+        Assert.assertEquals(parent.lookups(container.getClassName()), 1);
+        Assert.assertEquals(parent.resourceCount.get(), 0);
+    }
+
+    public void testBatchSkipsParent() throws Exception {
+        CountingClassLoader parent = new CountingClassLoader();
+        ByteCodeClassLoader ownClassLoader = new ByteCodeClassLoader(parent);
+        List<ByteCodeContainer> containers = Arrays.asList(renamedTestMe(), renamedTestMe());
+        List<Class<?>> loaded = ownClassLoader.load(containers);
+        for (int index = 0; index < containers.size(); index++) {
+            Assert.assertSame(loaded.get(index).getClassLoader(), ownClassLoader);
+            Assert.assertEquals(parent.lookups(containers.get(index).getClassName()), 0);
+        }
+    }
+
+    public void testGeneratedPackageSkipsParent() throws Exception {
+        CountingClassLoader parent = new CountingClassLoader();
+        ByteCodeClassLoader ownClassLoader = new ByteCodeClassLoader(parent);
+        ownClassLoader.addGeneratedPackage("de.javanarior.utils.lang");
+        ByteCodeContainer container = renamedTestMe();
+        Assert.assertSame(ownClassLoader.load(container).getClassLoader(), ownClassLoader);
+        Assert.assertEquals(parent.lookups(container.getClassName()), 0);
+    }
+
+    public void testUnknownNamesAreBounded() throws Exception {
+        CountingClassLoader parent = new CountingClassLoader();
+        ByteCodeClassLoader ownClassLoader = new ByteCodeClassLoader(parent);
+        ByteCodeContainer first = renamedTestMe();
+        byte[] truncated = Arrays.copyOf(first.getByteCode(), 16);
+        for (int index = 0; index <= ByteCodeClassLoader.MAX_UNKNOWN_NAMES; index++) {
+            String name = index == 0 ? first.getClassName() : "unknown.Name" + index;
+            try {
+                ownClassLoader.load(name, truncated);
+                Assert.fail("ClassFormatError expected");
+            } catch (ClassFormatError expected) {
+                // only the parent lookup is of interest
+            }
+        }
+        // the first name was evicted as least recently used
+        ownClassLoader.load(first);
+        Assert.assertEquals(parent.lookups(first.getClassName()), 2);
+    }
+
+    public void testRetriedDefinitionSkipsParent() throws Exception {
+        CountingClassLoader parent = new CountingClassLoader();
+        ByteCodeClassLoader ownClassLoader = new ByteCodeClassLoader(parent);
+        ByteCodeContainer container = renamedTestMe();
+        byte[] truncated = Arrays.copyOf(container.getByteCode(), 16);
+        try {
+            ownClassLoader.load(container.getClassName(), truncated);
+            Assert.fail("ClassFormatError expected");
+        } catch (ClassFormatError expected) {
+            // retried below with the complete bytecode
+        }
+        Assert.assertSame(ownClassLoader.load(container).getClassLoader(), ownClassLoader);
+        Assert.assertEquals(parent.lookups(container.getClassName()), 1);
+    }
+
+    public void testInvalidateCachesAsksParentAgain() throws Exception {
+        CountingClassLoader parent = new CountingClassLoader();
+        ByteCodeClassLoader ownClassLoader = new ByteCodeClassLoader(parent);
+        ByteCodeContainer container = renamedTestMe();
+        byte[] truncated = Arrays.copyOf(container.getByteCode(), 16);
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                ownClassLoader.load(container.getClassName(), truncated);
+                Assert.fail("ClassFormatError expected");
+            } catch (ClassFormatError expected) {
+                ownClassLoader.invalidateCaches();
+            }
+        }
+        Assert.assertEquals(parent.lookups(container.getClassName()), 2);
+    }
+
+    public void testClassOfParentIsPreferred() throws Exception {
+        CountingClassLoader parent = new CountingClassLoader();
+        ByteCodeClassLoader ownClassLoader = new ByteCodeClassLoader(parent);
+        Class<?> loaded = ownClassLoader.load(ClassFileReader.class.getName(), readByteCode());
+        Assert.assertSame(loaded, ClassFileReader.class);
+        Assert.assertEquals(ownClassLoader.getDefinedClassCount(), 0);
+        Assert.assertTrue(parent.loadedNames.contains(ClassFileReader.class.getName()));
+    }
+
+    private static Path compileRelated() throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new SkipException("No java compiler available");
+        }
+        Path sources = Files.createTempDirectory("sources");
+        Path classes = Files.createTempDirectory("classes");
+        List<String> arguments = new ArrayList<>(Arrays.asList("-d", classes.toString()));
+        for (String[] source : RELATED) {
+            Path file = sources.resolve(source[0]);
+            Files.createDirectories(file.getParent());
+            Files.write(file, Arrays.asList(source).subList(1, source.length), StandardCharsets.UTF_8);
+            arguments.add(file.toString());
+        }
+        Assert.assertEquals(compiler.run(null, null, null, arguments.toArray(new String[arguments.size()])), 0);
+        return classes;
+    }
+
+    private static ByteCodeContainer container(Path classes, String className) throws IOException {
+        byte[] byteCode = Files.readAllBytes(classes.resolve(className.replace('.', '/') + ".class"));
+        return new ByteCodeContainer(className, byteCode);
+    }
+
+    /**
+     * Returns the bytecode of TestMe under a new, not yet loaded name. The
+     * new simple name has the same length, so only the name bytes in the
+     * constant pool change.
+     */
+    private ByteCodeContainer renamedTestMe() throws IOException {
+        String simpleName = String.format("Tm%04d", CLASS_NUMBER.incrementAndGet());
+        byte[] byteCode = replace(readByteCode(), "de/javanarior/utils/lang/TestMe",
+                        "de/javanarior/utils/lang/" + simpleName);
+        return new ByteCodeContainer("de.javanarior.utils.lang." + simpleName, byteCode);
+    }
+
+    /**
+     * Replaces every occurrence of {@code original} in {@code byteCode} with
+     * {@code replacement} of the same length.
+     */
+    private static byte[] replace(byte[] byteCode, String original, String replacement) {
+        byte[] originalBytes = original.getBytes(StandardCharsets.US_ASCII);
+        byte[] replacementBytes = replacement.getBytes(StandardCharsets.US_ASCII);
+        for (int index = 0; index + originalBytes.length <= byteCode.length; index++) {
+            if (startsWith(byteCode, index, originalBytes)) {
+                System.arraycopy(replacementBytes, 0, byteCode, index, replacementBytes.length);
+            }
+        }
+        return byteCode;
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, byte[] prefix) {
+        for (int index = 0; index < prefix.length; index++) {
+            if (bytes[offset + index] != prefix[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Classloader delegating to the classloader of the test, which records
+     * the requested classes and counts the resource lookups.
+     */
+    private static final class CountingClassLoader extends ClassLoader {
+
+        private final List<String> loadedNames = Collections.synchronizedList(new ArrayList<String>());
+        private final AtomicInteger resourceCount = new AtomicInteger();
+
+        CountingClassLoader() {
+            super(ByteCodeClassLoaderTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            loadedNames.add(name);
+            return super.loadClass(name, resolve);
+        }
+
+        @Override
+        public URL getResource(String name) {
+            resourceCount.incrementAndGet();
+            return super.getResource(name);
+        }
+
+        int lookups(String name) {
+            return Collections.frequency(loadedNames, name);
+        }
+    }
+
+    /**
+     * Parent which blocks every lookup of one class name until it is
+     * released.
+     */
+    private static final class BlockingClassLoader extends ClassLoader {
+
+        private final String blockedName;
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        BlockingClassLoader(String blockedName) {
+            super(ByteCodeClassLoaderTest.class.getClassLoader());
+            this.blockedName = blockedName;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            block(name);
+            return super.loadClass(name, resolve);
+        }
+
+        @Override
+        public URL getResource(String name) {
+            block(name.replace('/', '.').replaceAll("\\.class$", ""));
+            return super.getResource(name);
+        }
+
+        private void block(String name) {
+            if (name.equals(blockedName)) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
     private byte[] readByteCode() throws IOException {
         Path file = Paths.get("src/test/resources/de.javanarior.utils.lang.TestMe.class");
         return Files.readAllBytes(file);
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test
+public class ClassFileReaderTest {
+
+    public void testClassNames() throws IOException {
+        ClassFileReader classFile = ClassFileReader.read(readByteCode("de.javanarior.utils.lang.WithParameterNames"));
+        Assert.assertEquals(classFile.getClassName(), "de.javanarior.utils.lang.WithParameterNames");
+        Assert.assertEquals(classFile.getSuperClassName(), "java.lang.Object");
+        Assert.assertEquals(classFile.getInterfaceNames(), Arrays.asList("java.io.Serializable", "java.lang.Runnable"));
+    }
+
+    public void testParameterNamesFromMethodParameters() throws IOException {
+        ClassFileReader classFile = ClassFileReader.read(readByteCode("de.javanarior.utils.lang.WithParameterNames"));
+        Assert.assertEquals(classFile.getParameterNames("<init>", "(Ljava/lang/String;)V"), new String[] { "label" });
+        Assert.assertEquals(classFile.getParameterNames("add", "(JI)J"), new String[] { "first", "second" });
+        Assert.assertEquals(classFile.getParameterNames("greet", "(Ljava/lang/String;[D)Ljava/lang/String;"),
+                        new String[] { "name", "values" });
+    }
+
+    public void testParameterNamesFromLocalVariableTable() throws IOException {
+        ClassFileReader classFile = ClassFileReader.read(readOwnByteCode("ClassFileReaderTest"));
+        Assert.assertEquals(classFile.getParameterNames("withParameters", "(J[Ljava/lang/String;D)V"),
+                        new String[] { "first", "second", "third" });
+        Assert.assertEquals(classFile.getParameterNames("withParameters", "(I)V"), new String[] { "only" });
+    }
+
+    public void testMissingParameterNames() throws IOException {
+        ClassFileReader classFile = ClassFileReader.read(readByteCode("de.javanarior.utils.lang.TestMe"));
+        Assert.assertNull(classFile.getParameterNames("unknown", "()V"));
+        Assert.assertEquals(classFile.getParameterNames("testMe", "()Ljava/lang/String;"), new String[0]);
+    }
+
+    public void testAnnotations() throws IOException {
+        ClassFileReader classFile = ClassFileReader.read(readOwnByteCode("ClassFileReaderTest$Annotated"));
+        Assert.assertEquals(classFile.getAnnotations().size(), 1);
+        String typeName = "de.javanarior.utils.lang.ClassFileReaderTest$Described";
+        ClassFileAnnotation annotation = classFile.getAnnotation(typeName);
+        Assert.assertEquals(annotation.getTypeName(), typeName);
+        Assert.assertEquals(annotation.get("value"), "annotated");
+        Assert.assertEquals(annotation.get("number"), Long.valueOf(42L));
+        Assert.assertEquals(annotation.get("flag"), Boolean.TRUE);
+        Assert.assertEquals(annotation.get("kind"),
+                        new ClassFileAnnotation.EnumConstant("java.lang.annotation.ElementType", "METHOD"));
+        Assert.assertEquals(annotation.get("type"), new ClassFileAnnotation.ClassReference("[Ljava.lang.String;"));
+        Assert.assertEquals(annotation.get("names"), Arrays.asList("first", "second"));
+        Assert.assertFalse(annotation.getValues().containsKey("defaulted"));
+    }
+
+    public void testMethodAnnotations() throws IOException {
+        ClassFileReader classFile = ClassFileReader.read(readOwnByteCode("ClassFileReaderTest$Annotated"));
+        Assert.assertTrue(classFile.getMethods().contains("describe(ILjava/lang/String;)Ljava/lang/String;"));
+        List<ClassFileAnnotation> annotations = classFile.getMethodAnnotations("describe",
+                        "(ILjava/lang/String;)Ljava/lang/String;");
+        Assert.assertEquals(annotations.size(), 1);
+        Assert.assertEquals(annotations.get(0).get("value"), "method");
+        Assert.assertEquals(annotations.get(0).get("type"), new ClassFileAnnotation.ClassReference("int"));
+        Assert.assertEquals(annotations.get(0).get("names"), Collections.emptyList());
+        Assert.assertEquals(classFile.getMethodAnnotations("<init>", "()V"), Collections.emptyList());
+    }
+
+    public void testParameterAnnotations() throws IOException {
+        ClassFileReader classFile = ClassFileReader.read(readOwnByteCode("ClassFileReaderTest$Annotated"));
+        List<List<ClassFileAnnotation>> parameters = classFile.getParameterAnnotations(
+                        "describe", "(ILjava/lang/String;)Ljava/lang/String;");
+        Assert.assertEquals(parameters.size(), 2);
+        Assert.assertEquals(parameters.get(0), Collections.emptyList());
+        ClassFileAnnotation annotation = parameters.get(1).get(0);
+        Assert.assertEquals(annotation.get("value"), "parameter");
+        Assert.assertEquals(annotation.get("type"), new ClassFileAnnotation.ClassReference(
+                        "de.javanarior.utils.lang.ClassFileReaderTest$Annotated"));
+        Assert.assertEquals(annotation.get("names"), Arrays.asList("only"));
+        Assert.assertEquals(classFile.getParameterAnnotations("unknown", "()V"), Collections.emptyList());
+    }
+
+    public void testNoAnnotations() throws IOException {
+        ClassFileReader classFile = ClassFileReader.read(readByteCode("de.javanarior.utils.lang.WithParameterNames"));
+        Assert.assertEquals(classFile.getAnnotations(), Collections.emptyList());
+        Assert.assertNull(classFile.getAnnotation("de.javanarior.utils.lang.ClassFileReaderTest$Described"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNoClassFile() {
+        ClassFileReader.read(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTruncatedClassFile() throws IOException {
+        byte[] byteCode = readByteCode("de.javanarior.utils.lang.TestMe");
+        ClassFileReader.read(Arrays.copyOf(byteCode, byteCode.length / 2));
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Described {
+        String value();
+
+        long number();
+
+        boolean flag();
+
+        ElementType kind();
+
+        Class<?> type();
+
+        String[] names();
+
+        String defaulted() default "default";
+    }
+
+    @Described(value = "annotated", number = 42L, flag = true, kind = ElementType.METHOD, type = String[].class,
+                    names = { "first", "second" })
+    static class Annotated {
+
+        @Described(value = "method", number = 1L, flag = false, kind = ElementType.PARAMETER, type = int.class,
+                        names = {})
+        String describe(int count, @Described(value = "parameter", number = 2L, flag = true,
+                        kind = ElementType.TYPE, type = Annotated.class, names = "only") String label) {
+            return label + count;
+        }
+    }
+
+    static void withParameters(long first, String[] second, double third) {
+        // only used for the parameter names
+    }
+
+    void withParameters(int only) {
+        // only used for the parameter names
+    }
+
+    private static byte[] readByteCode(String className) throws IOException {
+        return Files.readAllBytes(Paths.get("src/test/resources/" + className + ".class"));
+    }
+
+    static byte[] readOwnByteCode(String simpleName) throws IOException {
+        try (InputStream input = ClassFileReaderTest.class.getResourceAsStream(simpleName + ".class")) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+                output.write(buffer, 0, read);
+            }
+            return output.toByteArray();
+        }
+    }
+
+}
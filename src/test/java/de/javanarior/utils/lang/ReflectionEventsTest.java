@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang;
+
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.javanarior.utils.lang.reflect.Invoke;
+import de.javanarior.utils.lang.reflect.Retrieve;
+
+@Test
+public class ReflectionEventsTest {
+
+    private RecordingListener listener;
+
+    @BeforeMethod
+    public void register() {
+        listener = new RecordingListener();
+        ReflectionEvents.addListener(listener);
+    }
+
+    @AfterMethod
+    public void unregister() {
+        ReflectionEvents.removeListener(listener);
+    }
+
+    public void testEnabled() {
+        Assert.assertTrue(ReflectionEvents.isEnabled());
+        ReflectionEvents.removeListener(listener);
+        Assert.assertFalse(ReflectionEvents.isEnabled());
+    }
+
+    public void testClassDefinition() throws IOException {
+        String className = "de.javanarior.utils.lang.TestMe";
+        byte[] byteCode = Files.readAllBytes(Paths.get("src/test/resources/" + className + ".class"));
+        ByteCodeClassLoader classLoader = ByteCodeClassLoader.getClassLoader();
+        long definedBefore = classLoader.getDefinedClassCount();
+        classLoader.load(className, byteCode);
+        boolean defined = classLoader.getDefinedClassCount() > definedBefore;
+        classLoader.load(className, byteCode);
+        List<ReflectionEvent> events = listener.events(ReflectionEvent.Kind.CLASS_DEFINITION, className);
+        Assert.assertEquals(events.size(), 2);
+        Assert.assertEquals(events.get(0).isCacheHit(), !defined);
+        Assert.assertTrue(events.get(1).isCacheHit());
+        Assert.assertNull(events.get(1).getMember());
+        Assert.assertTrue(events.get(1).getDurationNanos() >= 0);
+    }
+
+    public void testConstructorResolution() {
+        Invoke.invalidateCaches(Resolved.class);
+        Invoke.invokeConstructor(Resolved.class);
+        Invoke.invokeConstructor(Resolved.class);
+        List<ReflectionEvent> events = listener.events(ReflectionEvent.Kind.CONSTRUCTOR_RESOLUTION,
+                        Resolved.class.getName());
+        Assert.assertEquals(events.size(), 2);
+        Assert.assertFalse(events.get(0).isCacheHit());
+        Assert.assertTrue(events.get(1).isCacheHit());
+        Assert.assertEquals(events.get(0).getMember(), "<init>[]");
+    }
+
+    public void testMethodResolution() {
+        Invoke.invalidateCaches(Resolved.class);
+        Invoke.methodInvoker(Resolved.class, "name");
+        Invoke.tryMethodInvoker(Resolved.class, "name");
+        Invoke.invoke(new Resolved(), "name");
+        List<ReflectionEvent> events = listener.events(ReflectionEvent.Kind.METHOD_RESOLUTION,
+                        Resolved.class.getName());
+        Assert.assertEquals(events.size(), 2);
+        Assert.assertFalse(events.get(0).isCacheHit());
+        Assert.assertTrue(events.get(1).isCacheHit());
+        Assert.assertTrue(events.get(0).getMember().startsWith("name"));
+        Assert.assertEquals(listener.events(ReflectionEvent.Kind.OVERLOAD_RESOLUTION, Resolved.class.getName())
+                        .size(), 1);
+    }
+
+    public void testAnnotationLookup() throws NoSuchMethodException {
+        Retrieve.annotationValueOnClass(Marked.class, Resolved.class);
+        Retrieve.annotationValueOnMethod(Marked.class, Resolved.class.getMethod("name"));
+        List<ReflectionEvent> events = listener.events(ReflectionEvent.Kind.ANNOTATION_LOOKUP,
+                        Resolved.class.getName());
+        Assert.assertEquals(events.size(), 2);
+        Assert.assertNull(events.get(0).getMember());
+        Assert.assertTrue(events.get(1).isCacheHit());
+        Assert.assertEquals(events.get(1).getMember(), "name[]");
+    }
+
+    public void testListenerExceptionIsIgnored() throws IOException {
+        String className = "de.javanarior.utils.lang.TestMe";
+        byte[] byteCode = Files.readAllBytes(Paths.get("src/test/resources/" + className + ".class"));
+        ReflectionEventListener failing = new ReflectionEventListener() {
+            @Override
+            public void onEvent(ReflectionEvent event) {
+                throw new IllegalStateException("TestMe");
+            }
+        };
+        ReflectionEvents.removeListener(listener);
+        ReflectionEvents.addListener(failing);
+        ReflectionEvents.addListener(listener);
+        try {
+            Assert.assertEquals(ByteCodeClassLoader.getClassLoader().load(className, byteCode).getName(), className);
+            Assert.assertEquals(listener.events(ReflectionEvent.Kind.CLASS_DEFINITION, className).size(), 1);
+        } finally {
+            ReflectionEvents.removeListener(failing);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNullListener() {
+        ReflectionEvents.addListener(null);
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Marked {
+        String value();
+    }
+
+    @Marked("class")
+    public static class Resolved {
+
+        @Marked("method")
+        public String name() {
+            return "resolved";
+        }
+    }
+
+    private static final class RecordingListener implements ReflectionEventListener {
+
+        private final List<ReflectionEvent> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onEvent(ReflectionEvent event) {
+            events.add(event);
+        }
+
+        List<ReflectionEvent> events(ReflectionEvent.Kind kind, String className) {
+            List<ReflectionEvent> found = new ArrayList<>();
+            for (ReflectionEvent event : events) {
+                if (event.getKind() == kind && className.equals(event.getClassName())) {
+                    found.add(event);
+                }
+            }
+            return found;
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test
+@Testeria("TestMe")
+@AnnotationAttributeReaderTest.Tagged(names = { "first", "second" }, numbers = { 1, 2, 3 }, priority = 1000,
+                size = 1L << 40, kind = ElementType.TYPE)
+public class AnnotationAttributeReaderTest {
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Tagged {
+
+        String[] names();
+
+        int[] numbers();
+
+        String description() default "none";
+
+        int priority() default 0;
+
+        long size() default 0L;
+
+        boolean active() default true;
+
+        ElementType kind() default ElementType.METHOD;
+    }
+
+    public void testPrimitiveAttributes() {
+        Tagged annotation = AnnotationAttributeReaderTest.class.getAnnotation(Tagged.class);
+        AnnotationAttributeReader<Tagged> reader = AnnotationAttributeReader.of(Tagged.class);
+        Assert.assertEquals(reader.intAttribute("priority").getInt(annotation), 1000);
+        Assert.assertEquals(reader.longAttribute("size").getLong(annotation), 1L << 40);
+        Assert.assertTrue(reader.booleanAttribute("active").getBoolean(annotation));
+    }
+
+    public void testTypedAttributes() {
+        Tagged annotation = AnnotationAttributeReaderTest.class.getAnnotation(Tagged.class);
+        AnnotationAttributeReader<Tagged> reader = AnnotationAttributeReader.of(Tagged.class);
+        Assert.assertEquals(reader.typedAttribute("description", String.class).get(annotation), "none");
+        Assert.assertEquals(reader.typedAttribute("kind", ElementType.class).get(annotation), ElementType.TYPE);
+        Assert.assertEquals(reader.typedAttribute("numbers", int[].class).get(annotation), new int[] { 1, 2, 3 });
+        Assert.assertEquals(reader.typedAttribute("priority", Integer.class).get(annotation), Integer.valueOf(1000));
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testTypedAttributeWithWrongType() {
+        AnnotationAttributeReader.of(Tagged.class).intAttribute("size");
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testTypedAttributeWithWrongReferenceType() {
+        AnnotationAttributeReader.of(Tagged.class).typedAttribute("names", String.class);
+    }
+
+    public void testValue() {
+        Testeria annotation = AnnotationAttributeReaderTest.class.getAnnotation(Testeria.class);
+        Assert.assertEquals(AnnotationAttributeReader.of(Testeria.class).value(annotation, "value"), "TestMe");
+    }
+
+    public void testValueOfNonPublicAnnotation() {
+        Tagged annotation = AnnotationAttributeReaderTest.class.getAnnotation(Tagged.class);
+        AnnotationAttributeReader<Tagged> reader = AnnotationAttributeReader.of(Tagged.class);
+        Assert.assertEquals(reader.value(annotation, "description"), "none");
+        Assert.assertEquals((String[])reader.value(annotation, "names"), new String[] { "first", "second" });
+    }
+
+    public void testValueByIndex() {
+        Tagged annotation = AnnotationAttributeReaderTest.class.getAnnotation(Tagged.class);
+        AnnotationAttributeReader<Tagged> reader = AnnotationAttributeReader.of(Tagged.class);
+        int index = reader.attributeIndex("numbers");
+        Assert.assertEquals((int[])reader.value(annotation, index), new int[] { 1, 2, 3 });
+        Assert.assertEquals(reader.attributeIndex("unknown"), -1);
+    }
+
+    public void testReaderIsCached() {
+        Assert.assertSame(AnnotationAttributeReader.of(Tagged.class), AnnotationAttributeReader.of(Tagged.class));
+    }
+
+    public void testArrayViewIsShared() {
+        Tagged annotation = AnnotationAttributeReaderTest.class.getAnnotation(Tagged.class);
+        AnnotationAttributeReader<Tagged> reader = AnnotationAttributeReader.of(Tagged.class);
+        List<?> names = reader.arrayView(annotation, "names");
+        Assert.assertEquals(names, Arrays.asList("first", "second"));
+        Assert.assertSame(reader.arrayView(annotation, "names"), names);
+        Assert.assertEquals(reader.arrayView(annotation, "numbers"), Arrays.asList(1, 2, 3));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testArrayViewIsUnmodifiable() {
+        Tagged annotation = AnnotationAttributeReaderTest.class.getAnnotation(Tagged.class);
+        List<?> names = AnnotationAttributeReader.of(Tagged.class).arrayView(annotation, "names");
+        names.remove(0);
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testArrayViewOfNonArrayAttribute() {
+        Tagged annotation = AnnotationAttributeReaderTest.class.getAnnotation(Tagged.class);
+        AnnotationAttributeReader.of(Tagged.class).arrayView(annotation, "description");
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testUnknownAttribute() {
+        Tagged annotation = AnnotationAttributeReaderTest.class.getAnnotation(Tagged.class);
+        AnnotationAttributeReader.of(Tagged.class).value(annotation, "unknown");
+    }
+
+    @Test(expectedExceptions = ExpectedError.class)
+    public void testValueRethrowsError() {
+        AnnotationAttributeReader.of(Testeria.class).value(new FailingTesteria(), "value");
+    }
+
+    @Test(expectedExceptions = ExpectedError.class)
+    public void testTypedAttributeRethrowsError() {
+        AnnotationAttributeReader.of(Testeria.class).typedAttribute("value", String.class).get(new FailingTesteria());
+    }
+
+    @SuppressWarnings("all")
+    private static final class FailingTesteria implements Testeria {
+
+        @Override
+        public String value() {
+            throw new ExpectedError();
+        }
+
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Testeria.class;
+        }
+    }
+
+    private static final class ExpectedError extends Error {
+
+        private static final long serialVersionUID = 1L;
+    }
+
+}
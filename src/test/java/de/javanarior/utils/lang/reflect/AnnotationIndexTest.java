@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.reflect.Method;
+
+import javax.annotation.Resource;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test
+@Resource(name = "AnnotationIndexTest", lookup = "TestMe")
+public class AnnotationIndexTest {
+
+    public void testClassAnnotation() {
+        AnnotationValues resource = AnnotationIndex.of(AnnotationIndexTest.class).classAnnotation(Resource.class);
+        Assert.assertEquals(resource.get("name"), "AnnotationIndexTest");
+        Assert.assertEquals(resource.get("lookup"), "TestMe");
+        Assert.assertTrue(resource.hasAttribute("name"));
+        Assert.assertFalse(resource.hasAttribute("wrongName"));
+        Assert.assertNull(AnnotationIndex.of(AnnotationIndexTest.class).classAnnotation(Testeria.class));
+    }
+
+    public void testIndexIsCached() {
+        Assert.assertSame(AnnotationIndex.of(AnnotationIndexTest.class), AnnotationIndex.of(AnnotationIndexTest.class));
+    }
+
+    @Testeria("onMethod")
+    public void testMethodAnnotation() throws NoSuchMethodException {
+        Method method = AnnotationIndexTest.class.getMethod("testMethodAnnotation");
+        AnnotationIndex index = AnnotationIndex.of(AnnotationIndexTest.class);
+        Assert.assertEquals(index.methodAnnotation(method, Testeria.class).get("value"), "onMethod");
+        Assert.assertNull(index.methodAnnotation(method, Resource.class));
+    }
+
+    public void testParameterAnnotation() throws NoSuchMethodException {
+        Method method = Annotated.class.getMethod("annotatedParameter", String.class, String.class);
+        AnnotationIndex index = AnnotationIndex.of(Annotated.class);
+        Assert.assertNull(index.parameterAnnotation(method, 0, Testeria.class));
+        Assert.assertEquals(index.parameterAnnotation(method, 1, Testeria.class).get("value"), "onParameter");
+        Assert.assertNull(index.parameterAnnotation(method, 2, Testeria.class));
+    }
+
+    public void testParameterAnnotationByName() throws NoSuchMethodException {
+        Method method = Annotated.class.getMethod("annotatedParameter", String.class, String.class);
+        AnnotationIndex index = AnnotationIndex.of(Annotated.class);
+        Assert.assertEquals(index.parameterNames(method), new String[] { "first", "second" });
+        Assert.assertEquals(index.parameterAnnotation(method, "second", Testeria.class).get("value"), "onParameter");
+        Assert.assertNull(index.parameterAnnotation(method, "first", Testeria.class));
+        Assert.assertNull(index.parameterAnnotation(method, "third", Testeria.class));
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testUnknownAttribute() {
+        AnnotationIndex.of(AnnotationIndexTest.class).classAnnotation(Resource.class).get("wrongName");
+    }
+
+    public void testArrayValuesAreCopied() {
+        AnnotationValues tagged = AnnotationIndex.of(Annotated.class).classAnnotation(
+                        AnnotationAttributeReaderTest.Tagged.class);
+        String[] names = (String[])tagged.get("names");
+        names[0] = "changed";
+        Assert.assertEquals(((String[])tagged.get("names"))[0], "first");
+    }
+
+    @AnnotationAttributeReaderTest.Tagged(names = { "first", "second" }, numbers = {})
+    public static class Annotated {
+
+        public void annotatedParameter(String first, @Testeria("onParameter") String second) {
+            // only used for the annotations
+        }
+
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test
+public class BulkInstantiatorTest {
+
+    public void testNewInstances() {
+        BulkInstantiator<Point> instantiator = Invoke.bulkInstantiator(Point.class, Integer.TYPE, Long.TYPE,
+                        String.class);
+        Point[] points = instantiator.newInstances(new int[] { 1, 2 }, new long[] { 3L, 4L },
+                        new String[] { "first", "second" });
+        Assert.assertEquals(points.length, 2);
+        Assert.assertEquals(points[0].toString(), "first(1,3)");
+        Assert.assertEquals(points[1].toString(), "second(2,4)");
+    }
+
+    public void testNewInstancesConvertsColumns() {
+        BulkInstantiator<Point> instantiator = Invoke.bulkInstantiator(Point.class, Integer.TYPE, Long.TYPE,
+                        String.class);
+        Point[] points = instantiator.newInstances(new Integer[] { 1 }, new int[] { 3 }, new Object[] { "first" });
+        Assert.assertEquals(points[0].toString(), "first(1,3)");
+    }
+
+    public void testAddInstances() {
+        BulkInstantiator<Point> instantiator = Invoke.bulkInstantiator(Point.class, Integer.TYPE, Long.TYPE,
+                        String.class);
+        List<Object> points = new ArrayList<>();
+        instantiator.addInstances(points, new int[] { 1, 2 }, new long[] { 3L, 4L },
+                        new String[] { "first", "second" });
+        Assert.assertEquals(points.size(), 2);
+        Assert.assertEquals(points.get(1).toString(), "second(2,4)");
+    }
+
+    public void testNewInstancesInParallel() {
+        int size = 100000;
+        int[] xs = new int[size];
+        long[] ys = new long[size];
+        String[] labels = new String[size];
+        for (int index = 0; index < size; index++) {
+            xs[index] = index;
+            ys[index] = -index;
+            labels[index] = "p";
+        }
+        BulkInstantiator<Point> instantiator = Invoke.bulkInstantiator(Point.class, Integer.TYPE, Long.TYPE,
+                        String.class);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Point[] points = instantiator.newInstancesInParallel(pool, xs, ys, labels);
+            Assert.assertEquals(points.length, size);
+            for (int index = 0; index < size; index++) {
+                Assert.assertEquals(points[index].toString(), "p(" + index + "," + -index + ")");
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testNewInstancesWithCount() {
+        BulkInstantiator<StringBuilder> instantiator = Invoke.bulkInstantiator(StringBuilder.class);
+        StringBuilder[] builders = instantiator.newInstances(3);
+        Assert.assertEquals(builders.length, 3);
+        Assert.assertNotSame(builders[0], builders[1]);
+        Assert.assertEquals(builders[2].length(), 0);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            Assert.assertEquals(instantiator.newInstancesInParallel(pool, 5000).length, 5000);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testCountWithParameters() {
+        Invoke.bulkInstantiator(Point.class, Integer.TYPE, Long.TYPE, String.class).newInstances(2);
+    }
+
+    @Test(expectedExceptions = ExpectedError.class)
+    public void testConstructorThrowsError() {
+        Invoke.bulkInstantiator(Failing.class).newInstances(1);
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testWrongColumnCount() {
+        Invoke.bulkInstantiator(Point.class, Integer.TYPE, Long.TYPE, String.class).newInstances(new int[] { 1 });
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testColumnsWithDifferentLength() {
+        Invoke.bulkInstantiator(Point.class, Integer.TYPE, Long.TYPE, String.class).newInstances(new int[] { 1 },
+                        new long[] { 1L, 2L }, new String[] { "first" });
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testColumnWithWrongType() {
+        Invoke.bulkInstantiator(Point.class, Integer.TYPE, Long.TYPE, String.class).newInstances(new int[] { 1 },
+                        new long[] { 1L }, new int[] { 1 });
+    }
+
+    public static class Failing {
+
+        public Failing() {
+            throw new ExpectedError();
+        }
+    }
+
+    private static final class ExpectedError extends Error {
+        private static final long serialVersionUID = 1L;
+    }
+
+    public static class Point {
+
+        private final int x;
+        private final long y;
+        private final String label;
+
+        public Point(int x, long y, String label) {
+            this.x = x;
+            this.y = y;
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label + "(" + x + "," + y + ")";
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import de.javanarior.utils.lang.ByteCodeClassLoader;
+
+@Test
+public class ClassAccessorTest {
+
+    public void testAccessorIsGeneratedForPublicClass() {
+        ClassAccessor<String> accessor = Invoke.accessor(String.class);
+        Assert.assertFalse(accessor instanceof ReflectiveClassAccessor);
+        Assert.assertSame(accessor, Invoke.accessor(String.class));
+    }
+
+    public void testAccessorNamesAreDistinct() {
+        Assert.assertNotEquals(AccessorGenerator.accessorName("a.b_c.D"), AccessorGenerator.accessorName("a_b.c.D"));
+        Assert.assertNotEquals(AccessorGenerator.accessorName("a._b"), AccessorGenerator.accessorName("a_.b"));
+    }
+
+    public void testAccessorOfOtherClassIsNotUsed() {
+        String name = AccessorGenerator.accessorName(Squatted.class.getName());
+        ByteCodeClassLoader.getClassLoader().load(name, AccessorGenerator.generate(name, Bean.class,
+                        new Constructor<?>[0], new Method[0], new Field[0]));
+        ClassAccessor<Squatted> accessor = Invoke.accessor(Squatted.class);
+        Assert.assertTrue(accessor instanceof ReflectiveClassAccessor);
+        Assert.assertTrue(accessor.newInstance() instanceof Squatted);
+    }
+
+    public void testAccessorForPrivateClassUsesReflection() {
+        ClassAccessor<PrivateBean> accessor = Invoke.accessor(PrivateBean.class);
+        Assert.assertTrue(accessor instanceof ReflectiveClassAccessor);
+        PrivateBean bean = new PrivateBean();
+        accessor.set(bean, accessor.fieldIndex("count"), Integer.valueOf(3));
+        Assert.assertEquals(bean.count, 3);
+    }
+
+    public void testNewInstance() {
+        ClassAccessor<Bean> accessor = Invoke.accessor(Bean.class);
+        Bean bean = accessor.newInstance(accessor.constructorIndex(String.class, Integer.TYPE), "TestMe", 2);
+        Assert.assertEquals(bean.name, "TestMe");
+        Assert.assertEquals(bean.count, 2);
+        Assert.assertNotNull(accessor.newInstance());
+    }
+
+    public void testInvoke() {
+        ClassAccessor<Bean> accessor = Invoke.accessor(Bean.class);
+        Bean bean = new Bean("TestMe", 2);
+        Object sum = accessor.invoke(bean, accessor.methodIndex("add", Integer.TYPE, Long.TYPE), 3, 4L);
+        Assert.assertEquals(sum, Long.valueOf(9L));
+        Assert.assertNull(accessor.invoke(bean, accessor.methodIndex("increment")));
+        Assert.assertEquals(bean.count, 3);
+        Assert.assertEquals(accessor.invoke(null, accessor.methodIndex("upperCase", String.class), "abc"), "ABC");
+    }
+
+    public void testInvokeOnInterface() {
+        ClassAccessor<CharSequence> accessor = Invoke.accessor(CharSequence.class);
+        Assert.assertEquals(accessor.invoke("TestMe", accessor.methodIndex("length")), Integer.valueOf(6));
+    }
+
+    public void testGetAndSet() {
+        ClassAccessor<Bean> accessor = Invoke.accessor(Bean.class);
+        Bean bean = new Bean("TestMe", 2);
+        accessor.set(bean, accessor.fieldIndex("count"), Integer.valueOf(5));
+        accessor.set(bean, accessor.fieldIndex("name"), "Changed");
+        Assert.assertEquals(accessor.get(bean, accessor.fieldIndex("count")), Integer.valueOf(5));
+        Assert.assertEquals(accessor.get(bean, accessor.fieldIndex("name")), "Changed");
+        Assert.assertEquals(accessor.get(null, accessor.fieldIndex("CONSTANT")), "constant");
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testSetFinalField() {
+        ClassAccessor<Bean> accessor = Invoke.accessor(Bean.class);
+        accessor.set(null, accessor.fieldIndex("CONSTANT"), "changed");
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testInvokeWithWrongArgumentType() {
+        ClassAccessor<Bean> accessor = Invoke.accessor(Bean.class);
+        accessor.invoke(new Bean(), accessor.methodIndex("add", Integer.TYPE, Long.TYPE), "3", 4L);
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testInvokeWithUnknownIndex() {
+        ClassAccessor<Bean> accessor = Invoke.accessor(Bean.class);
+        accessor.invoke(new Bean(), accessor.methodIndex("unknown"));
+    }
+
+    public void testUnknownMemberIndex() {
+        ClassAccessor<Bean> accessor = Invoke.accessor(Bean.class);
+        Assert.assertEquals(accessor.methodIndex("add"), -1);
+        Assert.assertEquals(accessor.fieldIndex("unknown"), -1);
+        Assert.assertEquals(accessor.constructorIndex(Long.TYPE), -1);
+    }
+
+    public static class Bean {
+
+        public static final String CONSTANT = "constant";
+
+        public String name;
+        public int count;
+
+        public Bean() {
+            this(null, 0);
+        }
+
+        public Bean(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+
+        public long add(int first, long second) {
+            return count + first + second;
+        }
+
+        public void increment() {
+            count++;
+        }
+
+        public static String upperCase(String value) {
+            return value.toUpperCase();
+        }
+    }
+
+    public static class Squatted {
+    }
+
+    private static class PrivateBean {
+        public int count;
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test
+public class ClassCacheTest {
+
+    public void testGetLoadsOnce() {
+        CountingLoader loader = new CountingLoader();
+        ClassCache<String, String> cache = ClassCache.unbounded(loader);
+        Assert.assertEquals(cache.get(String.class, "key"), "java.lang.String.key");
+        Assert.assertEquals(cache.get(String.class, "key"), "java.lang.String.key");
+        Assert.assertEquals(cache.get(Integer.class, "key"), "java.lang.Integer.key");
+        Assert.assertEquals(loader.count.get(), 2);
+        CacheStatistics statistics = cache.statistics();
+        Assert.assertEquals(statistics.getHitCount(), 1);
+        Assert.assertEquals(statistics.getMissCount(), 2);
+        Assert.assertEquals(statistics.getEvictionCount(), 0);
+    }
+
+    public void testGetIfPresent() {
+        ClassCache<String, String> cache = ClassCache.unbounded(new CountingLoader());
+        Assert.assertNull(cache.getIfPresent(String.class, "key"));
+        cache.get(String.class, "key");
+        Assert.assertEquals(cache.getIfPresent(String.class, "key"), "java.lang.String.key");
+        Assert.assertEquals(cache.statistics().getRequestCount(), 1);
+    }
+
+    public void testLeastRecentlyUsedEviction() {
+        ClassCache<String, String> cache = ClassCache.bounded(2, ClassCache.EvictionPolicy.LEAST_RECENTLY_USED,
+                        new CountingLoader());
+        cache.get(String.class, "first");
+        cache.get(String.class, "second");
+        cache.get(String.class, "first");
+        cache.get(String.class, "third");
+        Assert.assertEquals(cache.size(String.class), 2);
+        Assert.assertNotNull(cache.getIfPresent(String.class, "first"));
+        Assert.assertNull(cache.getIfPresent(String.class, "second"));
+        Assert.assertEquals(cache.statistics().getEvictionCount(), 1);
+    }
+
+    public void testFirstInFirstOutEviction() {
+        ClassCache<String, String> cache = ClassCache.bounded(2, ClassCache.EvictionPolicy.FIRST_IN_FIRST_OUT,
+                        new CountingLoader());
+        cache.get(String.class, "first");
+        cache.get(String.class, "second");
+        cache.get(String.class, "first");
+        cache.get(String.class, "third");
+        Assert.assertNull(cache.getIfPresent(String.class, "first"));
+        Assert.assertNotNull(cache.getIfPresent(String.class, "second"));
+        Assert.assertEquals(cache.statistics().getEvictionCount(), 1);
+    }
+
+    public void testBoundIsPerClass() {
+        ClassCache<String, String> cache = ClassCache.bounded(1, ClassCache.EvictionPolicy.LEAST_RECENTLY_USED,
+                        new CountingLoader());
+        cache.get(String.class, "key");
+        cache.get(Integer.class, "key");
+        Assert.assertEquals(cache.size(String.class), 1);
+        Assert.assertEquals(cache.size(Integer.class), 1);
+        Assert.assertEquals(cache.statistics().getEvictionCount(), 0);
+    }
+
+    public void testInvalidate() {
+        CountingLoader loader = new CountingLoader();
+        ClassCache<String, String> cache = ClassCache.unbounded(loader);
+        cache.get(String.class, "first");
+        cache.get(String.class, "second");
+        cache.get(Integer.class, "first");
+        cache.invalidate(String.class, "first");
+        Assert.assertNull(cache.getIfPresent(String.class, "first"));
+        Assert.assertNotNull(cache.getIfPresent(String.class, "second"));
+        cache.invalidate(String.class);
+        Assert.assertEquals(cache.size(String.class), 0);
+        Assert.assertEquals(cache.size(Integer.class), 1);
+        cache.get(String.class, "second");
+        Assert.assertEquals(loader.count.get(), 4);
+    }
+
+    public void testInvalidateAll() {
+        ClassCache<String, String> cache = ClassCache.bounded(4, ClassCache.EvictionPolicy.LEAST_RECENTLY_USED,
+                        new CountingLoader());
+        cache.get(String.class, "key");
+        cache.get(Integer.class, "key");
+        cache.invalidateAll();
+        Assert.assertEquals(cache.size(String.class), 0);
+        Assert.assertEquals(cache.size(Integer.class), 0);
+        cache.get(String.class, "key");
+        Assert.assertEquals(cache.size(String.class), 1);
+        Assert.assertEquals(cache.statistics().getEvictionCount(), 0);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testLoaderReturnsNull() {
+        ClassCache<String, String> cache = ClassCache.unbounded(new ClassCache.Loader<String, String>() {
+            @Override
+            public String load(Class<?> type, String key) {
+                return null;
+            }
+        });
+        cache.get(String.class, "key");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidBound() {
+        ClassCache.bounded(0, ClassCache.EvictionPolicy.LEAST_RECENTLY_USED, new CountingLoader());
+    }
+
+    private static final class CountingLoader implements ClassCache.Loader<String, String> {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public String load(Class<?> type, String key) {
+            count.incrementAndGet();
+            return type.getName() + "." + key;
+        }
+    }
+
+}
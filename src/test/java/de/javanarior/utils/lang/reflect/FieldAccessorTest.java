@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test
+public class FieldAccessorTest {
+
+    public void testGetAndSet() {
+        Sample sample = new Sample();
+        FieldAccessor accessor = FieldAccessor.forField(Sample.class, "name");
+        accessor.set(sample, "TestMe");
+        Assert.assertEquals(accessor.get(sample), "TestMe");
+        Assert.assertEquals(sample.name, "TestMe");
+    }
+
+    public void testPrimitiveGetAndSet() {
+        Sample sample = new Sample();
+        FieldAccessor count = FieldAccessor.forField(Sample.class, "count");
+        count.setInt(sample, 3);
+        Assert.assertEquals(count.getInt(sample), 3);
+        FieldAccessor total = FieldAccessor.forField(Sample.class, "total");
+        total.setLong(sample, 4L);
+        Assert.assertEquals(total.getLong(sample), 4L);
+        FieldAccessor flag = FieldAccessor.forField(Sample.class, "flag");
+        flag.setBoolean(sample, true);
+        Assert.assertTrue(flag.getBoolean(sample));
+        FieldAccessor ratio = FieldAccessor.forField(Sample.class, "ratio");
+        ratio.setDouble(sample, 2.5);
+        Assert.assertEquals(ratio.getDouble(sample), 2.5, 0.001);
+    }
+
+    public void testGenericAccessOfPrimitiveField() {
+        Sample sample = new Sample();
+        FieldAccessor accessor = FieldAccessor.forField(Sample.class, "count");
+        accessor.set(sample, Integer.valueOf(7));
+        Assert.assertEquals(accessor.get(sample), Integer.valueOf(7));
+    }
+
+    public void testPrivateField() {
+        Sample sample = new Sample();
+        FieldAccessor accessor = FieldAccessor.forField(Sample.class, "hidden");
+        accessor.setChar(sample, 'x');
+        Assert.assertEquals(accessor.getChar(sample), 'x');
+        Assert.assertEquals(sample.getHidden(), 'x');
+    }
+
+    public void testInheritedPrivateField() {
+        SubSample sample = new SubSample();
+        FieldAccessor accessor = FieldAccessor.forField(SubSample.class, "hidden");
+        accessor.setChar(sample, 'y');
+        Assert.assertEquals(accessor.getChar(sample), 'y');
+    }
+
+    public void testStaticField() {
+        FieldAccessor accessor = FieldAccessor.forField(Sample.class, "CONSTANT");
+        Assert.assertEquals(accessor.get(null), "constant");
+    }
+
+    public void testAccessorIsCached() {
+        FieldAccessor.forField(Sample.class, "name");
+        CacheStatistics before = FieldAccessor.cacheStatistics();
+        FieldAccessor accessor = FieldAccessor.forField(Sample.class, "name");
+        CacheStatistics after = FieldAccessor.cacheStatistics();
+        Assert.assertSame(accessor, FieldAccessor.forField(Sample.class, "name"));
+        Assert.assertTrue(after.getHitCount() > before.getHitCount());
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testPrimitiveGetterOfWrongType() {
+        FieldAccessor.forField(Sample.class, "count").getLong(new Sample());
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testSetFinalField() {
+        FieldAccessor.forField(Sample.class, "CONSTANT").set(null, "changed");
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testMissingField() {
+        FieldAccessor.forField(Sample.class, "unknown");
+    }
+
+    public static class Sample {
+
+        public static final String CONSTANT = "constant";
+
+        public String name;
+        public int count;
+        public long total;
+        public boolean flag;
+        public double ratio;
+        private char hidden;
+
+        public char getHidden() {
+            return hidden;
+        }
+    }
+
+    public static class SubSample extends Sample {
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test
+public class FieldTableTest {
+
+    public void testPublicField() throws NoSuchFieldException {
+        Assert.assertEquals(FieldTable.of(Sub.class).publicField("name"), Sub.class.getField("name"));
+        Assert.assertEquals(FieldTable.of(Sub.class).publicField("inherited"), Base.class.getField("inherited"));
+    }
+
+    public void testHidingFieldIsPreferred() throws NoSuchFieldException {
+        Assert.assertEquals(FieldTable.of(Sub.class).publicField("hidden").getDeclaringClass(), Sub.class);
+        Assert.assertEquals(FieldTable.of(Sub.class).publicField("hidden"), Sub.class.getField("hidden"));
+    }
+
+    public void testDeclaredField() {
+        Assert.assertEquals(FieldTable.of(Sub.class).declaredField("secret").getName(), "secret");
+        Assert.assertNull(FieldTable.of(Sub.class).declaredField("inherited"));
+        Assert.assertNull(FieldTable.of(Sub.class).publicField("secret"));
+    }
+
+    public void testMissingField() {
+        Assert.assertNull(FieldTable.of(Sub.class).publicField("missing"));
+        Assert.assertNull(FieldTable.of(Sub.class).declaredField("missing"));
+    }
+
+    public static class Base {
+        public String inherited;
+        public String hidden;
+    }
+
+    public static class Sub extends Base {
+        public String name;
+        public String hidden;
+        private String secret;
+
+        public String getSecret() {
+            return secret;
+        }
+    }
+
+}
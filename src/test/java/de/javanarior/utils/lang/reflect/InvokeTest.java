@@ -18,6 +18,13 @@ package de.javanarior.utils.lang.reflect;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -25,6 +32,8 @@ import org.testng.annotations.Test;
 @Testeria("attributeValue")
 public class InvokeTest {
 
+    private static final int CALLS = 100000;
+
     public void testInvokeConstructorNoArguments() {
         Object instance = Invoke.invokeConstructor(Object.class);
         Assert.assertNotNull(instance);
@@ -142,12 +151,261 @@ public class InvokeTest {
         Assert.assertEquals(instance.shortValue(), 2);
     }
 
+    public void testInvokeConstructorIsCached() {
+        Invoke.invokeConstructor(ReflectionException.class, String.class, "TestMe");
+        CacheStatistics before = Invoke.constructorCacheStatistics();
+        Object instance = Invoke.invokeConstructor(ReflectionException.class, String.class, "TestMe");
+        CacheStatistics after = Invoke.constructorCacheStatistics();
+        Assert.assertNotNull(instance);
+        Assert.assertTrue(after.getHitCount() > before.getHitCount());
+    }
+
+    public void testInvalidateCaches() {
+        Invoke.invokeConstructor(StringBuilder.class, String.class, "TestMe");
+        long missCount = Invoke.constructorCacheStatistics().getMissCount();
+        Invoke.invalidateCaches(StringBuilder.class);
+        Invoke.invokeConstructor(StringBuilder.class, String.class, "TestMe");
+        Assert.assertEquals(Invoke.constructorCacheStatistics().getMissCount(), missCount + 1);
+    }
+
+    public void testInstantiator() {
+        Instantiator<ReflectionException> instantiator = Invoke.instantiator(ReflectionException.class,
+                        String.class, Throwable.class);
+        ReflectionException first = instantiator.newInstance("First", new RuntimeException("Root"));
+        ReflectionException second = instantiator.newInstance("Second", null);
+        Assert.assertEquals(first.getMessage(), "First");
+        Assert.assertEquals(first.getCause().getMessage(), "Root");
+        Assert.assertEquals(second.getMessage(), "Second");
+        Assert.assertNotSame(first, second);
+    }
+
+    public void testInstantiatorNoArguments() {
+        Instantiator<Object> instantiator = Invoke.instantiator(Object.class);
+        Assert.assertNotNull(instantiator.newInstance());
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testInstantiatorWithMissingConstructor() {
+        Invoke.instantiator(ReflectionException.class, Integer.class);
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testInstantiatorWithWrongArgumentCount() {
+        Invoke.instantiator(ReflectionException.class, String.class).newInstance("TestMe", "TooMuch");
+    }
+
+    public void testPrimitiveInstantiators() {
+        Assert.assertEquals(Invoke.intInstantiator(Integer.class).newInstance(2), Integer.valueOf(2));
+        Assert.assertEquals(Invoke.longInstantiator(Long.class).newInstance(2L), Long.valueOf(2L));
+        Assert.assertEquals(Invoke.doubleInstantiator(Double.class).newInstance(2.2), Double.valueOf(2.2));
+        Assert.assertEquals(Invoke.booleanInstantiator(Boolean.class).newInstance(true), Boolean.TRUE);
+        Assert.assertEquals(Invoke.byteInstantiator(Byte.class).newInstance((byte)2), Byte.valueOf((byte)2));
+        Assert.assertEquals(Invoke.charInstantiator(Character.class).newInstance('A'), Character.valueOf('A'));
+        Assert.assertEquals(Invoke.shortInstantiator(Short.class).newInstance((short)2), Short.valueOf((short)2));
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testPrimitiveInstantiatorWithMissingConstructor() {
+        Invoke.intInstantiator(Object.class);
+    }
+
+    @Test(expectedExceptions = ExpectedError.class)
+    public void testInstantiatorRethrowsError() {
+        Invoke.instantiator(ErrorInConstructor.class).newInstance();
+    }
+
+    @Test(expectedExceptions = ExpectedError.class)
+    public void testPrimitiveInstantiatorRethrowsError() {
+        Invoke.intInstantiator(ErrorInConstructor.class).newInstance(1);
+    }
+
+    public void testInstantiatorWrapsRuntimeException() {
+        try {
+            Invoke.intInstantiator(ErrorInConstructor.class).newInstance(-1);
+            Assert.fail("ReflectionException expected");
+        } catch (ReflectionException exception) {
+            Assert.assertTrue(exception.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    public void testPrimitiveInstantiatorDoesNotAllocate() {
+        final IntInstantiator<Integer> instantiator = Invoke.intInstantiator(Integer.class);
+        assertOnlyInstanceIsAllocated(new IntegerFactory() {
+
+            @Override
+            public Integer create(int value) {
+                return instantiator.newInstance(value);
+            }
+        });
+    }
+
+    public void testPrimitiveInvokeConstructorDoesNotAllocate() {
+        assertOnlyInstanceIsAllocated(new IntegerFactory() {
+
+            @Override
+            public Integer create(int value) {
+                return Invoke.invokeConstructor(Integer.class, value);
+            }
+        });
+    }
+
+    private static void assertOnlyInstanceIsAllocated(IntegerFactory factory) {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean)threadBean;
+        long threadId = Thread.currentThread().getId();
+        long checksum = 0;
+        for (int warmUp = 0; warmUp < 5; warmUp++) {
+            checksum += createIntegers(factory);
+        }
+
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        checksum += createIntegers(factory);
+        long after = allocationBean.getThreadAllocatedBytes(threadId);
+
+        Assert.assertTrue(checksum > 0);
+        long bytesPerCall = (after - before) / CALLS;
+        // one Integer instance (16 bytes with compressed oops, 24 without)
+        Assert.assertTrue(bytesPerCall <= 24, "Allocated " + bytesPerCall + " bytes per call");
+    }
+
+    private static long createIntegers(IntegerFactory factory) {
+        long sum = 0;
+        for (int index = 0; index < CALLS; index++) {
+            sum += factory.create(index).intValue();
+        }
+        return sum;
+    }
+
     public void testInvokeAnnotation() {
         Testeria annotation = InvokeTest.class.getAnnotation(Testeria.class);
         Object attributeValue = Invoke.invokeAnnotation(annotation, "value");
         assertThat((String)attributeValue, equalTo("attributeValue"));
     }
 
+    public void testInvokeAnnotationInterfaceMethods() {
+        Testeria annotation = InvokeTest.class.getAnnotation(Testeria.class);
+        Assert.assertEquals(Invoke.invokeAnnotation(annotation, "annotationType"), Testeria.class);
+        Assert.assertEquals(Invoke.invokeAnnotation(annotation, "toString"), annotation.toString());
+        Assert.assertEquals(Invoke.invokeAnnotation(annotation, "hashCode"), Integer.valueOf(annotation.hashCode()));
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testInvokeAnnotationUnknownAttribute() {
+        Invoke.invokeAnnotation(InvokeTest.class.getAnnotation(Testeria.class), "unknown");
+    }
+
+    public void testTryInstantiator() {
+        Assert.assertNotNull(Invoke.tryInstantiator(String.class, String.class));
+        Assert.assertNull(Invoke.tryInstantiator(String.class, Thread.class));
+        Assert.assertNull(Invoke.tryInstantiator(WithPrivateConstructor.class));
+    }
+
+    public void testTryInstantiatorCachesMisses() {
+        Invoke.tryInstantiator(StringBuilder.class, Thread.class);
+        long missCount = Invoke.constructorCacheStatistics().getMissCount();
+        for (int index = 0; index < 10; index++) {
+            Assert.assertNull(Invoke.tryInstantiator(StringBuilder.class, Thread.class));
+        }
+        Assert.assertEquals(Invoke.constructorCacheStatistics().getMissCount(), missCount);
+    }
+
+    public void testTryMethodInvoker() {
+        Assert.assertNotNull(Invoke.tryMethodInvoker(String.class, "length"));
+        Assert.assertNull(Invoke.tryMethodInvoker(String.class, "size"));
+    }
+
+    public void testTryNewInstance() {
+        Assert.assertEquals(Invoke.tryNewInstance(StringBuilder.class, "TestMe").toString(), "TestMe");
+        Assert.assertNull(Invoke.tryNewInstance(StringBuilder.class, Thread.currentThread()));
+    }
+
+    public void testTryInvoke() {
+        Assert.assertEquals(Invoke.tryInvoke("TestMe", "length"), Integer.valueOf(6));
+        Assert.assertSame(Invoke.tryInvoke("TestMe", "size"), Invoke.ABSENT);
+        Assert.assertEquals(Invoke.tryInvokeStatic(Math.class, "abs", -1), Integer.valueOf(1));
+        Assert.assertSame(Invoke.tryInvokeStatic(String.class, "length"), Invoke.ABSENT);
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testCachedMissStillThrows() {
+        Invoke.tryInstantiator(StringBuilder.class, Thread.class);
+        Invoke.instantiator(StringBuilder.class, Thread.class);
+    }
+
+    public void testCachedMissThrowsNewException() {
+        ReflectionException first = instantiatorFailure(StringBuilder.class, Thread.class);
+        ReflectionException second = instantiatorFailure(StringBuilder.class, Thread.class);
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(second.getMessage(), first.getMessage());
+        Assert.assertTrue(first.getMessage().contains(Thread.class.getName()));
+        Assert.assertTrue(second.getStackTrace().length > 0);
+        Assert.assertTrue(second.getCause() instanceof NoSuchMethodException);
+        Assert.assertNotSame(second.getCause(), first.getCause());
+    }
+
+    public void testLookupsWithPluginClassesDoNotPinClassLoader() throws Exception {
+        WeakReference<ClassLoader> pluginLoader = lookUpWithPluginClasses();
+        for (int attempt = 0; attempt < 50 && pluginLoader.get() != null; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assert.assertNull(pluginLoader.get(), "plugin classloader is still reachable");
+    }
+
+    /**
+     * Calls Invoke with classes of a throwaway classloader and closes it.
+     */
+    private static WeakReference<ClassLoader> lookUpWithPluginClasses() throws Exception {
+        URL classes = InvokeTest.class.getProtectionDomain().getCodeSource().getLocation();
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { classes }, null)) {
+            Class<?> plugin = loader.loadClass(Plugin.class.getName());
+            Assert.assertNotSame(plugin, Plugin.class);
+            Object instance = plugin.newInstance();
+            Assert.assertNull(Invoke.tryNewInstance(ArrayList.class, instance));
+            Assert.assertNull(Invoke.tryInstantiator(ArrayList.class, plugin));
+            Assert.assertNull(Invoke.tryMethodInvoker(ArrayList.class, "add", plugin));
+            Assert.assertEquals(Invoke.invoke(new ArrayList<Object>(), "add", instance), Boolean.TRUE);
+            return new WeakReference<ClassLoader>(loader);
+        }
+    }
+
+    private static ReflectionException instantiatorFailure(Class<?> type, Class<?>... argumentTypes) {
+        try {
+            Invoke.instantiator(type, argumentTypes);
+        } catch (ReflectionException exception) {
+            return exception;
+        }
+        throw new AssertionError("ReflectionException expected");
+    }
+
+    private interface IntegerFactory {
+        Integer create(int value);
+    }
+
+    public static class ErrorInConstructor {
+
+        public ErrorInConstructor() {
+            throw new ExpectedError();
+        }
+
+        public ErrorInConstructor(int value) {
+            if (value < 0) {
+                throw new IllegalArgumentException();
+            }
+            throw new ExpectedError();
+        }
+    }
+
+    private static final class ExpectedError extends Error {
+        private static final long serialVersionUID = 1L;
+    }
+
+    public static class Plugin {
+    }
+
     private static final class WithPrivateConstructor {
         private WithPrivateConstructor() {
         }
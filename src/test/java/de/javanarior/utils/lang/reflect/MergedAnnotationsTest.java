@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Method;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test
+public class MergedAnnotationsTest {
+
+    public void testMetaAnnotationAndInheritance() {
+        MergedAnnotation role = MergedAnnotations.of(Sub.class).get(Role.class);
+        Assert.assertEquals(role.get("name"), "admin");
+        Assert.assertEquals(role.get("level"), Integer.valueOf(2));
+        Assert.assertEquals(role.get("scopes"), new String[] { "all" });
+        Assert.assertSame(role.getSource(), Sub.class);
+        Assert.assertEquals(MergedAnnotations.of(Sub.class).get(Marked.class).get("value"), "base");
+    }
+
+    public void testMetaAnnotationSource() {
+        MergedAnnotation role = MergedAnnotations.of(Base.class).get(Role.class);
+        Assert.assertSame(role.getSource(), Admin.class);
+        Assert.assertEquals(role.get("level"), Integer.valueOf(0));
+    }
+
+    public void testNotInheritedAnnotationIsIgnored() {
+        Assert.assertFalse(MergedAnnotations.of(Sub.class).isPresent(Plain.class));
+        Assert.assertTrue(MergedAnnotations.of(Base.class).isPresent(Plain.class));
+    }
+
+    public void testSkipsJavaLangAnnotation() {
+        Assert.assertFalse(MergedAnnotations.of(Base.class).isPresent(Documented.class));
+        Assert.assertFalse(MergedAnnotations.of(Base.class).isPresent(Retention.class));
+    }
+
+    public void testOverriddenMethods() throws NoSuchMethodException {
+        MergedAnnotation role = MergedAnnotations.of(Implementation.class.getMethod("run")).get(Role.class);
+        Assert.assertEquals(role.get("name"), "service");
+        Assert.assertEquals(role.get("level"), Integer.valueOf(1));
+        Assert.assertEquals(role.get("scopes"), new String[] { "interface" });
+    }
+
+    public void testMissingAnnotation() throws NoSuchMethodException {
+        Assert.assertNull(MergedAnnotations.of(Implementation.class.getMethod("other")).get(Role.class));
+        Assert.assertNull(MergedAnnotations.of(Object.class).get(Role.class));
+    }
+
+    public void testIsCached() throws NoSuchMethodException {
+        Assert.assertSame(MergedAnnotations.of(Sub.class), MergedAnnotations.of(Sub.class));
+        Method run = Implementation.class.getMethod("run");
+        Assert.assertSame(MergedAnnotations.of(run), MergedAnnotations.of(run));
+    }
+
+    public void testRetrieve() throws NoSuchMethodException {
+        Assert.assertEquals(Retrieve.mergedAnnotationValueOnClass(Role.class, "name", Sub.class), "admin");
+        Assert.assertEquals(Retrieve.mergedAnnotationValueOnMethod(Role.class, Implementation.class.getMethod("run"),
+                        "name"), "service");
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testRetrieveMissingAnnotation() {
+        Retrieve.mergedAnnotationValueOnClass(Role.class, "name", Object.class);
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testMissingAttribute() {
+        MergedAnnotations.of(Sub.class).get(Role.class).get("wrongName");
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Role {
+        String name() default "";
+
+        int level() default 0;
+
+        String[] scopes() default { "all" };
+    }
+
+    @Documented
+    @Inherited
+    @Retention(RetentionPolicy.RUNTIME)
+    @Role(name = "admin")
+    @interface Admin {
+    }
+
+    @Inherited
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Marked {
+        String value();
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Plain {
+    }
+
+    @Admin
+    @Marked("base")
+    @Plain
+    static class Base {
+    }
+
+    @Role(level = 2)
+    static class Sub extends Base {
+    }
+
+    interface Service {
+        @Role(name = "service", scopes = "interface")
+        void run();
+    }
+
+    static class Implementation implements Service {
+        @Override
+        @Role(level = 1)
+        public void run() {
+            // only used for the annotations
+        }
+
+        public void other() {
+            // only used for the annotations
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test
+public class MethodInvokerTest {
+
+    public void testInvokeWithoutArguments() {
+        MethodInvoker invoker = Invoke.methodInvoker(String.class, "length");
+        Assert.assertEquals(invoker.invoke("TestMe"), Integer.valueOf(6));
+    }
+
+    public void testInvokeWithArguments() {
+        Assert.assertEquals(Invoke.methodInvoker(String.class, "charAt", Integer.TYPE).invoke("TestMe", 4),
+                        Character.valueOf('M'));
+        Assert.assertEquals(Invoke.methodInvoker(String.class, "substring", Integer.TYPE, Integer.TYPE)
+                        .invoke("TestMe", 0, 4), "Test");
+        Assert.assertEquals(Invoke.methodInvoker(String.class, "regionMatches", Integer.TYPE, String.class,
+                        Integer.TYPE, Integer.TYPE).invoke("TestMe", 0, "Test", 0, 4), Boolean.TRUE);
+    }
+
+    public void testInvokeStatic() {
+        MethodInvoker invoker = Invoke.methodInvoker(Math.class, "max", Long.TYPE, Long.TYPE);
+        Assert.assertEquals(invoker.invoke(null, 2L, 3L), Long.valueOf(3L));
+        Assert.assertEquals(Invoke.invokeStaticMethod(Integer.class, "valueOf", new Class[] { String.class },
+                        new Object[] { "2" }), Integer.valueOf(2));
+    }
+
+    public void testInvokeVoidMethod() {
+        StringBuilder builder = new StringBuilder("TestMe");
+        Assert.assertNull(Invoke.methodInvoker(StringBuilder.class, "setLength", Integer.TYPE).invoke(builder, 4));
+        Assert.assertEquals(builder.toString(), "Test");
+    }
+
+    public void testInvokeMethod() {
+        Object result = Invoke.invokeMethod("TestMe", "concat", new Class[] { String.class },
+                        new Object[] { "Again" });
+        Assert.assertEquals(result, "TestMeAgain");
+    }
+
+    public void testInvokeMethodOfNonPublicClass() {
+        List<Integer> list = Arrays.asList(1, 2);
+        Assert.assertEquals(Invoke.invokeMethod(list, "size", new Class[0], new Object[0]), Integer.valueOf(2));
+        Assert.assertEquals(Invoke.invokeMethod(Collections.unmodifiableList(list), "get",
+                        new Class[] { Integer.TYPE }, new Object[] { 1 }), Integer.valueOf(2));
+        Assert.assertEquals(Invoke.methodInvoker(list.getClass(), "size").invoke(list), Integer.valueOf(2));
+    }
+
+    public void testInvokerIsCached() {
+        Invoke.methodInvoker(String.class, "trim");
+        CacheStatistics before = Invoke.methodCacheStatistics();
+        MethodInvoker invoker = Invoke.methodInvoker(String.class, "trim");
+        CacheStatistics after = Invoke.methodCacheStatistics();
+        Assert.assertSame(invoker, Invoke.methodInvoker(String.class, "trim"));
+        Assert.assertTrue(after.getHitCount() > before.getHitCount());
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testInvokeWithWrongArgumentCount() {
+        Invoke.methodInvoker(String.class, "charAt", Integer.TYPE).invoke("TestMe");
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testInvokeWithWrongInstance() {
+        Invoke.methodInvoker(String.class, "length").invoke(Integer.valueOf(1));
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testMissingMethod() {
+        Invoke.methodInvoker(String.class, "unknown");
+    }
+
+    public void testCachedMissThrowsWithCause() {
+        ReflectionException first = missingMethodFailure();
+        ReflectionException second = missingMethodFailure();
+        Assert.assertNotSame(first, second);
+        Assert.assertTrue(second.getStackTrace().length > 0);
+        Assert.assertTrue(second.getCause() instanceof NoSuchMethodException);
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testMethodThrowsException() {
+        Invoke.methodInvoker(String.class, "charAt", Integer.TYPE).invoke("TestMe", 10);
+    }
+
+    @Test(expectedExceptions = ExpectedError.class)
+    public void testMethodThrowsError() {
+        Invoke.methodInvoker(MethodInvokerTest.class, "fail", Integer.TYPE).invoke(null, 1);
+    }
+
+    @Test(expectedExceptions = ExpectedError.class)
+    public void testMethodThrowsErrorWithArgumentArray() {
+        Invoke.invokeStaticMethod(MethodInvokerTest.class, "fail", new Class[] { Integer.TYPE }, new Object[] { 1 });
+    }
+
+    private static ReflectionException missingMethodFailure() {
+        try {
+            Invoke.invokeMethod("TestMe", "unknown", new Class[0], new Object[0]);
+        } catch (ReflectionException exception) {
+            return exception;
+        }
+        throw new AssertionError("ReflectionException expected");
+    }
+
+    public static void fail(int value) {
+        throw new ExpectedError();
+    }
+
+    private static final class ExpectedError extends Error {
+        private static final long serialVersionUID = 1L;
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.reflect.Method;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test
+public class MethodTableTest {
+
+    public void testPublicMethod() throws NoSuchMethodException {
+        MethodTable table = MethodTable.of(StringBuilder.class);
+        Assert.assertEquals(table.publicMethod("append", String.class),
+                        StringBuilder.class.getMethod("append", String.class));
+        Assert.assertEquals(table.publicMethod("length"), StringBuilder.class.getMethod("length"));
+        Assert.assertEquals(table.publicMethod("length", (Class<?>[])null), StringBuilder.class.getMethod("length"));
+    }
+
+    public void testInheritedPublicMethod() throws NoSuchMethodException {
+        Assert.assertEquals(MethodTable.of(StringBuilder.class).publicMethod("hashCode"),
+                        StringBuilder.class.getMethod("hashCode"));
+    }
+
+    public void testMostSpecificReturnType() throws NoSuchMethodException {
+        Method method = MethodTable.of(Covariant.class).publicMethod("get");
+        Assert.assertEquals(method.getReturnType(), String.class);
+        Assert.assertEquals(method, Covariant.class.getMethod("get"));
+    }
+
+    public void testMissingMethod() {
+        Assert.assertNull(MethodTable.of(StringBuilder.class).publicMethod("size"));
+        Assert.assertNull(MethodTable.of(StringBuilder.class).publicMethod("append", Thread.class));
+    }
+
+    public void testUniqueDeclaredMethod() {
+        MethodTable table = MethodTable.of(Covariant.class);
+        Assert.assertEquals(table.uniqueDeclaredMethod("hidden").getName(), "hidden");
+        Assert.assertNull(table.uniqueDeclaredMethod("overloaded"));
+        Assert.assertNull(table.uniqueDeclaredMethod("missing"));
+    }
+
+    public static class Base {
+
+        public Object get() {
+            return null;
+        }
+
+    }
+
+    public static class Covariant extends Base {
+
+        @Override
+        public String get() {
+            return hidden();
+        }
+
+        private String hidden() {
+            return overloaded(1) + overloaded("");
+        }
+
+        private String overloaded(int value) {
+            return String.valueOf(value);
+        }
+
+        private String overloaded(String value) {
+            return value;
+        }
+
+    }
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test
+public class OverloadResolverTest {
+
+    public void testUnboxedArgument() {
+        StringBuilder builder = Invoke.newInstance(StringBuilder.class, Integer.valueOf(64));
+        Assert.assertEquals(builder.capacity(), 64);
+        Assert.assertEquals(builder.length(), 0);
+    }
+
+    public void testMostSpecificConstructor() {
+        Assert.assertEquals(Invoke.newInstance(StringBuilder.class, "TestMe").toString(), "TestMe");
+        Assert.assertEquals(Invoke.newInstance(Overloaded.class, "TestMe").getChosen(), "String");
+        Assert.assertEquals(Invoke.newInstance(Overloaded.class, new StringBuilder()).getChosen(), "Object");
+    }
+
+    public void testSubtypingBeforeUnboxing() {
+        Assert.assertEquals(Invoke.invoke(new Overloaded(), "choose", Integer.valueOf(1)), "Object");
+        Assert.assertEquals(Invoke.invoke(new Overloaded(), "choose", Long.valueOf(1)), "Object");
+    }
+
+    public void testWidening() {
+        Assert.assertEquals(Invoke.invokeStatic(Math.class, "max", 2, 3), Integer.valueOf(3));
+        Assert.assertEquals(Invoke.invokeStatic(Math.class, "max", 2, 3L), Long.valueOf(3L));
+        Assert.assertEquals(Invoke.invokeStatic(Math.class, "max", 2, 3.5f), Float.valueOf(3.5f));
+        Assert.assertEquals(Invoke.invokeStatic(Overloaded.class, "widen", 'a'), "int");
+        Assert.assertEquals(Invoke.invokeStatic(Overloaded.class, "widen", 1L), "long");
+    }
+
+    public void testVarargs() {
+        Assert.assertEquals(Invoke.invokeStatic(String.class, "format", "%s-%s", "Test", "Me"), "Test-Me");
+        List<?> list = (List<?>)Invoke.invokeStatic(Arrays.class, "asList", 1, 2, 3);
+        Assert.assertEquals(list, Arrays.asList(1, 2, 3));
+    }
+
+    public void testPrimitiveVarargs() {
+        Assert.assertEquals(Invoke.invokeStatic(Overloaded.class, "sum"), Long.valueOf(0));
+        Assert.assertEquals(Invoke.invokeStatic(Overloaded.class, "sum", 1, 2, 3), Long.valueOf(6));
+        Assert.assertEquals(Invoke.invokeStatic(Overloaded.class, "sum", (short)1, 2L), Long.valueOf(3));
+    }
+
+    public void testArrayForVarargs() {
+        Assert.assertEquals(Invoke.invokeStatic(Overloaded.class, "sum", new long[] { 4, 5 }), Long.valueOf(9));
+    }
+
+    public void testNullArgument() {
+        Assert.assertEquals(Invoke.invoke(new Overloaded(), "choose", (Object)null), "String");
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testAmbiguousCall() {
+        Invoke.invoke(new Overloaded(), "ambiguous", (Object)null);
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testNoApplicableMethod() {
+        Invoke.invoke(new Overloaded(), "choose", 1, 2);
+    }
+
+    public void testMemoizedFailureThrowsWithCause() {
+        ReflectionException first = noApplicableMethodFailure();
+        ReflectionException second = noApplicableMethodFailure();
+        Assert.assertNotSame(first, second);
+        Assert.assertTrue(second.getStackTrace().length > 0);
+        Assert.assertTrue(second.getCause() instanceof NoSuchMethodException);
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testInvokeStaticOnInstanceMethod() {
+        Invoke.invokeStatic(Overloaded.class, "choose", "TestMe");
+    }
+
+    public void testMethodOfNonPublicClass() {
+        List<Integer> list = Arrays.asList(1, 2);
+        Assert.assertEquals(Invoke.invoke(list, "size"), Integer.valueOf(2));
+        Assert.assertEquals(Invoke.invoke(Collections.unmodifiableList(list), "contains", 2), Boolean.TRUE);
+        Assert.assertEquals(Invoke.tryInvoke(Collections.unmodifiableList(list), "get", 1), Integer.valueOf(2));
+    }
+
+    public void testDecisionIsMemoized() throws ReflectiveOperationException {
+        OverloadResolver resolver = new OverloadResolver();
+        ArgumentTypes argumentClasses = OverloadResolver.argumentClasses(new Object[] { "TestMe" });
+        Overload overload = resolver.method(Overloaded.class, "choose", argumentClasses);
+        Assert.assertSame(resolver.method(Overloaded.class, "choose", argumentClasses), overload);
+        Assert.assertEquals(overload.getMember(), Overloaded.class.getMethod("choose", String.class));
+        Assert.assertEquals(resolver.statistics().getMissCount(), 1);
+        Assert.assertEquals(resolver.statistics().getHitCount(), 1);
+    }
+
+    private static ReflectionException noApplicableMethodFailure() {
+        try {
+            Invoke.invoke(new Overloaded(), "choose", 1, 2);
+        } catch (ReflectionException exception) {
+            return exception;
+        }
+        throw new AssertionError("ReflectionException expected");
+    }
+
+    public static class Overloaded {
+
+        private final String chosen;
+
+        public Overloaded() {
+            this.chosen = "none";
+        }
+
+        public Overloaded(String value) {
+            this.chosen = "String";
+        }
+
+        public Overloaded(Object value) {
+            this.chosen = "Object";
+        }
+
+        public String getChosen() {
+            return chosen;
+        }
+
+        public String choose(int value) {
+            return "int";
+        }
+
+        public String choose(Object value) {
+            return "Object";
+        }
+
+        public String choose(String value) {
+            return "String";
+        }
+
+        public String ambiguous(String value) {
+            return "String";
+        }
+
+        public String ambiguous(Integer value) {
+            return "Integer";
+        }
+
+        public static String widen(int value) {
+            return "int";
+        }
+
+        public static String widen(long value) {
+            return "long";
+        }
+
+        public static long sum(long... values) {
+            long sum = 0;
+            for (long value : values) {
+                sum += value;
+            }
+            return sum;
+        }
+
+    }
+
+}
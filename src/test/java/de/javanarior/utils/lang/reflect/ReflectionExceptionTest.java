@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2014 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test
+public class ReflectionExceptionTest {
+
+    public void testWithoutStackTrace() {
+        ReflectionException exception = ReflectionException.withoutStackTrace(null, "Test", "Me");
+        Assert.assertEquals(exception.getStackTrace().length, 0);
+        Assert.assertEquals(exception.getMessage(), "TestMe");
+    }
+
+    public void testMessageIsBuiltLazily() {
+        StringBuilder part = new StringBuilder("Test");
+        ReflectionException exception = ReflectionException.withoutStackTrace(null, part);
+        part.append("Me");
+        Assert.assertEquals(exception.getMessage(), "TestMe");
+    }
+
+    public void testMessageIsBuiltOnce() {
+        StringBuilder part = new StringBuilder("Test");
+        ReflectionException exception = ReflectionException.withoutStackTrace(null, part, "Me");
+        String message = exception.getMessage();
+        part.append("Changed");
+        Assert.assertSame(exception.getMessage(), message);
+    }
+
+    public void testMessageSurvivesSerialization() throws IOException, ClassNotFoundException {
+        ReflectionException exception = ReflectionException.withoutStackTrace(null, "Test", "Me");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(exception);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Assert.assertEquals(((ReflectionException)in.readObject()).getMessage(), "TestMe");
+        }
+    }
+
+    public void testWithoutStackTraceKeepsCause() {
+        IllegalStateException cause = new IllegalStateException();
+        Assert.assertSame(ReflectionException.withoutStackTrace(cause, "TestMe").getCause(), cause);
+    }
+
+    public void testMessage() {
+        Assert.assertEquals(new ReflectionException("TestMe").getMessage(), "TestMe");
+    }
+
+}
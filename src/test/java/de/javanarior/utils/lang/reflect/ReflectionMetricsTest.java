@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.javanarior.utils.lang.ByteCodeClassLoader;
+import de.javanarior.utils.lang.reflect.ReflectionMetrics.Operation;
+
+/**
+ * Asserts exact counts of the global {@link ReflectionMetrics}, so no other
+ * test may run at the same time. The surefire configuration runs this class
+ * in a separate execution after the parallel run of the other tests.
+ */
+@Test(singleThreaded = true)
+public class ReflectionMetricsTest {
+
+    @BeforeMethod
+    public void enable() {
+        ReflectionMetrics.reset();
+        ReflectionMetrics.setEnabled(true);
+    }
+
+    @AfterMethod
+    public void disable() {
+        ReflectionMetrics.setEnabled(false);
+        ReflectionMetrics.reset();
+    }
+
+    public void testCalls() {
+        Invoke.invoke(new StringBuilder("TestMe"), "reverse");
+        Invoke.invokeStatic(String.class, "valueOf", 42);
+        OperationStatistics statistics = ReflectionMetrics.snapshot().getOperation(Operation.INVOKE);
+        Assert.assertEquals(statistics.getOperation(), Operation.INVOKE);
+        Assert.assertEquals(statistics.getCallCount(), 2);
+        Assert.assertEquals(statistics.getMissCount(), 0);
+        Assert.assertEquals(statistics.getFailureCount(), 0);
+        Assert.assertTrue(statistics.getTotalNanos() >= 0);
+    }
+
+    public void testMisses() {
+        Assert.assertSame(Invoke.tryInvoke(new StringBuilder(), "unknown"), Invoke.ABSENT);
+        Assert.assertNull(Invoke.tryInstantiator(StringBuilder.class, Thread.class));
+        Assert.assertNotNull(Invoke.tryInstantiator(StringBuilder.class));
+        ReflectionMetrics snapshot = ReflectionMetrics.snapshot();
+        Assert.assertEquals(snapshot.getOperation(Operation.INVOKE).getMissCount(), 1);
+        Assert.assertEquals(snapshot.getOperation(Operation.INSTANTIATOR).getCallCount(), 2);
+        Assert.assertEquals(snapshot.getOperation(Operation.INSTANTIATOR).getMissCount(), 1);
+    }
+
+    public void testFailures() {
+        try {
+            Invoke.invoke(new StringBuilder(), "unknown");
+            Assert.fail("ReflectionException expected");
+        } catch (ReflectionException expected) {
+            // counted as failure
+        }
+        OperationStatistics statistics = ReflectionMetrics.snapshot().getOperation(Operation.INVOKE);
+        Assert.assertEquals(statistics.getCallCount(), 1);
+        Assert.assertEquals(statistics.getFailureCount(), 1);
+    }
+
+    public void testDelegatingMethodsAreCountedOnce() {
+        Invoke.invokeConstructor(StringBuilder.class, String.class, "TestMe");
+        Invoke.invokeMethod(new StringBuilder(), "length", new Class<?>[0], new Object[0]);
+        Retrieve.annotationValueOnMethod(Testeria.class, Annotated.class, "annotated");
+        ReflectionMetrics snapshot = ReflectionMetrics.snapshot();
+        Assert.assertEquals(snapshot.getOperation(Operation.INVOKE_CONSTRUCTOR).getCallCount(), 1);
+        Assert.assertEquals(snapshot.getOperation(Operation.INSTANTIATOR).getCallCount(), 0);
+        Assert.assertEquals(snapshot.getOperation(Operation.INVOKE_METHOD).getCallCount(), 1);
+        Assert.assertEquals(snapshot.getOperation(Operation.METHOD_INVOKER).getCallCount(), 0);
+        Assert.assertEquals(snapshot.getOperation(Operation.ANNOTATION_VALUE_ON_METHOD).getCallCount(), 1);
+    }
+
+    public void testPrimitiveResults() {
+        Assert.assertEquals(Retrieve.intAnnotationValueOnClass(Counted.class, "value", Annotated.class), 3);
+        Assert.assertEquals(ReflectionMetrics.snapshot().getOperation(Operation.ANNOTATION_VALUE_ON_CLASS)
+                        .getCallCount(), 1);
+    }
+
+    public void testDisabled() {
+        ReflectionMetrics.setEnabled(false);
+        Invoke.invoke(new StringBuilder("TestMe"), "reverse");
+        Assert.assertFalse(ReflectionMetrics.isEnabled());
+        Assert.assertEquals(ReflectionMetrics.snapshot().getOperation(Operation.INVOKE).getCallCount(), 0);
+    }
+
+    public void testReset() {
+        Invoke.invoke(new StringBuilder("TestMe"), "reverse");
+        ReflectionMetrics.reset();
+        Assert.assertEquals(ReflectionMetrics.snapshot().getOperation(Operation.INVOKE).getCallCount(), 0);
+    }
+
+    public void testSnapshot() {
+        ReflectionMetrics snapshot = ReflectionMetrics.snapshot();
+        Assert.assertEquals(snapshot.getOperations().size(), Operation.values().length);
+        Assert.assertNotNull(snapshot.getConstructorCache());
+        Assert.assertNotNull(snapshot.getMethodCache());
+        Assert.assertNotNull(snapshot.getOverloadCache());
+        Assert.assertNotNull(snapshot.getFieldAccessorCache());
+        Assert.assertTrue(snapshot.getDefinedClassCount() <= ByteCodeClassLoader.getClassLoader()
+                        .getDefinedClassCount());
+    }
+
+    public void testMBean() throws Exception {
+        ReflectionMetrics.registerMBean();
+        try {
+            ReflectionMetrics.registerMBean();
+            Invoke.invoke(new StringBuilder("TestMe"), "reverse");
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(ReflectionMetrics.OBJECT_NAME);
+            Assert.assertEquals(server.getAttribute(name, "Enabled"), Boolean.TRUE);
+            CompositeData[] operations = (CompositeData[])server.getAttribute(name, "Operations");
+            CompositeData invoke = operations[Operation.INVOKE.ordinal()];
+            Assert.assertEquals(invoke.get("operation"), Operation.INVOKE.name());
+            Assert.assertEquals(invoke.get("callCount"), Long.valueOf(1L));
+            CompositeData methodCache = (CompositeData)server.getAttribute(name, "MethodCache");
+            Assert.assertNotNull(methodCache.get("hitRate"));
+            Assert.assertTrue(server.getAttribute(name, "DefinedClassCount") instanceof Long);
+        } finally {
+            ReflectionMetrics.unregisterMBean();
+        }
+        Assert.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(
+                        new ObjectName(ReflectionMetrics.OBJECT_NAME)));
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Counted {
+        int value();
+    }
+
+    @Counted(3)
+    public static class Annotated {
+
+        @Testeria("annotated")
+        public void annotated() {
+            // only used for the annotation
+        }
+    }
+
+}
@@ -17,9 +17,23 @@ package de.javanarior.utils.lang.reflect;
 
 import static de.javanarior.utils.lang.reflect.Retrieve.annotationValueOnMethod;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.annotation.Resource;
 
@@ -235,6 +249,146 @@ public class RetrieveTest {
         }
     }
 
+    @Test
+    public void testTryAnnotationValueOnClass() {
+        assertThat((String)Retrieve.tryAnnotationValueOnClass(Resource.class, "name", RetrieveTest.class),
+                        is("RetrieveTest"));
+        assertThat(Retrieve.tryAnnotationValueOnClass(Resource.class, "wrongName", RetrieveTest.class),
+                        nullValue());
+        assertThat(Retrieve.tryAnnotationValueOnClass(Test.class, "groups", RetrieveTest.class), nullValue());
+    }
+
+    @Test
+    public void testTryAnnotationValueOnMethod() throws NoSuchMethodException {
+        Method method = RetrieveTest.class.getMethod("testTryAnnotationValueOnMethod");
+        assertThat(Retrieve.tryAnnotationValueOnMethod(Test.class, method, "enabled"), is((Object)Boolean.TRUE));
+        assertThat(Retrieve.tryAnnotationValueOnMethod(Resource.class, method, "name"), nullValue());
+    }
+
+    @Test
+    public void testAnnotationValueOnParameterByName() {
+        Object attributeValue = Retrieve.annotationValueOnParameter(Testeria.class, RetrieveTest.class,
+                        "methodForTestingPurposeParameterNames", "second", String.class, String.class);
+        assertThat((String)attributeValue, is("onSecond"));
+        attributeValue = Retrieve.annotationValueOnParameter(Testeria.class, RetrieveTest.class,
+                        "methodForTestingPurposeParameterNames", "first", String.class, String.class);
+        assertThat((String)attributeValue, is("onFirst"));
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testAnnotationValueOnParameterWithUnknownName() {
+        Retrieve.annotationValueOnParameter(Testeria.class, RetrieveTest.class,
+                        "methodForTestingPurposeParameterNames", "third", String.class, String.class);
+    }
+
+    @Test
+    public void testTryAnnotationValueOnParameter() {
+        assertThat((String)Retrieve.tryAnnotationValueOnParameter(Testeria.class, "value", RetrieveTest.class,
+                        "methodForTestingPurposeParameterNames", "second", String.class, String.class), is("onSecond"));
+        assertThat(Retrieve.tryAnnotationValueOnParameter(Testeria.class, "value", RetrieveTest.class,
+                        "methodForTestingPurposeParameterNames", "third", String.class, String.class), nullValue());
+        assertThat(Retrieve.tryAnnotationValueOnParameter(Resource.class, "name", RetrieveTest.class,
+                        "methodForTestingPurpuseParameter", "unused"), nullValue());
+        assertThat(Retrieve.tryAnnotationValueOnParameter(Testeria.class, "wrongName", RetrieveTest.class,
+                        "methodForTestingPurpuseParameter", "unused"), nullValue());
+        assertThat(Retrieve.tryAnnotationValueOnParameter(Testeria.class, "value", RetrieveTest.class,
+                        "wrongMethodName", "unused"), nullValue());
+    }
+
+    @Test
+    public void testAnnotationValuesOnClasses() {
+        List<Class<?>> classes = Arrays.<Class<?>> asList(String.class, RetrieveTest.class);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        Map<Class<?>, Map<Class<? extends Annotation>, AnnotationValues>> values = Retrieve.annotationValuesOnClasses(
+                        pool, classes, Resource.class, Testeria.class);
+        pool.shutdown();
+        assertThat(values.keySet(), contains((Object)RetrieveTest.class));
+        assertThat(values.get(RetrieveTest.class).get(Resource.class).get("name"), is((Object)"RetrieveTest"));
+        assertThat(values.get(RetrieveTest.class).get(Testeria.class).get("value"), is((Object)"attributeValue"));
+    }
+
+    @Test
+    public void testAnnotationValuesOnClassesInParallel() {
+        List<Class<?>> classes = new ArrayList<>();
+        // array classes are distinct classes without annotations
+        for (int dimensions = 1; dimensions <= 100; dimensions++) {
+            classes.add(Array.newInstance(Object.class, new int[dimensions]).getClass());
+        }
+        classes.add(50, RetrieveTest.class);
+        classes.add(AnnotationIndexTest.class);
+        Map<Class<?>, Map<Class<? extends Annotation>, AnnotationValues>> values = Retrieve.annotationValuesOnClasses(2,
+                        classes, Resource.class);
+        assertThat(values.keySet(), contains((Object)RetrieveTest.class, AnnotationIndexTest.class));
+        assertThat(values.get(AnnotationIndexTest.class).get(Resource.class).get("name"),
+                        is((Object)"AnnotationIndexTest"));
+    }
+
+    @Test
+    public void testAnnotationValuesOnMethods() throws NoSuchMethodException {
+        MethodSelector polymorphism = new MethodSelector() {
+            @Override
+            public boolean select(Method method) {
+                return method.getName().equals("methodForTestingPurposePolymorphism");
+            }
+        };
+        Map<Method, Map<Class<? extends Annotation>, AnnotationValues>> values = Retrieve.annotationValuesOnMethods(1,
+                        Arrays.<Class<?>> asList(RetrieveTest.class), polymorphism, Resource.class);
+        Method withString = RetrieveTest.class.getMethod("methodForTestingPurposePolymorphism", String.class);
+        assertThat(values.size(), is(2));
+        assertThat(values.get(withString).get(Resource.class).get("name"), is((Object)"attributeValueString"));
+        values = Retrieve.annotationValuesOnMethods(1, Arrays.<Class<?>> asList(RetrieveTest.class),
+                        MethodSelector.ALL, Testeria.class);
+        assertThat(values.keySet(), hasItem(RetrieveTest.class.getMethod("testAnnotationValueOnMethodWithDefault")));
+        assertThat(values.keySet(), not(hasItem(withString)));
+    }
+
+    @Test
+    public void testTypedAnnotationValueOnClass() {
+        assertThat(Retrieve.intAnnotationValueOnClass(AnnotationAttributeReaderTest.Tagged.class, "priority",
+                        AnnotationAttributeReaderTest.class), is(1000));
+        assertThat(Retrieve.longAnnotationValueOnClass(AnnotationAttributeReaderTest.Tagged.class, "size",
+                        AnnotationAttributeReaderTest.class), is(1L << 40));
+        assertThat(Retrieve.booleanAnnotationValueOnClass(AnnotationAttributeReaderTest.Tagged.class, "active",
+                        AnnotationAttributeReaderTest.class), is(true));
+        assertThat(Retrieve.typedAnnotationValueOnClass(AnnotationAttributeReaderTest.Tagged.class, "names",
+                        AnnotationAttributeReaderTest.class, String[].class), is(new String[] { "first", "second" }));
+        assertThat(Retrieve.typedAnnotationValueOnClass(Resource.class, "name", RetrieveTest.class, String.class),
+                        is("RetrieveTest"));
+    }
+
+    @Test
+    public void testTypedAnnotationValueOnMethod() throws NoSuchMethodException {
+        Method method = RetrieveTest.class.getMethod("methodForTestingPurposeTyped");
+        Class<AnnotationAttributeReaderTest.Tagged> tagged = AnnotationAttributeReaderTest.Tagged.class;
+        assertThat(Retrieve.intAnnotationValueOnMethod(tagged, method, "priority"), is(7));
+        assertThat(Retrieve.longAnnotationValueOnMethod(tagged, method, "size"), is(0L));
+        assertThat(Retrieve.booleanAnnotationValueOnMethod(tagged, method, "active"), is(false));
+        assertThat(Retrieve.typedAnnotationValueOnMethod(tagged, method, "kind", ElementType.class),
+                        is(ElementType.FIELD));
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testTypedAnnotationValueOnClassWithWrongType() {
+        Retrieve.intAnnotationValueOnClass(Resource.class, "name", RetrieveTest.class);
+    }
+
+    @Test(expectedExceptions = ReflectionException.class)
+    public void testTypedAnnotationValueOnClassAnnotationIsMissing() {
+        Retrieve.intAnnotationValueOnClass(AnnotationAttributeReaderTest.Tagged.class, "priority",
+                        RetrieveTest.class);
+    }
+
+    @AnnotationAttributeReaderTest.Tagged(names = {}, numbers = {}, priority = 7, active = false,
+                    kind = ElementType.FIELD)
+    public void methodForTestingPurposeTyped() {
+
+    }
+
+    public void methodForTestingPurposeParameterNames(@Testeria("onFirst") String first,
+                    @Testeria("onSecond") String second) {
+
+    }
+
     public void methodForTestingPurpuseParameter(@Testeria("attributeValueOnParameter") String unused) {
 
     }
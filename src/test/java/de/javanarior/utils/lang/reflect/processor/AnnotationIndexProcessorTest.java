@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2015 Sven von Pluto - javanarior (a) gmail dot com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.javanarior.utils.lang.reflect.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import de.javanarior.utils.lang.reflect.AnnotationIndex;
+import de.javanarior.utils.lang.reflect.GeneratedAnnotationIndex;
+import de.javanarior.utils.lang.reflect.Retrieve;
+
+@Test
+public class AnnotationIndexProcessorTest {
+
+    private static final String[] VALUES = {
+        "package generated;",
+        "import java.lang.annotation.*;",
+        "@Retention(RetentionPolicy.RUNTIME)",
+        "@interface Values {",
+        "    String text();",
+        "    char letter() default 'x';",
+        "    byte small() default 0;",
+        "    long big() default 0L;",
+        "    float ratio() default 0f;",
+        "    int[] numbers() default {};",
+        "    ElementType kind() default ElementType.TYPE;",
+        "    Class<?> type() default Object.class;",
+        "}" };
+
+    private static final String[] ANNOTATED = {
+        "package generated;",
+        "import java.lang.annotation.ElementType;",
+        "@Values(text = \"quote \\\" backslash \\\\ tab \\t umlaut \\u00e4\", letter = '\\'', small = -3,",
+        "        big = 1L << 40, ratio = 0.5f, numbers = { 1, 2 }, kind = ElementType.METHOD, type = String[].class)",
+        "@Deprecated",
+        "public class Annotated {",
+        "    @Values(text = \"onMethod\")",
+        "    public void run(String first, @Values(text = \"onParameter\") String second) {",
+        "    }",
+        "    public void plain(long number) {",
+        "    }",
+        "}" };
+
+    private static final String[] NESTED = {
+        "package generated;",
+        "import java.lang.annotation.*;",
+        "@Retention(RetentionPolicy.RUNTIME)",
+        "@interface Wrapper {",
+        "    Values value();",
+        "}",
+        "@Wrapper(@Values(text = \"nested\"))",
+        "class WithNested {",
+        "}" };
+
+    private static final String[] TYPED = {
+        "package other;",
+        "import java.lang.annotation.*;",
+        "@Retention(RetentionPolicy.RUNTIME)",
+        "public @interface Typed {",
+        "    Class<?> value() default Hidden.class;",
+        "}",
+        "class Hidden {",
+        "}" };
+
+    private static final String[] HIDDEN_DEFAULT = {
+        "package generated;",
+        "@other.Typed",
+        "public class WithHiddenDefault {",
+        "}" };
+
+    private URLClassLoader classLoader;
+
+    @BeforeClass
+    public void compile() throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new SkipException("No java compiler available");
+        }
+        Path sources = Files.createTempDirectory("sources");
+        Path classes = Files.createTempDirectory("classes");
+        Files.write(sources.resolve("Values.java"), Arrays.asList(VALUES), StandardCharsets.UTF_8);
+        Files.write(sources.resolve("Annotated.java"), Arrays.asList(ANNOTATED), StandardCharsets.UTF_8);
+        Files.write(sources.resolve("WithNested.java"), Arrays.asList(NESTED), StandardCharsets.UTF_8);
+        Files.write(sources.resolve("Typed.java"), Arrays.asList(TYPED), StandardCharsets.UTF_8);
+        Files.write(sources.resolve("WithHiddenDefault.java"), Arrays.asList(HIDDEN_DEFAULT), StandardCharsets.UTF_8);
+        String mainClasses = new File(GeneratedAnnotationIndex.class.getProtectionDomain().getCodeSource()
+                        .getLocation().getPath()).getPath();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+            CompilationTask task = compiler.getTask(null, fileManager, null,
+                            Arrays.asList("-g:none", "-classpath", mainClasses, "-d", classes.toString()), null,
+                            fileManager.getJavaFileObjects(sources.resolve("Values.java").toFile(),
+                                            sources.resolve("Annotated.java").toFile(),
+                                            sources.resolve("WithNested.java").toFile(),
+                                            sources.resolve("Typed.java").toFile(),
+                                            sources.resolve("WithHiddenDefault.java").toFile()));
+            task.setProcessors(Arrays.asList(new AnnotationIndexProcessor()));
+            Assert.assertTrue(task.call().booleanValue());
+        }
+        classLoader = new URLClassLoader(new URL[] { classes.toUri().toURL() },
+                        AnnotationIndexProcessorTest.class.getClassLoader());
+    }
+
+    public void testIndexIsGenerated() {
+        Assert.assertNotNull(classLoader.getResource("generated/Annotated$$AnnotationIndex.class"));
+        Assert.assertNull(classLoader.getResource("generated/WithNested$$AnnotationIndex.class"));
+    }
+
+    public void testPackagePrivateClassOfOtherPackageIsNotIndexed() throws ClassNotFoundException {
+        Assert.assertNull(classLoader.getResource("generated/WithHiddenDefault$$AnnotationIndex.class"));
+        Class<?> annotated = classLoader.loadClass("generated.WithHiddenDefault");
+        Class<? extends Annotation> typed = classLoader.loadClass("other.Typed").asSubclass(Annotation.class);
+        Assert.assertEquals(((Class<?>)Retrieve.annotationValueOnClass(typed, "value", annotated)).getName(),
+                        "other.Hidden");
+    }
+
+    public void testClassAnnotation() throws ClassNotFoundException {
+        Class<?> annotated = classLoader.loadClass("generated.Annotated");
+        Class<? extends Annotation> values = annotationType();
+        Assert.assertEquals(Retrieve.annotationValueOnClass(values, "text", annotated),
+                        "quote \" backslash \\ tab \t umlaut \u00e4");
+        Assert.assertEquals(Retrieve.annotationValueOnClass(values, "letter", annotated), Character.valueOf('\''));
+        Assert.assertEquals(Retrieve.annotationValueOnClass(values, "small", annotated), Byte.valueOf((byte)-3));
+        Assert.assertEquals(Retrieve.annotationValueOnClass(values, "big", annotated), Long.valueOf(1L << 40));
+        Assert.assertEquals(Retrieve.annotationValueOnClass(values, "ratio", annotated), Float.valueOf(0.5f));
+        Assert.assertEquals((int[])Retrieve.annotationValueOnClass(values, "numbers", annotated), new int[] { 1, 2 });
+        Assert.assertEquals(Retrieve.annotationValueOnClass(values, "kind", annotated), ElementType.METHOD);
+        Assert.assertEquals(Retrieve.annotationValueOnClass(values, "type", annotated), String[].class);
+        Assert.assertNotNull(AnnotationIndex.of(annotated).classAnnotation(Deprecated.class));
+    }
+
+    public void testAnnotationIsLookedUpOnRequest() throws ClassNotFoundException {
+        Class<?> annotated = classLoader.loadClass("generated.Annotated");
+        Annotation annotation = AnnotationIndex.of(annotated).classAnnotation(annotationType()).getAnnotation();
+        Assert.assertEquals(annotation.annotationType(), annotationType());
+    }
+
+    public void testMethodAndParameterAnnotations() throws ReflectiveOperationException {
+        Class<?> annotated = classLoader.loadClass("generated.Annotated");
+        Method run = annotated.getMethod("run", String.class, String.class);
+        Assert.assertEquals(Retrieve.annotationValueOnMethod(annotationType(), run, "text"), "onMethod");
+        // compiled without debug information, the names are taken from the index
+        Assert.assertEquals(AnnotationIndex.of(annotated).parameterNames(run), new String[] { "first", "second" });
+        Assert.assertEquals(Retrieve.annotationValueOnParameter(annotationType(), "text", annotated, "run", "second",
+                        String.class, String.class), "onParameter");
+        Method plain = annotated.getMethod("plain", long.class);
+        Assert.assertEquals(AnnotationIndex.of(annotated).parameterNames(plain), new String[] { "number" });
+        Assert.assertNull(AnnotationIndex.of(annotated).methodAnnotation(plain, annotationType()));
+    }
+
+    private Class<? extends Annotation> annotationType() throws ClassNotFoundException {
+        return classLoader.loadClass("generated.Values").asSubclass(Annotation.class);
+    }
+
+}